@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.ComponentAccess;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.rendering.logic.LightComponent;
+import org.terasology.world.block.BlockComponent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ */
+public class UpdateSubscriberSchedulerTest {
+
+    private UpdateSubscriberScheduler scheduler;
+    private EventSystem eventSystem;
+
+    @Before
+    public void setUp() {
+        scheduler = new UpdateSubscriberScheduler(2);
+        eventSystem = mock(EventSystem.class);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testUndeclaredSystemsAreSerial() {
+        UpdateSubscriberSystem first = new UndeclaredSystem();
+        UpdateSubscriberSystem second = new UndeclaredSystem();
+        scheduler.add(first);
+        scheduler.add(second);
+
+        assertEquals(Arrays.asList(Collections.singletonList(first), Collections.singletonList(second)), scheduler.getSchedule());
+    }
+
+    @Test
+    public void testReadersShareStage() {
+        UpdateSubscriberSystem first = new LocationReader();
+        UpdateSubscriberSystem second = new LocationReaderLightWriter();
+        scheduler.add(first);
+        scheduler.add(second);
+
+        assertEquals(Collections.singletonList(Arrays.asList(first, second)), scheduler.getSchedule());
+    }
+
+    @Test
+    public void testConflictingWriterStartsNewStage() {
+        UpdateSubscriberSystem reader = new LocationReader();
+        UpdateSubscriberSystem writer = new LocationWriter();
+        UpdateSubscriberSystem other = new BlockWriter();
+        scheduler.add(reader);
+        scheduler.add(writer);
+        scheduler.add(other);
+
+        assertEquals(Arrays.asList(Collections.singletonList(reader), Arrays.asList(writer, other)), scheduler.getSchedule());
+    }
+
+    @Test
+    public void testUndeclaredSystemIsBarrier() {
+        UpdateSubscriberSystem first = new LocationReader();
+        UpdateSubscriberSystem barrier = new UndeclaredSystem();
+        UpdateSubscriberSystem second = new BlockWriter();
+        scheduler.add(first);
+        scheduler.add(barrier);
+        scheduler.add(second);
+
+        assertEquals(3, scheduler.getSchedule().size());
+    }
+
+    @Test
+    public void testParallelStageRunsConcurrentlyAndFlushesEvents() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        List<Boolean> results = Collections.synchronizedList(Lists.newArrayList());
+        scheduler.add(new AwaitingLocationReader(bothRunning, results));
+        scheduler.add(new AwaitingBlockWriter(bothRunning, results));
+
+        scheduler.update(0.1f, eventSystem);
+
+        assertEquals(Arrays.asList(true, true), results);
+        verify(eventSystem, times(1)).process();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailureInParallelStageIsRethrown() {
+        scheduler.add(new LocationReader());
+        scheduler.add(new FailingBlockWriter());
+
+        scheduler.update(0.1f, eventSystem);
+    }
+
+    private static class UndeclaredSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+        @Override
+        public void update(float delta) {
+        }
+    }
+
+    @ComponentAccess(reads = LocationComponent.class)
+    private static class LocationReader extends UndeclaredSystem {
+    }
+
+    @ComponentAccess(reads = LocationComponent.class, writes = LightComponent.class)
+    private static class LocationReaderLightWriter extends UndeclaredSystem {
+    }
+
+    @ComponentAccess(writes = LocationComponent.class)
+    private static class LocationWriter extends UndeclaredSystem {
+    }
+
+    @ComponentAccess(writes = BlockComponent.class)
+    private static class BlockWriter extends UndeclaredSystem {
+    }
+
+    @ComponentAccess(writes = BlockComponent.class)
+    private static class FailingBlockWriter extends UndeclaredSystem {
+        @Override
+        public void update(float delta) {
+            throw new IllegalStateException();
+        }
+    }
+
+    @ComponentAccess(reads = LocationComponent.class)
+    private static class AwaitingLocationReader extends UndeclaredSystem {
+        private final CountDownLatch latch;
+        private final List<Boolean> results;
+
+        AwaitingLocationReader(CountDownLatch latch, List<Boolean> results) {
+            this.latch = latch;
+            this.results = results;
+        }
+
+        @Override
+        public void update(float delta) {
+            latch.countDown();
+            try {
+                results.add(latch.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @ComponentAccess(writes = BlockComponent.class)
+    private static class AwaitingBlockWriter extends AwaitingLocationReader {
+        AwaitingBlockWriter(CountDownLatch latch, List<Boolean> results) {
+            super(latch, results);
+        }
+    }
+}
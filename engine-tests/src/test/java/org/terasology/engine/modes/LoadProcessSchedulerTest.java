@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.modes.loadProcesses.EnsureSaveGameConsistency;
+import org.terasology.engine.modes.loadProcesses.InitialisePhysics;
+import org.terasology.engine.modes.loadProcesses.SingleStepLoadProcess;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.generator.WorldGenerator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class LoadProcessSchedulerTest {
+
+    private LoadProcessScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testUndeclaredProcessesAreSerial() {
+        LoadProcess first = new UndeclaredProcess();
+        LoadProcess second = new UndeclaredProcess();
+        scheduler = new LoadProcessScheduler(Arrays.asList(first, second), 1);
+
+        assertEquals(Arrays.asList(Collections.singletonList(first), Arrays.asList(second, first)), scheduler.getDependencies());
+    }
+
+    @Test
+    public void testIndependentProcessesDontWait() {
+        LoadProcess first = new BlockManagerConsumer();
+        LoadProcess second = new WorldGeneratorProducer();
+        scheduler = new LoadProcessScheduler(Arrays.asList(first, second), 1);
+
+        assertEquals(Arrays.asList(Collections.singletonList(first), Collections.singletonList(second)), scheduler.getDependencies());
+    }
+
+    @Test
+    public void testConsumerWaitsForProducer() {
+        LoadProcess consumer = new BlockManagerConsumer();
+        LoadProcess producer = new BlockManagerProducer();
+        LoadProcess barrier = new UndeclaredProcess();
+        LoadProcess independent = new WorldGeneratorProducer();
+        scheduler = new LoadProcessScheduler(Arrays.asList(consumer, producer, barrier, independent), 1);
+
+        List<List<LoadProcess>> dependencies = scheduler.getDependencies();
+        assertEquals(Arrays.asList(producer, consumer), dependencies.get(1));
+        assertEquals(Arrays.asList(independent, barrier), dependencies.get(3));
+    }
+
+    @Test
+    public void testBackgroundProcessRunsAlongsideMainThread() throws InterruptedException {
+        CountDownLatch mainThreadDone = new CountDownLatch(1);
+        BackgroundProcess background = new BackgroundProcess(mainThreadDone);
+        scheduler = new LoadProcessScheduler(Arrays.asList(background, new CountingDownProcess(mainThreadDone)), 1);
+
+        runToCompletion();
+
+        assertTrue(background.sawMainThreadDone);
+        assertEquals(1f, scheduler.getProgress(), 0.0001f);
+    }
+
+    @Test
+    public void testMainThreadWaitsForBackgroundDependency() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BackgroundProcess background = new BackgroundProcess(release);
+        scheduler = new LoadProcessScheduler(Arrays.asList(background, new BlockManagerProducer()), 1);
+
+        assertFalse(scheduler.step());
+        assertEquals(background.getMessage(), scheduler.getMessage());
+        release.countDown();
+
+        runToCompletion();
+    }
+
+    @Test
+    public void testBackgroundProcessBeginsOnMainThread() throws InterruptedException {
+        BackgroundProcess background = new BackgroundProcess(new CountDownLatch(0));
+        scheduler = new LoadProcessScheduler(Collections.singletonList(background), 1);
+
+        runToCompletion();
+
+        assertEquals(Thread.currentThread(), background.beginThread);
+    }
+
+    @Test
+    public void testSaveRepairRunsAlongsidePhysicsInitialisation() {
+        ContextImpl context = new ContextImpl();
+        LoadProcess repair = new EnsureSaveGameConsistency(context);
+        LoadProcess physics = new InitialisePhysics(context);
+        scheduler = new LoadProcessScheduler(Arrays.asList(repair, physics), 1);
+
+        assertEquals(Collections.singletonList(physics), scheduler.getDependencies().get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBackgroundFailureIsRethrown() throws Throwable {
+        scheduler = new LoadProcessScheduler(Collections.singletonList(new FailingBackgroundProcess()), 1);
+        try {
+            runToCompletion();
+        } catch (RuntimeException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void runToCompletion() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!scheduler.isFinished()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            if (!scheduler.step()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static class UndeclaredProcess extends SingleStepLoadProcess {
+        @Override
+        public String getMessage() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public boolean step() {
+            return true;
+        }
+
+        @Override
+        public int getExpectedCost() {
+            return 1;
+        }
+    }
+
+    @LoadDependencies(consumes = BlockManager.class)
+    private static class BlockManagerConsumer extends UndeclaredProcess {
+    }
+
+    @LoadDependencies(produces = BlockManager.class)
+    private static class BlockManagerProducer extends UndeclaredProcess {
+    }
+
+    @LoadDependencies(produces = WorldGenerator.class)
+    private static class WorldGeneratorProducer extends UndeclaredProcess {
+    }
+
+    @LoadDependencies(produces = WorldGenerator.class)
+    private static class CountingDownProcess extends UndeclaredProcess {
+        private final CountDownLatch latch;
+
+        CountingDownProcess(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public boolean step() {
+            latch.countDown();
+            return true;
+        }
+    }
+
+    @LoadDependencies(consumes = BlockManager.class, background = true)
+    private static class BackgroundProcess extends UndeclaredProcess {
+        private final CountDownLatch latch;
+        private volatile boolean sawMainThreadDone;
+        private volatile Thread beginThread;
+
+        BackgroundProcess(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void begin() {
+            beginThread = Thread.currentThread();
+        }
+
+        @Override
+        public boolean step() {
+            try {
+                sawMainThreadDone = latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+
+    @LoadDependencies(background = true)
+    private static class FailingBackgroundProcess extends UndeclaredProcess {
+        @Override
+        public boolean step() {
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.module;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.reflections.util.ConfigurationBuilder;
+import org.terasology.module.Module;
+import org.terasology.naming.Name;
+import org.terasology.naming.Version;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ModuleClassIndexTest {
+    private static final String SUB_TYPES = "SubTypesScanner";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path indexDirectory;
+    private Path moduleFile;
+
+    @Before
+    public void setup() throws IOException {
+        indexDirectory = temporaryFolder.getRoot().toPath().resolve("index");
+        moduleFile = temporaryFolder.newFile("module.jar").toPath();
+        Files.write(moduleFile, new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testIndexIsSavedAndLoaded() {
+        Module module = mockModule("test", "1.0.0");
+        Reflections scanned = new ModuleClassIndex(indexDirectory).getReflections(module);
+
+        Reflections loaded = new ModuleClassIndex(indexDirectory).getReflections(module);
+
+        assertNotSame(scanned, loaded);
+        assertTrue(loaded.getStore().get(SUB_TYPES).containsEntry("org.example.Base", "org.example.Impl"));
+        verify(module, times(1)).getReflectionsFragment();
+    }
+
+    @Test
+    public void testChangedModuleIsScannedAgain() throws IOException {
+        Module module = mockModule("test", "1.0.0");
+        new ModuleClassIndex(indexDirectory).getReflections(module);
+
+        Files.write(moduleFile, new byte[]{1, 2, 3, 4});
+        Reflections result = new ModuleClassIndex(indexDirectory).getReflections(module);
+
+        assertSame(module.getReflectionsFragment(), result);
+        // Once for each scan, and once above
+        verify(module, times(3)).getReflectionsFragment();
+    }
+
+    @Test
+    public void testIndicesOfOtherVersionsAreDeleted() {
+        ModuleClassIndex classIndex = new ModuleClassIndex(indexDirectory);
+        classIndex.getReflections(mockModule("test", "1.0.0"));
+        classIndex.getReflections(mockModule("test-extras", "1.0.0"));
+
+        classIndex.getReflections(mockModule("test", "1.1.0-SNAPSHOT"));
+
+        assertFalse(Files.exists(indexDirectory.resolve("test-1.0.0.index.json")));
+        assertTrue(Files.exists(indexDirectory.resolve("test-1.1.0-SNAPSHOT.index.json")));
+        assertTrue(Files.exists(indexDirectory.resolve("test-extras-1.0.0.index.json")));
+    }
+
+    private Module mockModule(String id, String version) {
+        Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners());
+        reflections.getStore().getOrCreate(SUB_TYPES).put("org.example.Base", "org.example.Impl");
+
+        Module module = mock(Module.class);
+        when(module.getId()).thenReturn(new Name(id));
+        when(module.getVersion()).thenReturn(new Version(version));
+        when(module.getLocations()).thenReturn(ImmutableList.of(moduleFile));
+        when(module.getReflectionsFragment()).thenReturn(reflections);
+        return module;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.internal.ComponentTable;
+import org.terasology.entitySystem.stubs.EntityRefComponent;
+import org.terasology.entitySystem.stubs.ForceBlockActiveComponent;
+import org.terasology.entitySystem.stubs.GetterSetterComponent;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.ListOfObjectComponent;
+import org.terasology.entitySystem.stubs.OwnerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ComponentTableTest {
+
+    private ComponentTable table;
+
+    @Before
+    public void setup() {
+        table = new ComponentTable();
+    }
+
+    @Test
+    public void testQueryOnlyReturnsEntitiesWithAllComponents() {
+        table.put(1, new StringComponent());
+        table.put(2, new StringComponent());
+        table.put(2, new IntegerComponent());
+        table.put(3, new IntegerComponent());
+
+        assertEquals(ids(2), collect(table.entityIdIterator(types(StringComponent.class, IntegerComponent.class))));
+        assertEquals(ids(1, 2), collect(table.entityIdIterator(types(StringComponent.class))));
+        assertEquals(1, table.getComponentCount(types(StringComponent.class, IntegerComponent.class)));
+        assertEquals(3, table.numEntities());
+    }
+
+    @Test
+    public void testCachedQueryFollowsComponentChanges() {
+        table.put(1, new StringComponent());
+        assertEquals(ids(), collect(table.entityIdIterator(types(StringComponent.class, IntegerComponent.class))));
+
+        table.put(1, new IntegerComponent());
+        assertEquals(ids(1), collect(table.entityIdIterator(types(StringComponent.class, IntegerComponent.class))));
+
+        table.remove(1, StringComponent.class);
+        assertEquals(ids(), collect(table.entityIdIterator(types(StringComponent.class, IntegerComponent.class))));
+        assertEquals(ids(1), collect(table.entityIdIterator(types(IntegerComponent.class))));
+
+        table.remove(1);
+        assertEquals(ids(), collect(table.entityIdIterator(types(IntegerComponent.class))));
+        assertEquals(0, table.numEntities());
+    }
+
+    @Test
+    public void testReplacingComponentKeepsEntityInQuery() {
+        table.put(1, new StringComponent());
+        table.put(1, new StringComponent());
+        assertEquals(1, table.getComponentCount(types(StringComponent.class)));
+        assertEquals(1, table.getComponentsInNewList(1).size());
+    }
+
+    @Test
+    public void testEntitiesChangedDuringIterationAreSkipped() {
+        table.put(1, new StringComponent());
+        table.put(2, new StringComponent());
+
+        TLongIterator iterator = table.entityIdIterator(types(StringComponent.class));
+        long first = iterator.next();
+        table.remove(first == 1 ? 2 : 1, StringComponent.class);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testEntityRemovedAfterNextIsSkipped() {
+        table.put(1, new StringComponent());
+        table.put(2, new StringComponent());
+        table.put(3, new StringComponent());
+
+        TLongIterator iterator = table.entityIdIterator(types(StringComponent.class));
+        TLongSet seen = new TLongHashSet();
+        while (iterator.hasNext()) {
+            long id = iterator.next();
+            seen.add(id);
+            for (long other = 1; other <= 3; other++) {
+                if (!seen.contains(other)) {
+                    table.remove(other);
+                }
+            }
+        }
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    public void testEmptyArchetypesArePruned() throws ReflectiveOperationException {
+        List<Class<? extends Component>> componentTypes = Arrays.asList(StringComponent.class, IntegerComponent.class,
+                OwnerComponent.class, EntityRefComponent.class, GetterSetterComponent.class,
+                ListOfObjectComponent.class, ForceBlockActiveComponent.class);
+        int entities = 1 << componentTypes.size();
+        for (long id = 1; id < entities; id++) {
+            for (int type = 0; type < componentTypes.size(); type++) {
+                if ((id & (1 << type)) != 0) {
+                    table.put(id, componentTypes.get(type).newInstance());
+                }
+            }
+        }
+        assertEquals(1, table.getComponentCount(types(StringComponent.class, IntegerComponent.class,
+                OwnerComponent.class, EntityRefComponent.class, GetterSetterComponent.class,
+                ListOfObjectComponent.class, ForceBlockActiveComponent.class)));
+        int archetypeCount = table.getArchetypeCount();
+
+        for (long id = 1; id < entities; id++) {
+            table.remove(id);
+        }
+        assertTrue(table.getArchetypeCount() < archetypeCount);
+        assertEquals(0, table.getComponentCount(types(StringComponent.class, IntegerComponent.class)));
+
+        table.put(1, new StringComponent());
+        table.put(1, new IntegerComponent());
+        assertEquals(ids(1), collect(table.entityIdIterator(types(StringComponent.class, IntegerComponent.class))));
+        assertEquals(1, table.getComponentCount(types(IntegerComponent.class, StringComponent.class)));
+    }
+
+    @Test
+    public void testRemoveAndReturnComponents() {
+        StringComponent stringComp = new StringComponent();
+        IntegerComponent intComp = new IntegerComponent();
+        table.put(1, stringComp);
+        table.put(1, intComp);
+
+        assertTrue(table.hasAll(1, types(StringComponent.class, IntegerComponent.class)));
+        assertEquals(2, table.removeAndReturnComponentsOf(1).size());
+        assertFalse(table.hasAll(1, types(StringComponent.class)));
+        assertEquals(0, table.getComponentCount(types(StringComponent.class)));
+    }
+
+    @SafeVarargs
+    private static Class<? extends Component>[] types(Class<? extends Component>... types) {
+        return types;
+    }
+
+    private static TLongSet ids(long... ids) {
+        return new TLongHashSet(ids);
+    }
+
+    private static TLongSet collect(TLongIterator iterator) {
+        TLongSet result = new TLongHashSet();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+}
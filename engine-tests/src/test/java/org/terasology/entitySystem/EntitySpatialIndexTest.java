@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.assets.AssetFactory;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.assets.module.ModuleAwareAssetTypeManager;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.prefab.Prefab;
+import org.terasology.entitySystem.prefab.PrefabData;
+import org.terasology.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.logic.location.Location;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.network.NetworkSystem;
+import org.terasology.recording.RecordAndReplayCurrentStatus;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EntitySpatialIndexTest {
+
+    private static Context context;
+    private EntityManager entityManager;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        context = new ContextImpl();
+        ModuleManager moduleManager = ModuleManagerFactory.create();
+        context.put(ModuleManager.class, moduleManager);
+        ModuleAwareAssetTypeManager assetTypeManager = new ModuleAwareAssetTypeManager();
+        assetTypeManager.registerCoreAssetType(Prefab.class,
+                (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, "prefabs");
+        assetTypeManager.switchEnvironment(moduleManager.getEnvironment());
+        context.put(AssetManager.class, assetTypeManager.getAssetManager());
+        context.put(RecordAndReplayCurrentStatus.class, new RecordAndReplayCurrentStatus());
+        CoreRegistry.setContext(context);
+    }
+
+    @Before
+    public void setup() {
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = context.get(EntityManager.class);
+    }
+
+    @Test
+    public void testRadiusQuery() {
+        EntityRef near = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        EntityRef edge = entityManager.create(new LocationComponent(new Vector3f(11, 2, 3)));
+        entityManager.create(new LocationComponent(new Vector3f(100, 2, 3)));
+        entityManager.create(new StringComponent("not located"));
+
+        assertEquals(Collections.singletonList(near), entityManager.getEntitiesWithin(new Vector3f(), 5));
+        assertSameEntities(Arrays.asList(near, edge), entityManager.getEntitiesWithin(new Vector3f(1, 2, 3), 10));
+    }
+
+    @Test
+    public void testAABBQueryAcrossChunks() {
+        EntityRef negative = entityManager.create(new LocationComponent(new Vector3f(-0.5f, -0.5f, -0.5f)));
+        EntityRef positive = entityManager.create(new LocationComponent(new Vector3f(40, 0, 0)));
+        entityManager.create(new LocationComponent(new Vector3f(40, 0, 60)));
+
+        AABB area = AABB.createMinMax(new Vector3f(-1, -1, -1), new Vector3f(50, 1, 1));
+        assertSameEntities(Arrays.asList(negative, positive), entityManager.getEntitiesWithin(area));
+    }
+
+    @Test
+    public void testChunkQuery() {
+        EntityRef inOrigin = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        EntityRef inNegative = entityManager.create(new LocationComponent(new Vector3f(-0.5f, 0, 0)));
+
+        assertEquals(Collections.singletonList(inOrigin), entityManager.getEntitiesInChunks(Region3i.createFromMinMax(Vector3i.zero(), Vector3i.zero())));
+        Vector3i negativeChunk = new Vector3i(-1, 0, 0);
+        assertEquals(Collections.singletonList(inNegative), entityManager.getEntitiesInChunks(Region3i.createFromMinMax(negativeChunk, negativeChunk)));
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        location.setWorldPosition(new Vector3f(500, 0, 0));
+        entity.saveComponent(location);
+
+        assertTrue(entityManager.getEntitiesWithin(new Vector3f(), 10).isEmpty());
+        assertEquals(Collections.singletonList(entity), entityManager.getEntitiesWithin(new Vector3f(500, 0, 0), 10));
+
+        entity.removeComponent(LocationComponent.class);
+        assertTrue(entityManager.getEntitiesWithin(new Vector3f(500, 0, 0), 10).isEmpty());
+
+        EntityRef destroyed = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        destroyed.destroy();
+        assertTrue(entityManager.getEntitiesWithin(new Vector3f(), 10).isEmpty());
+    }
+
+    @Test
+    public void testChildrenMoveWithParent() {
+        EntityRef parent = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        EntityRef child = entityManager.create(new LocationComponent(new Vector3f(0, 0, 0)));
+        Location.attachChild(parent, child, new Vector3f(1, 0, 0), new Quat4f(0, 0, 0, 1));
+
+        LocationComponent parentLocation = parent.getComponent(LocationComponent.class);
+        parentLocation.setWorldPosition(new Vector3f(200, 0, 0));
+        parent.saveComponent(parentLocation);
+
+        assertEquals(Collections.singletonList(child), entityManager.getEntitiesWithin(new Vector3f(201, 0, 0), 0.5f));
+    }
+
+    @Test
+    public void testNearestEntities() {
+        EntityRef first = entityManager.create(new LocationComponent(new Vector3f(2, 0, 0)));
+        EntityRef second = entityManager.create(new LocationComponent(new Vector3f(0, 40, 0)));
+        EntityRef third = entityManager.create(new LocationComponent(new Vector3f(-300, 0, 0)));
+        entityManager.create(new LocationComponent(new Vector3f(1000, 1000, 1000)));
+
+        assertEquals(Arrays.asList(first, second, third), entityManager.getNearestEntities(new Vector3f(), 3));
+        assertEquals(4, entityManager.getNearestEntities(new Vector3f(), 10).size());
+        assertTrue(entityManager.getNearestEntities(new Vector3f(), 0).isEmpty());
+    }
+
+    @Test
+    public void testQueriesWhileEntitiesMove() throws Exception {
+        List<EntityRef> entities = Lists.newArrayList();
+        for (int i = 0; i < 64; i++) {
+            entities.add(entityManager.create(new LocationComponent(new Vector3f(i, 0, 0))));
+        }
+        AtomicBoolean moving = new AtomicBoolean(true);
+        ExecutorService queryThreads = Executors.newFixedThreadPool(4);
+        List<Future<?>> queries = Lists.newArrayList();
+        for (int t = 0; t < 4; t++) {
+            queries.add(queryThreads.submit(() -> {
+                while (moving.get()) {
+                    // The entities move between chunks, but always stay within the queried area
+                    assertEquals(entities.size(), entityManager.getEntitiesWithin(new Vector3f(), 1000).size());
+                    assertEquals(1, entityManager.getNearestEntities(new Vector3f(), 1).size());
+                }
+            }));
+        }
+        try {
+            for (int step = 1; step <= 200; step++) {
+                for (EntityRef entity : entities) {
+                    LocationComponent location = entity.getComponent(LocationComponent.class);
+                    location.setWorldPosition(new Vector3f(step % 2 == 0 ? step : -step, 0, 0));
+                    entity.saveComponent(location);
+                }
+            }
+        } finally {
+            moving.set(false);
+            queryThreads.shutdown();
+        }
+        for (Future<?> query : queries) {
+            query.get();
+        }
+    }
+
+    private static void assertSameEntities(List<EntityRef> expected, Iterable<EntityRef> actual) {
+        List<EntityRef> actualList = Lists.newArrayList(actual);
+        assertEquals(expected.size(), actualList.size());
+        assertTrue(actualList.containsAll(expected));
+    }
+}
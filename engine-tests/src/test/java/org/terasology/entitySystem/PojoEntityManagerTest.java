@@ -412,4 +412,36 @@ public void testMoveToPool() {
         assertTrue(pool2.contains(id));
         assertFalse(pool1.contains(id));
     }
+
+    @Test
+    public void testRefFindsComponentsAfterMoveToPool() {
+        EntityRef entity = entityManager.create();
+        StringComponent comp = entity.addComponent(new StringComponent());
+        assertEquals(comp, entity.getComponent(StringComponent.class));
+
+        PojoEntityPool pool = new PojoEntityPool(entityManager);
+        assertTrue(entityManager.moveToPool(entity.getId(), pool));
+
+        assertEquals(comp, entity.getComponent(StringComponent.class));
+        assertTrue(entity.hasComponent(StringComponent.class));
+        assertEquals(pool, entityManager.getPoolMap().get(entity.getId()));
+        assertEquals(Long.valueOf(1), entityManager.getPoolCounts().get(pool));
+    }
+
+    @Test
+    public void testDestroyedEntityLeavesItsPool() {
+        EntityRef entity = entityManager.create();
+        entity.addComponent(new StringComponent());
+        long id = entity.getId();
+        long poolCount = entityManager.getPoolCounts().get(entityManager.getGlobalPool());
+
+        entity.destroy();
+        EntityRef other = entityManager.create(new IntegerComponent());
+
+        assertFalse(entityManager.getPoolMap().containsKey(id));
+        assertEquals(Long.valueOf(poolCount), entityManager.getPoolCounts().get(entityManager.getGlobalPool()));
+        assertNull(entityManager.getComponent(id, StringComponent.class));
+        assertFalse(entityManager.hasComponent(id, IntegerComponent.class));
+        assertTrue(other.hasComponent(IntegerComponent.class));
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EntityDirectoryTest {
+
+    private EntityDirectory directory = new EntityDirectory();
+    private EngineEntityPool pool = mock(EngineEntityPool.class);
+    private EngineEntityPool otherPool = mock(EngineEntityPool.class);
+
+    @Test
+    public void testReusedSlotInvalidatesLocation() {
+        directory.assign(1, pool);
+        long location = directory.locate(1);
+        assertSame(pool, directory.getPoolAt(location));
+
+        directory.remove(1);
+        directory.assign(2, otherPool);
+
+        assertNull(directory.getPoolAt(location));
+        assertSame(otherPool, directory.getPoolAt(directory.locate(2)));
+        assertNull(directory.getPoolAt(EntityDirectory.NO_LOCATION));
+    }
+
+    @Test
+    public void testLookupsWhileAssigning() throws InterruptedException {
+        for (long id = 1; id <= 100; id++) {
+            directory.assign(id, pool);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (long id = 1; id <= 100; id++) {
+                        assertSame(pool, directory.getPoolAt(directory.locate(id)));
+                        assertSame(pool, directory.getPool(id));
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        // Grows the directory and reuses slots while the reader looks up the first entities
+        for (long id = 1000; id < 50000; id++) {
+            directory.assign(id, otherPool);
+            directory.remove(id - 10);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+    }
+}
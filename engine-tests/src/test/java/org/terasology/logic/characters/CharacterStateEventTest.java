@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import org.junit.Test;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ */
+public class CharacterStateEventTest {
+
+    @Test
+    public void testContinueFromOverwritesReusedState() {
+        CharacterStateEvent previous = new CharacterStateEvent(100, 7, new Vector3f(1, 2, 3), new Quat4f(0, 0, 0, 1),
+                new Vector3f(4, 5, 6), 30, 40, MovementMode.SWIMMING, true);
+        previous.setFootstepDelta(0.5f);
+        previous.setClimbDirection(new Vector3i(1, 0, 0));
+
+        CharacterStateEvent reused = new CharacterStateEvent(5, 2, new Vector3f(9, 9, 9), new Quat4f(0, 0, 0, 1),
+                new Vector3f(), 1, 2, MovementMode.FLYING, false);
+        reused.continueFrom(previous);
+
+        assertEquals(100, reused.getTime());
+        assertEquals(8, reused.getSequenceNumber());
+        assertEquals(new Vector3f(1, 2, 3), reused.getPosition());
+        assertNotSame(previous.getPosition(), reused.getPosition());
+        assertEquals(new Vector3f(4, 5, 6), reused.getVelocity());
+        assertEquals(30, reused.getYaw(), 0);
+        assertEquals(40, reused.getPitch(), 0);
+        assertSame(MovementMode.SWIMMING, reused.getMode());
+        assertEquals(true, reused.isGrounded());
+        assertEquals(0.5f, reused.getFootstepDelta(), 0);
+        assertEquals(previous.getClimbDirection(), reused.getClimbDirection());
+    }
+}
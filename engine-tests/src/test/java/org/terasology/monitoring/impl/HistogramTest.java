@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class HistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(20, snapshot.getCount());
+        assertEquals(210, snapshot.getSum());
+        assertEquals(10, snapshot.getValueAtPercentile(50));
+        assertEquals(20, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testPercentilesWithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertWithinError(50000000L, snapshot.getValueAtPercentile(50));
+        assertWithinError(99000000L, snapshot.getValueAtPercentile(99));
+        assertWithinError(99900000L, snapshot.getValueAtPercentile(99.9));
+        assertEquals(100000000L, snapshot.getMax());
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value : new long[]{31, 32, 33, 63, 64, 1000, 1L << 40, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.highestValueAt(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.highestValueAt(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testDrainResets() {
+        Histogram histogram = new Histogram();
+        histogram.record(500);
+        assertEquals(1, histogram.drain().getCount());
+        Histogram.Snapshot snapshot = histogram.drain();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+    }
+
+    @Test
+    public void testAddMergesSnapshot() {
+        Histogram histogram = new Histogram();
+        histogram.record(10);
+        Histogram other = new Histogram();
+        other.record(20);
+        other.record(3000);
+
+        histogram.add(other.drain());
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(3030, snapshot.getSum());
+        assertEquals(3000, snapshot.getMax());
+        assertEquals(20, snapshot.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(40000, snapshot.getCount());
+        assertEquals(9999, snapshot.getMax());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected * 0.04);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring.impl;
+
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class PerformanceMonitorImplTest {
+
+    @Test
+    public void testHistogramsOfTerminatedThreadsAreMerged() throws InterruptedException {
+        PerformanceMonitorImpl monitor = new PerformanceMonitorImpl();
+        for (int i = 0; i < 3; i++) {
+            Thread worker = new Thread(() -> {
+                monitor.startActivity("Work");
+                monitor.startActivity("Nested work");
+                monitor.endActivity();
+                monitor.endActivity();
+            }, "Worker-" + i);
+            worker.start();
+            worker.join();
+        }
+
+        Collection<ActivityHistograms> histograms = monitor.getHistograms();
+
+        assertEquals(2, histograms.size());
+        for (ActivityHistograms activityHistograms : histograms) {
+            assertEquals("terminated", activityHistograms.getThreadName());
+            assertEquals(3, activityHistograms.getExecutionNanos().snapshot().getCount());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkEncodingCacheTest {
+    private static final Vector3i CHUNK_POS = new Vector3i(0, 0, 0);
+
+    private ChunkEncodingCache cache;
+    private Chunk chunk;
+
+    @Before
+    public void setup() {
+        cache = new ChunkEncodingCache();
+        chunk = mock(Chunk.class);
+        // Every encoding gets a different x, so that the tests can tell them apart
+        AtomicInteger encodings = new AtomicInteger();
+        when(chunk.encode()).thenAnswer(invocation -> EntityData.ChunkStore.newBuilder().setX(encodings.incrementAndGet()));
+    }
+
+    @After
+    public void teardown() {
+        cache.shutdown();
+    }
+
+    @Test
+    public void testUnchangedChunkReusesEncoding() throws InterruptedException {
+        cache.acquire(CHUNK_POS, chunk);
+        EntityData.ChunkStore first = awaitEncoding();
+
+        assertSame(first, cache.get(CHUNK_POS));
+        cache.acquire(CHUNK_POS, chunk);
+        assertSame(first, cache.get(CHUNK_POS));
+        assertEquals(1, cache.getMisses());
+        verify(chunk, times(1)).encode();
+    }
+
+    @Test
+    public void testChangedChunkMakesEncodingStale() throws InterruptedException {
+        cache.acquire(CHUNK_POS, chunk);
+        assertEquals(1, awaitEncoding().getX());
+
+        cache.onBlockChanged(new Vector3i(1, 2, 3), null, null);
+
+        EntityData.ChunkStore second = awaitEncoding();
+        assertEquals(2, second.getX());
+        assertEquals(2, cache.getMisses());
+        verify(chunk, times(2)).encode();
+    }
+
+    @Test
+    public void testReleasedChunkIsDropped() throws InterruptedException {
+        cache.acquire(CHUNK_POS, chunk);
+        awaitEncoding();
+
+        cache.release(CHUNK_POS);
+        assertNull(cache.get(CHUNK_POS));
+    }
+
+    private EntityData.ChunkStore awaitEncoding() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        EntityData.ChunkStore result = cache.get(CHUNK_POS);
+        while (result == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            result = cache.get(CHUNK_POS);
+        }
+        assertNotNull(result);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.entitySystem.Component;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.network.NetworkComponent;
+import org.terasology.protobuf.EntityData;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ */
+public class EntityDeltaCacheTest {
+
+    private final EntityDeltaCache cache = new EntityDeltaCache();
+    private final AtomicInteger serializations = new AtomicInteger();
+
+    @Test
+    public void testSameChangesShareDelta() {
+        Set<Class<? extends Component>> changed = Sets.newHashSet(LocationComponent.class);
+        EntityData.PackedEntity first = cache.get(1, false, Collections.emptySet(), changed, Collections.emptySet(), this::serialize);
+        EntityData.PackedEntity second = cache.get(1, false, Collections.emptySet(), Lists.newArrayList(changed), Collections.emptySet(), this::serialize);
+
+        assertSame(first, second);
+        assertEquals(1, serializations.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testOwnerGetsOwnDelta() {
+        Set<Class<? extends Component>> changed = Sets.newHashSet(LocationComponent.class);
+        cache.get(1, false, Collections.emptySet(), changed, Collections.emptySet(), this::serialize);
+        cache.get(1, true, Collections.emptySet(), changed, Collections.emptySet(), this::serialize);
+
+        assertEquals(2, serializations.get());
+    }
+
+    @Test
+    public void testDifferentChangesGetOwnDelta() {
+        cache.get(1, false, Collections.emptySet(), Sets.newHashSet(LocationComponent.class), Collections.emptySet(), this::serialize);
+        cache.get(1, false, Collections.emptySet(), Sets.newHashSet(NetworkComponent.class), Collections.emptySet(), this::serialize);
+        cache.get(2, false, Collections.emptySet(), Sets.newHashSet(LocationComponent.class), Collections.emptySet(), this::serialize);
+
+        assertEquals(3, serializations.get());
+    }
+
+    @Test
+    public void testEmptyDeltaIsCached() {
+        assertNull(cache.get(1, false, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), this::countOnly));
+        assertNull(cache.get(1, false, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), this::countOnly));
+
+        assertEquals(1, serializations.get());
+    }
+
+    @Test
+    public void testClear() {
+        cache.get(1, false, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), this::serialize);
+        cache.clear();
+        cache.get(1, false, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), this::serialize);
+
+        assertEquals(2, serializations.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    private EntityData.PackedEntity serialize() {
+        serializations.incrementAndGet();
+        return EntityData.PackedEntity.newBuilder().build();
+    }
+
+    private EntityData.PackedEntity countOnly() {
+        serializations.incrementAndGet();
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class HeldBackEntitiesTest {
+
+    private HeldBackEntities heldBackEntities = new HeldBackEntities();
+
+    @Test
+    public void testLastUpdateIsSentWhenLeavingRelevance() {
+        assertTrue(heldBackEntities.maySend(1, true));
+        heldBackEntities.updateSent(1, true);
+
+        // The update that moved the entity out of relevance still goes out
+        assertTrue(heldBackEntities.maySend(1, false));
+        heldBackEntities.updateSent(1, false);
+        assertTrue(heldBackEntities.isHeldBack(1));
+
+        assertFalse(heldBackEntities.maySend(1, false));
+    }
+
+    @Test
+    public void testHeldBackUpdatesAreSentWhenRelevantAgain() {
+        heldBackEntities.updateSent(1, false);
+        assertFalse(heldBackEntities.maySend(1, false));
+
+        assertTrue(heldBackEntities.maySend(1, true));
+        assertFalse(heldBackEntities.isHeldBack(1));
+        heldBackEntities.updateSent(1, true);
+        assertTrue(heldBackEntities.maySend(1, true));
+    }
+
+    @Test
+    public void testRemovedEntityIsForgotten() {
+        heldBackEntities.updateSent(1, false);
+        heldBackEntities.remove(1);
+
+        assertFalse(heldBackEntities.isHeldBack(1));
+        assertTrue(heldBackEntities.maySend(1, false));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkRegionStorageTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StoragePathProvider storagePathProvider;
+    private ChunkRegionStorage storage;
+
+    @Before
+    public void setup() throws Exception {
+        storagePathProvider = new StoragePathProvider(temporaryFolder.getRoot().toPath());
+        Files.createDirectories(storagePathProvider.getWorldPath());
+        storage = new ChunkRegionStorage(storagePathProvider);
+    }
+
+    @After
+    public void teardown() {
+        storage.close();
+    }
+
+    @Test
+    public void testStoredChunksCanBeLoadedAfterReopening() throws Exception {
+        storage.store(new Vector3i(0, 0, 0), new byte[]{1, 2, 3});
+        storage.store(new Vector3i(-1, 5, -17), new byte[]{4, 5});
+        storage.flush();
+        storage.close();
+
+        ChunkRegionStorage reopened = new ChunkRegionStorage(storagePathProvider);
+        assertArrayEquals(new byte[]{1, 2, 3}, reopened.load(new Vector3i(0, 0, 0)));
+        assertArrayEquals(new byte[]{4, 5}, reopened.load(new Vector3i(-1, 5, -17)));
+        assertNull(reopened.load(new Vector3i(1, 0, 0)));
+        reopened.close();
+    }
+
+    @Test
+    public void testUnflushedChunksAreNotVisibleAfterReopening() throws Exception {
+        storage.store(new Vector3i(0, 0, 0), new byte[]{1});
+        storage.flush();
+        storage.store(new Vector3i(0, 0, 0), new byte[]{2});
+
+        ChunkRegionStorage other = new ChunkRegionStorage(storagePathProvider);
+        assertArrayEquals(new byte[]{1}, other.load(new Vector3i(0, 0, 0)));
+        other.close();
+    }
+
+    @Test
+    public void testReplacedChunksGetCompacted() throws Exception {
+        Vector3i chunkPos = new Vector3i(3, 2, 1);
+        byte[] data = new byte[256 * 1024];
+        for (int i = 0; i < 16; i++) {
+            Arrays.fill(data, (byte) i);
+            storage.store(chunkPos, data);
+        }
+        storage.flush();
+        Path regionPath = storagePathProvider.getChunkRegionPath(storagePathProvider.getChunkRegionPosition(chunkPos));
+        long sizeBefore = Files.size(regionPath);
+
+        storage.compact(new ReentrantLock());
+
+        assertTrue(Files.size(regionPath) < sizeBefore);
+        assertArrayEquals(data, storage.load(chunkPos));
+    }
+
+    @Test
+    public void testMergeChunksDeletesMergedFiles() throws Exception {
+        Path updates = temporaryFolder.newFolder("updates").toPath();
+        Vector3i chunkPos = new Vector3i(7, -3, 40);
+        Path chunkFile = updates.resolve(storagePathProvider.getChunkFilename(chunkPos));
+        Files.write(chunkFile, new byte[]{9, 8, 7});
+
+        storage.mergeChunks(updates);
+
+        assertFalse(Files.exists(updates));
+        assertArrayEquals(new byte[]{9, 8, 7}, storage.load(chunkPos));
+    }
+
+    @Test
+    public void testAppendedChunksBecomeVisibleWhenMerged() throws Exception {
+        Vector3i chunkPos = new Vector3i(2, 3, 4);
+        storage.store(chunkPos, new byte[]{1});
+        storage.flush();
+        Path updates = temporaryFolder.getRoot().toPath().resolve("updates");
+
+        storage.appendChunks(Collections.singletonList(chunkPos), pos -> new byte[]{2, 3}, updates);
+        assertArrayEquals(new byte[]{1}, storage.load(chunkPos));
+        storage.close();
+
+        ChunkRegionStorage reopened = new ChunkRegionStorage(storagePathProvider);
+        assertArrayEquals(new byte[]{1}, reopened.load(chunkPos));
+        reopened.mergeChunks(updates);
+        assertFalse(Files.exists(updates));
+        assertArrayEquals(new byte[]{2, 3}, reopened.load(chunkPos));
+        reopened.close();
+    }
+
+    @Test
+    public void testTornHeaderFallsBackToPreviousGeneration() throws Exception {
+        Path regionPath = temporaryFolder.getRoot().toPath().resolve("region");
+        int entryCount = storagePathProvider.getChunkRegionSize();
+        try (ChunkRegionFile region = ChunkRegionFile.open(regionPath, entryCount)) {
+            region.write(0, new byte[]{1});
+            region.flush();
+            region.write(0, new byte[]{2});
+            region.flush();
+        }
+        // The last flush went into the second header copy, damage its table
+        int headerSize = 24 + 8 * entryCount;
+        try (FileChannel channel = FileChannel.open(regionPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{7, 7, 7, 7}), headerSize + 100);
+        }
+
+        try (ChunkRegionFile region = ChunkRegionFile.open(regionPath, entryCount)) {
+            assertArrayEquals(new byte[]{1}, region.read(0));
+        }
+    }
+
+    @Test
+    public void testLegacyChunksGetMigrated() throws Exception {
+        Vector3i fileChunkPos = new Vector3i(1, 2, 3);
+        Path chunkFile = storagePathProvider.getChunkPath(fileChunkPos);
+        Files.write(chunkFile, new byte[]{1});
+
+        Vector3i zippedChunkPos = new Vector3i(-5, 0, 5);
+        Path chunkZip = storagePathProvider.getChunkZipPath(storagePathProvider.getChunkZipPosition(zippedChunkPos));
+        try (FileSystem zip = FileSystems.newFileSystem(URI.create("jar:" + chunkZip.toUri()),
+                Collections.singletonMap("create", "true"))) {
+            try (OutputStream out = Files.newOutputStream(zip.getPath(storagePathProvider.getChunkFilename(zippedChunkPos)))) {
+                out.write(new byte[]{2});
+            }
+        }
+
+        assertEquals(2, storage.migrateLegacyChunks());
+
+        assertFalse(Files.exists(chunkFile));
+        assertFalse(Files.exists(chunkZip));
+        assertArrayEquals(new byte[]{1}, storage.load(fileChunkPos));
+        assertArrayEquals(new byte[]{2}, storage.load(zippedChunkPos));
+    }
+}
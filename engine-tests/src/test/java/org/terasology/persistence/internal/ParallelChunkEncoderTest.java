@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ParallelChunkEncoderTest {
+
+    @Test
+    public void testChunksAreReturnedInWriteOrder() throws IOException {
+        Map<Vector3i, CompressedChunkBuilder> chunks = Maps.newHashMap();
+        Vector3i[] positions = {new Vector3i(1, 0, 0), new Vector3i(0, 5, 1), new Vector3i(0, 2, 1), new Vector3i(0, 9, 0)};
+        for (int i = 0; i < positions.length; i++) {
+            chunks.put(positions[i], builder(new byte[]{(byte) i}));
+        }
+
+        ParallelChunkEncoder.EncodedChunks encoded = new ParallelChunkEncoder(2).encode(chunks);
+
+        assertEquals(Arrays.asList(positions[3], positions[2], positions[1], positions[0]),
+                Lists.newArrayList(encoded.getPositions()));
+        for (int i = 0; i < positions.length; i++) {
+            assertArrayEquals(new byte[]{(byte) i}, encoded.get(positions[i]));
+        }
+    }
+
+    @Test
+    public void testFailureCancelsRemainingChunks() throws Exception {
+        Vector3i failing = new Vector3i(0, 0, 0);
+        Vector3i blocking = new Vector3i(1, 0, 0);
+        Vector3i waiting = new Vector3i(2, 0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CompressedChunkBuilder failingBuilder = mock(CompressedChunkBuilder.class);
+        when(failingBuilder.buildEncodedChunk()).thenThrow(new IllegalStateException());
+        CompressedChunkBuilder blockingBuilder = mock(CompressedChunkBuilder.class);
+        when(blockingBuilder.buildEncodedChunk()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new byte[]{1};
+        });
+        CompressedChunkBuilder waitingBuilder = builder(new byte[]{2});
+        Map<Vector3i, CompressedChunkBuilder> chunks = Maps.newHashMap();
+        chunks.put(failing, failingBuilder);
+        chunks.put(blocking, blockingBuilder);
+        chunks.put(waiting, waitingBuilder);
+
+        // With a single worker, the last chunk is still queued while the second one blocks
+        ParallelChunkEncoder.EncodedChunks encoded = new ParallelChunkEncoder(1).encode(chunks);
+        try {
+            encoded.get(failing);
+            fail("Expected the failure of the first chunk to be rethrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        release.countDown();
+
+        try {
+            encoded.get(waiting);
+            fail("Expected the remaining chunk to be cancelled");
+        } catch (IOException e) {
+            // expected
+        }
+        verify(waitingBuilder, never()).buildEncodedChunk();
+    }
+
+    private static CompressedChunkBuilder builder(byte[] result) {
+        CompressedChunkBuilder builder = mock(CompressedChunkBuilder.class);
+        when(builder.buildEncodedChunk()).thenReturn(result);
+        return builder;
+    }
+}
@@ -343,6 +343,76 @@ public void testEntitySurvivesStorageInChunkStore() throws Exception {
         assertTrue(ref.isActive());
     }
 
+    @Test
+    public void testGeneratedChunkIsStoredWithoutSaving() throws Exception {
+        StorageManager regionSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager, ChunkStorageFormat.REGION_FILES, recordAndReplaySerializer, recordAndReplayUtils,
+                recordAndReplayCurrentStatus);
+        Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.deflate();
+
+        assertFalse(regionSM.containsChunk(CHUNK_POS));
+        assertTrue(regionSM.storeGeneratedChunk(chunk));
+        regionSM.flushGeneratedChunks();
+        assertTrue(regionSM.containsChunk(CHUNK_POS));
+        regionSM.finishSavingAndShutdown();
+
+        StorageManager newSM = new ReadOnlyStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager);
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+    }
+
+    @Test
+    public void testGeneratedChunkDoesNotReplaceStoredChunk() throws Exception {
+        StorageManager regionSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager, ChunkStorageFormat.REGION_FILES, recordAndReplaySerializer, recordAndReplayUtils,
+                recordAndReplayCurrentStatus);
+        Chunk stored = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        stored.setBlock(0, 0, 0, testBlock);
+        stored.deflate();
+        assertTrue(regionSM.storeGeneratedChunk(stored));
+
+        Chunk generated = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        generated.setBlock(0, 0, 0, testBlock2);
+        generated.deflate();
+        assertTrue(regionSM.storeGeneratedChunk(generated));
+        regionSM.flushGeneratedChunks();
+
+        assertEquals(testBlock, regionSM.loadChunkStore(CHUNK_POS).getChunk().getBlock(0, 0, 0));
+        regionSM.finishSavingAndShutdown();
+    }
+
+    @Test
+    public void testGeneratedChunkIsDroppedWhileLoaded() throws Exception {
+        StorageManager regionSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager, ChunkStorageFormat.REGION_FILES, recordAndReplaySerializer, recordAndReplayUtils,
+                recordAndReplayCurrentStatus);
+        Chunk loaded = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        loaded.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getChunk(CHUNK_POS)).thenReturn(loaded);
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        Chunk generated = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        generated.deflate();
+        assertTrue(regionSM.storeGeneratedChunk(generated));
+        regionSM.flushGeneratedChunks();
+
+        assertFalse(regionSM.containsChunk(CHUNK_POS));
+        regionSM.finishSavingAndShutdown();
+    }
+
+    @Test
+    public void testGeneratedChunkIsRejectedWithoutRegionFiles() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        chunk.deflate();
+
+        assertFalse(esm.storeGeneratedChunk(chunk));
+        assertFalse(esm.containsChunk(CHUNK_POS));
+    }
 
     @Test
     public void testCanSavePlayerWithoutUnloading() throws Exception {
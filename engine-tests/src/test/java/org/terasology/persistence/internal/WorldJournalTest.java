@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.chunks.Chunk;
+
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorldJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path journalPath;
+    private BlockManager blockManager;
+    private BiomeManager biomeManager;
+    private Block stone;
+    private Block dirt;
+
+    @Before
+    public void setup() throws Exception {
+        journalPath = temporaryFolder.getRoot().toPath().resolve("journal");
+        stone = new Block();
+        stone.setUri(new BlockUri("test:stone"));
+        dirt = new Block();
+        dirt.setUri(new BlockUri("test:dirt"));
+        blockManager = mock(BlockManager.class);
+        when(blockManager.getBlock(anyString())).thenAnswer(invocation ->
+                invocation.getArguments()[0].equals(stone.getURI().toString()) ? stone : dirt);
+        biomeManager = mock(BiomeManager.class);
+    }
+
+    @Test
+    public void testLatestChangesAreRestoredAfterReopening() throws Exception {
+        WorldJournal journal = WorldJournal.open(journalPath, blockManager, biomeManager);
+        journal.onBlockChanged(new Vector3i(1, 2, 3), dirt, stone);
+        journal.onBlockChanged(new Vector3i(1, 2, 3), stone, dirt);
+        journal.onBlockChanged(new Vector3i(-1, 2, 3), dirt, stone);
+        journal.close();
+
+        WorldJournal reopened = WorldJournal.open(journalPath, blockManager, biomeManager);
+        Chunk chunk = chunkAt(new Vector3i(0, 0, 0));
+        reopened.restoreChanges(chunk);
+        verify(chunk).setBlock(new Vector3i(1, 2, 3), stone);
+        verify(chunk, never()).setBlock(new Vector3i(1, 2, 3), dirt);
+
+        Chunk neighbour = chunkAt(new Vector3i(-1, 0, 0));
+        reopened.restoreChanges(neighbour);
+        verify(neighbour).setBlock(new Vector3i(31, 2, 3), dirt);
+        reopened.close();
+    }
+
+    @Test
+    public void testDamagedRecordAtTheEndIsIgnored() throws Exception {
+        WorldJournal journal = WorldJournal.open(journalPath, blockManager, biomeManager);
+        journal.onBlockChanged(new Vector3i(1, 2, 3), stone, dirt);
+        journal.close();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(journalPath)) {
+            for (Path segment : segments) {
+                try (OutputStream out = Files.newOutputStream(segment, StandardOpenOption.APPEND)) {
+                    out.write(new byte[]{0, 0, 0, 20, 1, 2, 3, 4, 5});
+                }
+            }
+        }
+
+        WorldJournal reopened = WorldJournal.open(journalPath, blockManager, biomeManager);
+        Chunk chunk = chunkAt(new Vector3i(0, 0, 0));
+        reopened.restoreChanges(chunk);
+        verify(chunk).setBlock(new Vector3i(1, 2, 3), stone);
+        reopened.close();
+    }
+
+    @Test
+    public void testChangesIncludedInACompletedSaveAreNotRestored() throws Exception {
+        WorldJournal journal = WorldJournal.open(journalPath, blockManager, biomeManager);
+        journal.onBlockChanged(new Vector3i(1, 2, 3), stone, dirt);
+        long segment = journal.startNewSegment();
+        journal.onBlockChanged(new Vector3i(4, 5, 6), dirt, stone);
+        journal.checkpoint(segment, Collections.emptySet());
+        journal.close();
+
+        WorldJournal reopened = WorldJournal.open(journalPath, blockManager, biomeManager);
+        Chunk chunk = chunkAt(new Vector3i(0, 0, 0));
+        reopened.restoreChanges(chunk);
+        verify(chunk, never()).setBlock(new Vector3i(1, 2, 3), stone);
+        verify(chunk).setBlock(new Vector3i(4, 5, 6), dirt);
+        reopened.close();
+    }
+
+    @Test
+    public void testRestoredChangesIncludedInACompletedSaveAreNotCarriedOver() throws Exception {
+        WorldJournal journal = WorldJournal.open(journalPath, blockManager, biomeManager);
+        journal.onBlockChanged(new Vector3i(1, 2, 3), stone, dirt);
+        journal.onBlockChanged(new Vector3i(-1, 2, 3), stone, dirt);
+        journal.close();
+
+        WorldJournal reopened = WorldJournal.open(journalPath, blockManager, biomeManager);
+        reopened.restoreChanges(chunkAt(new Vector3i(0, 0, 0)));
+        long segment = reopened.startNewSegment();
+        reopened.checkpoint(segment, Collections.singleton(new Vector3i(0, 0, 0)));
+        // Only the next segment leaves out the changes of the saved chunk, the one started with the save still has them
+        long nextSegment = reopened.startNewSegment();
+        reopened.checkpoint(nextSegment, Collections.emptySet());
+        reopened.close();
+
+        WorldJournal afterSaves = WorldJournal.open(journalPath, blockManager, biomeManager);
+        Chunk chunk = chunkAt(new Vector3i(0, 0, 0));
+        afterSaves.restoreChanges(chunk);
+        verify(chunk, never()).setBlock(any(Vector3i.class), any(Block.class));
+        Chunk unsavedChunk = chunkAt(new Vector3i(-1, 0, 0));
+        afterSaves.restoreChanges(unsavedChunk);
+        verify(unsavedChunk).setBlock(new Vector3i(31, 2, 3), stone);
+        afterSaves.close();
+    }
+
+    @Test
+    public void testChunksWithoutChangesAreLeftAlone() throws Exception {
+        WorldJournal journal = WorldJournal.open(journalPath, blockManager, biomeManager);
+        Chunk chunk = chunkAt(new Vector3i(0, 0, 0));
+        journal.restoreChanges(chunk);
+        verify(chunk, never()).setBlock(any(Vector3i.class), any(Block.class));
+        journal.close();
+    }
+
+    private static Chunk chunkAt(Vector3i chunkPos) {
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getPosition()).thenReturn(chunkPos);
+        return chunk;
+    }
+}
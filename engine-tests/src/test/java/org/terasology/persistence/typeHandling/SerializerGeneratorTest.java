@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.stubs.GetterSetterComponent;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.persistence.typeHandling.mathTypes.Quat4fTypeHandler;
+import org.terasology.persistence.typeHandling.mathTypes.Vector3fTypeHandler;
+import org.terasology.protobuf.EntityData;
+import org.terasology.recording.RecordAndReplayCurrentStatus;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class SerializerGeneratorTest {
+    private static ModuleManager moduleManager;
+    private ReflectFactory reflectFactory = new ReflectionReflectFactory();
+    private CopyStrategyLibrary copyStrategyLibrary = new CopyStrategyLibrary(reflectFactory);
+    private ComponentLibrary componentLibrary;
+    private TypeSerializationLibrary generatedLibrary;
+    private ComponentSerializer generatedSerializer;
+    private ComponentSerializer reflectionSerializer;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        moduleManager = ModuleManagerFactory.create();
+    }
+
+    @Before
+    public void setup() {
+        Context context = new ContextImpl();
+        context.put(RecordAndReplayCurrentStatus.class, new RecordAndReplayCurrentStatus());
+        context.put(ModuleManager.class, moduleManager);
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+        CoreRegistry.setContext(context);
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        componentLibrary = context.get(EngineEntityManager.class).getComponentLibrary();
+        componentLibrary.register(new SimpleUri("test", "gettersetter"), GetterSetterComponent.class);
+        componentLibrary.register(new SimpleUri("test", "string"), StringComponent.class);
+        componentLibrary.register(new SimpleUri("test", "integer"), IntegerComponent.class);
+
+        generatedLibrary = createLibrary();
+        generatedLibrary.setSerializerGenerator(new SerializerGenerator());
+        generatedSerializer = new ComponentSerializer(componentLibrary, generatedLibrary);
+        reflectionSerializer = new ComponentSerializer(componentLibrary, createLibrary());
+    }
+
+    private TypeSerializationLibrary createLibrary() {
+        TypeSerializationLibrary library = new TypeSerializationLibrary(reflectFactory, copyStrategyLibrary);
+        library.addTypeHandler(Vector3f.class, new Vector3fTypeHandler());
+        library.addTypeHandler(Quat4f.class, new Quat4fTypeHandler());
+        return library;
+    }
+
+    @Test
+    public void testSerializerIsGenerated() {
+        Serializer serializer = generatedLibrary.getSerializerFor(componentLibrary.getMetadata(IntegerComponent.class));
+        assertTrue(serializer instanceof GeneratedSerializer);
+    }
+
+    @Test
+    public void testSameOutputAsReflection() {
+        IntegerComponent component = new IntegerComponent(42);
+        assertEquals(reflectionSerializer.serialize(component), generatedSerializer.serialize(component));
+        assertEquals(reflectionSerializer.serialize(new StringComponent("a"), new StringComponent("b")),
+                generatedSerializer.serialize(new StringComponent("a"), new StringComponent("b")));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        EntityData.Component data = generatedSerializer.serialize(new IntegerComponent(42));
+        assertEquals(new IntegerComponent(42), generatedSerializer.deserialize(data));
+
+        StringComponent target = new StringComponent("original");
+        generatedSerializer.deserializeOnto(target, generatedSerializer.serialize(new StringComponent("changed")));
+        assertEquals("changed", target.value);
+    }
+
+    @Test
+    public void testGetterAndSetterAreStillUsed() {
+        GetterSetterComponent component = new GetterSetterComponent();
+        GetterSetterComponent result = (GetterSetterComponent) generatedSerializer.deserialize(generatedSerializer.serialize(component));
+        assertTrue(component.getterUsed);
+        assertTrue(result.setterUsed);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class GreedyChunkMesherTest extends TerasologyTestingEnvironment {
+    private static final float TILE_SIZE = 1f / 16f;
+
+    private Block airBlock;
+    private Block stoneBlock;
+    private Block dirtBlock;
+    private BlockManager blockManager;
+    private BiomeManager biomeManager;
+
+    @Before
+    public void setup() throws IOException {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+        biomeManager = Mockito.mock(BiomeManager.class);
+
+        stoneBlock = createSolidBlock(assetManager, "engine:stone");
+        dirtBlock = createSolidBlock(assetManager, "engine:dirt");
+    }
+
+    @Test
+    public void testMergesFlatSlab() {
+        Chunk chunk = createChunk();
+        fill(chunk, stoneBlock, 4, 4);
+
+        ChunkMesh mesh = generateGreedy(chunk);
+        ChunkMesh.VertexElements opaque = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        // One quad for each side of the slab
+        assertEquals(6 * 4 * GreedyChunkMesher.VERTEX_SIZE, opaque.finalVertices.limit());
+        assertEquals(6 * 6, opaque.finalIndices.limit());
+    }
+
+    @Test
+    public void testDoesNotMergeDifferentBlocks() {
+        Chunk chunk = createChunk();
+        fill(chunk, stoneBlock, 4, 4);
+        chunk.setBlock(new Vector3i(0, 0, 0), dirtBlock);
+
+        ChunkMesh mesh = generateGreedy(chunk);
+        ChunkMesh.VertexElements opaque = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        // Top and bottom both split into the dirt face and two stone quads, the two sides along the dirt block into two quads each
+        int quads = 2 * 3 + 2 * 2 + 2;
+        assertEquals(quads * 4 * GreedyChunkMesher.VERTEX_SIZE, opaque.finalVertices.limit());
+        assertEquals(quads * 6, opaque.finalIndices.limit());
+    }
+
+    @Test
+    public void testMatchesFaceByFaceTessellationForSingleBlock() {
+        Chunk chunk = createChunk();
+        chunk.setBlock(new Vector3i(3, 2, 5), stoneBlock);
+
+        ChunkMesh greedy = generateGreedy(chunk);
+        ChunkMesh faceByFace = new ChunkTessellator(null).generateMesh(createView(chunk), ChunkConstants.SIZE_Y, 0);
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements expected = faceByFace.getVertexElements(type);
+            ChunkMesh.VertexElements actual = greedy.getVertexElements(type);
+            assertEquals(expected.finalVertices, actual.finalVertices);
+            assertEquals(expected.finalIndices, actual.finalIndices);
+        }
+    }
+
+    private ChunkMesh generateGreedy(Chunk chunk) {
+        ChunkMesh mesh = new ChunkMesh(null);
+        new GreedyChunkMesher(TILE_SIZE).generateMesh(createView(chunk), mesh, ChunkConstants.SIZE_Y, 0);
+        return mesh;
+    }
+
+    private void fill(Chunk chunk, Block block, int sizeX, int sizeZ) {
+        for (int x = 0; x < sizeX; x++) {
+            for (int z = 0; z < sizeZ; z++) {
+                chunk.setBlock(new Vector3i(x, 0, z), block);
+            }
+        }
+    }
+
+    private ChunkView createView(Chunk chunk) {
+        return new ChunkViewCoreImpl(new Chunk[]{chunk}, Region3i.createFromCenterExtents(Vector3i.zero(), Vector3i.zero()), new Vector3i(), airBlock);
+    }
+
+    private Chunk createChunk() {
+        return new ChunkImpl(new Vector3i(0, 0, 0), blockManager, biomeManager);
+    }
+
+    private Block createSolidBlock(AssetManager assetManager, String uri) {
+        BlockFamilyDefinitionData data = new BlockFamilyDefinitionData();
+        data.getBaseSection().setDisplayName(uri);
+        data.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        data.getBaseSection().setTranslucent(false);
+        data.setBlockFamily(SymmetricFamily.class);
+        assetManager.loadAsset(new ResourceUrn(uri), data, BlockFamilyDefinition.class);
+        return blockManager.getBlock(new BlockUri(new ResourceUrn(uri)));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Rect2i;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.procedural.BrownianNoise;
+import org.terasology.utilities.procedural.Noise;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.utilities.procedural.SubSampledNoise;
+
+/**
+ */
+public class NoiseGridTest {
+    private static final int MIN_X = -21;
+    private static final int MIN_Y = 5;
+    private static final int MIN_Z = -3;
+    private static final int SIZE_X = 17;
+    private static final int SIZE_Y = 9;
+    private static final int SIZE_Z = 6;
+    private static final int STRIDE = 3;
+    private static final float SCALE_X = 0.07f;
+    private static final float SCALE_Y = 0.13f;
+    private static final float SCALE_Z = 0.05f;
+
+    @Test
+    public void testPerlinGridMatchesPoints() {
+        assertGridMatchesPoints(new PerlinNoise(0xCAFE), 0);
+    }
+
+    @Test
+    public void testSimplexGridMatchesPoints() {
+        assertGridMatchesPoints(new SimplexNoise(0xCAFE), 0);
+    }
+
+    @Test
+    public void testBrownianGridMatchesPoints() {
+        assertGridMatchesPoints(new BrownianNoise(new PerlinNoise(0xCAFE), 5), 0);
+    }
+
+    @Test
+    public void testNestedBrownianGridMatchesPoints() {
+        BrownianNoise inner = new BrownianNoise(new PerlinNoise(0xCAFE), 3);
+        assertGridMatchesPoints(new BrownianNoise(inner, 4), 0);
+    }
+
+    @Test
+    public void testSubSampledNoise() {
+        Noise source = new PerlinNoise(0xBEEF);
+        SubSampledNoise noise2d = new SubSampledNoise(source, new Vector2f(0.05f, 0.05f), 4);
+        Rect2i area = Rect2i.createFromMinAndSize(-4, 8, 16, 16);
+        float[] values2d = noise2d.noise(area);
+        Assert.assertEquals(source.noise(0.05f * -4, 0.05f * 8), values2d[0], 0);
+
+        SubSampledNoise noise3d = new SubSampledNoise(source, new Vector3f(0.05f, 0.05f, 0.05f), 4);
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-4, 8, 12), new Vector3i(16, 16, 16));
+        float[] values3d = noise3d.noise(region);
+        Assert.assertEquals(source.noise(0.05f * -4, 0.05f * 8, 0.05f * 12), values3d[0], 0);
+    }
+
+    @Test
+    public void testSubSampledBrownianNoise() {
+        Noise source = new BrownianNoise(new PerlinNoise(0xBEEF), 6);
+        SubSampledNoise noise2d = new SubSampledNoise(source, new Vector2f(0.03f, 0.07f), 4);
+        Rect2i area = Rect2i.createFromMinAndSize(-4, 8, 16, 16);
+        float[] values2d = noise2d.noise(area);
+        Assert.assertEquals(source.noise(0.03f * -4, 0.07f * 8), values2d[0], 0);
+
+        SubSampledNoise noise3d = new SubSampledNoise(source, new Vector3f(0.03f, 0.07f, 0.05f), 4);
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-4, 8, 12), new Vector3i(16, 16, 16));
+        float[] values3d = noise3d.noise(region);
+        Assert.assertEquals(source.noise(0.03f * -4, 0.07f * 8, 0.05f * 12), values3d[0], 0);
+    }
+
+    private void assertGridMatchesPoints(Noise noise, float delta) {
+        float[] grid2d = new float[SIZE_X * SIZE_Y];
+        noise.noiseGrid(grid2d, MIN_X, MIN_Y, SIZE_X, SIZE_Y, STRIDE, SCALE_X, SCALE_Y);
+        for (int j = 0; j < SIZE_Y; j++) {
+            for (int i = 0; i < SIZE_X; i++) {
+                float expected = noise.noise(SCALE_X * (MIN_X + i * STRIDE), SCALE_Y * (MIN_Y + j * STRIDE));
+                Assert.assertEquals(expected, grid2d[i + SIZE_X * j], delta);
+            }
+        }
+
+        float[] grid3d = new float[SIZE_X * SIZE_Y * SIZE_Z];
+        noise.noiseGrid(grid3d, MIN_X, MIN_Y, MIN_Z, SIZE_X, SIZE_Y, SIZE_Z, STRIDE, SCALE_X, SCALE_Y, SCALE_Z);
+        for (int k = 0; k < SIZE_Z; k++) {
+            for (int j = 0; j < SIZE_Y; j++) {
+                for (int i = 0; i < SIZE_X; i++) {
+                    float expected = noise.noise(SCALE_X * (MIN_X + i * STRIDE), SCALE_Y * (MIN_Y + j * STRIDE), SCALE_Z * (MIN_Z + k * STRIDE));
+                    Assert.assertEquals(expected, grid3d[i + SIZE_X * (j + SIZE_Y * k)], delta);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testTimersExpireInDeadlineOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule("later", 70000);
+        wheel.schedule("soon", 10);
+        wheel.schedule("far", 5_000_000_000L);
+        wheel.schedule("mid", 300);
+
+        List<String> expired = Lists.newArrayList();
+        wheel.advance(9, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advance(100000, expired);
+        assertEquals(Arrays.asList("soon", "mid", "later"), expired);
+        assertEquals(1, wheel.size());
+
+        expired.clear();
+        wheel.advance(5_000_000_000L, expired);
+        assertEquals(Collections.singletonList("far"), expired);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testCancelledTimerDoesNotExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000);
+        TimingWheel.Timer<String> timer = wheel.schedule("a", 1500);
+        wheel.schedule("b", 1500);
+        wheel.cancel(timer);
+        assertFalse(timer.isPending());
+
+        List<String> expired = Lists.newArrayList();
+        wheel.advance(2000, expired);
+        assertEquals(Collections.singletonList("b"), expired);
+    }
+
+    @Test
+    public void testRescheduledTimerExpiresAtNewDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        TimingWheel.Timer<String> timer = wheel.schedule("a", 100);
+        wheel.reschedule(timer, 100000);
+
+        List<String> expired = Lists.newArrayList();
+        wheel.advance(99999, expired);
+        assertTrue(expired.isEmpty());
+        wheel.advance(100000, expired);
+        assertEquals(Collections.singletonList("a"), expired);
+    }
+
+    @Test
+    public void testOverdueTimerExpiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(500);
+        wheel.schedule("a", 400);
+
+        List<String> expired = Lists.newArrayList();
+        wheel.advance(500, expired);
+        assertEquals(Collections.singletonList("a"), expired);
+    }
+}
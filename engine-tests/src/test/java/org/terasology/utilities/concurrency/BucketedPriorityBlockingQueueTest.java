@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class BucketedPriorityBlockingQueueTest {
+
+    @Test
+    public void testLowestPriorityFirst() {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value, 8);
+        queue.offer(5);
+        queue.offer(2);
+        queue.offer(-3);
+        queue.offer(20);
+        queue.offer(2);
+
+        assertEquals(5, queue.size());
+        assertEquals((Integer) (-3), queue.poll());
+        assertEquals((Integer) 2, queue.poll());
+        assertEquals((Integer) 2, queue.poll());
+        assertEquals((Integer) 5, queue.poll());
+        assertEquals((Integer) 20, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testReprioritizeMovesAndCancels() {
+        AtomicInteger offset = new AtomicInteger();
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> Math.abs(value - offset.get()));
+        for (int i = 0; i < 10; ++i) {
+            queue.offer(i);
+        }
+
+        offset.set(9);
+        List<Integer> cancelled = Lists.newArrayList();
+        queue.reprioritize(value -> value >= 5, cancelled::add);
+
+        assertEquals(5, cancelled.size());
+        assertEquals(5, queue.size());
+        assertEquals((Integer) 9, queue.poll());
+        assertEquals((Integer) 8, queue.poll());
+    }
+
+    @Test
+    public void testIteratorAndCollectionMethods() {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value, 8);
+        queue.offer(3);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertEquals(Arrays.asList(1, 2, 3), Lists.newArrayList(queue));
+        assertTrue(queue.contains(2));
+        assertEquals("[1, 2, 3]", queue.toString());
+
+        Iterator<Integer> iterator = queue.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(2, queue.size());
+        assertFalse(queue.contains(1));
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRemovingAbsentElementKeepsSize() {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value, 8);
+        queue.offer(3);
+
+        assertFalse(queue.remove(4));
+        assertFalse(queue.remove(null));
+        assertEquals(1, queue.size());
+
+        assertTrue(queue.remove(3));
+        assertFalse(queue.remove(3));
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testSizeNeverNegativeWhileRemovingAndPolling() throws InterruptedException {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value % 8, 8);
+        AtomicBoolean negative = new AtomicBoolean();
+        Thread poller = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                queue.poll();
+                if (queue.size() < 0) {
+                    negative.set(true);
+                }
+            }
+        });
+        poller.start();
+        for (int i = 0; i < 20000; i++) {
+            queue.offer(i);
+            queue.remove(i);
+            if (queue.size() < 0) {
+                negative.set(true);
+            }
+        }
+        poller.join();
+
+        assertFalse(negative.get());
+        while (queue.poll() != null) {
+            // drain what the poller left behind
+        }
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testTimedPollOnEmptyQueue() throws InterruptedException {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value);
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTakeWaitsForOffer() throws InterruptedException {
+        BucketedPriorityBlockingQueue<Integer> queue = new BucketedPriorityBlockingQueue<>(value -> value);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.offer(7);
+        });
+        producer.start();
+        assertEquals((Integer) 7, queue.take());
+        producer.join();
+    }
+}
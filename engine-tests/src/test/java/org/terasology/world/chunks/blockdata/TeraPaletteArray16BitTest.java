@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.blockdata;
+
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.deflate.TeraStandardDeflator;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class TeraPaletteArray16BitTest {
+    private static final int SIZE_X = 16;
+    private static final int SIZE_Y = 32;
+    private static final int SIZE_Z = 16;
+
+    @Test
+    public void testStartsWithoutIndices() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        assertEquals(0, array.getBitsPerEntry());
+        assertEquals(0, array.get(3, 4, 5));
+    }
+
+    @Test
+    public void testWidensWithPaletteSize() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        int[] expectedBits = {1, 2, 2, 4, 4, 4, 4, 8};
+        for (int value = 1; value <= expectedBits.length; value++) {
+            array.set(value, 0, 0, value);
+            assertEquals(expectedBits[value - 1], array.getBitsPerEntry());
+        }
+        for (int value = 1; value <= expectedBits.length; value++) {
+            assertEquals(value, array.get(value, 0, 0));
+        }
+        assertEquals(0, array.get(0, 0, 0));
+    }
+
+    @Test
+    public void testBehavesLikeDenseArray() {
+        for (int distinctValues : new int[]{2, 5, 40, 1000}) {
+            TeraPaletteArray16Bit palette = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+            TeraDenseArray16Bit dense = new TeraDenseArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+            FastRandom random = new FastRandom(distinctValues);
+            for (int i = 0; i < 20000; i++) {
+                int x = random.nextInt(SIZE_X);
+                int y = random.nextInt(SIZE_Y);
+                int z = random.nextInt(SIZE_Z);
+                short value = (short) (random.nextInt(distinctValues) * 61 - 3000);
+                assertEquals(dense.set(x, y, z, value), palette.set(x, y, z, value));
+            }
+            assertSameContent(dense, palette);
+            assertSameContent(dense, palette.copy());
+        }
+    }
+
+    @Test
+    public void testManyDistinctValuesAreStoredDirectly() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        TeraDenseArray16Bit dense = new TeraDenseArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        for (int value = 0; value < 300; value++) {
+            array.set(value % SIZE_X, value / SIZE_X, 0, value * 7 - 1000);
+            dense.set(value % SIZE_X, value / SIZE_X, 0, value * 7 - 1000);
+        }
+
+        assertEquals(16, array.getBitsPerEntry());
+        assertEquals(0, array.getPaletteSize());
+        assertTrue(array.getEstimatedMemoryConsumptionInBytes() <= dense.getEstimatedMemoryConsumptionInBytes());
+        assertSameContent(dense, array);
+
+        TeraPaletteArray16Bit.SerializationHandler handler = new TeraPaletteArray16Bit.SerializationHandler();
+        ByteBuffer buffer = handler.serialize(array);
+        buffer.rewind();
+        assertSameContent(dense, handler.deserialize(buffer));
+    }
+
+    @Test
+    public void testFill() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        array.fill(0, SIZE_X, 7);
+        array.fill(SIZE_X, SIZE_X * SIZE_Z, -2);
+        for (int x = 0; x < SIZE_X; x++) {
+            assertEquals(7, array.get(x, 0, 0));
+            assertEquals(-2, array.get(x, 0, 1));
+            assertEquals(-2, array.get(x, 1, 0));
+            assertEquals(0, array.get(x, 1, 1));
+        }
+    }
+
+    @Test
+    public void testDeflationDropsUnusedPaletteEntries() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        for (int value = 1; value < 20; value++) {
+            array.set(0, 0, 0, value);
+        }
+        assertEquals(8, array.getBitsPerEntry());
+
+        TeraArray deflated = new TeraStandardDeflator().deflate(array);
+
+        assertTrue(deflated instanceof TeraPaletteArray16Bit);
+        assertEquals(1, ((TeraPaletteArray16Bit) deflated).getBitsPerEntry());
+        assertSameContent(array, deflated);
+    }
+
+    @Test
+    public void testDenseArraysDeflateToPalette() {
+        TeraDenseArray16Bit dense = new TeraDenseArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        FastRandom random = new FastRandom(3);
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    dense.set(x, y, z, random.nextInt(4));
+                }
+            }
+        }
+
+        TeraArray deflated = new TeraStandardDeflator().deflate(dense);
+
+        assertTrue(deflated instanceof TeraPaletteArray16Bit);
+        assertTrue(deflated.getEstimatedMemoryConsumptionInBytes() * 4 < dense.getEstimatedMemoryConsumptionInBytes());
+        assertSameContent(dense, deflated);
+    }
+
+    @Test
+    public void testSerialization() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        array.set(1, 2, 3, 4);
+        array.set(5, 6, 7, 8);
+        array.set(9, 10, 11, 12);
+        TeraPaletteArray16Bit.SerializationHandler handler = new TeraPaletteArray16Bit.SerializationHandler();
+
+        ByteBuffer buffer = handler.serialize(array);
+        buffer.rewind();
+
+        assertSameContent(array, handler.deserialize(buffer));
+    }
+
+    private void assertSameContent(TeraArray expected, TeraArray actual) {
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    assertEquals(expected.get(x, y, z), actual.get(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.collect.Sets;
+import gnu.trove.map.hash.TShortObjectHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ReadyChunkInfo;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkLifecycleManagerTest {
+
+    private final Vector3i regionCenter = new Vector3i();
+    private ChunkLifecycleManager lifecycle;
+
+    @Before
+    public void setUp() {
+        lifecycle = new ChunkLifecycleManager(pos -> pos.gridDistance(regionCenter));
+    }
+
+    @Test
+    public void testMovedRegionQueuesChunksLeftBehind() {
+        Region3i previous = Region3i.createFromCenterExtents(new Vector3i(0, 0, 0), 1);
+        Region3i current = Region3i.createFromCenterExtents(new Vector3i(1, 0, 0), 1);
+
+        lifecycle.regionMoved(previous, current, Vector3i.zero());
+
+        Set<Vector3i> candidates = drainUnloadCandidates();
+        assertEquals(9, candidates.size());
+        for (Vector3i pos : candidates) {
+            assertEquals(-1, pos.x);
+        }
+    }
+
+    @Test
+    public void testMovedRegionKeepsLeeway() {
+        Region3i previous = Region3i.createFromCenterExtents(new Vector3i(0, 0, 0), 1);
+        Region3i current = Region3i.createFromCenterExtents(new Vector3i(1, 0, 0), 1);
+
+        lifecycle.regionMoved(previous, current, Vector3i.one());
+
+        Set<Vector3i> candidates = drainUnloadCandidates();
+        assertEquals(25, candidates.size());
+        for (Vector3i pos : candidates) {
+            assertEquals(-2, pos.x);
+        }
+    }
+
+    @Test
+    public void testRemovedRegionQueuesAllChunks() {
+        lifecycle.regionRemoved(Region3i.createFromCenterExtents(new Vector3i(5, 5, 5), 1), Vector3i.zero());
+
+        assertEquals(27, drainUnloadCandidates().size());
+    }
+
+    @Test
+    public void testNewRegionQueuesNothing() {
+        lifecycle.regionMoved(Region3i.EMPTY, Region3i.createFromCenterExtents(new Vector3i(), 2), Vector3i.one());
+
+        assertFalse(lifecycle.hasUnloadCandidates());
+    }
+
+    @Test
+    public void testClosestReadyChunkFirst() {
+        lifecycle.addReadyChunk(readyChunkAt(5, 0, 0));
+        lifecycle.addReadyChunk(readyChunkAt(1, 0, 0));
+        lifecycle.addReadyChunk(readyChunkAt(3, 0, 0));
+
+        assertEquals(new Vector3i(1, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertEquals(new Vector3i(3, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertEquals(new Vector3i(5, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertNull(lifecycle.pollReadyChunk(info -> true));
+    }
+
+    @Test
+    public void testUnavailableReadyChunksAreKept() {
+        lifecycle.addReadyChunk(readyChunkAt(1, 0, 0));
+        lifecycle.addReadyChunk(readyChunkAt(2, 0, 0));
+
+        ReadyChunkInfo polled = lifecycle.pollReadyChunk(info -> info.getPos().x == 2);
+
+        assertEquals(new Vector3i(2, 0, 0), polled.getPos());
+        assertEquals(1, lifecycle.getReadyChunkCount());
+        assertNull(lifecycle.pollReadyChunk(info -> false));
+        assertEquals(1, lifecycle.getReadyChunkCount());
+    }
+
+    @Test
+    public void testUnavailableReadyChunkWaitsForNeighbour() {
+        lifecycle.addReadyChunk(readyChunkAt(1, 0, 0));
+        Set<Vector3i> tested = Sets.newHashSet();
+        assertNull(lifecycle.pollReadyChunk(info -> !tested.add(info.getPos())));
+
+        lifecycle.addReadyChunk(readyChunkAt(9, 0, 0));
+        assertEquals(new Vector3i(9, 0, 0), lifecycle.pollReadyChunk(info -> tested.add(info.getPos())).getPos());
+        assertNull(lifecycle.pollReadyChunk(info -> true));
+        assertEquals(1, lifecycle.getReadyChunkCount());
+
+        lifecycle.addReadyChunk(readyChunkAt(2, 1, 0));
+        assertEquals(new Vector3i(1, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertEquals(new Vector3i(2, 1, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertEquals(0, lifecycle.getReadyChunkCount());
+    }
+
+    @Test
+    public void testReprioritizeFollowsRegion() {
+        lifecycle.addReadyChunk(readyChunkAt(1, 0, 0));
+        lifecycle.addReadyChunk(readyChunkAt(10, 0, 0));
+
+        regionCenter.set(10, 0, 0);
+        lifecycle.reprioritize();
+
+        assertEquals(new Vector3i(10, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+    }
+
+    @Test
+    public void testRemoveReadyChunk() {
+        lifecycle.addReadyChunk(readyChunkAt(1, 0, 0));
+        lifecycle.addReadyChunk(readyChunkAt(2, 0, 0));
+
+        lifecycle.removeReadyChunk(new Vector3i(1, 0, 0));
+
+        assertEquals(new Vector3i(2, 0, 0), lifecycle.pollReadyChunk(info -> true).getPos());
+        assertEquals(0, lifecycle.getReadyChunkCount());
+    }
+
+    @Test
+    public void testBudget() {
+        lifecycle.setBudget(0);
+        lifecycle.startTick();
+        assertFalse(lifecycle.hasTimeLeft(1.0f));
+
+        lifecycle.setBudget(60000);
+        lifecycle.startTick();
+        assertTrue(lifecycle.hasTimeLeft(0.5f));
+        lifecycle.pauseWork();
+        assertTrue(lifecycle.hasTimeLeft(1.0f));
+    }
+
+    private Set<Vector3i> drainUnloadCandidates() {
+        Set<Vector3i> result = Sets.newHashSet();
+        Iterator<Vector3i> iterator = lifecycle.unloadCandidates();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+            iterator.remove();
+        }
+        return result;
+    }
+
+    private static ReadyChunkInfo readyChunkAt(int x, int y, int z) {
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getPosition()).thenReturn(new Vector3i(x, y, z));
+        return ReadyChunkInfo.createForNewChunk(chunk, new TShortObjectHashMap<>(), Collections.emptyList());
+    }
+}
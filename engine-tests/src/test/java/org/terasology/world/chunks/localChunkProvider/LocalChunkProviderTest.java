@@ -36,23 +36,29 @@
 import org.terasology.world.block.OnActivatedBlocks;
 import org.terasology.world.block.OnAddedBlocks;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkBlockIterator;
 import org.terasology.world.chunks.event.OnChunkGenerated;
 import org.terasology.world.chunks.event.OnChunkLoaded;
 import org.terasology.world.chunks.internal.ReadyChunkInfo;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -70,6 +76,7 @@ public class LocalChunkProviderTest {
     public void setUp(){
         entityManager = mock(EntityManager.class);
         chunkFinalizer = mock(ChunkFinalizer.class);
+        when(chunkFinalizer.isFinalizationDone()).thenReturn(true);
         blockManager = mock(BlockManager.class);
         blockEntityRegistry = mock(BlockEntityRegistry.class);
         worldEntity = mock(EntityRef.class);
@@ -91,6 +98,53 @@ public void testCompleteUpdateMarksChunkReady() throws Exception {
         verify(chunk).markReady();
     }
 
+    @Test
+    public void testCompleteUpdateDoesNotWaitForRunningFinalization() throws Exception {
+        final Chunk chunk = mockChunkAt(0, 0, 0);
+        final ReadyChunkInfo readyChunkInfo = ReadyChunkInfo.createForNewChunk(chunk, new TShortObjectHashMap<>(), Collections.emptyList());
+        when(chunkFinalizer.completeFinalization()).thenReturn(readyChunkInfo);
+        when(chunkFinalizer.isFinalizationDone()).thenReturn(false);
+
+        chunkProvider.completeUpdate();
+
+        verify(chunkFinalizer, never()).completeFinalization();
+        verify(chunk, never()).markReady();
+    }
+
+    @Test
+    public void testSeveralChunksBecomeAvailablePerTick() {
+        // Enough that a slow test run doesn't use up the budget
+        chunkProvider.setLifecycleBudget(60000);
+        finalizeInOrder();
+        final Chunk first = readyChunkWithNeighboursAt(0, 0, 0);
+        final Chunk second = readyChunkWithNeighboursAt(5, 0, 0);
+
+        chunkProvider.beginUpdate();
+        chunkProvider.completeUpdate();
+
+        verify(chunkFinalizer, times(2)).beginFinalization(any(Chunk.class), any(ReadyChunkInfo.class));
+        verify(first).markReady();
+        verify(second).markReady();
+    }
+
+    @Test
+    public void testNeighboursAreNotFinalizedAtTheSameTime() {
+        final Deque<ReadyChunkInfo> finalizing = finalizeInOrder();
+        final Chunk first = readyChunkWithNeighboursAt(0, 0, 0);
+        final Chunk second = readyChunkWithNeighboursAt(1, 0, 0);
+
+        chunkProvider.beginUpdate();
+
+        assertEquals(1, finalizing.size());
+        final Chunk finalized = finalizing.peek().getChunk();
+
+        chunkProvider.completeUpdate();
+
+        verify(finalized).markReady();
+        assertEquals(1, finalizing.size());
+        assertEquals(finalized == first ? second : first, finalizing.peek().getChunk());
+    }
+
     @Test
     public void testCompleteUpdateHandlesFinalizedChunkIfReady() throws Exception {
         final Chunk chunk = mockChunkAt(0, 0, 0);
@@ -190,6 +244,26 @@ public void testCompleteUpdateSendsBlockActivatedEvents() throws Exception {
         assertThat(((OnActivatedBlocks) event).getBlockPositions(), hasItem(new Vector3i(1, 2, 3)));
     }
 
+    /**
+     * Makes the finalizer complete the finalizations right away, in the order they were begun.
+     *
+     * @return the finalizations that were begun and not yet completed
+     */
+    private Deque<ReadyChunkInfo> finalizeInOrder() {
+        final Deque<ReadyChunkInfo> finalizing = new ArrayDeque<>();
+        doAnswer(i -> finalizing.add(i.getArgument(1))).when(chunkFinalizer).beginFinalization(any(Chunk.class), any(ReadyChunkInfo.class));
+        when(chunkFinalizer.completeFinalization()).thenAnswer(i -> finalizing.poll());
+        return finalizing;
+    }
+
+    private Chunk readyChunkWithNeighboursAt(final int x, final int y, final int z) {
+        final Chunk chunk = mockChunkAt(x, y, z);
+        when(chunk.getBlockIterator()).thenReturn(mock(ChunkBlockIterator.class));
+        generateMockChunkCubeWithSideWidthAround(new Vector3i(x, y, z), 1, chunkCache);
+        chunkProvider.onChunkIsReady(chunk);
+        return chunk;
+    }
+
     private static void markAllChunksAsReady(final ChunkCache chunkCache) {
         markAllChunksAsReadyExcludingPosition(chunkCache, null);
     }
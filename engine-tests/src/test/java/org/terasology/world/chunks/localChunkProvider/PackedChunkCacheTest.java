@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class PackedChunkCacheTest {
+
+    @Test
+    public void testPackingKeepsNegativeCoordinates() {
+        int[] values = {0, 1, -1, 1000, -1000, (1 << 20) - 1, -(1 << 20)};
+        for (int x : values) {
+            for (int y : values) {
+                for (int z : values) {
+                    long key = PackedChunkCache.pack(x, y, z);
+                    assertEquals(x, PackedChunkCache.unpackX(key));
+                    assertEquals(y, PackedChunkCache.unpackY(key));
+                    assertEquals(z, PackedChunkCache.unpackZ(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PackedChunkCache cache = new PackedChunkCache();
+        Chunk chunk = mock(Chunk.class);
+        cache.put(new Vector3i(-3, 2, 7), chunk);
+
+        assertSame(chunk, cache.get(new Vector3i(-3, 2, 7)));
+        assertSame(chunk, cache.get(-3, 2, 7));
+        assertNull(cache.get(3, 2, 7));
+        assertEquals(Sets.newHashSet(new Vector3i(-3, 2, 7)), Sets.newHashSet(cache.iterateChunkPositions()));
+
+        cache.removeChunkAt(new Vector3i(-3, 2, 7));
+        assertFalse(cache.containsChunkAt(new Vector3i(-3, 2, 7)));
+        assertTrue(cache.getAllChunks().isEmpty());
+    }
+
+    @Test
+    public void testDenseRegionFollowsChanges() {
+        PackedChunkCache cache = new PackedChunkCache();
+        Chunk before = mock(Chunk.class);
+        cache.put(new Vector3i(1, 1, 1), before);
+        cache.setDenseRegion(this, Region3i.createFromCenterExtents(Vector3i.zero(), 2));
+        assertSame(before, cache.get(1, 1, 1));
+
+        Chunk after = mock(Chunk.class);
+        cache.put(new Vector3i(-2, 0, 2), after);
+        assertSame(after, cache.get(-2, 0, 2));
+
+        cache.removeChunkAt(new Vector3i(1, 1, 1));
+        assertNull(cache.get(1, 1, 1));
+    }
+
+    @Test
+    public void testMovingDenseRegionDoesNotReturnStaleChunks() {
+        PackedChunkCache cache = new PackedChunkCache();
+        Region3i area = Region3i.createFromMinAndSize(new Vector3i(-8, -8, -8), new Vector3i(24, 24, 24));
+        for (Vector3i pos : area) {
+            cache.put(pos, mock(Chunk.class));
+        }
+        Region3i region = Region3i.createFromCenterExtents(Vector3i.zero(), 2);
+        cache.setDenseRegion(this, region);
+        for (int step = 0; step < 6; step++) {
+            region = region.move(new Vector3i(1, 0, 2));
+            cache.setDenseRegion(this, region);
+        }
+        // Growing the region needs a larger grid
+        cache.setDenseRegion(this, region.expand(3));
+
+        PackedChunkCache reference = new PackedChunkCache();
+        for (Vector3i pos : area) {
+            reference.put(pos, cache.get(pos));
+        }
+        cache.removeDenseRegion(this);
+        for (Vector3i pos : area) {
+            assertSame(reference.get(pos), cache.get(pos));
+        }
+    }
+
+    @Test
+    public void testChunkRemovedOutsideDenseRegionIsNotReturnedAfterMovingBack() {
+        PackedChunkCache cache = new PackedChunkCache();
+        Vector3i position = new Vector3i(2, 0, 0);
+        cache.put(position, mock(Chunk.class));
+        Region3i region = Region3i.createFromCenterExtents(Vector3i.zero(), 2);
+        cache.setDenseRegion(this, region);
+        assertTrue(cache.containsChunkAt(position));
+
+        cache.setDenseRegion(this, region.move(new Vector3i(-1, 0, 0)));
+        cache.removeChunkAt(position);
+        cache.setDenseRegion(this, region);
+
+        assertNull(cache.get(position));
+        Chunk reloaded = mock(Chunk.class);
+        cache.put(position, reloaded);
+        assertSame(reloaded, cache.get(position));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.CoreChunk;
+import org.terasology.world.generation.facets.base.BaseFacet2D;
+import org.terasology.world.generation.facets.base.BaseFacet3D;
+import org.terasology.world.generator.plugin.WorldGeneratorPluginLibrary;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class FacetColumnCacheTest {
+
+    private static final Vector3i CHUNK_SIZE = new Vector3i(8, 8, 8);
+
+    private Context context = new ContextImpl();
+    private WorldBuilder worldBuilder;
+    private ColumnProvider columnProvider;
+    private VolumeProvider volumeProvider;
+    private RecordingRasterizer rasterizer;
+
+    @Before
+    public void setUp() {
+        worldBuilder = new WorldBuilder(context.get(WorldGeneratorPluginLibrary.class));
+        worldBuilder.setSeed(12);
+        columnProvider = new ColumnProvider();
+        volumeProvider = new VolumeProvider();
+        rasterizer = new RecordingRasterizer();
+        worldBuilder.addProvider(columnProvider);
+        worldBuilder.addProvider(volumeProvider);
+        worldBuilder.addRasterizer(rasterizer);
+    }
+
+    @Test
+    public void testColumnFacetSharedByChunksOfColumn() {
+        World world = worldBuilder.build();
+        for (int y = 0; y < 4; y++) {
+            world.rasterizeChunk(chunkAt(0, y, 0), mock(EntityBuffer.class));
+        }
+
+        assertEquals(1, columnProvider.processed);
+        assertEquals(4, volumeProvider.processed);
+        for (ColumnFacet facet : rasterizer.columnFacets) {
+            assertSame(rasterizer.columnFacets.get(0), facet);
+        }
+    }
+
+    @Test
+    public void testColumnsDoNotShareFacets() {
+        World world = worldBuilder.build();
+        world.rasterizeChunk(chunkAt(0, 0, 0), mock(EntityBuffer.class));
+        world.rasterizeChunk(chunkAt(1, 0, 0), mock(EntityBuffer.class));
+
+        assertEquals(2, columnProvider.processed);
+        assertNotSame(rasterizer.columnFacets.get(0), rasterizer.columnFacets.get(1));
+    }
+
+    @Test
+    public void testUndeclaredUpdaterPreventsSharing() {
+        worldBuilder.addProvider(new ColumnUpdater());
+        World world = worldBuilder.build();
+        for (int y = 0; y < 4; y++) {
+            world.rasterizeChunk(chunkAt(0, y, 0), mock(EntityBuffer.class));
+        }
+
+        assertEquals(4, columnProvider.processed);
+    }
+
+    @Test
+    public void testWorldDataIsNotShared() {
+        World world = worldBuilder.build();
+        world.getWorldData(Region3i.createFromMinAndSize(new Vector3i(), CHUNK_SIZE)).getFacet(VolumeFacet.class);
+        world.getWorldData(Region3i.createFromMinAndSize(new Vector3i(0, 8, 0), CHUNK_SIZE)).getFacet(VolumeFacet.class);
+
+        assertEquals(2, columnProvider.processed);
+    }
+
+    private static CoreChunk chunkAt(int x, int y, int z) {
+        CoreChunk chunk = mock(CoreChunk.class);
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(x * CHUNK_SIZE.x, y * CHUNK_SIZE.y, z * CHUNK_SIZE.z), CHUNK_SIZE);
+        when(chunk.getRegion()).thenReturn(region);
+        return chunk;
+    }
+
+    public static class ColumnFacet extends BaseFacet2D {
+        public ColumnFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class VolumeFacet extends BaseFacet3D {
+        public VolumeFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    @Produces(ColumnFacet.class)
+    @PerColumn(ColumnFacet.class)
+    public static class ColumnProvider implements FacetProvider {
+        private int processed;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            processed++;
+            region.setRegionFacet(ColumnFacet.class, new ColumnFacet(region.getRegion(), region.getBorderForFacet(ColumnFacet.class)));
+        }
+    }
+
+    @Produces(VolumeFacet.class)
+    @Requires(@Facet(ColumnFacet.class))
+    public static class VolumeProvider implements FacetProvider {
+        private int processed;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            processed++;
+            region.setRegionFacet(VolumeFacet.class, new VolumeFacet(region.getRegion(), region.getBorderForFacet(VolumeFacet.class)));
+        }
+    }
+
+    @Updates(@Facet(ColumnFacet.class))
+    public static class ColumnUpdater implements FacetProvider {
+
+        @Override
+        public void process(GeneratingRegion region) {
+        }
+    }
+
+    private static class RecordingRasterizer implements WorldRasterizer {
+        private final List<ColumnFacet> columnFacets = Lists.newArrayList();
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void generateChunk(CoreChunk chunk, Region chunkRegion) {
+            chunkRegion.getFacet(VolumeFacet.class);
+            columnFacets.add(chunkRegion.getFacet(ColumnFacet.class));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.propagation.light.LightPropagationRules;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the parallel propagator produces exactly the light values of {@link StandardBatchPropagator}.
+ */
+public class ParallelBatchPropagatorTest extends TerasologyTestingEnvironment {
+
+    private Region3i testingRegion = Region3i.createFromMinMax(new Vector3i(-ChunkConstants.SIZE_X, 0, -ChunkConstants.SIZE_Z),
+            new Vector3i(2 * ChunkConstants.SIZE_X - 1, ChunkConstants.SIZE_Y - 1, 2 * ChunkConstants.SIZE_Z - 1));
+
+    private LightPropagationRules lightRules;
+    private ForkJoinPool pool;
+    private Block air;
+    private Block fullLight;
+    private Block mediumLight;
+    private Block solid;
+
+    private Map<Vector3i, Block> blocks;
+    private StubPropagatorWorldView standardView;
+    private PropagatorWorldView parallelView;
+    private BatchPropagator standardPropagator;
+    private BatchPropagator parallelPropagator;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        lightRules = new LightPropagationRules();
+        pool = new ForkJoinPool(4);
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager, true);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        fullLight = createBlock(assetManager, blockManager, "engine:torch", ChunkConstants.MAX_LIGHT, true);
+        mediumLight = createBlock(assetManager, blockManager, "engine:mediumLight", (byte) 5, true);
+        solid = createBlock(assetManager, blockManager, "engine:stone", (byte) 0, false);
+        air = blockManager.getBlock(BlockManager.AIR_ID);
+
+        blocks = Maps.newHashMap();
+        standardView = new StubPropagatorWorldView(testingRegion, air, blocks);
+        parallelView = new SynchronizedWorldView(new StubPropagatorWorldView(testingRegion, air, blocks));
+        standardPropagator = new StandardBatchPropagator(lightRules, standardView);
+        parallelPropagator = new ParallelBatchPropagator(lightRules, parallelView, pool);
+    }
+
+    @After
+    public void teardown() {
+        pool.shutdown();
+    }
+
+    private Block createBlock(AssetManager assetManager, BlockManager blockManager, String uri, byte luminance, boolean translucent) {
+        BlockFamilyDefinitionData data = new BlockFamilyDefinitionData();
+        data.getBaseSection().setDisplayName(uri);
+        data.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        data.getBaseSection().setLuminance(luminance);
+        data.getBaseSection().setTranslucent(translucent);
+        data.setBlockFamily(SymmetricFamily.class);
+        assetManager.loadAsset(new ResourceUrn(uri), data, BlockFamilyDefinition.class);
+        return blockManager.getBlock(new BlockUri(new ResourceUrn(uri)));
+    }
+
+    @Test
+    public void testLightAcrossChunkCorner() {
+        Vector3i corner = new Vector3i(ChunkConstants.SIZE_X - 1, 10, ChunkConstants.SIZE_Z - 1);
+        setBlocks(Lists.newArrayList(corner), fullLight);
+        assertSameValues();
+        assertEquals(ChunkConstants.MAX_LIGHT - 2, parallelView.getValueAt(new Vector3i(ChunkConstants.SIZE_X, 10, ChunkConstants.SIZE_Z)));
+
+        setBlocks(Lists.newArrayList(new Vector3i(ChunkConstants.SIZE_X, 10, ChunkConstants.SIZE_Z - 1)), solid);
+        assertSameValues();
+
+        setBlocks(Lists.newArrayList(corner), air);
+        assertSameValues();
+        assertEquals(0, parallelView.getValueAt(new Vector3i(ChunkConstants.SIZE_X, 10, ChunkConstants.SIZE_Z)));
+    }
+
+    @Test
+    public void testRandomChangesMatchStandardPropagator() {
+        Random random = new Random(42);
+        Block[] choices = {air, air, fullLight, mediumLight, solid, solid};
+        for (int batch = 0; batch < 8; batch++) {
+            Map<Vector3i, BlockChange> changes = Maps.newLinkedHashMap();
+            for (int i = 0; i < 60; i++) {
+                Vector3i pos = new Vector3i(
+                        testingRegion.minX() + random.nextInt(testingRegion.sizeX()),
+                        testingRegion.minY() + random.nextInt(testingRegion.sizeY()),
+                        testingRegion.minZ() + random.nextInt(testingRegion.sizeZ()));
+                Block from = standardView.getBlockAt(pos);
+                Block to = choices[random.nextInt(choices.length)];
+                BlockChange previous = changes.get(pos);
+                changes.put(pos, new BlockChange(pos, previous != null ? previous.getFrom() : from, to));
+                blocks.put(pos, to);
+            }
+            standardPropagator.process(changes.values());
+            parallelPropagator.process(changes.values());
+            assertSameValues();
+        }
+    }
+
+    private void setBlocks(List<Vector3i> positions, Block block) {
+        List<BlockChange> changes = Lists.newArrayList();
+        for (Vector3i pos : positions) {
+            changes.add(new BlockChange(pos, standardView.getBlockAt(pos), block));
+            blocks.put(pos, block);
+        }
+        standardPropagator.process(changes);
+        parallelPropagator.process(changes);
+    }
+
+    private void assertSameValues() {
+        for (Vector3i pos : testingRegion) {
+            assertEquals("Light at " + pos, standardView.getValueAt(pos), parallelView.getValueAt(pos));
+        }
+    }
+
+    /**
+     * The stub world view keeps all values in one map, so the parallel propagator has to access it one at a time.
+     */
+    private static final class SynchronizedWorldView implements PropagatorWorldView {
+        private final PropagatorWorldView view;
+
+        private SynchronizedWorldView(PropagatorWorldView view) {
+            this.view = view;
+        }
+
+        @Override
+        public synchronized byte getValueAt(Vector3i pos) {
+            return view.getValueAt(pos);
+        }
+
+        @Override
+        public synchronized void setValueAt(Vector3i pos, byte value) {
+            view.setValueAt(pos, value);
+        }
+
+        @Override
+        public Block getBlockAt(Vector3i pos) {
+            return view.getBlockAt(pos);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import gnu.trove.list.array.TLongArrayList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class PositionQueueTest {
+
+    @Test
+    public void testPackRoundTrip() {
+        long packed = PositionQueue.pack(-70000, -300, 1234567);
+        assertEquals(-70000, PositionQueue.unpackX(packed));
+        assertEquals(-300, PositionQueue.unpackY(packed));
+        assertEquals(1234567, PositionQueue.unpackZ(packed));
+    }
+
+    @Test
+    public void testRemovedPositionsAreNotDrained() {
+        PositionQueue queue = new PositionQueue();
+        queue.add(1);
+        queue.add(2);
+        queue.add(3);
+        queue.remove(2);
+        assertEquals(2, queue.size());
+
+        assertEquals(new TLongArrayList(new long[]{1, 3}), drain(queue));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReaddedPositionMovesToTheEnd() {
+        PositionQueue queue = new PositionQueue();
+        queue.add(1);
+        queue.add(2);
+        queue.add(3);
+        queue.remove(1);
+        queue.add(1);
+        queue.add(2);
+
+        assertEquals(new TLongArrayList(new long[]{2, 3, 1}), drain(queue));
+    }
+
+    private static TLongArrayList drain(PositionQueue queue) {
+        TLongArrayList result = new TLongArrayList();
+        queue.drain(result::add);
+        return result;
+    }
+}
@@ -16,49 +16,95 @@
 package org.terasology.benchmark.chunks.cache;
 
 import org.terasology.benchmark.Benchmark;
-
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.localChunkProvider.ChunkCache;
+
+/**
+ * Looks up the 3x3x3 neighbourhood of every chunk in a player sized region, the way chunk views for meshing and
+ * light propagation are created.
+ */
 public class BenchmarkChunkCache implements Benchmark {
-
-    public BenchmarkChunkCache() {
+    private static final Region3i REGION = Region3i.createFromCenterExtents(Vector3i.zero(), new Vector3i(12, 3, 12));
+
+    private final String title;
+    private final ChunkCache cache;
+    private final boolean dense;
+    private int runs;
+    private long found;
+
+    public BenchmarkChunkCache(String title, ChunkCache cache, boolean dense) {
+        this.title = title;
+        this.cache = cache;
+        this.dense = dense;
     }
 
     @Override
     public String getTitle() {
-        return null;
+        return title;
     }
 
     @Override
     public int getWarmupRepetitions() {
-        return 1;
+        return 10;
     }
 
     @Override
     public int[] getRepetitions() {
-        return new int[]{1, 10};
+        return new int[]{10, 100};
     }
 
     @Override
     public void setup() {
-
+        // The cache doesn't look at the chunks, so one instance is enough and keeps the memory use low
+        Chunk chunk = new ChunkImpl(0, 0, 0, null, null);
+        for (Vector3i pos : REGION) {
+            cache.put(pos, chunk);
+        }
+        if (dense) {
+            cache.setDenseRegion(this, REGION);
+        }
     }
 
     @Override
     public void prerun() {
-
+        runs = 0;
+        found = 0;
     }
 
     @Override
     public void run() {
+        runs++;
+        for (int x = REGION.minX() + 1; x < REGION.maxX(); x++) {
+            for (int y = REGION.minY() + 1; y < REGION.maxY(); y++) {
+                for (int z = REGION.minZ() + 1; z < REGION.maxZ(); z++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            for (int dz = -1; dz <= 1; dz++) {
+                                if (cache.get(x + dx, y + dy, z + dz) != null) {
+                                    found++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void postrun() {
-
+        long expected = (long) runs * (REGION.sizeX() - 2) * (REGION.sizeY() - 2) * (REGION.sizeZ() - 2) * 27;
+        if (found != expected) {
+            throw new IllegalStateException("Found " + found + " chunks, expected " + expected);
+        }
     }
 
     @Override
     public void finish(boolean aborted) {
-
+        cache.clear();
     }
 
 }
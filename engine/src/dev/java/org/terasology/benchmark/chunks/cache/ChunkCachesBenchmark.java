@@ -15,13 +15,28 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.world.chunks.localChunkProvider.ConcurrentMapChunkCache;
+import org.terasology.world.chunks.localChunkProvider.PackedChunkCache;
+
+import java.util.List;
+
 public final class ChunkCachesBenchmark {
 
     private ChunkCachesBenchmark() {
     }
 
     public static void main(String[] args) {
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+
+        benchmarks.add(new BenchmarkChunkCache("Concurrent Map", new ConcurrentMapChunkCache(), false));
+        benchmarks.add(new BenchmarkChunkCache("Packed", new PackedChunkCache(), false));
+        benchmarks.add(new BenchmarkChunkCache("Packed - Dense Region", new PackedChunkCache(), true));
 
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
     }
 
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+
+import java.util.List;
+
+/**
+ * Compares scheduling delayed actions in a timing wheel with a sorted multimap, for 10k to 1M pending actions.
+ */
+public final class DelayBenchmark {
+    static final int FRAME_TIME = 16;
+    static final int MAX_PERIOD = 60000;
+    static final int CHANGES_PER_FRAME = 100;
+
+    private DelayBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+
+        for (int pendingActions : new int[]{10000, 100000, 1000000}) {
+            benchmarks.add(new TimingWheelBenchmark(pendingActions));
+            benchmarks.add(new TreeMultimapScheduleBenchmark(pendingActions));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
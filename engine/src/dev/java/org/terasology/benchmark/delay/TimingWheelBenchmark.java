@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.collection.TimingWheel;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+
+/**
+ * Simulates frames of the delayed action system with a {@link TimingWheel}: the actions that are due fire and get
+ * rescheduled like periodic actions do, and some others get rescheduled as if they were cancelled and added again.
+ */
+public class TimingWheelBenchmark extends AbstractBenchmark {
+    private final int pendingActions;
+    private TimingWheel<Integer> wheel;
+    private List<TimingWheel.Timer<Integer>> timers;
+    private List<Integer> expired;
+    private FastRandom rand;
+    private long time;
+
+    public TimingWheelBenchmark(int pendingActions) {
+        super("Timing Wheel With " + pendingActions + " Pending Actions", 1000, new int[]{1000, 10000});
+        this.pendingActions = pendingActions;
+    }
+
+    @Override
+    public void setup() {
+        rand = new FastRandom(0L);
+        time = 0;
+        wheel = new TimingWheel<>(time);
+        timers = Lists.newArrayListWithCapacity(pendingActions);
+        expired = Lists.newArrayList();
+        for (int i = 0; i < pendingActions; i++) {
+            timers.add(wheel.schedule(i, rand.nextInt(DelayBenchmark.MAX_PERIOD)));
+        }
+    }
+
+    @Override
+    public void run() {
+        time += DelayBenchmark.FRAME_TIME;
+        expired.clear();
+        wheel.advance(time, expired);
+        for (Integer action : expired) {
+            timers.set(action, wheel.schedule(action, time + rand.nextInt(DelayBenchmark.MAX_PERIOD)));
+        }
+        for (int i = 0; i < DelayBenchmark.CHANGES_PER_FRAME; i++) {
+            wheel.reschedule(timers.get(rand.nextInt(pendingActions)), time + rand.nextInt(DelayBenchmark.MAX_PERIOD));
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        wheel = null;
+        timers = null;
+        expired = null;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The same frames as {@link TimingWheelBenchmark}, with the actions sorted by their wake up in a {@link TreeMultimap}
+ * as the delayed action system used to keep them.
+ */
+public class TreeMultimapScheduleBenchmark extends AbstractBenchmark {
+    private final int pendingActions;
+    private SortedSetMultimap<Long, Integer> actionsSortedByTime;
+    private long[] wakeUps;
+    private List<Integer> expired;
+    private FastRandom rand;
+    private long time;
+
+    public TreeMultimapScheduleBenchmark(int pendingActions) {
+        super("Tree Multimap With " + pendingActions + " Pending Actions", 1000, new int[]{1000, 10000});
+        this.pendingActions = pendingActions;
+    }
+
+    @Override
+    public void setup() {
+        rand = new FastRandom(0L);
+        time = 0;
+        actionsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.natural());
+        wakeUps = new long[pendingActions];
+        expired = Lists.newArrayList();
+        for (int i = 0; i < pendingActions; i++) {
+            schedule(i, rand.nextInt(DelayBenchmark.MAX_PERIOD));
+        }
+    }
+
+    @Override
+    public void run() {
+        time += DelayBenchmark.FRAME_TIME;
+        expired.clear();
+        Iterator<Long> iterator = actionsSortedByTime.keySet().iterator();
+        while (iterator.hasNext()) {
+            long wakeUp = iterator.next();
+            if (wakeUp > time) {
+                break;
+            }
+            expired.addAll(actionsSortedByTime.get(wakeUp));
+            iterator.remove();
+        }
+        for (Integer action : expired) {
+            schedule(action, time + rand.nextInt(DelayBenchmark.MAX_PERIOD));
+        }
+        for (int i = 0; i < DelayBenchmark.CHANGES_PER_FRAME; i++) {
+            int action = rand.nextInt(pendingActions);
+            actionsSortedByTime.remove(wakeUps[action], action);
+            schedule(action, time + rand.nextInt(DelayBenchmark.MAX_PERIOD));
+        }
+    }
+
+    private void schedule(int action, long wakeUp) {
+        wakeUps[action] = wakeUp;
+        actionsSortedByTime.put(wakeUp, action);
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        actionsSortedByTime = null;
+        wakeUps = null;
+        expired = null;
+    }
+}
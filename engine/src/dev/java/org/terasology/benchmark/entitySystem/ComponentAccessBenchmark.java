@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.rendering.logic.MeshComponent;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.BlockComponent;
+
+import java.util.List;
+
+/**
+ * Measures accessing components through entity refs that are already known, as systems do with the entities they
+ * keep track of, instead of iterating over the entities with a component.
+ */
+public class ComponentAccessBenchmark extends AbstractBenchmark {
+    private PojoEntityManager entityManager;
+    private List<EntityRef> entities;
+
+    public ComponentAccessBenchmark() {
+        super("Access Components By Ref", 10000, new int[]{10000});
+    }
+
+    @Override
+    public void setup() {
+        FastRandom rand = new FastRandom(0L);
+        entityManager = new PojoEntityManager();
+        entities = Lists.newArrayList();
+        for (int i = 0; i < 1000; ++i) {
+            List<Component> entityData = Lists.newArrayList();
+            if (rand.nextFloat() < 0.75f) {
+                entityData.add(new LocationComponent());
+            }
+            if (rand.nextFloat() < 0.5f) {
+                entityData.add(new MeshComponent());
+            }
+            if (rand.nextFloat() < 0.25f) {
+                entityData.add(new BlockComponent());
+            }
+            entities.add(entityManager.create(entityData));
+        }
+    }
+
+    @Override
+    public void run() {
+        for (EntityRef entity : entities) {
+            if (entity.hasComponent(MeshComponent.class)) {
+                LocationComponent loc = entity.getComponent(LocationComponent.class);
+                if (loc != null) {
+                    loc.getLocalPosition();
+                }
+            }
+            entity.getComponent(BlockComponent.class);
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        entities = null;
+        entityManager = null;
+    }
+}
@@ -40,6 +40,8 @@ public static void main(String[] args) {
         benchmarks.add(new EntityCreateBenchmark());
         benchmarks.add(new IterateSingleComponentBenchmark());
         benchmarks.add(new IterateMultipleComponentBenchmark());
+        benchmarks.add(new ComponentAccessBenchmark());
+        benchmarks.add(new EntityCreateDestroyBenchmark());
         Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
 
     }
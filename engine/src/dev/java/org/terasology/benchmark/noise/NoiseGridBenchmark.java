@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.procedural.Noise;
+
+/**
+ * Fills a chunk sized 3D grid with noise, either point by point or through {@link Noise#noiseGrid}.
+ */
+public class NoiseGridBenchmark extends AbstractBenchmark {
+    private static final int SIZE_X = 32;
+    private static final int SIZE_Y = 64;
+    private static final int SIZE_Z = 32;
+    private static final float SCALE = 0.01f;
+
+    private final Noise noise;
+    private final boolean grid;
+    private final float[] target = new float[SIZE_X * SIZE_Y * SIZE_Z];
+    private int offset;
+
+    public NoiseGridBenchmark(String name, Noise noise, boolean grid) {
+        super(name + (grid ? " - Grid" : " - Per Point"), 10, new int[]{100});
+        this.noise = noise;
+        this.grid = grid;
+    }
+
+    @Override
+    public void run() {
+        offset += SIZE_X;
+        if (grid) {
+            noise.noiseGrid(target, offset, 0, 0, SIZE_X, SIZE_Y, SIZE_Z, 1, SCALE, SCALE, SCALE);
+        } else {
+            int index = 0;
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int y = 0; y < SIZE_Y; y++) {
+                    for (int x = 0; x < SIZE_X; x++) {
+                        target[index++] = noise.noise(SCALE * (offset + x), SCALE * y, SCALE * z);
+                    }
+                }
+            }
+        }
+    }
+}
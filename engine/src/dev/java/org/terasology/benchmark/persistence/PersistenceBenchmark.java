@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.persistence;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+
+import java.util.List;
+
+/**
+ * Compares the chunk saving throughput for different numbers of encoder threads.
+ */
+public final class PersistenceBenchmark {
+
+    private PersistenceBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int chunkCount : new int[]{1000, 10000}) {
+            for (int threads = 1; threads < cores; threads *= 2) {
+                benchmarks.add(new SaveChunksBenchmark(chunkCount, threads));
+            }
+            benchmarks.add(new SaveChunksBenchmark(chunkCount, cores));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
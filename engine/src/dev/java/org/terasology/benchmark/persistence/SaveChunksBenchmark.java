@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.persistence;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.persistence.internal.ChunkRegionStorage;
+import org.terasology.persistence.internal.CompressedChunkBuilder;
+import org.terasology.persistence.internal.ParallelChunkEncoder;
+import org.terasology.persistence.internal.StoragePathProvider;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how long it takes to encode, compress and write a number of dirty chunks into region files, like a
+ * save transaction does.
+ * <br><br>
+ * Every chunk still allocates its light arrays, so 10000 chunks need a heap of about 1GB.
+ */
+public class SaveChunksBenchmark extends AbstractBenchmark {
+    private static final int DISTINCT_CHUNKS = 64;
+
+    private final int chunkCount;
+    private final ParallelChunkEncoder encoder;
+    private List<ChunkImpl> chunks;
+    private Path savePath;
+    private ChunkRegionStorage storage;
+
+    public SaveChunksBenchmark(int chunkCount, int threads) {
+        super("Save " + chunkCount + " chunks with " + threads + " encoder threads", 1, new int[]{3});
+        this.chunkCount = chunkCount;
+        this.encoder = new ParallelChunkEncoder(threads);
+    }
+
+    @Override
+    public void setup() {
+        FastRandom random = new FastRandom(0L);
+        // Chunks share their block data to keep the memory usage of the benchmark down, it gets encoded independently
+        TeraArray[] blockData = new TeraArray[DISTINCT_CHUNKS];
+        for (int i = 0; i < DISTINCT_CHUNKS; i++) {
+            blockData[i] = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+            for (int y = 0; y < ChunkConstants.SIZE_Y / 2; y++) {
+                for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                    for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                        // Mostly uniform layers with some noise, roughly like generated terrain
+                        blockData[i].set(x, y, z, random.nextInt(8) == 0 ? random.nextInt(1, 64) : 1 + y / 8);
+                    }
+                }
+            }
+        }
+        TeraArray liquid = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        TeraArray biome = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+
+        chunks = Lists.newArrayListWithCapacity(chunkCount);
+        int edge = (int) Math.ceil(Math.cbrt(chunkCount));
+        for (int i = 0; i < chunkCount; i++) {
+            Vector3i pos = new Vector3i(i % edge, (i / edge) % edge, i / (edge * edge));
+            chunks.add(new ChunkImpl(pos, blockData[i % DISTINCT_CHUNKS], liquid, biome, null, null));
+        }
+        createStorage();
+    }
+
+    @Override
+    public void prerun() {
+        // Start every repetition with empty region files, the warmup wrote into the previous ones
+        deleteStorage();
+        createStorage();
+    }
+
+    private void createStorage() {
+        try {
+            savePath = Files.createTempDirectory("save-benchmark");
+            StoragePathProvider storagePathProvider = new StoragePathProvider(savePath);
+            Files.createDirectories(storagePathProvider.getWorldPath());
+            storage = new ChunkRegionStorage(storagePathProvider);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void run() {
+        Map<Vector3i, CompressedChunkBuilder> builders = Maps.newHashMap();
+        for (ChunkImpl chunk : chunks) {
+            builders.put(chunk.getPosition(), new CompressedChunkBuilder(EntityData.EntityStore.getDefaultInstance(), chunk, false));
+        }
+        ParallelChunkEncoder.EncodedChunks encodedChunks = encoder.encode(builders);
+        try {
+            for (Vector3i chunkPos : encodedChunks.getPositions()) {
+                storage.store(chunkPos, encodedChunks.get(chunkPos));
+            }
+            storage.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        deleteStorage();
+    }
+
+    private void deleteStorage() {
+        storage.close();
+        try {
+            Files.walk(savePath).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.rendering.primitives.GreedyChunkMesher;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * Tessellates a chunk of terrain, either face by face or with the {@link GreedyChunkMesher}, and reports the size of
+ * the resulting mesh.
+ */
+public class ChunkMeshingBenchmark extends AbstractBenchmark {
+    private final boolean greedy;
+    private TerrainChunkView chunkView;
+    private ChunkTessellator tessellator;
+    private ChunkMesh lastMesh;
+    private long totalNanos;
+    private int chunks;
+
+    public ChunkMeshingBenchmark(boolean greedy) {
+        super(greedy ? "Tessellate Chunk - Greedy" : "Tessellate Chunk - Face By Face", 20, new int[]{100});
+        this.greedy = greedy;
+    }
+
+    @Override
+    public void setup() {
+        chunkView = new TerrainChunkView();
+        tessellator = greedy
+                ? new ChunkTessellator(null, new GreedyChunkMesher(TerrainChunkView.TILE_SIZE))
+                : new ChunkTessellator(null);
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        lastMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+        totalNanos += System.nanoTime() - start;
+        chunks++;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted && lastMesh != null) {
+            int vertices = 0;
+            int triangles = 0;
+            for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+                ChunkMesh.VertexElements elements = lastMesh.getVertexElements(type);
+                vertices += elements.finalVertices.limit() / GreedyChunkMesher.VERTEX_SIZE;
+                triangles += elements.finalIndices.limit() / 3;
+            }
+            System.out.println(getTitle() + ": " + vertices + " vertices, " + triangles + " triangles, "
+                    + String.format("%.3f", totalNanos / 1e6 / chunks) + " ms per chunk");
+        }
+        chunkView = null;
+        lastMesh = null;
+    }
+}
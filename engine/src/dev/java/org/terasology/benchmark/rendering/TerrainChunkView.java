@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.liquid.LiquidData;
+
+import java.util.Map;
+
+/**
+ * A single chunk of rolling hills made of cube blocks, lit by the sun from above. Only supports reading blocks
+ * and light, which is all that tessellating it needs.
+ */
+class TerrainChunkView implements ChunkView {
+    static final float TILE_SIZE = 1f / 16f;
+
+    private final Block air;
+    private final Block[] blocks = new Block[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
+    private final int[] heights = new int[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z];
+
+    TerrainChunkView() {
+        air = new Block();
+        air.setMeshGenerator(null);
+        air.setTranslucent(true);
+        air.setShadowCasting(false);
+        Block stone = createCube(new Vector2f(0, 0));
+        Block dirt = createCube(new Vector2f(TILE_SIZE, 0));
+
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int height = 24 + (int) (6 * Math.sin(x * 0.2) + 4 * Math.cos(z * 0.15));
+                heights[x + ChunkConstants.SIZE_X * z] = height;
+                for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                    Block block = air;
+                    if (y < height - 3) {
+                        block = stone;
+                    } else if (y < height) {
+                        block = dirt;
+                    }
+                    blocks[index(x, y, z)] = block;
+                }
+            }
+        }
+    }
+
+    private static Block createCube(Vector2f tile) {
+        Map<BlockPart, BlockMeshPart> parts = Maps.newEnumMap(BlockPart.class);
+        Map<BlockPart, Vector2f> atlasPositions = Maps.newEnumMap(BlockPart.class);
+        Block block = new Block();
+        for (Side side : Side.values()) {
+            parts.put(BlockPart.fromSide(side), createQuad(side).mapTexCoords(tile, TILE_SIZE));
+            block.setFullSide(side, true);
+        }
+        for (BlockPart part : BlockPart.values()) {
+            atlasPositions.put(part, tile);
+        }
+        block.setPrimaryAppearance(new BlockAppearance(parts, atlasPositions));
+        return block;
+    }
+
+    private static BlockMeshPart createQuad(Side side) {
+        Vector3i normal = side.getVector3i();
+        Vector3f[] vertices = new Vector3f[4];
+        Vector3f[] normals = new Vector3f[4];
+        Vector2f[] texCoords = new Vector2f[4];
+        float[][] corners = {{-0.5f, -0.5f}, {0.5f, -0.5f}, {0.5f, 0.5f}, {-0.5f, 0.5f}};
+        for (int i = 0; i < 4; i++) {
+            float u = corners[i][0];
+            float v = corners[i][1];
+            if (normal.x != 0) {
+                vertices[i] = new Vector3f(0.5f * normal.x, u, v);
+            } else if (normal.y != 0) {
+                vertices[i] = new Vector3f(u, 0.5f * normal.y, v);
+            } else {
+                vertices[i] = new Vector3f(u, v, 0.5f * normal.z);
+            }
+            normals[i] = new Vector3f(normal.x, normal.y, normal.z);
+            texCoords[i] = new Vector2f(u + 0.5f, v + 0.5f);
+        }
+        return new BlockMeshPart(vertices, normals, texCoords, new int[]{0, 1, 2, 0, 2, 3});
+    }
+
+    private static int index(int x, int y, int z) {
+        return x + ChunkConstants.SIZE_X * (z + ChunkConstants.SIZE_Z * y);
+    }
+
+    private static boolean isInside(int x, int y, int z) {
+        return x >= 0 && y >= 0 && z >= 0 && x < ChunkConstants.SIZE_X && y < ChunkConstants.SIZE_Y && z < ChunkConstants.SIZE_Z;
+    }
+
+    @Override
+    public Block getBlock(float x, float y, float z) {
+        return getBlock(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
+    }
+
+    @Override
+    public Block getBlock(Vector3i pos) {
+        return getBlock(pos.x, pos.y, pos.z);
+    }
+
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        return isInside(x, y, z) ? blocks[index(x, y, z)] : air;
+    }
+
+    @Override
+    public Biome getBiome(float x, float y, float z) {
+        return null;
+    }
+
+    @Override
+    public Biome getBiome(Vector3i pos) {
+        return null;
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return null;
+    }
+
+    @Override
+    public byte getSunlight(float x, float y, float z) {
+        return getSunlight(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
+    }
+
+    @Override
+    public byte getSunlight(Vector3i pos) {
+        return getSunlight(pos.x, pos.y, pos.z);
+    }
+
+    @Override
+    public byte getSunlight(int x, int y, int z) {
+        int column = TeraMath.clamp(x, 0, ChunkConstants.SIZE_X - 1) + ChunkConstants.SIZE_X * TeraMath.clamp(z, 0, ChunkConstants.SIZE_Z - 1);
+        return (byte) (y >= heights[column] ? 15 : 0);
+    }
+
+    @Override
+    public byte getLight(float x, float y, float z) {
+        return 0;
+    }
+
+    @Override
+    public byte getLight(Vector3i pos) {
+        return 0;
+    }
+
+    @Override
+    public byte getLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public void setBlock(Vector3i pos, Block type) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, Block type) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBiome(Vector3i pos, Biome biome) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBiome(int x, int y, int z, Biome biome) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LiquidData getLiquid(Vector3i pos) {
+        return new LiquidData();
+    }
+
+    @Override
+    public LiquidData getLiquid(int x, int y, int z) {
+        return new LiquidData();
+    }
+
+    @Override
+    public void setLiquid(Vector3i pos, LiquidData newState) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setLiquid(int x, int y, int z, LiquidData newState) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Vector3i toWorldPos(Vector3i localPos) {
+        return new Vector3i(localPos);
+    }
+
+    @Override
+    public Region3i getWorldRegion() {
+        return ChunkConstants.CHUNK_REGION;
+    }
+
+    @Override
+    public Region3i getChunkRegion() {
+        return Region3i.createFromMinAndSize(Vector3i.zero(), Vector3i.one());
+    }
+
+    @Override
+    public void setDirtyAround(Vector3i blockPos) {
+    }
+
+    @Override
+    public void setDirtyAround(Region3i blockRegion) {
+    }
+
+    @Override
+    public boolean isValidView() {
+        return true;
+    }
+}
@@ -66,6 +66,7 @@ public class RenderingConfig extends AbstractSubscribable {
     public static final String LOCAL_REFLECTIONS = "LocalReflections";
     public static final String INSCATTERING = "Inscattering";
     public static final String RENDER_NEAREST = "RenderNearest";
+    public static final String GREEDY_MESHING = "GreedyMeshing";
     public static final String PARTICLE_EFFECT_LIMIT = "ParticleEffectLimit";
     public static final String MESH_LIMIT = "MeshLimit";
     public static final String V_SYNC = "VSync";
@@ -111,6 +112,7 @@ public class RenderingConfig extends AbstractSubscribable {
     private boolean dynamicShadowsPcfFiltering;
     private boolean cloudShadows;
     private boolean renderNearest;
+    private boolean greedyMeshing;
     private int particleEffectLimit;
     private int frameLimit;
     private int meshLimit;
@@ -544,6 +546,17 @@ public void setRenderNearest(boolean renderNearest) {
         this.renderNearest = renderNearest;
         propertyChangeSupport.firePropertyChange(RENDER_NEAREST, oldValue, this.renderNearest);
     }
+
+    public boolean isGreedyMeshing() {
+        return greedyMeshing;
+    }
+
+    public void setGreedyMeshing(boolean greedyMeshing) {
+        boolean oldValue = this.greedyMeshing;
+        this.greedyMeshing = greedyMeshing;
+        propertyChangeSupport.firePropertyChange(GREEDY_MESHING, oldValue, this.greedyMeshing);
+    }
+
     public int getParticleEffectLimit() {
         return particleEffectLimit;
     }
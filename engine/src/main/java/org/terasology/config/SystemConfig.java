@@ -28,9 +28,15 @@ public class SystemConfig {
     private int maxThreads;
     private int maxSecondsBetweenSaves;
     private int maxUnloadedChunksPercentageTillSave;
+    private int chunkLifecycleBudgetMs;
     private boolean debugEnabled;
     private boolean monitoringEnabled;
     private boolean writeSaveGamesEnabled;
+    private boolean generatedSerializersEnabled;
+    private boolean batchedCharacterMovementEnabled;
+    private boolean worldJournalEnabled;
+    private int metricsExportIntervalSeconds;
+    private int metricsExportPort;
     private String locale;
 
     public long getDayNightLengthInMs() {
@@ -65,6 +71,14 @@ public void setMaxUnloadedChunksPercentageTillSave(int maxUnloadedChunksPercenta
         this.maxUnloadedChunksPercentageTillSave = maxUnloadedChunksPercentageTillSave;
     }
 
+    public int getChunkLifecycleBudgetMs() {
+        return chunkLifecycleBudgetMs;
+    }
+
+    public void setChunkLifecycleBudgetMs(int chunkLifecycleBudgetMs) {
+        this.chunkLifecycleBudgetMs = chunkLifecycleBudgetMs;
+    }
+
     public boolean isDebugEnabled() {
         return debugEnabled;
     }
@@ -81,6 +95,52 @@ public void setMonitoringEnabled(boolean monitoringEnabled) {
         this.monitoringEnabled = monitoringEnabled;
     }
 
+    public boolean isGeneratedSerializersEnabled() {
+        return generatedSerializersEnabled;
+    }
+
+    public void setGeneratedSerializersEnabled(boolean generatedSerializersEnabled) {
+        this.generatedSerializersEnabled = generatedSerializersEnabled;
+    }
+
+    public boolean isBatchedCharacterMovementEnabled() {
+        return batchedCharacterMovementEnabled;
+    }
+
+    public void setBatchedCharacterMovementEnabled(boolean batchedCharacterMovementEnabled) {
+        this.batchedCharacterMovementEnabled = batchedCharacterMovementEnabled;
+    }
+
+    public boolean isWorldJournalEnabled() {
+        return worldJournalEnabled;
+    }
+
+    public void setWorldJournalEnabled(boolean worldJournalEnabled) {
+        this.worldJournalEnabled = worldJournalEnabled;
+    }
+
+    /**
+     * @return the seconds between two exports of the performance histograms, or 0 if they are not exported
+     */
+    public int getMetricsExportIntervalSeconds() {
+        return metricsExportIntervalSeconds;
+    }
+
+    public void setMetricsExportIntervalSeconds(int metricsExportIntervalSeconds) {
+        this.metricsExportIntervalSeconds = metricsExportIntervalSeconds;
+    }
+
+    /**
+     * @return the localhost port the exported performance histograms are served on, or 0 if they are only written to a file
+     */
+    public int getMetricsExportPort() {
+        return metricsExportPort;
+    }
+
+    public void setMetricsExportPort(int metricsExportPort) {
+        this.metricsExportPort = metricsExportPort;
+    }
+
     public boolean isWriteSaveGamesEnabled() {
         String property = System.getProperty(SAVED_GAMES_ENABLED_PROPERTY);
         if (property != null) {
@@ -61,6 +61,7 @@ public class ComponentSystemManager {
     private List<UpdateSubscriberSystem> updateSubscribers = Lists.newArrayList();
     private List<RenderSystem> renderSubscribers = Lists.newArrayList();
     private List<ComponentSystem> store = Lists.newArrayList();
+    private UpdateSubscriberScheduler updateScheduler = new UpdateSubscriberScheduler();
 
     private Console console;
     private Context context;
@@ -121,6 +122,7 @@ public void register(ComponentSystem object) {
         store.add(object);
         if (object instanceof UpdateSubscriberSystem) {
             updateSubscribers.add((UpdateSubscriberSystem) object);
+            updateScheduler.add((UpdateSubscriberSystem) object);
         }
         if (object instanceof RenderSystem) {
             renderSubscribers.add((RenderSystem) object);
@@ -179,6 +181,15 @@ public Iterable<UpdateSubscriberSystem> iterateUpdateSubscribers() {
         return updateSubscribers;
     }
 
+    /**
+     * Updates all update subscribers, in parallel where their declared {@link org.terasology.entitySystem.systems.ComponentAccess} allows it.
+     *
+     * @param delta The time (in seconds) since the last engine update.
+     */
+    public void updateSubscribers(float delta) {
+        updateScheduler.update(delta, context.get(EntityManager.class).getEventSystem());
+    }
+
     public Iterable<RenderSystem> iterateRenderSubscribers() {
         return renderSubscribers;
     }
@@ -188,6 +199,7 @@ public void shutdown() {
             system.shutdown();
         }
         updateSubscribers.clear();
+        updateScheduler.shutdown();
         renderSubscribers.clear();
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.event.internal.EventSystem;
+import org.terasology.entitySystem.systems.ComponentAccess;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.monitoring.Activity;
+import org.terasology.monitoring.PerformanceMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Updates the {@link UpdateSubscriberSystem}s in the order they were added, but runs consecutive systems that declare
+ * non-conflicting {@link ComponentAccess} in parallel on a fork/join pool.
+ * <br><br>
+ * A system without declared access is a barrier: it is updated on its own, on the main thread, after all systems added
+ * before it and before all systems added after it. Events sent from other threads during a parallel stage are
+ * delivered on the main thread as soon as the stage is done.
+ */
+public class UpdateSubscriberScheduler {
+    private final List<UpdateSubscriberSystem> systems = Lists.newArrayList();
+    private final int parallelism;
+
+    private List<Stage> stages;
+    private ForkJoinPool pool;
+
+    public UpdateSubscriberScheduler() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param parallelism the number of worker threads, besides the main thread, used for parallel stages
+     */
+    public UpdateSubscriberScheduler(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void add(UpdateSubscriberSystem system) {
+        systems.add(system);
+        stages = null;
+    }
+
+    public void clear() {
+        systems.clear();
+        stages = null;
+    }
+
+    /**
+     * Updates all systems. Must be called from the main thread.
+     *
+     * @param delta       the time (in seconds) since the last engine update
+     * @param eventSystem delivers the events sent from parallel updates
+     */
+    public void update(float delta, EventSystem eventSystem) {
+        for (Stage stage : getStages()) {
+            if (stage.systems.size() == 1) {
+                updateSystem(stage.systems.get(0), delta);
+            } else {
+                updateInParallel(stage.systems, delta);
+                eventSystem.process();
+            }
+        }
+    }
+
+    public void shutdown() {
+        clear();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return the systems grouped into the stages they are updated in, in update order
+     */
+    List<List<UpdateSubscriberSystem>> getSchedule() {
+        List<List<UpdateSubscriberSystem>> result = Lists.newArrayList();
+        for (Stage stage : getStages()) {
+            result.add(Collections.unmodifiableList(stage.systems));
+        }
+        return result;
+    }
+
+    private List<Stage> getStages() {
+        if (stages == null) {
+            stages = Lists.newArrayList();
+            Stage current = null;
+            for (UpdateSubscriberSystem system : systems) {
+                ComponentAccess access = system.getClass().getAnnotation(ComponentAccess.class);
+                if (access == null) {
+                    stages.add(new Stage(system));
+                    current = null;
+                } else {
+                    if (current == null || current.conflictsWith(access)) {
+                        current = new Stage();
+                        stages.add(current);
+                    }
+                    current.add(system, access);
+                }
+            }
+        }
+        return stages;
+    }
+
+    private void updateInParallel(List<UpdateSubscriberSystem> stageSystems, float delta) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism, UpdateSubscriberScheduler::createWorker, null, false);
+        }
+        List<ForkJoinTask<?>> tasks = Lists.newArrayListWithCapacity(stageSystems.size() - 1);
+        for (UpdateSubscriberSystem system : stageSystems.subList(1, stageSystems.size())) {
+            tasks.add(pool.submit(() -> updateSystem(system, delta)));
+        }
+
+        RuntimeException failure = null;
+        try {
+            updateSystem(stageSystems.get(0), delta);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // All tasks have to be done before the next stage, even if one of them failed
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void updateSystem(UpdateSubscriberSystem system, float delta) {
+        try (Activity ignored = PerformanceMonitor.startActivity(system.getClass().getSimpleName())) {
+            system.update(delta);
+        }
+    }
+
+    private static ForkJoinWorkerThread createWorker(ForkJoinPool forkJoinPool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+        thread.setName("Update-Subscriber-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private static final class Stage {
+        private final List<UpdateSubscriberSystem> systems = Lists.newArrayList();
+        private final Set<Class<? extends Component>> reads = Sets.newHashSet();
+        private final Set<Class<? extends Component>> writes = Sets.newHashSet();
+
+        private Stage() {
+        }
+
+        private Stage(UpdateSubscriberSystem system) {
+            systems.add(system);
+        }
+
+        private boolean conflictsWith(ComponentAccess access) {
+            for (Class<? extends Component> written : access.writes()) {
+                if (reads.contains(written) || writes.contains(written)) {
+                    return true;
+                }
+            }
+            for (Class<? extends Component> read : access.reads()) {
+                if (writes.contains(read)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(UpdateSubscriberSystem system, ComponentAccess access) {
+            systems.add(system);
+            reads.addAll(Arrays.asList(access.reads()));
+            writes.addAll(Arrays.asList(access.writes()));
+        }
+    }
+}
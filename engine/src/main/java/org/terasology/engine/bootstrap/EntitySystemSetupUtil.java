@@ -17,6 +17,7 @@
 package org.terasology.engine.bootstrap;
 
 import org.terasology.audio.events.PlaySoundEvent;
+import org.terasology.config.Config;
 import org.terasology.context.Context;
 import org.terasology.engine.SimpleUri;
 import org.terasology.engine.module.ModuleManager;
@@ -40,6 +41,7 @@
 import org.terasology.logic.characters.CharacterMoveInputEvent;
 import org.terasology.module.ModuleEnvironment;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.typeHandling.SerializerGenerator;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.persistence.typeHandling.extensionTypes.EntityRefTypeHandler;
 import org.terasology.recording.CharacterStateEventPositionMap;
@@ -52,6 +54,8 @@
 import org.terasology.recording.RecordAndReplayUtils;
 import org.terasology.recording.RecordedEventStore;
 import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.metadata.ClassLibrary;
+import org.terasology.reflection.metadata.ClassMetadata;
 import org.terasology.reflection.reflect.ReflectFactory;
 import org.terasology.reflection.reflect.ReflectionReflectFactory;
 import org.terasology.rendering.nui.properties.OneOfProviderFactory;
@@ -115,6 +119,10 @@ public static void addEntityManagementRelatedClasses(Context context) {
         TypeSerializationLibrary typeSerializationLibrary = context.get(TypeSerializationLibrary.class);
         typeSerializationLibrary.addTypeHandler(EntityRef.class, new EntityRefTypeHandler(entityManager));
         entityManager.setTypeSerializerLibrary(typeSerializationLibrary);
+        Config config = context.get(Config.class);
+        if (config != null && config.getSystem().isGeneratedSerializersEnabled()) {
+            typeSerializationLibrary.setSerializerGenerator(new SerializerGenerator());
+        }
 
         // Prefab Manager
         PrefabManager prefabManager = new PojoPrefabManager(context);
@@ -144,6 +152,19 @@ public static void addEntityManagementRelatedClasses(Context context) {
         context.put(OneOfProviderFactory.class, new OneOfProviderFactory());
         registerComponents(library.getComponentLibrary(), environment);
         registerEvents(entityManager.getEventSystem(), environment);
+        if (typeSerializationLibrary.isGeneratingSerializers()) {
+            prepareSerializers(typeSerializationLibrary, library.getComponentLibrary());
+            prepareSerializers(typeSerializationLibrary, library.getEventLibrary());
+        }
+    }
+
+    /**
+     * Creates the serializers up front, so that generating their classes doesn't happen in the middle of the game.
+     */
+    private static void prepareSerializers(TypeSerializationLibrary typeSerializationLibrary, ClassLibrary<?> classLibrary) {
+        for (ClassMetadata<?, ?> metadata : classLibrary) {
+            typeSerializationLibrary.getSerializerFor(metadata);
+        }
     }
 
     private static EventSystem createEventSystem(NetworkSystem networkSystem, PojoEntityManager entityManager, EntitySystemLibrary library,
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares which types of the context a {@link LoadProcess} consumes and produces, so that it may run alongside the
+ * other declared processes it doesn't depend on. A process depends on an earlier one if either of them produces
+ * something the other one consumes or produces. A type counts as produced if the process puts it into the context or
+ * changes the object that is already there.
+ * <br><br>
+ * Declared processes run on the main thread, one after another in their order, unless they are marked to run in the
+ * background. Background processes are begun on the main thread, where they may look up what they consume in the
+ * context, and are then stepped on a worker thread. There they may only touch what they declare, which rules out the
+ * context itself and anything that needs the OpenGL context, the {@link org.terasology.registry.CoreRegistry}, the
+ * asset manager or the entity system. Only work that takes long enough to matter and that is safe to do off the main
+ * thread, like pure computations or file I/O, is worth running in the background.
+ * <br><br>
+ * Processes without this annotation wait for all processes before them and are waited for by all processes after them,
+ * as before.
+ * <br>
+ * <code>@LoadDependencies(consumes = BlockManager.class)</code>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface LoadDependencies {
+
+    Class<?>[] consumes() default {};
+
+    Class<?>[] produces() default {};
+
+    boolean background() default false;
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs {@link LoadProcess}es in the order they were given, except that processes which declare their
+ * {@link LoadDependencies} don't wait for earlier processes they don't depend on. Background processes run on a pool
+ * of worker threads, all others are stepped on the main thread, one at a time. {@link LoadProcess#begin()} is always
+ * called on the main thread, so background processes can take what they consume from the context there.
+ * <br><br>
+ * A process without declared dependencies is a barrier: it only begins once all processes before it have finished,
+ * and all processes after it wait for it to finish.
+ */
+public class LoadProcessScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(LoadProcessScheduler.class);
+
+    private final List<Entry> entries = Lists.newArrayList();
+    private final int parallelism;
+    private final int totalCost;
+    private final long startTime = System.nanoTime();
+    private ExecutorService workers;
+    private int finishedCount;
+    private int finishedCost;
+
+    public LoadProcessScheduler(Collection<LoadProcess> processes) {
+        this(processes, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param parallelism the number of worker threads for background processes
+     */
+    public LoadProcessScheduler(Collection<LoadProcess> processes, int parallelism) {
+        this.parallelism = parallelism;
+        int cost = 0;
+        for (LoadProcess process : processes) {
+            entries.add(new Entry(process));
+            cost += process.getExpectedCost();
+        }
+        this.totalCost = Math.max(1, cost);
+    }
+
+    /**
+     * Starts the background processes that no longer wait for others and runs a step of the current main thread
+     * process. Must be called from the main thread.
+     *
+     * @return false if there was nothing to do on the main thread, as it waits for background processes to finish
+     */
+    public boolean step() {
+        collectFinishedBackgroundProcesses();
+        startBackgroundProcesses();
+
+        Entry entry = getMainThreadEntry();
+        if (entry == null) {
+            return false;
+        }
+        long stepStart = System.nanoTime();
+        if (entry.state == State.WAITING) {
+            logger.debug(entry.process.getMessage());
+            entry.state = State.RUNNING;
+            entry.process.begin();
+        }
+        boolean done = entry.process.step();
+        entry.busyTime += System.nanoTime() - stepStart;
+        if (done) {
+            finish(entry);
+        }
+        return true;
+    }
+
+    public boolean isFinished() {
+        return finishedCount == entries.size();
+    }
+
+    /**
+     * @return the message of the process the main thread is working on or waiting for
+     */
+    public String getMessage() {
+        Entry waitingFor = null;
+        for (Entry entry : entries) {
+            if (entry.state == State.RUNNING && !entry.background) {
+                return entry.process.getMessage();
+            }
+            if (waitingFor == null && entry.state != State.DONE) {
+                waitingFor = entry;
+            }
+        }
+        return waitingFor != null ? waitingFor.process.getMessage() : "";
+    }
+
+    /**
+     * @return the overall progress, weighted by the expected cost of the processes, between 0f and 1f inclusive
+     */
+    public float getProgress() {
+        float progress = finishedCost;
+        for (Entry entry : entries) {
+            if (entry.state == State.RUNNING) {
+                progress += entry.process.getExpectedCost() * entry.process.getProgress();
+            }
+        }
+        return progress / totalCost;
+    }
+
+    /**
+     * Stops the worker threads. Background processes that are still running get interrupted.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    private Entry getMainThreadEntry() {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.state == State.DONE || entry.background) {
+                continue;
+            }
+            if (entry.state == State.RUNNING || isReady(i)) {
+                return entry;
+            }
+            return null;
+        }
+        return null;
+    }
+
+    private void startBackgroundProcesses() {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.background && entry.state == State.WAITING && isReady(i)) {
+                if (workers == null) {
+                    workers = Executors.newFixedThreadPool(parallelism,
+                            new ThreadFactoryBuilder().setNameFormat("Loading-%d").setDaemon(true).build());
+                }
+                logger.debug(entry.process.getMessage());
+                entry.state = State.RUNNING;
+                long beginStart = System.nanoTime();
+                entry.process.begin();
+                entry.busyTime = System.nanoTime() - beginStart;
+                entry.future = workers.submit(() -> {
+                    long start = System.nanoTime();
+                    while (!entry.process.step()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                    }
+                    entry.busyTime += System.nanoTime() - start;
+                });
+            }
+        }
+    }
+
+    private void collectFinishedBackgroundProcesses() {
+        for (Entry entry : entries) {
+            if (entry.state == State.RUNNING && entry.background && entry.future.isDone()) {
+                try {
+                    entry.future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Load process " + entry.getName() + " failed", e.getCause());
+                }
+                finish(entry);
+            }
+        }
+    }
+
+    private void finish(Entry entry) {
+        entry.state = State.DONE;
+        finishedCount++;
+        finishedCost += entry.process.getExpectedCost();
+        logger.info("Load process {} took {}ms{}", entry.getName(), entry.busyTime / 1_000_000,
+                entry.background ? " in the background" : "");
+        if (isFinished()) {
+            logger.info("Loading took {}ms", (System.nanoTime() - startTime) / 1_000_000);
+            shutdown();
+        }
+    }
+
+    /**
+     * @return whether all processes before the given one that it depends on have finished
+     */
+    private boolean isReady(int index) {
+        Entry entry = entries.get(index);
+        for (int i = 0; i < index; i++) {
+            Entry earlier = entries.get(i);
+            if (earlier.state != State.DONE && earlier.dependsOn(entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the processes in the order they were given, each with the earlier processes it has to wait for
+     */
+    List<List<LoadProcess>> getDependencies() {
+        List<List<LoadProcess>> result = Lists.newArrayList();
+        for (int i = 0; i < entries.size(); i++) {
+            List<LoadProcess> dependencies = Lists.newArrayList(entries.get(i).process);
+            for (int j = 0; j < i; j++) {
+                if (entries.get(j).dependsOn(entries.get(i))) {
+                    dependencies.add(entries.get(j).process);
+                }
+            }
+            result.add(dependencies);
+        }
+        return result;
+    }
+
+    private enum State {
+        WAITING,
+        RUNNING,
+        DONE
+    }
+
+    private static final class Entry {
+        private final LoadProcess process;
+        private final boolean declared;
+        private final boolean background;
+        private final Set<Class<?>> consumes;
+        private final Set<Class<?>> produces;
+        private volatile State state = State.WAITING;
+        private volatile long busyTime;
+        private Future<?> future;
+
+        private Entry(LoadProcess process) {
+            this.process = process;
+            LoadDependencies dependencies = process.getClass().getAnnotation(LoadDependencies.class);
+            this.declared = dependencies != null;
+            this.background = declared && dependencies.background();
+            this.consumes = declared ? ImmutableSet.copyOf(dependencies.consumes()) : ImmutableSet.of();
+            this.produces = declared ? ImmutableSet.copyOf(dependencies.produces()) : ImmutableSet.of();
+        }
+
+        /**
+         * Dependencies are symmetric, whichever of the two processes comes first has to finish before the other
+         * one begins.
+         */
+        private boolean dependsOn(Entry other) {
+            if (!declared || !other.declared) {
+                return true;
+            }
+            return !Sets.intersection(produces, other.consumes).isEmpty()
+                    || !Sets.intersection(produces, other.produces).isEmpty()
+                    || !Sets.intersection(other.produces, consumes).isEmpty();
+        }
+
+        private String getName() {
+            return process.getClass().getSimpleName();
+        }
+    }
+}
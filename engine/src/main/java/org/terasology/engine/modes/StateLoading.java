@@ -17,7 +17,7 @@
 package org.terasology.engine.modes;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Queues;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.context.Context;
@@ -67,7 +67,7 @@
 import org.terasology.rendering.nui.internal.NUIManagerInternal;
 import org.terasology.rendering.nui.layers.mainMenu.loadingScreen.LoadingScreen;
 
-import java.util.Queue;
+import java.util.List;
 
 public class StateLoading implements GameState {
 
@@ -76,17 +76,14 @@ public class StateLoading implements GameState {
     private Context context;
     private GameManifest gameManifest;
     private NetworkMode netMode;
-    private Queue<LoadProcess> loadProcesses = Queues.newArrayDeque();
-    private LoadProcess current;
+    private List<LoadProcess> loadProcesses = Lists.newArrayList();
+    private LoadProcessScheduler loader;
     private JoinStatus joinStatus;
 
     private NUIManager nuiManager;
 
     private LoadingScreen loadingScreen;
 
-    private int progress;
-    private int maxProgress;
-
     /**
      * Constructor for server or single player games
      */
@@ -128,15 +125,9 @@ public void init(GameEngine engine) {
                 break;
         }
 
-        progress = 0;
-        maxProgress = 0;
-        for (LoadProcess process : loadProcesses) {
-            maxProgress += process.getExpectedCost();
-        }
-
-        popStep();
+        loader = new LoadProcessScheduler(loadProcesses);
         loadingScreen = nuiManager.pushScreen("engine:loadingScreen", LoadingScreen.class);
-        loadingScreen.updateStatus(current.getMessage(), current.getProgress());
+        loadingScreen.updateStatus(loader.getMessage(), loader.getProgress());
     }
 
     private void initClient() {
@@ -209,20 +200,11 @@ private void initHost() {
         loadProcesses.add(new PrepareWorld(context));
     }
 
-    private void popStep() {
-        if (current != null) {
-            progress += current.getExpectedCost();
-        }
-        current = null;
-        if (!loadProcesses.isEmpty()) {
-            current = loadProcesses.remove();
-            logger.debug(current.getMessage());
-            current.begin();
-        }
-    }
-
     @Override
     public void dispose(boolean shuttingDown) {
+        if (loader != null) {
+            loader.shutdown();
+        }
         EngineTime time = (EngineTime) context.get(Time.class);
         time.setPaused(false);
     }
@@ -236,18 +218,18 @@ public void update(float delta) {
         GameEngine gameEngine = context.get(GameEngine.class);
         EngineTime time = (EngineTime) context.get(Time.class);
         long startTime = time.getRealTimeInMs();
-        while (current != null && time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
-            if (current.step()) {
-                popStep();
+        while (!loader.isFinished() && time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
+            if (!loader.step()) {
+                // waiting on background processes, try again next frame
+                break;
             }
         }
-        if (current == null) {
+        if (loader.isFinished()) {
             nuiManager.closeScreen(loadingScreen);
             nuiManager.setHUDVisible(true);
             context.get(GameEngine.class).changeState(new StateIngame(gameManifest, context));
         } else {
-            float progressValue = (progress + current.getExpectedCost() * current.getProgress()) / maxProgress;
-            loadingScreen.updateStatus(current.getMessage(), progressValue);
+            loadingScreen.updateStatus(loader.getMessage(), loader.getProgress());
             nuiManager.update(delta);
         }
     }
@@ -17,11 +17,13 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.family.BlockFamily;
 
 import java.util.Iterator;
 
+@LoadDependencies(consumes = BlockManager.class)
 public class CacheBlocks extends StepBasedLoadProcess {
 
     private final Context context;
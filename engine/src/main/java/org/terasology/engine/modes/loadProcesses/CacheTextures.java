@@ -18,11 +18,14 @@
 
 import org.terasology.utilities.Assets;
 import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.rendering.assets.texture.Texture;
 
 import java.util.Iterator;
 import java.util.Set;
 
+@LoadDependencies(produces = AssetManager.class)
 public class CacheTextures extends StepBasedLoadProcess {
     private Iterator<ResourceUrn> urns;
 
@@ -16,17 +16,21 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.engine.modes.LoadProcess;
 import org.terasology.persistence.StorageManager;
 
 import java.io.IOException;
 
 /**
- * Repairs the save game when it is in an inconsistent state after a crash.
+ * Repairs the save game when it is in an inconsistent state after a crash and migrates legacy chunk files into region
+ * files. This is file I/O only, guarded by the storage manager's world directory lock, so it runs in the background.
  *
  */
+@LoadDependencies(produces = StorageManager.class, background = true)
 public class EnsureSaveGameConsistency implements LoadProcess {
     private final Context context;
+    private StorageManager storageManager;
 
     public EnsureSaveGameConsistency(Context context) {
         this.context = context;
@@ -40,7 +44,7 @@ public String getMessage() {
     @Override
     public boolean step() {
         try {
-            context.get(StorageManager.class).checkAndRepairSaveIfNecessary();
+            storageManager.checkAndRepairSaveIfNecessary();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -49,6 +53,7 @@ public boolean step() {
 
     @Override
     public void begin() {
+        storageManager = context.get(StorageManager.class);
     }
 
     @Override
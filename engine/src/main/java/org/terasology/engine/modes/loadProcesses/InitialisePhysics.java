@@ -16,14 +16,18 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.physics.Physics;
 import org.terasology.physics.bullet.BulletPhysics;
 import org.terasology.physics.engine.PhysicsEngine;
 import org.terasology.physics.engine.PhysicsEngineManager;
+import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.WorldProvider;
 
 /**
  */
+@LoadDependencies(consumes = {WorldProvider.class, BlockEntityRegistry.class},
+        produces = {Physics.class, PhysicsEngine.class})
 public class InitialisePhysics extends SingleStepLoadProcess {
     private final Context context;
 
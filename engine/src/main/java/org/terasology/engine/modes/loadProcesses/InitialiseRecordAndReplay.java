@@ -16,6 +16,7 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.engine.modes.LoadProcess;
 import org.terasology.recording.RecordAndReplayCurrentStatus;
 import org.terasology.recording.RecordAndReplaySerializer;
@@ -24,6 +25,7 @@
 /**
  * Initialises Record and Replay if they were selected in the main menu.
  */
+@LoadDependencies(consumes = RecordAndReplaySerializer.class, produces = RecordAndReplayCurrentStatus.class)
 public class InitialiseRecordAndReplay implements LoadProcess {
 
     private Context context;
@@ -138,9 +138,13 @@ public boolean step() {
         context.put(StorageManager.class, storageManager);
         LocalChunkProvider chunkProvider = new LocalChunkProvider(storageManager, entityManager, worldGenerator,
                 blockManager, biomeManager);
+        chunkProvider.setLifecycleBudget(context.get(Config.class).getSystem().getChunkLifecycleBudgetMs());
         context.get(ComponentSystemManager.class).register(new RelevanceSystem(chunkProvider), "engine:relevanceSystem");
         Block unloadedBlock = blockManager.getBlock(BlockManager.UNLOADED_ID);
         WorldProviderCoreImpl worldProviderCore = new WorldProviderCoreImpl(worldInfo, chunkProvider, unloadedBlock, context);
+        if (storageManager.getWorldJournal() != null) {
+            worldProviderCore.registerListener(storageManager.getWorldJournal());
+        }
         EntityAwareWorldProvider entityWorldProvider = new EntityAwareWorldProvider(worldProviderCore, context);
         WorldProvider worldProvider = new WorldProviderWrapper(entityWorldProvider);
         context.put(WorldProvider.class, worldProvider);
@@ -16,7 +16,9 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import org.terasology.assets.management.AssetManager;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.world.generator.WorldGenerator;
 
@@ -26,6 +28,7 @@
  * This is done after the world entity has been created/loaded so that
  * world generation config. is available at the time of initialization.
  */
+@LoadDependencies(consumes = {WorldRenderer.class, AssetManager.class}, produces = WorldGenerator.class)
 public class InitialiseWorldGenerator extends SingleStepLoadProcess {
 
     private final Context context;
@@ -19,10 +19,12 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.entitySystem.prefab.Prefab;
 
 import java.util.Iterator;
 
+@LoadDependencies(produces = AssetManager.class)
 public class LoadPrefabs extends StepBasedLoadProcess {
     private final AssetManager assetManager;
     private Iterator<ResourceUrn> prefabs;
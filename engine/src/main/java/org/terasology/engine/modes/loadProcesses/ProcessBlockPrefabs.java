@@ -15,7 +15,9 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import org.terasology.assets.management.AssetManager;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.internal.BlockManagerImpl;
@@ -23,6 +25,7 @@
 
 /**
  */
+@LoadDependencies(consumes = {EntityManager.class, AssetManager.class}, produces = BlockManager.class)
 public class ProcessBlockPrefabs extends SingleStepLoadProcess {
 
     private final Context context;
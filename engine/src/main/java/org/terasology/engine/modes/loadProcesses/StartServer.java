@@ -18,13 +18,16 @@
 
 import org.terasology.config.Config;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadDependencies;
 import org.terasology.network.NetworkSystem;
 import org.terasology.network.exceptions.HostingFailedException;
 import org.terasology.rendering.nui.NUIManager;
 import org.terasology.rendering.nui.layers.mainMenu.MessagePopup;
+import org.terasology.world.generator.WorldGenerator;
 
 /**
  */
+@LoadDependencies(consumes = {Config.class, NUIManager.class, WorldGenerator.class}, produces = NetworkSystem.class)
 public class StartServer extends SingleStepLoadProcess {
 
     private final Context context;
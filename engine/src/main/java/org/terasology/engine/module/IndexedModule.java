@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.module;
+
+import com.google.common.collect.ImmutableList;
+import org.reflections.Reflections;
+import org.terasology.module.BaseModule;
+import org.terasology.module.Module;
+
+import java.net.URL;
+
+/**
+ * Wraps a code module so that the classes it provides are looked up in the {@link ModuleClassIndex} instead of being
+ * scanned whenever the game starts.
+ */
+public final class IndexedModule extends BaseModule {
+    private final Module module;
+    private final ModuleClassIndex classIndex;
+    private Reflections reflectionsFragment;
+
+    IndexedModule(Module module, ModuleClassIndex classIndex) {
+        super(module.getLocations(), module.getMetadata());
+        this.module = module;
+        this.classIndex = classIndex;
+    }
+
+    /**
+     * @return the module itself, without the index, e.g. to check what kind of module it is
+     */
+    public static Module unwrap(Module module) {
+        if (module instanceof IndexedModule) {
+            return ((IndexedModule) module).module;
+        }
+        return module;
+    }
+
+    @Override
+    public ImmutableList<URL> getClasspaths() {
+        return module.getClasspaths();
+    }
+
+    @Override
+    public boolean isOnClasspath() {
+        return module.isOnClasspath();
+    }
+
+    @Override
+    public boolean isCodeModule() {
+        return module.isCodeModule();
+    }
+
+    @Override
+    public Reflections getReflectionsFragment() {
+        if (reflectionsFragment == null) {
+            reflectionsFragment = classIndex.getReflections(module);
+        }
+        return reflectionsFragment;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.module;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.TerasologyConstants;
+import org.terasology.module.Module;
+import org.terasology.naming.Name;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the subtypes and annotations found in the classes of each code module on disk, so that they only have to be
+ * scanned again after the module changed.
+ * <br><br>
+ * There is one index file per module id and version, and writing it removes the files of other versions of the
+ * module. It is only used if the fingerprint of the files of the module still matches the one stored with it. The fingerprint covers the path, size and modification time of every file
+ * of the module rather than their content, which keeps checking it fast enough for startup.
+ */
+class ModuleClassIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleClassIndex.class);
+    private static final String INDEX_EXTENSION = ".index.json";
+    /**
+     * Versions as written by {@link org.terasology.naming.Version}, which tell the index files of a module apart from
+     * those of other modules whose id starts with the same words
+     */
+    private static final Pattern VERSION = Pattern.compile("\\d+\\.\\d+\\.\\d+(-SNAPSHOT)?");
+
+    private final Path directory;
+    private final Gson gson = new Gson();
+    private final Map<Name, Long> loadTimes = Maps.newLinkedHashMap();
+    private int indexedModules;
+    private int scannedModules;
+
+    ModuleClassIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the classes of the module, from the index if it is up to date, otherwise freshly scanned
+     */
+    Reflections getReflections(Module module) {
+        long startTime = System.nanoTime();
+        String fingerprint = null;
+        try {
+            fingerprint = fingerprint(module);
+        } catch (IOException e) {
+            logger.warn("Failed to fingerprint module {}, scanning it", module.getId(), e);
+        }
+        Path indexFile = directory.resolve(indexFilePrefix(module) + module.getVersion() + INDEX_EXTENSION);
+
+        Reflections reflections = fingerprint != null ? load(indexFile, fingerprint) : null;
+        boolean fromIndex = reflections != null;
+        if (fromIndex) {
+            indexedModules++;
+        } else {
+            reflections = module.getReflectionsFragment();
+            scannedModules++;
+            if (fingerprint != null && save(indexFile, fingerprint, reflections)) {
+                deleteOtherVersions(module, indexFile);
+            }
+        }
+
+        long time = (System.nanoTime() - startTime) / 1_000_000;
+        loadTimes.put(module.getId(), time);
+        if (fromIndex) {
+            logger.debug("Loaded classes of module {} from the index in {}ms", module.getId(), time);
+        } else {
+            logger.info("Scanned classes of module {} in {}ms", module.getId(), time);
+        }
+        return reflections;
+    }
+
+    void logSummary() {
+        long totalTime = loadTimes.values().stream().mapToLong(Long::longValue).sum();
+        logger.info("Got the classes of {} modules from the index and scanned {} in {}ms", indexedModules, scannedModules, totalTime);
+    }
+
+    private Reflections load(Path indexFile, String fingerprint) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        IndexFile index;
+        try (Reader reader = Files.newBufferedReader(indexFile, TerasologyConstants.CHARSET)) {
+            index = gson.fromJson(reader, IndexFile.class);
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Failed to read module class index {}", indexFile, e);
+            return null;
+        }
+        if (index == null || index.store == null || !fingerprint.equals(index.fingerprint)) {
+            return null;
+        }
+
+        // Without scanners the new instance doesn't scan anything itself
+        Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners());
+        Store store = reflections.getStore();
+        for (Map.Entry<String, Map<String, List<String>>> storeIndex : index.store.entrySet()) {
+            Multimap<String, String> entries = store.getOrCreate(storeIndex.getKey());
+            for (Map.Entry<String, List<String>> entry : storeIndex.getValue().entrySet()) {
+                entries.putAll(entry.getKey(), entry.getValue());
+            }
+        }
+        return reflections;
+    }
+
+    private static String indexFilePrefix(Module module) {
+        return module.getId() + "-";
+    }
+
+    /**
+     * @return whether the index file could be written
+     */
+    private boolean save(Path indexFile, String fingerprint, Reflections reflections) {
+        IndexFile index = new IndexFile();
+        index.fingerprint = fingerprint;
+        index.store = Maps.newHashMap();
+        Store store = reflections.getStore();
+        for (String storeIndex : store.keySet()) {
+            Map<String, List<String>> entries = Maps.newHashMap();
+            for (Map.Entry<String, Collection<String>> entry : store.get(storeIndex).asMap().entrySet()) {
+                entries.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+            }
+            index.store.put(storeIndex, entries);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, TerasologyConstants.CHARSET)) {
+                gson.toJson(index, writer);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to write module class index {}", indexFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Removes the index files of the module that were written for other versions of it, as they won't be used again
+     * unless that version comes back, in which case it gets scanned again.
+     */
+    private void deleteOtherVersions(Module module, Path indexFile) {
+        String prefix = indexFilePrefix(module);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + INDEX_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String version = name.substring(prefix.length(), name.length() - INDEX_EXTENSION.length());
+                if (!file.equals(indexFile) && VERSION.matcher(version).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to remove old class indices of module {}", module.getId(), e);
+        }
+    }
+
+    private static String fingerprint(Module module) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Path location : module.getLocations()) {
+            List<Path> files;
+            if (Files.isDirectory(location)) {
+                try (Stream<Path> walk = Files.walk(location)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+            } else {
+                files = Collections.singletonList(location);
+            }
+            for (Path file : files) {
+                hasher.putUnencodedChars(file.toString());
+                if (Files.exists(file)) {
+                    hasher.putLong(Files.size(file));
+                    hasher.putLong(Files.getLastModifiedTime(file).toMillis());
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static class IndexFile {
+        private String fingerprint;
+        private Map<String, Map<String, List<String>>> store;
+    }
+}
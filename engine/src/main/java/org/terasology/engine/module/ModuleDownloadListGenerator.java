@@ -63,7 +63,7 @@ private Set<Module> processResolutionResult(ResolutionResult resolutionResult) t
      * source.
      */
     private boolean isSourceModule(Module module) {
-        return module instanceof PathModule;
+        return IndexedModule.unwrap(module) instanceof PathModule;
     }
 
     private boolean isOnlineVersionNewer(Module localVersion, Module onlineVersion) {
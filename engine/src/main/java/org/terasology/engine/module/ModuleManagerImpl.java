@@ -62,6 +62,7 @@
 
 public class ModuleManagerImpl implements ModuleManager {
     private static final Logger logger = LoggerFactory.getLogger(ModuleManagerImpl.class);
+    private static final String CLASS_INDEX_DIR = "module-index";
     private StandardPermissionProviderFactory permissionProviderFactory = new StandardPermissionProviderFactory();
     private PermissionProviderFactory wrappingPermissionProviderFactory = new WarnOnlyProviderFactory(permissionProviderFactory);
 
@@ -69,6 +70,7 @@ public class ModuleManagerImpl implements ModuleManager {
     private ModuleEnvironment environment;
     private ModuleMetadataJsonAdapter metadataReader;
     private ModuleInstallManager installManager;
+    private ModuleClassIndex classIndex;
 
     public ModuleManagerImpl(String masterServerAddress) {
         this(masterServerAddress, Collections.emptyList());
@@ -82,7 +84,7 @@ public ModuleManagerImpl(String masterServerAddress, List<Class<?>> classesOnCla
         for (ModuleExtension ext : ExtraDataModuleExtension.values()) {
             metadataReader.registerExtension(ext.getKey(), ext.getValueType());
         }
-        Module engineModule;
+        Module classpathEngineModule;
         try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/engine-module.txt"), TerasologyConstants.CHARSET)) {
             ModuleMetadata metadata = metadataReader.read(reader);
             List<Class<?>> additionalClassesList = new ArrayList<>(classesOnClasspathsToAddToEngine.size() + 2);
@@ -91,13 +93,15 @@ public ModuleManagerImpl(String masterServerAddress, List<Class<?>> classesOnCla
             additionalClassesList.addAll(classesOnClasspathsToAddToEngine); // provide access to any facade-provided classes
             Class<?>[] additionalClassesArray = new Class[additionalClassesList.size()];
             additionalClassesArray = additionalClassesList.toArray(additionalClassesArray);
-            engineModule = ClasspathModule.create(metadata, getClass(), additionalClassesArray);
+            classpathEngineModule = ClasspathModule.create(metadata, getClass(), additionalClassesArray);
         } catch (IOException e) {
             throw new RuntimeException("Failed to read engine metadata", e);
         } catch (URISyntaxException e) {
             throw new RuntimeException("Failed to convert engine library location to path", e);
         }
 
+        classIndex = new ModuleClassIndex(PathManager.getInstance().getCachePath().resolve(CLASS_INDEX_DIR));
+        Module engineModule = new IndexedModule(classpathEngineModule, classIndex);
         registry = new TableModuleRegistry();
         registry.add(engineModule);
 
@@ -106,6 +110,7 @@ public ModuleManagerImpl(String masterServerAddress, List<Class<?>> classesOnCla
         ModulePathScanner scanner = new ModulePathScanner(new ModuleLoader(metadataReader));
         scanner.getModuleLoader().setModuleInfoPath(TerasologyConstants.MODULE_INFO_FILENAME);
         scanner.scan(registry, PathManager.getInstance().getModulePaths());
+        indexCodeModules();
 
         DependencyInfo engineDep = new DependencyInfo();
         engineDep.setId(engineModule.getId());
@@ -116,6 +121,7 @@ public ModuleManagerImpl(String masterServerAddress, List<Class<?>> classesOnCla
 
         setupSandbox();
         loadEnvironment(Sets.newHashSet(engineModule), true);
+        classIndex.logSummary();
         installManager = new ModuleInstallManager(this, masterServerAddress);
     }
 
@@ -182,6 +188,19 @@ private void loadModulesFromClassPath() {
         }
     }
 
+    /**
+     * Replaces the code modules in the registry with ones that get their classes from the class index.
+     */
+    private void indexCodeModules() {
+        List<Module> codeModules = registry.stream()
+                .filter(module -> module.isCodeModule() && !(module instanceof IndexedModule))
+                .collect(Collectors.toList());
+        for (Module module : codeModules) {
+            registry.remove(module);
+            registry.add(new IndexedModule(module, classIndex));
+        }
+    }
+
     private void setupSandbox() {
         ExternalApiWhitelist.CLASSES.stream().forEach(clazz ->
                 permissionProviderFactory.getBasePermissionSet().addAPIClass(clazz));
@@ -48,6 +48,7 @@ public final class PathManager {
     private static final String SCREENSHOT_DIR = "screenshots";
     private static final String NATIVES_DIR = "natives";
     private static final String CONFIGS_DIR = "configs";
+    private static final String CACHE_DIR = "cache";
     private static final String REGEX = "[^A-Za-z0-9-_ ]";
 
     private static PathManager instance;
@@ -63,6 +64,7 @@ public final class PathManager {
     private Path screenshotPath;
     private Path nativesPath;
     private Path configsPath;
+    private Path cachePath;
 
     private PathManager() {
         // By default, the path should be the code location (where terasology.jar is)
@@ -266,6 +268,14 @@ public Path getConfigsPath() {
         return configsPath;
     }
 
+    /**
+     *
+     * @return Path in which data is cached that can be rebuilt at any time, e.g. the index of the module classes.
+     */
+    public Path getCachePath() {
+        return cachePath;
+    }
+
     /**
      * Updates all of the path manager's file/directory references to match the path settings. Creates directories if they don't already exist.
      * @throws IOException Thrown when required directories cannot be accessed.
@@ -293,6 +303,7 @@ private void updateDirs() throws IOException {
         Files.createDirectories(screenshotPath);
         nativesPath = installPath.resolve(NATIVES_DIR);
         configsPath = installPath.resolve(CONFIGS_DIR);
+        cachePath = homePath.resolve(CACHE_DIR);
         if (currentWorldPath == null) {
             currentWorldPath = homePath;
         }
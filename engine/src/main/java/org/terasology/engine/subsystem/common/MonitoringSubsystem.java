@@ -16,17 +16,24 @@
 package org.terasology.engine.subsystem.common;
 
 import org.terasology.config.Config;
+import org.terasology.config.SystemConfig;
 import org.terasology.context.Context;
 import org.terasology.engine.GameEngine;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.EngineSubsystem;
+import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.monitoring.gui.AdvancedMonitor;
+import org.terasology.monitoring.impl.PerformanceMonitorExporter;
 
 /**
  *
  */
 public class MonitoringSubsystem implements EngineSubsystem {
 
+    private static final String METRICS_FILE = "performance-metrics.prom";
+
     private AdvancedMonitor advancedMonitor;
+    private PerformanceMonitorExporter exporter;
 
     @Override
     public String getName() {
@@ -35,10 +42,17 @@ public String getName() {
 
     @Override
     public void initialise(GameEngine engine, Context rootContext) {
-        if (rootContext.get(Config.class).getSystem().isMonitoringEnabled()) {
+        SystemConfig systemConfig = rootContext.get(Config.class).getSystem();
+        if (systemConfig.isMonitoringEnabled()) {
             advancedMonitor = new AdvancedMonitor();
             advancedMonitor.setVisible(true);
         }
+        if (systemConfig.getMetricsExportIntervalSeconds() > 0) {
+            PerformanceMonitor.setEnabled(true);
+            exporter = new PerformanceMonitorExporter(PathManager.getInstance().getLogPath().resolve(METRICS_FILE),
+                    systemConfig.getMetricsExportPort(), systemConfig.getMetricsExportIntervalSeconds());
+            exporter.start();
+        }
     }
 
     @Override
@@ -46,5 +60,8 @@ public void shutdown() {
         if (advancedMonitor != null) {
             advancedMonitor.setVisible(false);
         }
+        if (exporter != null) {
+            exporter.stop();
+        }
     }
 }
@@ -22,8 +22,13 @@
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.entitySystem.sectors.SectorSimulationComponent;
 import org.terasology.game.GameManifest;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.world.internal.WorldInfo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -98,4 +103,29 @@ public interface EntityManager extends EntityPool {
 
     boolean moveToPool(long id, EngineEntityPool pool);
 
+    /*
+     * Spatial queries over entities with a LocationComponent, based on their world position
+     */
+
+    /**
+     * @return All entities with a {@link LocationComponent} whose world position is within the given distance of the position
+     */
+    Collection<EntityRef> getEntitiesWithin(Vector3f position, float radius);
+
+    /**
+     * @return All entities with a {@link LocationComponent} whose world position lies inside the area
+     */
+    Collection<EntityRef> getEntitiesWithin(AABB area);
+
+    /**
+     * @param chunkRegion A region of chunk positions
+     * @return All entities with a {@link LocationComponent} whose world position lies in one of the chunks
+     */
+    Collection<EntityRef> getEntitiesInChunks(Region3i chunkRegion);
+
+    /**
+     * @return Up to count entities with a {@link LocationComponent} closest to the position, the nearest first
+     */
+    List<EntityRef> getNearestEntities(Vector3f position, int count);
+
 }
@@ -19,6 +19,8 @@
 import org.terasology.entitySystem.entity.internal.EngineEntityPool;
 import org.terasology.entitySystem.entity.internal.EngineSectorManager;
 
+import java.util.Set;
+
 public interface LowLevelEntityManager extends EntityManager {
 
     boolean isExistingEntity(long id);
@@ -37,6 +39,13 @@ public interface LowLevelEntityManager extends EntityManager {
 
     Iterable<Component> iterateComponents(long id);
 
+    /**
+     * @param id the id of the entity
+     * @return an immutable set of the types of the components the entity currently has. The same instance is returned
+     *         for as long as the set of component types of the entity doesn't change.
+     */
+    Set<Class<? extends Component>> getComponentTypes(long id);
+
     void destroy(long id);
 
     /**
@@ -30,6 +30,7 @@
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collections;
+import java.util.Set;
 
 import static org.terasology.entitySystem.entity.internal.EntityScope.CHUNK;
 import static org.terasology.entitySystem.entity.internal.EntityScope.GLOBAL;
@@ -191,6 +192,16 @@ public Iterable<Component> iterateComponents() {
         return Collections.emptyList();
     }
 
+    /**
+     * @return the types of the components of this entity, see {@link LowLevelEntityManager#getComponentTypes(long)}
+     */
+    public Set<Class<? extends Component>> getComponentTypes() {
+        if (exists()) {
+            return entityManager.getComponentTypes(getId());
+        }
+        return Collections.emptySet();
+    }
+
     @Override
     public void destroy() {
         if (isActive()) {
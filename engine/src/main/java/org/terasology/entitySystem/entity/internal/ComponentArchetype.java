@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.terasology.entitySystem.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups all entities of a {@link ComponentTable} which have exactly the same set of component types.
+ * <br><br>
+ * Archetypes are linked to each other by the component that has to be added or removed to get from one to the other,
+ * so that moving an entity after a component change does not require building and hashing a new set of types.
+ */
+final class ComponentArchetype {
+    private final Set<Class<? extends Component>> componentTypes;
+    private final TLongSet entities = new TLongHashSet();
+
+    private final Map<Class<? extends Component>, ComponentArchetype> addEdges = Maps.newHashMap();
+    private final Map<Class<? extends Component>, ComponentArchetype> removeEdges = Maps.newHashMap();
+
+    ComponentArchetype(Set<Class<? extends Component>> componentTypes) {
+        this.componentTypes = ImmutableSet.copyOf(componentTypes);
+    }
+
+    Set<Class<? extends Component>> getComponentTypes() {
+        return componentTypes;
+    }
+
+    TLongSet getEntities() {
+        return entities;
+    }
+
+    int size() {
+        return entities.size();
+    }
+
+    boolean matches(Collection<Class<? extends Component>> requiredTypes) {
+        return componentTypes.containsAll(requiredTypes);
+    }
+
+    ComponentArchetype getAddEdge(Class<? extends Component> componentType) {
+        return addEdges.get(componentType);
+    }
+
+    void setAddEdge(Class<? extends Component> componentType, ComponentArchetype target) {
+        addEdges.put(componentType, target);
+    }
+
+    ComponentArchetype getRemoveEdge(Class<? extends Component> componentType) {
+        return removeEdges.get(componentType);
+    }
+
+    void setRemoveEdge(Class<? extends Component> componentType, ComponentArchetype target) {
+        removeEdges.put(componentType, target);
+    }
+
+    /**
+     * Removes the edges of the neighbouring archetypes that lead to this one.
+     */
+    void unlink() {
+        for (Map.Entry<Class<? extends Component>, ComponentArchetype> edge : addEdges.entrySet()) {
+            edge.getValue().removeEdges.remove(edge.getKey(), this);
+        }
+        for (Map.Entry<Class<? extends Component>, ComponentArchetype> edge : removeEdges.entrySet()) {
+            edge.getValue().addEdges.remove(edge.getKey(), this);
+        }
+        addEdges.clear();
+        removeEdges.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentArchetype" + componentTypes;
+    }
+}
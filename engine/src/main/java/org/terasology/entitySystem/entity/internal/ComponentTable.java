@@ -15,26 +15,52 @@
  */
 package org.terasology.entitySystem.entity.internal;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import gnu.trove.iterator.TLongIterator;
 import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
-import gnu.trove.set.TLongSet;
-import gnu.trove.set.hash.TLongHashSet;
 import org.terasology.entitySystem.Component;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A table for storing entities and components. Focused on allowing iteration across a components of a given type
- *
+ * <br><br>
+ * In addition to a column of components per component type, the table groups entities into archetypes - one per
+ * distinct set of component types. Queries for several component types only visit the archetypes that contain all
+ * of them, and the list of matching archetypes for each query is cached and kept up to date as new archetypes appear.
+ * Archetypes that have lost all their entities are dropped in batches, so the intermediate archetypes an entity passes
+ * through while its components are added one by one don't get recreated over and over.
+ * <br><br>
+ * Like the component columns, the archetype bookkeeping is not synchronized: the table has a single writer, the main
+ * thread. Parallel update stages may read from it, but must not add or remove components (see ComponentAccess).
  */
 public class ComponentTable {
+    private static final int EMPTY_ARCHETYPES_PRUNE_THRESHOLD = 64;
+
     private Map<Class<?>, TLongObjectMap<Component>> store = Maps.newConcurrentMap();
 
+    private ComponentArchetype emptyArchetype = new ComponentArchetype(Collections.emptySet());
+    private Map<Set<Class<? extends Component>>, ComponentArchetype> archetypes = Maps.newConcurrentMap();
+    private TLongObjectMap<ComponentArchetype> entityArchetypes = new TLongObjectHashMap<>();
+    private Map<Set<Class<? extends Component>>, List<ComponentArchetype>> queryCache = Maps.newConcurrentMap();
+    private Set<ComponentArchetype> emptiedArchetypes = Sets.newLinkedHashSet();
+
+    public ComponentTable() {
+        archetypes.put(emptyArchetype.getComponentTypes(), emptyArchetype);
+    }
+
     public <T extends Component> T get(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
@@ -49,7 +75,12 @@ public Component put(long entityId, Component component) {
             entityMap = new TLongObjectHashMap<>();
             store.put(component.getClass(), entityMap);
         }
-        return entityMap.put(entityId, component);
+        Component previous = entityMap.put(entityId, component);
+        if (previous == null) {
+            ComponentArchetype current = getArchetype(entityId);
+            moveEntity(entityId, current, withComponent(current, component.getClass()));
+        }
+        return previous;
     }
 
     /**
@@ -60,31 +91,46 @@ public Component put(long entityId, Component component) {
     public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
-            return entityMap.remove(entityId);
+            Component removed = entityMap.remove(entityId);
+            if (removed != null) {
+                ComponentArchetype current = getArchetype(entityId);
+                moveEntity(entityId, current, withoutComponent(current, componentClass));
+            }
+            return removed;
         }
         return null;
     }
 
 
     public List<Component> removeAndReturnComponentsOf(long entityId) {
-        List<Component> componentList = Lists.newArrayList();
-        for (TLongObjectMap<Component> entityMap : store.values()) {
-            Component component = entityMap.remove(entityId);
+        ComponentArchetype archetype = getArchetype(entityId);
+        List<Component> componentList = Lists.newArrayListWithCapacity(archetype.getComponentTypes().size());
+        for (Class<? extends Component> componentType : archetype.getComponentTypes()) {
+            Component component = store.get(componentType).remove(entityId);
             if (component != null) {
                 componentList.add(component);
             }
         }
+        moveEntity(entityId, archetype, emptyArchetype);
         return componentList;
     }
 
     public void remove(long entityId) {
-        for (TLongObjectMap<Component> entityMap : store.values()) {
-            entityMap.remove(entityId);
+        ComponentArchetype archetype = getArchetype(entityId);
+        for (Class<? extends Component> componentType : archetype.getComponentTypes()) {
+            store.get(componentType).remove(entityId);
         }
+        moveEntity(entityId, archetype, emptyArchetype);
     }
 
     public void clear() {
         store.clear();
+        entityArchetypes.clear();
+        queryCache.clear();
+        archetypes.clear();
+        emptiedArchetypes.clear();
+        emptyArchetype = new ComponentArchetype(Collections.emptySet());
+        archetypes.put(emptyArchetype.getComponentTypes(), emptyArchetype);
     }
 
     public int getComponentCount(Class<? extends Component> componentClass) {
@@ -92,6 +138,19 @@ public int getComponentCount(Class<? extends Component> componentClass) {
         return (map == null) ? 0 : map.size();
     }
 
+    /**
+     * Counts the entities having all of the given component types, without visiting any individual entity.
+     *
+     * @return the number of entities having all of the given components
+     */
+    public int getComponentCount(Class<? extends Component>[] componentClasses) {
+        int count = 0;
+        for (ComponentArchetype archetype : getMatchingArchetypes(componentClasses)) {
+            count += archetype.size();
+        }
+        return count;
+    }
+
     /**
      *
      * @return an iterable that should be only used for iteration over the components. It can't be used to remove
@@ -108,9 +167,10 @@ public Iterable<Component> iterateComponents(long entityId) {
      *         time this method got called.
      */
     public List<Component> getComponentsInNewList(long entityId) {
-        List<Component> components = Lists.newArrayList();
-        for (TLongObjectMap<Component> componentMap : store.values()) {
-            Component comp = componentMap.get(entityId);
+        ComponentArchetype archetype = getArchetype(entityId);
+        List<Component> components = Lists.newArrayListWithCapacity(archetype.getComponentTypes().size());
+        for (Class<? extends Component> componentType : archetype.getComponentTypes()) {
+            Component comp = store.get(componentType).get(entityId);
             if (comp != null) {
                 components.add(comp);
             }
@@ -134,19 +194,195 @@ public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> c
      * @return An iterator over all entity ids.
      */
     public TLongIterator entityIdIterator() {
-        TLongSet idSet = new TLongHashSet();
-        for (TLongObjectMap<Component> componentMap : store.values()) {
-            idSet.addAll(componentMap.keys());
+        return new TLongArrayList(entityArchetypes.keys()).iterator();
+    }
+
+    /**
+     * Produces an iterator over the ids of all entities that have all of the given components.
+     * <br><br>
+     * Only the archetypes containing every requested component type are visited. The ids are copied when the
+     * iterator is created, so components may be added or removed (and entities destroyed) while iterating; entities
+     * which no longer have all of the requested components by the time they are reached are skipped.
+     *
+     * @param componentClasses the component types the entities must have, at least one
+     * @return An iterator over the matching entity ids.
+     */
+    public TLongIterator entityIdIterator(Class<? extends Component>[] componentClasses) {
+        List<ComponentArchetype> matching = getMatchingArchetypes(componentClasses);
+        int size = 0;
+        for (ComponentArchetype archetype : matching) {
+            size += archetype.size();
         }
-        return idSet.iterator();
+        TLongList ids = new TLongArrayList(size);
+        for (ComponentArchetype archetype : matching) {
+            ids.addAll(archetype.getEntities());
+        }
+        return new MatchingEntityIterator(ids.iterator(), Arrays.asList(componentClasses));
     }
 
     public int numEntities() {
-        TLongSet idSet = new TLongHashSet();
-        for (TLongObjectMap<Component> componentMap : store.values()) {
-            idSet.addAll(componentMap.keys());
+        return entityArchetypes.size();
+    }
+
+    /**
+     * The returned set is shared by all entities with the same component types and is never modified, so it can be
+     * compared by identity to detect whether an entity's component types changed.
+     *
+     * @return the types of all components the entity currently has
+     */
+    public Set<Class<? extends Component>> getComponentTypes(long entityId) {
+        return getArchetype(entityId).getComponentTypes();
+    }
+
+    /**
+     * @return whether the entity has every one of the given component types
+     */
+    public boolean hasAll(long entityId, Class<? extends Component>[] componentClasses) {
+        return getArchetype(entityId).matches(Arrays.asList(componentClasses));
+    }
+
+    private ComponentArchetype getArchetype(long entityId) {
+        ComponentArchetype archetype = entityArchetypes.get(entityId);
+        return (archetype == null) ? emptyArchetype : archetype;
+    }
+
+    private void moveEntity(long entityId, ComponentArchetype from, ComponentArchetype to) {
+        if (from == to) {
+            return;
+        }
+        from.getEntities().remove(entityId);
+        if (to == emptyArchetype) {
+            entityArchetypes.remove(entityId);
+        } else {
+            to.getEntities().add(entityId);
+            entityArchetypes.put(entityId, to);
+            emptiedArchetypes.remove(to);
+        }
+        if (from != emptyArchetype && from.size() == 0) {
+            emptiedArchetypes.add(from);
+            if (emptiedArchetypes.size() >= EMPTY_ARCHETYPES_PRUNE_THRESHOLD) {
+                pruneEmptiedArchetypes();
+            }
+        }
+    }
+
+    /**
+     * Drops the archetypes without entities, unlinking them from their neighbours and from the cached queries.
+     */
+    private void pruneEmptiedArchetypes() {
+        for (ComponentArchetype archetype : emptiedArchetypes) {
+            archetypes.remove(archetype.getComponentTypes());
+            archetype.unlink();
+            for (List<ComponentArchetype> matching : queryCache.values()) {
+                matching.remove(archetype);
+            }
+        }
+        emptiedArchetypes.clear();
+    }
+
+    /**
+     * @return the number of archetypes currently known, including the one of entities without components
+     */
+    public int getArchetypeCount() {
+        return archetypes.size();
+    }
+
+    private ComponentArchetype withComponent(ComponentArchetype archetype, Class<? extends Component> componentClass) {
+        ComponentArchetype target = archetype.getAddEdge(componentClass);
+        if (target == null) {
+            Set<Class<? extends Component>> types = Sets.newLinkedHashSet(archetype.getComponentTypes());
+            types.add(componentClass);
+            target = getOrCreateArchetype(types);
+            archetype.setAddEdge(componentClass, target);
+            target.setRemoveEdge(componentClass, archetype);
+        }
+        return target;
+    }
+
+    private ComponentArchetype withoutComponent(ComponentArchetype archetype, Class<? extends Component> componentClass) {
+        ComponentArchetype target = archetype.getRemoveEdge(componentClass);
+        if (target == null) {
+            Set<Class<? extends Component>> types = Sets.newLinkedHashSet(archetype.getComponentTypes());
+            types.remove(componentClass);
+            target = getOrCreateArchetype(types);
+            archetype.setRemoveEdge(componentClass, target);
+            target.setAddEdge(componentClass, archetype);
+        }
+        return target;
+    }
+
+    private ComponentArchetype getOrCreateArchetype(Set<Class<? extends Component>> types) {
+        ComponentArchetype archetype = archetypes.get(types);
+        if (archetype == null) {
+            archetype = new ComponentArchetype(types);
+            archetypes.put(archetype.getComponentTypes(), archetype);
+            for (Map.Entry<Set<Class<? extends Component>>, List<ComponentArchetype>> query : queryCache.entrySet()) {
+                if (archetype.matches(query.getKey())) {
+                    query.getValue().add(archetype);
+                }
+            }
+        }
+        return archetype;
+    }
+
+    private List<ComponentArchetype> getMatchingArchetypes(Class<? extends Component>[] componentClasses) {
+        Set<Class<? extends Component>> query = ImmutableSet.copyOf(componentClasses);
+        List<ComponentArchetype> matching = queryCache.get(query);
+        if (matching == null) {
+            matching = Lists.newArrayList();
+            for (ComponentArchetype archetype : archetypes.values()) {
+                if (archetype != emptyArchetype && archetype.matches(query)) {
+                    matching.add(archetype);
+                }
+            }
+            queryCache.put(query, matching);
+        }
+        return matching;
+    }
+
+    /**
+     * Iterates over a snapshot of entity ids, skipping the entities that no longer match the query.
+     */
+    private final class MatchingEntityIterator implements TLongIterator {
+        private final TLongIterator ids;
+        private final List<Class<? extends Component>> requiredTypes;
+        private long nextId;
+        private boolean hasNextId;
+
+        MatchingEntityIterator(TLongIterator ids, List<Class<? extends Component>> requiredTypes) {
+            this.ids = ids;
+            this.requiredTypes = requiredTypes;
+        }
+
+        /**
+         * Looks for the next matching id only when asked, so that changes made while handling the previous id are
+         * taken into account.
+         */
+        @Override
+        public boolean hasNext() {
+            while (!hasNextId && ids.hasNext()) {
+                long id = ids.next();
+                if (getArchetype(id).matches(requiredTypes)) {
+                    nextId = id;
+                    hasNextId = true;
+                }
+            }
+            return hasNextId;
+        }
+
+        @Override
+        public long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNextId = false;
+            return nextId;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
         }
-        return idSet.size();
     }
 
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.Maps;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Dense directory of the entities of an entity manager, which gives each entity with a pool a slot storing that pool.
+ * <br><br>
+ * Entity refs remember the location of their entity, i.e. its slot together with the generation of the slot, so
+ * finding the pool of the entity behind a ref takes two array loads instead of a lookup of a boxed id. Slots get
+ * reused once their entity has been removed from its pool, and every reuse increases the generation of the slot, so
+ * that refs notice that their slot belongs to another entity now. Entity ids are unaffected by this and remain the
+ * persisted identity of an entity.
+ * <br><br>
+ * Entities may be assigned to pools while other threads look up entities, e.g. when a ref is created during a parallel
+ * system stage. Changes take a write lock, lookups by location only validate that no change happened meanwhile.
+ */
+final class EntityDirectory {
+    /**
+     * Location of entities that aren't assigned to a pool
+     */
+    static final long NO_LOCATION = location(-1, 0);
+    private static final int NO_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private final TLongIntMap slots = new TLongIntHashMap(INITIAL_CAPACITY, 0.5f, PojoEntityManager.NULL_ID, NO_SLOT);
+    private final TIntList freeSlots = new TIntArrayList();
+    private EngineEntityPool[] pools = new EngineEntityPool[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int usedSlots;
+
+    /**
+     * @return the slot and its generation packed into a long, so that refs can update both at once
+     */
+    private static long location(int slot, int generation) {
+        return ((long) generation << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the current location of the entity, or {@link #NO_LOCATION} if it isn't assigned to a pool
+     */
+    long locate(long entityId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slots.get(entityId);
+            return (slot == NO_SLOT) ? NO_LOCATION : location(slot, generations[slot]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the pool stored at the location, or null if its slot has been reused or freed since
+     */
+    EngineEntityPool getPoolAt(long location) {
+        int slot = (int) location;
+        int generation = (int) (location >>> 32);
+        long stamp = lock.tryOptimisticRead();
+        EngineEntityPool result = readPool(slot, generation);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = readPool(slot, generation);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    private EngineEntityPool readPool(int slot, int generation) {
+        // The arrays are read once, as they may be replaced by a concurrent change of an optimistic read
+        EngineEntityPool[] currentPools = pools;
+        int[] currentGenerations = generations;
+        if (slot < 0 || slot >= usedSlots || slot >= currentPools.length || slot >= currentGenerations.length
+                || currentGenerations[slot] != generation) {
+            return null;
+        }
+        return currentPools[slot];
+    }
+
+    /**
+     * @return the pool the entity is assigned to, or null if it isn't assigned to one
+     */
+    EngineEntityPool getPool(long entityId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slots.get(entityId);
+            return (slot == NO_SLOT) ? null : pools[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the pool the entity was assigned to before, or null if it didn't have one
+     */
+    EngineEntityPool assign(long entityId, EngineEntityPool pool) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.get(entityId);
+            if (slot == NO_SLOT) {
+                slot = allocateSlot();
+                slots.put(entityId, slot);
+            }
+            EngineEntityPool previous = pools[slot];
+            pools[slot] = pool;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Frees the slot of the entity, which invalidates the location remembered by the refs of the entity.
+     *
+     * @return the pool the entity was assigned to, or null if it didn't have one
+     */
+    EngineEntityPool remove(long entityId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.remove(entityId);
+            if (slot == NO_SLOT) {
+                return null;
+            }
+            EngineEntityPool previous = pools[slot];
+            pools[slot] = null;
+            generations[slot]++;
+            freeSlots.add(slot);
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot < usedSlots; slot++) {
+                pools[slot] = null;
+                generations[slot]++;
+            }
+            slots.clear();
+            freeSlots.clear();
+            // The generations are kept, so that refs created before can't mistake a reused slot for theirs
+            for (int slot = usedSlots - 1; slot >= 0; slot--) {
+                freeSlots.add(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool of every assigned entity, by entity id
+     */
+    Map<Long, EngineEntityPool> toMap() {
+        long stamp = lock.readLock();
+        try {
+            Map<Long, EngineEntityPool> result = Maps.newHashMapWithExpectedSize(slots.size());
+            slots.forEachEntry((entityId, slot) -> {
+                result.put(entityId, pools[slot]);
+                return true;
+            });
+            return Collections.unmodifiableMap(result);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.removeAt(freeSlots.size() - 1);
+        }
+        if (usedSlots == pools.length) {
+            int capacity = pools.length * 2;
+            pools = Arrays.copyOf(pools, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        return usedSlots++;
+    }
+}
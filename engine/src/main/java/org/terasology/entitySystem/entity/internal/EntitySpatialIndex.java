@@ -0,0 +1,366 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.Maps;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.procedure.TLongProcedure;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hash grid of all entities with a {@link LocationComponent}, bucketed by the chunk their world position lies in.
+ * <br><br>
+ * The entity manager keeps the index up to date as location components get added, changed or removed. Moving an
+ * entity also re-indexes its location children, as their world position depends on it. Queries only look at the
+ * cells that overlap the queried area, so they cost in proportion to the number of entities near it rather than the
+ * number of located entities in the world.
+ * <br><br>
+ * Thread safe, as systems updated in parallel may query it. Queries can run at the same time, updates wait for them and
+ * block them while changing the index.
+ */
+final class EntitySpatialIndex {
+    private static final int MIN_CELL_SIZE = Math.min(ChunkConstants.SIZE_X, Math.min(ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z));
+
+    private final Map<Vector3i, TLongSet> cells = Maps.newHashMap();
+    private final TLongObjectMap<Vector3i> entityCells = new TLongObjectHashMap<>();
+    private final TLongObjectMap<Vector3f> positions = new TLongObjectHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Re-reads the world position of the entity and its location children.
+     */
+    void update(EntityRef entity) {
+        lock.writeLock().lock();
+        try {
+            updateLocked(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void updateLocked(EntityRef entity) {
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (location == null) {
+            removeLocked(entity.getId());
+            return;
+        }
+        Vector3f worldPosition = location.getWorldPosition();
+        if (Float.isFinite(worldPosition.x) && Float.isFinite(worldPosition.y) && Float.isFinite(worldPosition.z)) {
+            place(entity.getId(), worldPosition);
+        } else {
+            removeLocked(entity.getId());
+        }
+        for (EntityRef child : location.getChildren()) {
+            if (child.exists()) {
+                updateLocked(child);
+            }
+        }
+    }
+
+    void remove(long entityId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(entityId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long entityId) {
+        Vector3i cell = entityCells.remove(entityId);
+        if (cell != null) {
+            removeFromCell(cell, entityId);
+            positions.remove(entityId);
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            entityCells.clear();
+            positions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return positions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the position the entity was indexed at, or null if it isn't indexed
+     */
+    Vector3f getPosition(long entityId) {
+        lock.readLock().lock();
+        try {
+            Vector3f position = positions.get(entityId);
+            return position != null ? new Vector3f(position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    TLongList getEntitiesInChunks(Region3i chunkRegion) {
+        TLongList result = new TLongArrayList();
+        if (!chunkRegion.isEmpty()) {
+            lock.readLock().lock();
+            try {
+                forEachInChunks(chunkRegion.minX(), chunkRegion.minY(), chunkRegion.minZ(),
+                        chunkRegion.maxX(), chunkRegion.maxY(), chunkRegion.maxZ(), result::add);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return result;
+    }
+
+    TLongList getEntitiesWithin(Vector3f min, Vector3f max) {
+        TLongList result = new TLongArrayList();
+        lock.readLock().lock();
+        try {
+            forEachInArea(min, max, id -> {
+                Vector3f pos = positions.get(id);
+                if (pos.x >= min.x && pos.y >= min.y && pos.z >= min.z && pos.x <= max.x && pos.y <= max.y && pos.z <= max.z) {
+                    result.add(id);
+                }
+                return true;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    TLongList getEntitiesWithin(Vector3f center, float radius) {
+        TLongList result = new TLongArrayList();
+        Vector3f min = new Vector3f(center.x - radius, center.y - radius, center.z - radius);
+        Vector3f max = new Vector3f(center.x + radius, center.y + radius, center.z + radius);
+        float radiusSquared = radius * radius;
+        lock.readLock().lock();
+        try {
+            forEachInArea(min, max, id -> {
+                if (positions.get(id).distanceSquared(center) <= radiusSquared) {
+                    result.add(id);
+                }
+                return true;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Searches the cells in rings of growing size around the given position, until no unvisited cell can contain an
+     * entity closer than the furthest one found so far.
+     *
+     * @return the ids of up to count entities, closest first
+     */
+    TLongList getNearestEntities(Vector3f position, int count) {
+        if (count <= 0) {
+            return new TLongArrayList();
+        }
+        lock.readLock().lock();
+        try {
+            return getNearestEntitiesLocked(position, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TLongList getNearestEntitiesLocked(Vector3f position, int count) {
+        if (positions.isEmpty()) {
+            return new TLongArrayList();
+        }
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distanceSquared).reversed());
+        TLongProcedure offer = id -> {
+            float distanceSquared = positions.get(id).distanceSquared(position);
+            if (nearest.size() < count) {
+                nearest.add(new Candidate(id, distanceSquared));
+            } else if (distanceSquared < nearest.peek().distanceSquared) {
+                nearest.poll();
+                nearest.add(new Candidate(id, distanceSquared));
+            }
+            return true;
+        };
+
+        Vector3i center = cellOf(position);
+        for (int ring = 0; ; ring++) {
+            long ringVolume = (2L * ring + 1) * (2L * ring + 1) * (2L * ring + 1);
+            if (ringVolume > cells.size()) {
+                // Cheaper to go over all remaining occupied cells than to keep looking at mostly empty ones
+                for (Map.Entry<Vector3i, TLongSet> entry : cells.entrySet()) {
+                    if (chebyshevDistance(entry.getKey(), center) >= ring) {
+                        entry.getValue().forEach(offer);
+                    }
+                }
+                break;
+            }
+            forEachInRing(center, ring, offer);
+            if (nearest.size() == count) {
+                float reach = (float) ring * MIN_CELL_SIZE;
+                if (nearest.peek().distanceSquared <= reach * reach) {
+                    break;
+                }
+            }
+        }
+
+        long[] ids = new long[nearest.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = nearest.poll().id;
+        }
+        return TLongArrayList.wrap(ids);
+    }
+
+    private void place(long entityId, Vector3f worldPosition) {
+        Vector3f position = positions.get(entityId);
+        if (position == null) {
+            positions.put(entityId, new Vector3f(worldPosition));
+        } else {
+            position.set(worldPosition);
+        }
+
+        int cellX = cellX(worldPosition.x);
+        int cellY = cellY(worldPosition.y);
+        int cellZ = cellZ(worldPosition.z);
+        Vector3i oldCell = entityCells.get(entityId);
+        if (oldCell != null) {
+            if (oldCell.x == cellX && oldCell.y == cellY && oldCell.z == cellZ) {
+                return;
+            }
+            removeFromCell(oldCell, entityId);
+        }
+        Vector3i cell = new Vector3i(cellX, cellY, cellZ);
+        entityCells.put(entityId, cell);
+        cells.computeIfAbsent(cell, k -> new TLongHashSet()).add(entityId);
+    }
+
+    private void removeFromCell(Vector3i cell, long entityId) {
+        TLongSet cellEntities = cells.get(cell);
+        if (cellEntities != null) {
+            cellEntities.remove(entityId);
+            if (cellEntities.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+
+    private void forEachInArea(Vector3f min, Vector3f max, TLongProcedure procedure) {
+        if (min.x > max.x || min.y > max.y || min.z > max.z) {
+            return;
+        }
+        forEachInChunks(cellX(min.x), cellY(min.y), cellZ(min.z), cellX(max.x), cellY(max.y), cellZ(max.z), procedure);
+    }
+
+    private void forEachInChunks(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, TLongProcedure procedure) {
+        long volume = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (volume > cells.size()) {
+            for (Map.Entry<Vector3i, TLongSet> entry : cells.entrySet()) {
+                Vector3i cell = entry.getKey();
+                if (cell.x >= minX && cell.y >= minY && cell.z >= minZ && cell.x <= maxX && cell.y <= maxY && cell.z <= maxZ) {
+                    entry.getValue().forEach(procedure);
+                }
+            }
+        } else {
+            Vector3i cell = new Vector3i();
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        cell.set(x, y, z);
+                        TLongSet cellEntities = cells.get(cell);
+                        if (cellEntities != null) {
+                            cellEntities.forEach(procedure);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void forEachInRing(Vector3i center, int ring, TLongProcedure procedure) {
+        Vector3i cell = new Vector3i();
+        for (int x = -ring; x <= ring; x++) {
+            boolean xOnRing = Math.abs(x) == ring;
+            for (int y = -ring; y <= ring; y++) {
+                boolean onRing = xOnRing || Math.abs(y) == ring;
+                // Inside the ring only the two z faces belong to it
+                int zStep = onRing || ring == 0 ? 1 : 2 * ring;
+                for (int z = -ring; z <= ring; z += zStep) {
+                    cell.set(center.x + x, center.y + y, center.z + z);
+                    TLongSet cellEntities = cells.get(cell);
+                    if (cellEntities != null) {
+                        cellEntities.forEach(procedure);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int chebyshevDistance(Vector3i a, Vector3i b) {
+        return Math.max(Math.abs(a.x - b.x), Math.max(Math.abs(a.y - b.y), Math.abs(a.z - b.z)));
+    }
+
+    private static Vector3i cellOf(Vector3f position) {
+        return new Vector3i(cellX(position.x), cellY(position.y), cellZ(position.z));
+    }
+
+    private static int cellX(float x) {
+        return ChunkMath.calcChunkPosX(TeraMath.floorToInt(x));
+    }
+
+    private static int cellY(float y) {
+        return ChunkMath.calcChunkPosY(TeraMath.floorToInt(y));
+    }
+
+    private static int cellZ(float z) {
+        return ChunkMath.calcChunkPosZ(TeraMath.floorToInt(z));
+    }
+
+    private static final class Candidate {
+        private final long id;
+        private final float distanceSquared;
+
+        private Candidate(long id, float distanceSquared) {
+            this.id = id;
+            this.distanceSquared = distanceSquared;
+        }
+    }
+}
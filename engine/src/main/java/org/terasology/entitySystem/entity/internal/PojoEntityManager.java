@@ -18,10 +18,10 @@
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.TLongList;
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
@@ -41,6 +41,9 @@
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.entitySystem.sectors.SectorSimulationComponent;
 import org.terasology.game.GameManifest;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
@@ -67,12 +70,13 @@ public class PojoEntityManager implements EngineEntityManager {
 
     private EngineEntityPool globalPool = new PojoEntityPool(this);
     private PojoSectorManager sectorManager = new PojoSectorManager(this);
-    private Map<Long, EngineEntityPool> poolMap = new MapMaker().initialCapacity(1000).makeMap();
+    private final EntityDirectory directory = new EntityDirectory();
     private List<EngineEntityPool> worldPools = Lists.newArrayList();
     private Map<EngineEntityPool, Long> poolCounts = new HashMap<EngineEntityPool, Long>();
 
     private Set<EntityChangeSubscriber> subscribers = Sets.newLinkedHashSet();
     private Set<EntityDestroySubscriber> destroySubscribers = Sets.newLinkedHashSet();
+    private final EntitySpatialIndex spatialIndex = new EntitySpatialIndex();
     private EventSystem eventSystem;
     private PrefabManager prefabManager;
     private ComponentLibrary componentLibrary;
@@ -129,6 +133,8 @@ public void clear() {
         sectorManager.clear();
         nextEntityId = 1;
         loadedIds.clear();
+        spatialIndex.clear();
+        directory.clear();
     }
 
     @Override
@@ -334,7 +340,7 @@ public Map<WorldInfo, EngineEntityPool> getWorldPoolsMap() {
 
     @Override
     public Map<Long, EngineEntityPool> getPoolMap() {
-        return poolMap;
+        return directory.toMap();
     }
 
     @Override
@@ -463,6 +469,10 @@ public void setNextId(long id) {
      */
     @Override
     public boolean hasComponent(long entityId, Class<? extends Component> componentClass) {
+        EngineEntityPool pool = directory.getPool(entityId);
+        if (pool != null) {
+            return pool.getComponentStore().get(entityId, componentClass) != null;
+        }
         return globalPool.getComponentStore().get(entityId, componentClass) != null
                 || getCurrentWorldPool().getComponentStore().get(entityId, componentClass) != null
                 || sectorManager.hasComponent(entityId, componentClass);
@@ -493,6 +503,13 @@ public Iterable<Component> iterateComponents(long entityId) {
                 .orElse(Collections.emptyList());
     }
 
+    @Override
+    public Set<Class<? extends Component>> getComponentTypes(long entityId) {
+        return getPool(entityId)
+                .map(pool -> pool.getComponentStore().getComponentTypes(entityId))
+                .orElse(Collections.emptySet());
+    }
+
     @Override
     public void destroy(long entityId) {
         getPool(entityId).ifPresent(pool -> pool.destroy(entityId));
@@ -517,9 +534,8 @@ protected void notifyComponentRemovalAndEntityDestruction(long entityId, EntityR
      */
     @Override
     public <T extends Component> T getComponent(long entityId, Class<T> componentClass) {
-        return getPool(entityId)
-                .map(pool -> pool.getComponentStore().get(entityId, componentClass))
-                .orElse(null);
+        EngineEntityPool pool = lookupPool(entityId);
+        return (pool != null) ? pool.getComponentStore().get(entityId, componentClass) : null;
     }
 
     /**
@@ -612,20 +628,31 @@ public void saveComponent(long entityId, Component component) {
      */
 
     public Optional<EngineEntityPool> getPool(long id) {
-        Optional<EngineEntityPool> pool = Optional.ofNullable(poolMap.get(id));
-        if (!pool.isPresent()) {
-            if (id != NULL_ID) {
-                if (isExistingEntity(id)) {
-                    // TODO: Entity pools assignment is not needed as of now, can be enabled later on when necessary.
-                    // logger.error("Entity {} doesn't have an assigned pool", id);
-                } else {
-                    logger.error("Entity {} doesn't exist", id);
-                }
+        return Optional.ofNullable(lookupPool(id));
+    }
+
+    /**
+     * Like {@link #getPool(long)}, but without wrapping the result for the frequently used paths.
+     *
+     * @return the pool of the entity, or null if it isn't assigned to one
+     */
+    private EngineEntityPool lookupPool(long id) {
+        EngineEntityPool pool = directory.getPool(id);
+        if (pool == null && id != NULL_ID) {
+            if (isExistingEntity(id)) {
+                // TODO: Entity pools assignment is not needed as of now, can be enabled later on when necessary.
+                // logger.error("Entity {} doesn't have an assigned pool", id);
+            } else {
+                logger.error("Entity {} doesn't exist", id);
             }
         }
         return pool;
     }
 
+    EntityDirectory getDirectory() {
+        return directory;
+    }
+
     /**
      * Assign the given entity to the given pool.
      * <p>
@@ -639,13 +666,12 @@ public Optional<EngineEntityPool> getPool(long id) {
      */
     @Override
     public void assignToPool(long entityId, EngineEntityPool pool) {
-        if (poolMap.get(entityId) != pool) {
-            poolMap.put(entityId, pool);
-            if (!poolCounts.containsKey(pool)) {
-                poolCounts.put(pool, 1L);
-            } else {
-                poolCounts.put(pool, poolCounts.get(pool) + 1L);
+        EngineEntityPool previous = directory.assign(entityId, pool);
+        if (previous != pool) {
+            if (previous != null) {
+                poolCounts.put(previous, poolCounts.get(previous) - 1);
             }
+            poolCounts.merge(pool, 1L, Long::sum);
         }
     }
 
@@ -660,7 +686,10 @@ public void assignToPool(long entityId, EngineEntityPool pool) {
      * @param id the id of the entity to remove the assignment for
      */
     protected void unassignPool(long id) {
-        poolMap.remove(id);
+        EngineEntityPool previous = directory.remove(id);
+        if (previous != null) {
+            poolCounts.put(previous, poolCounts.get(previous) - 1);
+        }
     }
 
     @Override
@@ -681,10 +710,8 @@ public boolean moveToPool(long id, EngineEntityPool pool) {
         }
         Map<Class<? extends Component>, Component> savedComponents = copyComponents(oldPool.getEntity(id));
 
-        //Remove from the existing pool
+        //Remove from the existing pool, which also decreases the count of entities in that pool
         Optional<BaseEntityRef> maybeRef = oldPool.remove(id);
-        //Decrease the count of entities in that pool
-        poolCounts.put(oldPool, poolCounts.get(oldPool) - 1);
         if (!maybeRef.isPresent()) {
             return false;
         }
@@ -700,18 +727,27 @@ public boolean moveToPool(long id, EngineEntityPool pool) {
 
     @Override
     public void notifyComponentAdded(EntityRef changedEntity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            spatialIndex.update(changedEntity);
+        }
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onEntityComponentAdded(changedEntity, component);
         }
     }
 
     protected void notifyComponentRemoved(EntityRef changedEntity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            spatialIndex.remove(changedEntity.getId());
+        }
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onEntityComponentRemoved(changedEntity, component);
         }
     }
 
     protected void notifyComponentChanged(EntityRef changedEntity, Class<? extends Component> component) {
+        if (component == LocationComponent.class) {
+            spatialIndex.update(changedEntity);
+        }
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onEntityComponentChange(changedEntity, component);
         }
@@ -721,6 +757,7 @@ protected void notifyComponentChanged(EntityRef changedEntity, Class<? extends C
      * This method gets called when the entity gets reactivated. e.g. after storage an entity needs to be reactivated.
      */
     private void notifyReactivation(EntityRef entity, Collection<Component> components) {
+        spatialIndex.update(entity);
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onReactivation(entity, components);
         }
@@ -731,11 +768,41 @@ private void notifyReactivation(EntityRef entity, Collection<Component> componen
      * This method gets called before an entity gets deactivated (e.g. for storage).
      */
     private void notifyBeforeDeactivation(EntityRef entity, Collection<Component> components) {
+        spatialIndex.remove(entity.getId());
         for (EntityChangeSubscriber subscriber : subscribers) {
             subscriber.onBeforeDeactivation(entity, components);
         }
     }
 
+    @Override
+    public Collection<EntityRef> getEntitiesWithin(Vector3f position, float radius) {
+        return toEntityRefs(spatialIndex.getEntitiesWithin(position, radius));
+    }
+
+    @Override
+    public Collection<EntityRef> getEntitiesWithin(AABB area) {
+        return toEntityRefs(spatialIndex.getEntitiesWithin(area.getMin(), area.getMax()));
+    }
+
+    @Override
+    public Collection<EntityRef> getEntitiesInChunks(Region3i chunkRegion) {
+        return toEntityRefs(spatialIndex.getEntitiesInChunks(chunkRegion));
+    }
+
+    @Override
+    public List<EntityRef> getNearestEntities(Vector3f position, int count) {
+        return toEntityRefs(spatialIndex.getNearestEntities(position, count));
+    }
+
+    private List<EntityRef> toEntityRefs(TLongList ids) {
+        List<EntityRef> result = Lists.newArrayListWithCapacity(ids.size());
+        ids.forEach(id -> {
+            result.add(getEntity(id));
+            return true;
+        });
+        return result;
+    }
+
     @Override
     @SafeVarargs
     public final int getCountOfEntitiesWith(Class<? extends Component>... componentClasses) {
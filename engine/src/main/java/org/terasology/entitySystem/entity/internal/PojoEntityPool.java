@@ -15,7 +15,6 @@
  */
 package org.terasology.entitySystem.entity.internal;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -174,6 +173,7 @@ private void destroy(EntityRef ref) {
         // Don't allow the destruction of unloaded entities.
         long entityId = ref.getId();
         entityStore.remove(entityId);
+        entityManager.unassignPool(entityId);
         entityManager.unregister(entityId);
         ref.invalidate();
         componentStore.remove(entityId);
@@ -297,12 +297,13 @@ public EntityRef getEntity(long entityId) {
     @SafeVarargs
     @Override
     public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... componentClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(componentClasses)
-                        .allMatch(component -> componentStore.get(id, component) != null))
-                .map(id -> getEntity(id))
-                .iterator();
+        if (componentClasses.length == 0) {
+            return () -> entityStore.keySet().stream()
+                    .map(id -> getEntity(id))
+                    .iterator();
+        }
+        //Only visits the archetypes of entities which have all of the required components
+        return () -> new EntityIterator(componentStore.entityIdIterator(componentClasses), this);
     }
 
     @Override
@@ -313,7 +314,7 @@ public int getCountOfEntitiesWith(Class<? extends Component>[] componentClasses)
             case 1:
                 return componentStore.getComponentCount(componentClasses[0]);
             default:
-                return Lists.newArrayList(getEntitiesWith(componentClasses)).size();
+                return componentStore.getComponentCount(componentClasses);
         }
     }
 
@@ -15,6 +15,7 @@
  */
 package org.terasology.entitySystem.entity.internal;
 
+import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.LowLevelEntityManager;
 import org.terasology.entitySystem.prefab.Prefab;
@@ -26,9 +27,21 @@ public class PojoEntityRef extends BaseEntityRef {
     private long id;
     private boolean exists = true;
 
+    /**
+     * The directory of the {@link PojoEntityManager} the entity belongs to, used to find the pool of the entity
+     * without looking up its id. Null for other entity managers.
+     */
+    private final EntityDirectory directory;
+    /**
+     * Slot and generation of the entity in the directory, kept in one field so that threads sharing the ref never see
+     * the slot of one lookup with the generation of another
+     */
+    private volatile long location = EntityDirectory.NO_LOCATION;
+
     PojoEntityRef(LowLevelEntityManager manager, long id) {
         super(manager);
         this.id = id;
+        this.directory = (manager instanceof PojoEntityManager) ? ((PojoEntityManager) manager).getDirectory() : null;
     }
 
     @Override
@@ -36,6 +49,44 @@ public long getId() {
         return id;
     }
 
+    @Override
+    public <T extends Component> T getComponent(Class<T> componentClass) {
+        EngineEntityPool pool = getPool();
+        if (pool != null) {
+            return pool.getComponentStore().get(id, componentClass);
+        }
+        return super.getComponent(componentClass);
+    }
+
+    @Override
+    public boolean hasComponent(Class<? extends Component> component) {
+        EngineEntityPool pool = getPool();
+        if (pool != null) {
+            return pool.getComponentStore().get(id, component) != null;
+        }
+        return super.hasComponent(component);
+    }
+
+    /**
+     * @return the pool of the entity, or null if it can't be found via the directory
+     */
+    private EngineEntityPool getPool() {
+        if (!exists || directory == null) {
+            return null;
+        }
+        EngineEntityPool pool = directory.getPoolAt(location);
+        if (pool == null) {
+            // The location hasn't been looked up yet, or the entity left its pool since
+            long newLocation = directory.locate(id);
+            if (newLocation == EntityDirectory.NO_LOCATION) {
+                return null;
+            }
+            location = newLocation;
+            pool = directory.getPoolAt(newLocation);
+        }
+        return pool;
+    }
+
     @Override
     public EntityRef copy() {
         if (exists) {
@@ -33,6 +33,7 @@
 import org.terasology.engine.SimpleUri;
 import org.terasology.entitySystem.Component;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.BaseEntityRef;
 import org.terasology.entitySystem.event.AbstractConsumableEvent;
 import org.terasology.entitySystem.event.ConsumableEvent;
 import org.terasology.entitySystem.event.Event;
@@ -79,6 +80,10 @@ public class EventSystemImpl implements EventSystem {
     private SetMultimap<Class<? extends Event>, EventHandlerInfo> generalHandlers = HashMultimap.create();
     private Comparator<EventHandlerInfo> priorityComparator = new EventHandlerPriorityComparator();
 
+    // Dispatch tables: the handlers to call, already filtered and sorted by priority. Cleared whenever handlers change.
+    private Map<Class<? extends Event>, Map<Set<Class<? extends Component>>, EventHandlerInfo[]>> dispatchCache = Maps.newHashMap();
+    private Map<Class<? extends Event>, Map<Class<? extends Component>, EventHandlerInfo[]>> componentDispatchCache = Maps.newHashMap();
+
     // Event metadata
     private BiMap<SimpleUri, Class<? extends Event>> eventIdMap = HashBiMap.create();
     private SetMultimap<Class<? extends Event>, Class<? extends Event>> childEvents = HashMultimap.create();
@@ -115,6 +120,7 @@ public void process() {
     @Override
     public void registerEvent(SimpleUri uri, Class<? extends Event> eventType) {
         eventIdMap.put(uri, eventType);
+        invalidateDispatchCache();
         logger.debug("Registering event {}", eventType.getSimpleName());
         for (Class parent : ReflectionUtils.getAllSuperTypes(eventType, Predicates.assignableFrom(Event.class))) {
             if (!AbstractConsumableEvent.class.equals(parent) && !Event.class.equals(parent)) {
@@ -183,6 +189,7 @@ public void registerEventHandler(ComponentSystem handler) {
 
     @Override
     public void unregisterEventHandler(ComponentSystem handler) {
+        invalidateDispatchCache();
         for (SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlers : componentSpecificHandlers.values()) {
             Iterator<EventHandlerInfo> eventHandlerIterator = eventHandlers.values().iterator();
             while (eventHandlerIterator.hasNext()) {
@@ -203,6 +210,7 @@ public void unregisterEventHandler(ComponentSystem handler) {
     }
 
     private void addEventHandler(Class<? extends Event> type, EventHandlerInfo handler, Collection<Class<? extends Component>> components) {
+        invalidateDispatchCache();
         if (components.isEmpty()) {
             generalHandlers.put(type, handler);
             for (Class<? extends Event> childType : childEvents.get(type)) {
@@ -240,6 +248,7 @@ public <T extends Event> void registerEventReceiver(EventReceiver<T> eventReceiv
 
     @Override
     public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventReceiver, Class<T> eventClass, Class<? extends Component>... componentTypes) {
+        invalidateDispatchCache();
         SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlerMap = componentSpecificHandlers.get(eventClass);
         if (eventHandlerMap != null) {
             ReceiverEventHandlerInfo testReceiver = new ReceiverEventHandlerInfo<>(eventReceiver, 0, componentTypes);
@@ -272,16 +281,97 @@ public void send(EntityRef entity, Event event) {
             }
             networkReplicate(entity, event);
 
-            Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
-            List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
-            selectedHandlers.sort(priorityComparator);
+            if (entity instanceof BaseEntityRef) {
+                sendWithDispatchTable((BaseEntityRef) entity, event);
+            } else {
+                Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
+                List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
+                selectedHandlers.sort(priorityComparator);
+
+                if (event instanceof ConsumableEvent) {
+                    sendConsumableEvent(entity, event, selectedHandlers);
+                } else {
+                    sendStandardEvent(entity, event, selectedHandlers);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the event using the cached dispatch table for the entity's component types. The handlers in the table
+     * already match those component types, so they only need to be checked again if a handler changes them.
+     */
+    private void sendWithDispatchTable(BaseEntityRef entity, Event event) {
+        Set<Class<? extends Component>> componentTypes = entity.getComponentTypes();
+        EventHandlerInfo[] selectedHandlers = getDispatchTable(event.getClass(), componentTypes);
+        ConsumableEvent consumableEvent = (event instanceof ConsumableEvent) ? (ConsumableEvent) event : null;
+        for (int i = 0; i < selectedHandlers.length; ++i) {
+            EventHandlerInfo handler = selectedHandlers[i];
+            // Component types only change if a previous handler added or removed components.
+            if (i == 0 || entity.getComponentTypes() == componentTypes || handler.isValidFor(entity)) {
+                handler.invoke(entity, event);
+                if (consumableEvent != null && consumableEvent.isConsumed()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private EventHandlerInfo[] getDispatchTable(Class<? extends Event> eventType, Set<Class<? extends Component>> componentTypes) {
+        Map<Set<Class<? extends Component>>, EventHandlerInfo[]> eventTables = dispatchCache.get(eventType);
+        if (eventTables == null) {
+            eventTables = Maps.newHashMap();
+            dispatchCache.put(eventType, eventTables);
+        }
+        EventHandlerInfo[] table = eventTables.get(componentTypes);
+        if (table == null) {
+            table = buildDispatchTable(eventType, componentTypes);
+            eventTables.put(componentTypes, table);
+        }
+        return table;
+    }
+
+    private EventHandlerInfo[] buildDispatchTable(Class<? extends Event> eventType, Set<Class<? extends Component>> componentTypes) {
+        Set<EventHandlerInfo> result = Sets.newHashSet(generalHandlers.get(eventType));
+        SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+        if (handlers != null) {
+            for (Class<? extends Component> compClass : componentTypes) {
+                for (EventHandlerInfo eventHandler : handlers.get(compClass)) {
+                    if (componentTypes.containsAll(eventHandler.getFilterComponents())) {
+                        result.add(eventHandler);
+                    }
+                }
+            }
+        }
+        EventHandlerInfo[] table = result.toArray(new EventHandlerInfo[result.size()]);
+        Arrays.sort(table, priorityComparator);
+        return table;
+    }
 
-            if (event instanceof ConsumableEvent) {
-                sendConsumableEvent(entity, event, selectedHandlers);
+    private EventHandlerInfo[] getComponentDispatchTable(Class<? extends Event> eventType, Class<? extends Component> componentType) {
+        Map<Class<? extends Component>, EventHandlerInfo[]> eventTables = componentDispatchCache.get(eventType);
+        if (eventTables == null) {
+            eventTables = Maps.newHashMap();
+            componentDispatchCache.put(eventType, eventTables);
+        }
+        EventHandlerInfo[] table = eventTables.get(componentType);
+        if (table == null) {
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+            if (handlers == null) {
+                table = new EventHandlerInfo[0];
             } else {
-                sendStandardEvent(entity, event, selectedHandlers);
+                Set<EventHandlerInfo> componentHandlers = handlers.get(componentType);
+                table = componentHandlers.toArray(new EventHandlerInfo[componentHandlers.size()]);
+                Arrays.sort(table, priorityComparator);
             }
+            eventTables.put(componentType, table);
         }
+        return table;
+    }
+
+    private void invalidateDispatchCache() {
+        dispatchCache.clear();
+        componentDispatchCache.clear();
     }
 
     private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
@@ -373,14 +463,9 @@ public void send(EntityRef entity, Event event, Component component) {
             if (recordAndReplayCurrentStatus.getStatus() == RecordAndReplayStatus.RECORDING) {
                 eventCatcher.addEvent(new PendingEvent(entity, event, component));
             }
-            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(event.getClass());
-            if (handlers != null) {
-                List<EventHandlerInfo> eventHandlers = Lists.newArrayList(handlers.get(component.getClass()));
-                eventHandlers.sort(priorityComparator);
-                for (EventHandlerInfo eventHandler : eventHandlers) {
-                    if (eventHandler.isValidFor(entity)) {
-                        eventHandler.invoke(entity, event);
-                    }
+            for (EventHandlerInfo eventHandler : getComponentDispatchTable(event.getClass(), component.getClass())) {
+                if (eventHandler.isValidFor(entity)) {
+                    eventHandler.invoke(entity, event);
                 }
             }
         }
@@ -417,6 +502,8 @@ public int compare(EventHandlerInfo o1, EventHandlerInfo o2) {
     private interface EventHandlerInfo {
         boolean isValidFor(EntityRef entity);
 
+        Collection<Class<? extends Component>> getFilterComponents();
+
         void invoke(EntityRef entity, Event event);
 
         int getPriority();
@@ -453,6 +540,11 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
             try {
@@ -515,6 +607,11 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
             try {
@@ -571,6 +668,11 @@ public boolean isValidFor(EntityRef entity) {
             return true;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return Arrays.asList(components);
+        }
+
         @Override
         public void invoke(EntityRef entity, Event event) {
             receiver.onEvent((T) event, entity);
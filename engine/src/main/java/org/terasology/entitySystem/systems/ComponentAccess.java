@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.systems;
+
+import org.terasology.entitySystem.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares which components an {@link UpdateSubscriberSystem} reads and writes in its update, so that it may be updated
+ * in parallel with other declared systems it doesn't conflict with. Two systems conflict if one of them writes a
+ * component the other one reads or writes.
+ * <br><br>
+ * While updating, a declared system may only read the declared components and change the fields of those it writes.
+ * Anything else, like saving components, creating or destroying entities or changing blocks, has to be left to event
+ * handlers: events sent from a parallel update are delivered on the main thread once the parallel systems are done.
+ * <br><br>
+ * Systems without this annotation are updated on the main thread, one after another, as before.
+ * <br>
+ * <code>@ComponentAccess(reads = LocationComponent.class, writes = LightComponent.class)</code>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ComponentAccess {
+
+    Class<? extends Component>[] reads() default {};
+
+    Class<? extends Component>[] writes() default {};
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import org.terasology.entitySystem.entity.EntityRef;
+
+/**
+ * The results of the events other systems use to modify the movement of a character, resolved ahead of time so that
+ * the character can be stepped off the main thread.
+ */
+public final class CharacterMovementModifiers {
+    private final float[] maxSpeeds = new float[MovementMode.values().length];
+    private float jumpSpeed;
+    private int numberOfJumpsMax;
+
+    /**
+     * Sends the modifier events to the character. Must be called on the main thread.
+     */
+    public void resolve(EntityRef character, CharacterMovementComponent movementComp) {
+        for (MovementMode mode : MovementMode.values()) {
+            GetMaxSpeedEvent speedEvent = new GetMaxSpeedEvent(mode.maxSpeed, mode);
+            character.send(speedEvent);
+            maxSpeeds[mode.ordinal()] = Math.max(0, speedEvent.getResultValue());
+        }
+        AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
+        character.send(affectJumpForceEvent);
+        jumpSpeed = affectJumpForceEvent.getResultValue();
+        AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
+        character.send(affectMultiJumpEvent);
+        numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
+    }
+
+    public float getMaxSpeed(MovementMode mode) {
+        return maxSpeeds[mode.ordinal()];
+    }
+
+    public float getJumpSpeed() {
+        return jumpSpeed;
+    }
+
+    public int getNumberOfJumpsMax() {
+        return numberOfJumpsMax;
+    }
+}
@@ -57,10 +57,7 @@ public void setToState(EntityRef entity, CharacterStateEvent state) {
         location.setWorldRotation(state.getRotation());
         entity.saveComponent(location);
 
-        movementComp.mode = state.getMode();
-        movementComp.setVelocity(state.getVelocity());
-        movementComp.grounded = state.isGrounded();
-        movementComp.footstepDelta = state.getFootstepDelta();
+        setMovementToState(movementComp, state);
         entity.saveComponent(movementComp);
 
         setPhysicsLocation(entity, state.getPosition());
@@ -77,6 +74,16 @@ public void setToState(EntityRef entity, CharacterStateEvent state) {
         }
     }
 
+    /**
+     * Copies the movement state variables of the state into the movement component, without saving it.
+     */
+    static void setMovementToState(CharacterMovementComponent movementComp, CharacterStateEvent state) {
+        movementComp.mode = state.getMode();
+        movementComp.setVelocity(state.getVelocity());
+        movementComp.grounded = state.isGrounded();
+        movementComp.footstepDelta = state.getFootstepDelta();
+    }
+
     public void setToInterpolateState(EntityRef entity, CharacterStateEvent a, CharacterStateEvent b, long time) {
         float t = (float) (time - a.getTime()) / (b.getTime() - a.getTime());
         Vector3f newPos = BaseVector3f.lerp(a.getPosition(), b.getPosition(), t);
@@ -40,6 +40,14 @@ protected CharacterStateEvent() {
     }
 
     public CharacterStateEvent(CharacterStateEvent previous) {
+        continueFrom(previous);
+    }
+
+    /**
+     * Turns this state into the one following the given state, like {@link #CharacterStateEvent(CharacterStateEvent)}
+     * does for a new state.
+     */
+    void continueFrom(CharacterStateEvent previous) {
         this.time = previous.time;
         this.position.set(previous.position);
         this.rotation.set(previous.rotation);
@@ -53,6 +53,9 @@
  * <li>Finally sweep downwards to undo any stepping, and for falling</li>
  * </ol>
  * <br><br>
+ * The mover keeps its intermediate vectors between steps to avoid allocating them for every sweep, so an instance
+ * must only be used by one thread at a time.
+ * <br><br>
  * TODO: Refactor to allow additional movement modes.
  * TODO: Detect entry and exit from water while ghosting.
  */
@@ -87,6 +90,29 @@ public class KinematicCharacterMover implements CharacterMover {
 
     // Processing state variables
     private float steppedUpDist;
+    private CharacterMovementModifiers modifiers;
+
+    // Scratch vectors, reused by every step
+    private final Vector3f desiredVelocity = new Vector3f();
+    private final Vector3f velocityDiff = new Vector3f();
+    private final Vector3f endVelocity = new Vector3f();
+    private final Vector3f moveDelta = new Vector3f();
+    private final Vector3f distanceMoved = new Vector3f();
+    private final Vector3f movePosition = new Vector3f();
+    private final Vector3f stepDownPosition = new Vector3f();
+    private final Vector3f horizontalMove = new Vector3f();
+    private final Vector3f sweepTarget = new Vector3f();
+    private final Vector3f sweepDirection = new Vector3f();
+    private final Vector3f riseTarget = new Vector3f();
+    private final Vector3f expectedMove = new Vector3f();
+    private final Vector3f newDirection = new Vector3f();
+    private final Vector3f newHorizontalDirection = new Vector3f();
+    private final Vector3f modifiedHorizontalDirection = new Vector3f();
+    private final Vector3f horizontalNormal = new Vector3f();
+    private final Vector3f lastHitNormal = new Vector3f();
+    private final Vector3f reflectDirection = new Vector3f();
+    private final Vector3f perpendicularDirection = new Vector3f();
+    private final MoveResult moveResult = new MoveResult(movePosition, false, false, false);
     private WorldProvider worldProvider;
     private PhysicsEngine physics;
 
@@ -97,8 +123,24 @@ public KinematicCharacterMover(WorldProvider wp, PhysicsEngine physicsEngine) {
 
     @Override
     public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputEvent input, EntityRef entity) {
+        return step(initial, input, entity, new CharacterStateEvent(), null);
+    }
+
+    /**
+     * Steps the character into the given result state, which allows reusing state objects that are no longer needed.
+     * <br><br>
+     * Events sent to query movement modifiers from other systems are only handled right away on the main thread. To
+     * step characters on other threads, pass modifiers which have been resolved on the main thread beforehand.
+     *
+     * @param result    the state to overwrite with the new state of the character
+     * @param modifiers the resolved movement modifiers of the character, or null to query them with events
+     * @return the result state
+     */
+    public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputEvent input, EntityRef entity,
+                                    CharacterStateEvent result, CharacterMovementModifiers modifiers) {
+        this.modifiers = modifiers;
         CharacterMovementComponent characterMovementComponent = entity.getComponent(CharacterMovementComponent.class);
-        CharacterStateEvent result = new CharacterStateEvent(initial);
+        result.continueFrom(initial);
         result.setSequenceNumber(input.getSequenceNumber());
         if (worldProvider.isBlockRelevant(initial.getPosition())) {
             updatePosition(characterMovementComponent, result, input, entity);
@@ -122,11 +164,32 @@ public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputE
     }
 
     private float getMaxSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+        if (modifiers != null) {
+            return modifiers.getMaxSpeed(characterMovement.mode);
+        }
         GetMaxSpeedEvent speedEvent = new GetMaxSpeedEvent(characterMovement.mode.maxSpeed, characterMovement.mode);
         character.send(speedEvent);
         return Math.max(0, speedEvent.getResultValue());
     }
 
+    private float getJumpSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+        if (modifiers != null) {
+            return modifiers.getJumpSpeed();
+        }
+        AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(characterMovement.jumpSpeed);
+        character.send(affectJumpForceEvent);
+        return affectJumpForceEvent.getResultValue();
+    }
+
+    private int getNumberOfJumpsMax(EntityRef character, CharacterMovementComponent characterMovement) {
+        if (modifiers != null) {
+            return modifiers.getNumberOfJumpsMax();
+        }
+        AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(characterMovement.baseNumberOfJumpsMax);
+        character.send(affectMultiJumpEvent);
+        return (int) affectMultiJumpEvent.getResultValue();
+    }
+
     /*
     * Figure out if our position has put us into a new set of blocks and fire the appropriate events.
     */
@@ -323,13 +386,12 @@ private Vector3f extractResidualMovement(Vector3f hitNormal, Vector3f direction,
         float movementLength = direction.length();
         if (movementLength > physics.getEpsilon()) {
             direction.normalize();
-            Vector3f reflectDir = Vector3fUtil.reflect(direction, hitNormal, new Vector3f());
-            reflectDir.normalize();
-            Vector3f perpendicularDir = Vector3fUtil.getPerpendicularComponent(reflectDir, hitNormal, new Vector3f());
+            Vector3fUtil.reflect(direction, hitNormal, reflectDirection);
+            reflectDirection.normalize();
+            Vector3fUtil.getPerpendicularComponent(reflectDirection, hitNormal, perpendicularDirection);
             if (normalMag != 0.0f) {
-                Vector3f perpComponent = new Vector3f(perpendicularDir);
-                perpComponent.scale(normalMag * movementLength);
-                direction.set(perpComponent);
+                direction.set(perpendicularDirection);
+                direction.scale(normalMag * movementLength);
             }
         }
         return direction;
@@ -349,7 +411,8 @@ private MoveResult move(final Vector3f startPosition, final Vector3f moveDelta,
                             final float slopeFactor, final CharacterCollider collider) {
         steppedUpDist = 0;
         stepped = false;
-        Vector3f position = new Vector3f(startPosition);
+        Vector3f position = movePosition;
+        position.set(startPosition);
         boolean hitTop = false;
         boolean hitBottom = false;
         boolean hitSide;
@@ -358,21 +421,23 @@ private MoveResult move(final Vector3f startPosition, final Vector3f moveDelta,
         if (moveDelta.y > 0) {
             hitTop = moveDelta.y - moveUp(moveDelta.y, collider, position) > physics.getEpsilon();
         }
-        hitSide = moveHorizontal(new Vector3f(moveDelta.x, 0, moveDelta.z), collider, position, slopeFactor, stepHeight);
+        horizontalMove.set(moveDelta.x, 0, moveDelta.z);
+        hitSide = moveHorizontal(horizontalMove, collider, position, slopeFactor, stepHeight);
         if (moveDelta.y < 0 || steppedUpDist > 0) {
             float dist = (moveDelta.y < 0) ? moveDelta.y : 0;
             dist -= steppedUpDist;
             hitBottom = moveDown(dist, slopeFactor, collider, position);
         }
         if (!hitBottom && stepHeight > 0) {
-            Vector3f tempPos = new Vector3f(position);
-            hitBottom = moveDown(-stepHeight, slopeFactor, collider, tempPos);
+            stepDownPosition.set(position);
+            hitBottom = moveDown(-stepHeight, slopeFactor, collider, stepDownPosition);
             // Don't apply step down if nothing to step onto
             if (hitBottom) {
-                position.set(tempPos);
+                position.set(stepDownPosition);
             }
         }
-        return new MoveResult(position, hitSide, hitBottom, hitTop);
+        moveResult.set(hitSide, hitBottom, hitTop);
+        return moveResult;
     }
 
     private boolean moveDown(float dist, float slopeFactor, CharacterCollider collider, Vector3f position) {
@@ -382,16 +447,18 @@ private boolean moveDown(float dist, float slopeFactor, CharacterCollider collid
         }
 
         float remainingDist = -dist;
-        Vector3f targetPos = new Vector3f(position);
+        Vector3f targetPos = sweepTarget;
+        targetPos.set(position);
         targetPos.y -= remainingDist + VERTICAL_PENETRATION_LEEWAY;
-        Vector3f normalizedDir = new Vector3f(0, -1, 0);
+        Vector3f normalizedDir = sweepDirection;
+        normalizedDir.set(0, -1, 0);
         boolean hit = false;
         int iteration = 0;
         while (remainingDist > physics.getEpsilon() && iteration++ < 10) {
             SweepCallback callback = collider.sweep(position, targetPos, VERTICAL_PENETRATION, -1.0f);
             float actualDist = Math.max(0,
                     (remainingDist + VERTICAL_PENETRATION_LEEWAY) * callback.getClosestHitFraction() - VERTICAL_PENETRATION_LEEWAY);
-            Vector3f expectedMove = new Vector3f(targetPos);
+            expectedMove.set(targetPos);
             expectedMove.sub(position);
             if (expectedMove.lengthSquared() > physics.getEpsilon()) {
                 expectedMove.normalize();
@@ -403,7 +470,7 @@ private boolean moveDown(float dist, float slopeFactor, CharacterCollider collid
                 break;
             }
             if (callback.hasHit()) {
-                float originalSlope = callback.getHitNormalWorld().dot(new Vector3f(0, 1, 0));
+                float originalSlope = callback.getHitNormalWorld().y;
                 if (originalSlope < slopeFactor) {
                     float slope = callback.calculateAverageSlope(originalSlope, CHECK_FORWARD_DIST);
                     if (slope < slopeFactor) {
@@ -456,7 +523,8 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
             return false;
         }
         boolean horizontalHit = false;
-        Vector3f normalizedDir = Vector3fUtil.safeNormalize(horizMove, new Vector3f());
+        Vector3f normalizedDir = sweepDirection;
+        Vector3fUtil.safeNormalize(horizMove, normalizedDir);
 
         if (collider == null) {
             // ignore collision
@@ -465,11 +533,12 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
             return false;
         }
 
-        Vector3f targetPos = new Vector3f(normalizedDir);
+        Vector3f targetPos = sweepTarget;
+        targetPos.set(normalizedDir);
         targetPos.scale(dist + HORIZONTAL_PENETRATION_LEEWAY);
         targetPos.add(position);
         int iteration = 0;
-        Vector3f lastHitNormal = new Vector3f(0, 1, 0);
+        lastHitNormal.set(0, 1, 0);
         while (remainingFraction >= 0.01f && iteration++ < 10) {
             SweepCallback callback = collider.sweep(position, targetPos, HORIZONTAL_PENETRATION, slopeFactor);
 
@@ -482,14 +551,15 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
             }
             if (callback.hasHit()) {
                 if (actualDist > physics.getEpsilon()) {
-                    Vector3f actualMove = new Vector3f(normalizedDir);
-                    actualMove.scale(actualDist);
-                    position.add(actualMove);
+                    position.x += normalizedDir.x * actualDist;
+                    position.y += normalizedDir.y * actualDist;
+                    position.z += normalizedDir.z * actualDist;
                 }
                 dist -= actualDist;
-                Vector3f newDir = new Vector3f(normalizedDir);
+                Vector3f newDir = newDirection;
+                newDir.set(normalizedDir);
                 newDir.scale(dist);
-                float slope = callback.getHitNormalWorld().dot(new Vector3f(0, 1, 0));
+                float slope = callback.getHitNormalWorld().y;
 
                 // We step up if we're hitting a big slope, or if we're grazing
                 // the ground, otherwise we move up a shallow slope.
@@ -497,9 +567,10 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
                     boolean stepping = checkStep(collider, position, newDir, callback, slopeFactor, stepHeight);
                     if (!stepping) {
                         horizontalHit = true;
-                        Vector3f newHorizDir = new Vector3f(newDir.x, 0, newDir.z);
-                        Vector3f horizNormal = new Vector3f(callback.getHitNormalWorld().x, 0,
-                                callback.getHitNormalWorld().z);
+                        Vector3f newHorizDir = newHorizontalDirection;
+                        newHorizDir.set(newDir.x, 0, newDir.z);
+                        Vector3f horizNormal = horizontalNormal;
+                        horizNormal.set(callback.getHitNormalWorld().x, 0, callback.getHitNormalWorld().z);
                         if (horizNormal.lengthSquared() > physics.getEpsilon()) {
                             horizNormal.normalize();
                             if (lastHitNormal.dot(horizNormal) > physics.getEpsilon()) {
@@ -512,10 +583,11 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
                     }
                 } else {
                     // Hitting a shallow slope, move up it
-                    Vector3f newHorizDir = new Vector3f(newDir.x, 0, newDir.z);
+                    Vector3f newHorizDir = newHorizontalDirection;
+                    newHorizDir.set(newDir.x, 0, newDir.z);
                     extractResidualMovement(callback.getHitNormalWorld(), newDir);
-                    Vector3f modHorizDir = new Vector3f(newDir);
-                    modHorizDir.y = 0;
+                    Vector3f modHorizDir = modifiedHorizontalDirection;
+                    modHorizDir.set(newDir.x, 0, newDir.z);
                     newDir.scale(newHorizDir.length() / modHorizDir.length());
                 }
                 float sqrDist = newDir.lengthSquared();
@@ -542,7 +614,8 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
     }
 
     private float moveUp(float riseAmount, CharacterCollider collider, Vector3f position) {
-        Vector3f to = new Vector3f(position.x, position.y + riseAmount + VERTICAL_PENETRATION_LEEWAY, position.z);
+        Vector3f to = riseTarget;
+        to.set(position.x, position.y + riseAmount + VERTICAL_PENETRATION_LEEWAY, position.z);
         if (collider != null) {
             SweepCallback callback = collider.sweep(position, to, VERTICAL_PENETRATION_LEEWAY, -1f);
             if (callback.hasHit()) {
@@ -581,7 +654,8 @@ private void updateRotation(CharacterMovementComponent movementComp, CharacterSt
 
     private void walk(final CharacterMovementComponent movementComp, final CharacterStateEvent state,
                       CharacterMoveInputEvent input, EntityRef entity) {
-        Vector3f desiredVelocity = new Vector3f(input.getMovementDirection());
+        Vector3f desiredVelocity = this.desiredVelocity;
+        desiredVelocity.set(input.getMovementDirection());
 
         float lengthSquared = desiredVelocity.lengthSquared();
 
@@ -618,10 +692,12 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         }
 
         // Modify velocity towards desired, up to the maximum rate determined by friction
-        Vector3f velocityDiff = new Vector3f(desiredVelocity);
+        Vector3f velocityDiff = this.velocityDiff;
+        velocityDiff.set(desiredVelocity);
         velocityDiff.sub(state.getVelocity());
         velocityDiff.scale(Math.min(movementComp.mode.scaleInertia * input.getDelta(), 1.0f));
-        Vector3f endVelocity = new Vector3f(state.getVelocity());
+        Vector3f endVelocity = this.endVelocity;
+        endVelocity.set(state.getVelocity());
         endVelocity.x += velocityDiff.x;
         endVelocity.z += velocityDiff.z;
         if (movementComp.mode.scaleGravity == 0) {
@@ -632,17 +708,19 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         } else {
             endVelocity.y = Math.max(-TERMINAL_VELOCITY, state.getVelocity().y - (GRAVITY * movementComp.mode.scaleGravity) * input.getDelta());
         }
-        Vector3f moveDelta = new Vector3f(endVelocity);
+        Vector3f moveDelta = this.moveDelta;
+        moveDelta.set(endVelocity);
         moveDelta.scale(input.getDelta());
         CharacterCollider collider = movementComp.mode.useCollision ? physics.getCharacterCollider(entity) : null;
         MoveResult moveResult = move(state.getPosition(), moveDelta,
                 (state.getMode() != MovementMode.CLIMBING && state.isGrounded() && movementComp.mode.canBeGrounded) ? movementComp.stepHeight : 0,
                 movementComp.slopeFactor, collider);
-        Vector3f distanceMoved = new Vector3f(moveResult.getFinalPosition());
+        Vector3f distanceMoved = this.distanceMoved;
+        distanceMoved.set(moveResult.getFinalPosition());
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            entity.send(new MovedEvent(new Vector3f(distanceMoved), state.getPosition()));
         }
 
         // Upon hitting solid ground, reset the number of jumps back to the maximum value.
@@ -669,17 +747,13 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                 state.setGrounded(false);
 
                 // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += getJumpSpeed(entity, movementComp);
                 if (input.isFirstRun()) {
                     entity.send(new JumpEvent());
                 }
 
                 // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
+                movementComp.numberOfJumpsMax = getNumberOfJumpsMax(entity, movementComp);
 
                 movementComp.numberOfJumpsLeft--;
             }
@@ -699,17 +773,13 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                 state.setGrounded(false);
 
                 // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += getJumpSpeed(entity, movementComp);
                 if (input.isFirstRun()) {
                     entity.send(new JumpEvent());
                 }
 
                 // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
+                movementComp.numberOfJumpsMax = getNumberOfJumpsMax(entity, movementComp);
 
                 movementComp.numberOfJumpsLeft--;
             }
@@ -834,6 +904,12 @@ public MoveResult(Vector3f finalPosition, boolean hitHorizontal, boolean hitBott
             this.topHit = hitTop;
         }
 
+        private void set(boolean hitHorizontal, boolean hitBottom, boolean hitTop) {
+            this.horizontalHit = hitHorizontal;
+            this.bottomHit = hitBottom;
+            this.topHit = hitTop;
+        }
+
         public Vector3f getFinalPosition() {
             return finalPosition;
         }
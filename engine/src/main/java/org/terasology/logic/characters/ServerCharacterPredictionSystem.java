@@ -16,10 +16,13 @@
 
 package org.terasology.logic.characters;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.engine.Time;
+import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
@@ -43,8 +46,17 @@
 import org.terasology.utilities.collection.CircularBuffer;
 import org.terasology.world.WorldProvider;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Steps the characters on the authority, following the input of their clients.
+ * <br><br>
+ * With batched character movement enabled, input is queued instead of being stepped as it arrives, and all queued
+ * input is stepped in one pass during the update. Characters are then stepped in parallel if there are enough of them,
+ * each thread using its own {@link KinematicCharacterMover}. Events sent while stepping in parallel are delivered once
+ * all characters are done.
+ */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(PredictionSystem.class)
 public class ServerCharacterPredictionSystem extends BaseComponentSystem implements UpdateSubscriberSystem, PredictionSystem {
@@ -57,6 +69,7 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
 
     private static final int BUFFER_SIZE = 128;
     private static final int TIME_BETWEEN_STATE_REPLICATE = 50;
+    private static final int MIN_PARALLEL_CHARACTERS = 8;
 
     @In
     private Time time;
@@ -79,17 +92,30 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
     @In
     private RecordAndReplayCurrentStatus recordAndReplayCurrentStatus;
 
+    @In
+    private Config config;
+
+    @In
+    private EntityManager entityManager;
+
     private CharacterMover characterMover;
     private Map<EntityRef, CircularBuffer<CharacterStateEvent>> characterStates = Maps.newHashMap();
     private Map<EntityRef, CharacterMoveInputEvent> lastInputEvent = Maps.newHashMap();
     private long nextSendState;
     private CharacterMovementSystemUtility characterMovementSystemUtility;
 
+    private boolean batchedMovement;
+    private Map<EntityRef, PendingMovement> pendingMovements = Maps.newHashMap();
+    private List<PendingMovement> movementBatch = Lists.newArrayList();
+    private ThreadLocal<KinematicCharacterMover> batchMovers;
+
     @Override
     public void initialise() {
         characterMover = new KinematicCharacterMover(worldProvider, physics);
         nextSendState = time.getGameTimeInMs() + TIME_BETWEEN_STATE_REPLICATE;
         characterMovementSystemUtility = new CharacterMovementSystemUtility(physics);
+        batchedMovement = config.getSystem().isBatchedCharacterMovementEnabled();
+        batchMovers = ThreadLocal.withInitial(() -> new KinematicCharacterMover(worldProvider, physics));
     }
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
@@ -98,6 +124,7 @@ public void onCreate(final OnActivatedComponent event, final EntityRef entity) {
         CircularBuffer<CharacterStateEvent> stateBuffer = CircularBuffer.create(BUFFER_SIZE);
         stateBuffer.add(createInitialState(entity));
         characterStates.put(entity, stateBuffer);
+        pendingMovements.put(entity, new PendingMovement(entity, stateBuffer));
     }
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
@@ -105,10 +132,15 @@ public void onDestroy(final BeforeDeactivateComponent event, final EntityRef ent
         physics.removeCharacterCollider(entity);
         characterStates.remove(entity);
         lastInputEvent.remove(entity);
+        PendingMovement pendingMovement = pendingMovements.remove(entity);
+        if (pendingMovement != null && !pendingMovement.inputs.isEmpty()) {
+            movementBatch.remove(pendingMovement);
+        }
     }
 
     @ReceiveEvent(components = {AliveCharacterComponent.class})
     public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef character, CharacterMovementComponent movementComponent) {
+        stepPendingInputs(character);
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(character);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -124,11 +156,43 @@ public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef charact
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
     public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
+        if (isCollisionPending(entity)) {
+            return;
+        }
+        // Replays update each state as soon as it has been stepped, so they need the input to be stepped right away
+        PendingMovement pendingMovement = pendingMovements.get(entity);
+        if (batchedMovement && pendingMovement != null && recordAndReplayCurrentStatus.getStatus() == RecordAndReplayStatus.NOT_ACTIVATED) {
+            if (pendingMovement.inputs.isEmpty()) {
+                movementBatch.add(pendingMovement);
+            }
+            pendingMovement.inputs.add(input);
+        } else {
+            stepInput(input, entity);
+        }
+    }
+
+    /**
+     * Repeats input for a character that hasn't sent any in a while. Queued input is stepped first, so that the
+     * repeated input follows the last state of the character.
+     */
+    private void repeatInput(CharacterMoveInputEvent input, EntityRef entity) {
+        if (isCollisionPending(entity)) {
+            return;
+        }
+        stepPendingInputs(entity);
+        stepInput(input, entity);
+    }
+
+    private boolean isCollisionPending(EntityRef entity) {
         CharacterCollider characterCollider = physics.getCharacterCollider(entity);
         if (characterCollider.isPending()) {
             logger.debug("Skipping input, collision not yet established");
-            return;
+            return true;
         }
+        return false;
+    }
+
+    private void stepInput(CharacterMoveInputEvent input, EntityRef entity) {
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         float delta = input.getDeltaMs() + lastState.getTime() - (time.getGameTimeInMs() + MAX_INPUT_OVERFLOW );
@@ -154,6 +218,7 @@ public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
     public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
+        stepPendingInputs(entity);
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -168,6 +233,7 @@ public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
     public void onImpulse(CharacterImpulseEvent event, EntityRef entity) {
         Vector3f impulse = event.getDirection();
 
+        stepPendingInputs(entity);
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
@@ -187,8 +253,53 @@ private CharacterStateEvent stepState(CharacterMoveInputEvent input, CharacterSt
         return characterMover.step(lastState, input, entity);
     }
 
+    /**
+     * Steps the queued input of the given character, so that changes to its state are applied in order.
+     */
+    private void stepPendingInputs(EntityRef entity) {
+        PendingMovement pendingMovement = pendingMovements.get(entity);
+        if (pendingMovement != null && !pendingMovement.inputs.isEmpty()) {
+            movementBatch.remove(pendingMovement);
+            pendingMovement.resolveModifiers();
+            pendingMovement.step(time.getGameTimeInMs());
+            applyPendingMovement(pendingMovement);
+        }
+    }
+
+    private void stepMovementBatch() {
+        if (movementBatch.isEmpty()) {
+            return;
+        }
+        long gameTime = time.getGameTimeInMs();
+        for (PendingMovement pendingMovement : movementBatch) {
+            pendingMovement.resolveModifiers();
+        }
+        if (movementBatch.size() >= MIN_PARALLEL_CHARACTERS) {
+            movementBatch.parallelStream().forEach(pendingMovement -> pendingMovement.step(gameTime));
+        } else {
+            movementBatch.forEach(pendingMovement -> pendingMovement.step(gameTime));
+        }
+        for (PendingMovement pendingMovement : movementBatch) {
+            applyPendingMovement(pendingMovement);
+        }
+        movementBatch.clear();
+        entityManager.getEventSystem().process();
+    }
+
+    private void applyPendingMovement(PendingMovement pendingMovement) {
+        if (pendingMovement.lastInput != null) {
+            characterMovementSystemUtility.setToState(pendingMovement.entity, pendingMovement.states.getLast());
+            lastInputEvent.put(pendingMovement.entity, pendingMovement.lastInput);
+        }
+        if (pendingMovement.droppedInputs > 0) {
+            logger.warn("Received too much input from {}, dropped {} inputs", pendingMovement.entity, pendingMovement.droppedInputs);
+        }
+        pendingMovement.clear();
+    }
+
     @Override
     public void update(float delta) {
+        stepMovementBatch();
         if (nextSendState < time.getGameTimeInMs()) {
             long lastSendTime = nextSendState - TIME_BETWEEN_STATE_REPLICATE;
             for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
@@ -201,7 +312,7 @@ public void update(float delta) {
                         CharacterMoveInputEvent lastInput = lastInputEvent.get(entry.getKey());
                         if (lastInput != null) {
                             CharacterMoveInputEvent newInput = new CharacterMoveInputEvent(lastInput, (int) (time.getGameTimeInMs() - state.getTime()));
-                            onPlayerInput(newInput, entry.getKey());
+                            repeatInput(newInput, entry.getKey());
                         }
                         entry.getKey().send(state);
                     }
@@ -257,4 +368,52 @@ public void restoreToPresent() {
             setToTime(renderTime, entry.getKey(), entry.getValue());
         }
     }
+
+    /**
+     * The input of one character queued for the next batch. Only the character's own state is touched while stepping,
+     * so that the characters of a batch can be stepped in parallel.
+     */
+    private final class PendingMovement {
+        private final EntityRef entity;
+        private final CircularBuffer<CharacterStateEvent> states;
+        private final List<CharacterMoveInputEvent> inputs = Lists.newArrayList();
+        private final CharacterMovementModifiers modifiers = new CharacterMovementModifiers();
+        private CharacterMoveInputEvent lastInput;
+        private int droppedInputs;
+
+        private PendingMovement(EntityRef entity, CircularBuffer<CharacterStateEvent> states) {
+            this.entity = entity;
+            this.states = states;
+        }
+
+        private void resolveModifiers() {
+            modifiers.resolve(entity, entity.getComponent(CharacterMovementComponent.class));
+        }
+
+        private void step(long gameTime) {
+            KinematicCharacterMover mover = batchMovers.get();
+            CharacterMovementComponent movementComp = entity.getComponent(CharacterMovementComponent.class);
+            for (CharacterMoveInputEvent input : inputs) {
+                CharacterStateEvent lastState = states.getLast();
+                float delta = input.getDeltaMs() + lastState.getTime() - (gameTime + MAX_INPUT_OVERFLOW);
+                if (delta < 0) {
+                    // States in the history may already have been sent or recorded, so they are never reused
+                    CharacterStateEvent newState = new CharacterStateEvent();
+                    mover.step(lastState, input, entity, newState, modifiers);
+                    states.add(newState);
+                    // The mover reads these from the component for the next input
+                    CharacterMovementSystemUtility.setMovementToState(movementComp, newState);
+                    lastInput = input;
+                } else {
+                    droppedInputs++;
+                }
+            }
+        }
+
+        private void clear() {
+            inputs.clear();
+            lastInput = null;
+            droppedInputs = 0;
+        }
+    }
 }
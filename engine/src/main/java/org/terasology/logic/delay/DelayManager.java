@@ -33,6 +33,7 @@
  * For periodic action, the period starts counting from the invocation of the last PeriodicActionTriggeredEvent, so if
  * there is a delay on the system, there will be larger gaps between invocations.
  *
+ * Adding and cancelling actions takes constant time, regardless of how many actions are pending in the world.
  */
 public interface DelayManager {
     /**
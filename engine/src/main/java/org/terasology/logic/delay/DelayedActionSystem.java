@@ -15,9 +15,9 @@
  */
 package org.terasology.logic.delay;
 
-import com.google.common.collect.Ordering;
-import com.google.common.collect.SortedSetMultimap;
-import com.google.common.collect.TreeMultimap;
+import com.google.common.collect.Lists;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.Time;
@@ -31,14 +31,18 @@
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
+import org.terasology.utilities.collection.TimingWheel;
 
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Provides support for scheduling events that will trigger at some point in the future.
+ * <br><br>
+ * Each entity with pending actions has one timer per component, set to the earliest wake up of its actions, in a
+ * {@link TimingWheel} that counts game time in milliseconds. This keeps adding, cancelling and firing actions
+ * independent of the number of pending actions in the world. The wake up times themselves are only stored in the
+ * components, so they get saved and restored along with the entity.
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(value = DelayManager.class)
@@ -48,8 +52,10 @@ public class DelayedActionSystem extends BaseComponentSystem implements UpdateSu
     @In
     private Time time;
 
-    private SortedSetMultimap<Long, EntityRef> delayedOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
-    private SortedSetMultimap<Long, EntityRef> periodicOperationsSortedByTime = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
+    private final TimingWheel<EntityRef> delayedOperations = new TimingWheel<>(0);
+    private final TimingWheel<EntityRef> periodicOperations = new TimingWheel<>(0);
+    private final TLongObjectMap<TimingWheel.Timer<EntityRef>> delayedTimers = new TLongObjectHashMap<>();
+    private final TLongObjectMap<TimingWheel.Timer<EntityRef>> periodicTimers = new TLongObjectHashMap<>();
 
     // ONLY use this for testing. DO NOT use this during regular usage.
     void setTime(Time t) {
@@ -64,19 +70,16 @@ public void update(float delta) {
     }
 
     private void invokeDelayedOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = delayedOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
-            }
-            operationsToInvoke.addAll(delayedOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
+        List<EntityRef> operationsToInvoke = Lists.newArrayList();
+        delayedOperations.advance(currentWorldTime, operationsToInvoke);
+        for (EntityRef delayedEntity : operationsToInvoke) {
+            delayedTimers.remove(delayedEntity.getId());
         }
 
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(delayedEntity -> {
+        for (EntityRef delayedEntity : operationsToInvoke) {
+            if (!delayedEntity.exists()) {
+                continue;
+            }
             final DelayedActionComponent delayedActions = delayedEntity.getComponent(DelayedActionComponent.class);
 
             // If there is a DelayedActionComponent, proceed. Else report an error to the log.
@@ -85,7 +88,7 @@ private void invokeDelayedOperations(long currentWorldTime) {
                 saveOrRemoveComponent(delayedEntity, delayedActions);
 
                 if (!delayedActions.isEmpty()) {
-                    delayedOperationsSortedByTime.put(delayedActions.getLowestWakeUp(), delayedEntity);
+                    schedule(delayedOperations, delayedTimers, delayedEntity, delayedActions.getLowestWakeUp());
                 }
 
                 for (String actionId : actionIds) {
@@ -96,23 +99,20 @@ private void invokeDelayedOperations(long currentWorldTime) {
                         "So skipping delayed actions for this entity",
                         delayedEntity);
             }
-        });
+        }
     }
 
     private void invokePeriodicOperations(long currentWorldTime) {
-        List<EntityRef> operationsToInvoke = new LinkedList<>();
-        Iterator<Long> scheduledOperationsIterator = periodicOperationsSortedByTime.keySet().iterator();
-        long processedTime;
-        while (scheduledOperationsIterator.hasNext()) {
-            processedTime = scheduledOperationsIterator.next();
-            if (processedTime > currentWorldTime) {
-                break;
-            }
-            operationsToInvoke.addAll(periodicOperationsSortedByTime.get(processedTime));
-            scheduledOperationsIterator.remove();
+        List<EntityRef> operationsToInvoke = Lists.newArrayList();
+        periodicOperations.advance(currentWorldTime, operationsToInvoke);
+        for (EntityRef periodicEntity : operationsToInvoke) {
+            periodicTimers.remove(periodicEntity.getId());
         }
 
-        operationsToInvoke.stream().filter(EntityRef::exists).forEach(periodicEntity -> {
+        for (EntityRef periodicEntity : operationsToInvoke) {
+            if (!periodicEntity.exists()) {
+                continue;
+            }
             final PeriodicActionComponent periodicActionComponent = periodicEntity.getComponent(PeriodicActionComponent.class);
 
             // If there is a PeriodicActionComponent, proceed. Else report an error to the log.
@@ -121,7 +121,7 @@ private void invokePeriodicOperations(long currentWorldTime) {
                 saveOrRemoveComponent(periodicEntity, periodicActionComponent);
 
                 if (!periodicActionComponent.isEmpty()) {
-                    periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), periodicEntity);
+                    schedule(periodicOperations, periodicTimers, periodicEntity, periodicActionComponent.getLowestWakeUp());
                 }
 
                 for (String actionId : actionIds) {
@@ -131,27 +131,47 @@ private void invokePeriodicOperations(long currentWorldTime) {
                 logger.error("ERROR: This entity is missing a DelayedActionComponent. " +
                         "So skipping delayed actions for this entity", periodicEntity);
             }
-        });
+        }
+    }
+
+    /**
+     * Sets the timer of the entity to the given wake up, or removes it if there is nothing left to wake up for.
+     */
+    private static void schedule(TimingWheel<EntityRef> operations, TLongObjectMap<TimingWheel.Timer<EntityRef>> timers,
+                                 EntityRef entity, long wakeUp) {
+        TimingWheel.Timer<EntityRef> timer = timers.get(entity.getId());
+        if (wakeUp == Long.MAX_VALUE) {
+            if (timer != null) {
+                operations.cancel(timer);
+                timers.remove(entity.getId());
+            }
+        } else if (timer != null) {
+            if (timer.getDeadline() != wakeUp) {
+                operations.reschedule(timer, wakeUp);
+            }
+        } else {
+            timers.put(entity.getId(), operations.schedule(entity, wakeUp));
+        }
     }
 
     @ReceiveEvent
     public void delayedComponentActivated(OnActivatedComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.put(delayedActionComponent.getLowestWakeUp(), entity);
+        schedule(delayedOperations, delayedTimers, entity, delayedActionComponent.getLowestWakeUp());
     }
 
     @ReceiveEvent
     public void periodicComponentActivated(OnActivatedComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        periodicOperationsSortedByTime.put(periodicActionComponent.getLowestWakeUp(), entity);
+        schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
     }
 
     @ReceiveEvent
     public void delayedComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, DelayedActionComponent delayedActionComponent) {
-        delayedOperationsSortedByTime.remove(delayedActionComponent.getLowestWakeUp(), entity);
+        schedule(delayedOperations, delayedTimers, entity, Long.MAX_VALUE);
     }
 
     @ReceiveEvent
     public void periodicComponentDeactivated(BeforeDeactivateComponent event, EntityRef entity, PeriodicActionComponent periodicActionComponent) {
-        delayedOperationsSortedByTime.remove(periodicActionComponent.getLowestWakeUp(), entity);
+        schedule(periodicOperations, periodicTimers, entity, Long.MAX_VALUE);
     }
 
     @Override
@@ -160,18 +180,9 @@ public void addDelayedAction(EntityRef entity, String actionId, long delay) {
 
         DelayedActionComponent delayedActionComponent = entity.getComponent(DelayedActionComponent.class);
         if (delayedActionComponent != null) {
-            final long oldWakeUp = delayedActionComponent.getLowestWakeUp();
             delayedActionComponent.addActionId(actionId, scheduleTime);
             entity.saveComponent(delayedActionComponent);
-            final long newWakeUp = delayedActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-                delayedOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                delayedOperationsSortedByTime.put(scheduleTime, entity);
-            }
+            schedule(delayedOperations, delayedTimers, entity, delayedActionComponent.getLowestWakeUp());
         } else {
             delayedActionComponent = new DelayedActionComponent();
             delayedActionComponent.addActionId(actionId, scheduleTime);
@@ -185,18 +196,9 @@ public void addPeriodicAction(EntityRef entity, String actionId, long initialDel
 
         PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
         if (periodicActionComponent != null) {
-            final long oldWakeUp = periodicActionComponent.getLowestWakeUp();
             periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
             entity.saveComponent(periodicActionComponent);
-            final long newWakeUp = periodicActionComponent.getLowestWakeUp();
-            if (oldWakeUp < newWakeUp) {
-                periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-                periodicOperationsSortedByTime.put(newWakeUp, entity);
-            } else {
-                // Even if the oldWakeUp time is greater than or equal to the new one, the next action should still be added
-                // to the delayedOperationsSortedByTime mapping.
-                periodicOperationsSortedByTime.put(scheduleTime, entity);
-            }
+            schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
         } else {
             periodicActionComponent = new PeriodicActionComponent();
             periodicActionComponent.addScheduledActionId(actionId, scheduleTime, period);
@@ -207,30 +209,16 @@ public void addPeriodicAction(EntityRef entity, String actionId, long initialDel
     @Override
     public void cancelDelayedAction(EntityRef entity, String actionId) {
         DelayedActionComponent delayedComponent = entity.getComponent(DelayedActionComponent.class);
-        long oldWakeUp = delayedComponent.getLowestWakeUp();
         delayedComponent.removeActionId(actionId);
-        long newWakeUp = delayedComponent.getLowestWakeUp();
-        if (!delayedComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-            delayedOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (delayedComponent.isEmpty()) {
-            delayedOperationsSortedByTime.remove(oldWakeUp, entity);
-        }
+        schedule(delayedOperations, delayedTimers, entity, delayedComponent.getLowestWakeUp());
         saveOrRemoveComponent(entity, delayedComponent);
     }
 
     @Override
     public void cancelPeriodicAction(EntityRef entity, String actionId) {
         PeriodicActionComponent periodicActionComponent = entity.getComponent(PeriodicActionComponent.class);
-        long oldWakeUp = periodicActionComponent.getLowestWakeUp();
         periodicActionComponent.removeScheduledActionId(actionId);
-        long newWakeUp = periodicActionComponent.getLowestWakeUp();
-        if (!periodicActionComponent.isEmpty() && oldWakeUp < newWakeUp) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-            periodicOperationsSortedByTime.put(newWakeUp, entity);
-        } else if (periodicActionComponent.isEmpty()) {
-            periodicOperationsSortedByTime.remove(oldWakeUp, entity);
-        }
+        schedule(periodicOperations, periodicTimers, entity, periodicActionComponent.getLowestWakeUp());
         saveOrRemoveComponent(entity, periodicActionComponent);
     }
 
@@ -16,10 +16,13 @@
 package org.terasology.monitoring;
 
 import gnu.trove.map.TObjectDoubleMap;
+import org.terasology.monitoring.impl.ActivityHistograms;
 import org.terasology.monitoring.impl.NullPerformanceMonitor;
 import org.terasology.monitoring.impl.PerformanceMonitorImpl;
 import org.terasology.monitoring.impl.PerformanceMonitorInternal;
 
+import java.util.Collection;
+
 /**
  * Maintains a running average of execution times and memory allocated by different activities.
  * Activities call to denote when they start and stop.
@@ -27,8 +30,8 @@
  * Activities may be nested, and while a nested activity is running the collection of data from outer activities
  * is paused: time passing and allocated memory are not assigned to them.
  * <br><br>
- * Performance monitor is intended only for use by the main thread of Terasology, and does not handle
- * activities being started and ended on other threads at this time.
+ * Running means and spikes are only collected for activities of the main thread of Terasology. Activities started
+ * and ended on other threads only go into the execution time and allocation histograms, which are kept per thread.
  */
 public final class PerformanceMonitor {
     private static PerformanceMonitorInternal instance;
@@ -140,6 +143,18 @@ public static TObjectDoubleMap<String> getAllocationMean() {
         return instance.getAllocationMean();
     }
 
+    /**
+     * Returns the execution time and allocation histograms of all activities, one per activity and thread that ran it.
+     * The histograms of threads that have terminated are merged into one per activity.
+     * <br><br>
+     * Unlike the other metrics these are safe to read from any thread, e.g. to export them periodically.
+     *
+     * @return the histograms recorded since the Performance Monitoring system was enabled.
+     */
+    public static Collection<ActivityHistograms> getHistograms() {
+        return instance.getHistograms();
+    }
+
     /**
      * Enables or disables the Performance Monitoring system.
      * <br><br>
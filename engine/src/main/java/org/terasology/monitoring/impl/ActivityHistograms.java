@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring.impl;
+
+/**
+ * Execution time and allocation histograms of one activity, as run by one thread.
+ */
+public final class ActivityHistograms {
+    private final String activityName;
+    private final String threadName;
+    private final Histogram executionNanos = new Histogram();
+    private final Histogram allocatedBytes = new Histogram();
+
+    public ActivityHistograms(String activityName, String threadName) {
+        this.activityName = activityName;
+        this.threadName = threadName;
+    }
+
+    public String getActivityName() {
+        return activityName;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return the wall clock time of each run of the activity, including nested activities, in nanoseconds
+     */
+    public Histogram getExecutionNanos() {
+        return executionNanos;
+    }
+
+    /**
+     * @return the memory allocated by each run of the activity, including nested activities, in bytes
+     */
+    public Histogram getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
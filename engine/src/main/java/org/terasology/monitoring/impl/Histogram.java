@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative long values with log-linear buckets, which keeps the relative error of reported
+ * percentiles below about 3% over the whole range of long values.
+ * <br><br>
+ * Recording doesn't take any lock, so any number of threads may record into the same histogram. Values recorded while
+ * the histogram is being drained end up either in the drained snapshot or in the next one.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(indexOf(clamped));
+        sum.addAndGet(clamped);
+        long currentMax = max.get();
+        while (clamped > currentMax && !max.compareAndSet(currentMax, clamped)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records all values of the given snapshot, e.g. to merge the histogram of another thread into this one.
+     */
+    public void add(Snapshot snapshot) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (snapshot.counts[i] != 0) {
+                counts.addAndGet(i, snapshot.counts[i]);
+            }
+        }
+        sum.addAndGet(snapshot.sum);
+        long currentMax = max.get();
+        while (snapshot.max > currentMax && !max.compareAndSet(currentMax, snapshot.max)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * @return the values recorded so far, without resetting the histogram
+     */
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+        }
+        return new Snapshot(bucketCounts, sum.get(), max.get());
+    }
+
+    /**
+     * @return the values recorded since the last drain, resetting the histogram
+     */
+    public Snapshot drain() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) != 0) {
+                bucketCounts[i] = counts.getAndSet(i, 0);
+            }
+        }
+        return new Snapshot(bucketCounts, sum.getAndSet(0), max.getAndSet(0));
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the largest value that falls into the bucket with the given index
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * The values a histogram held at some point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return totalCount;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return an upper bound of the given percentile of the recorded values, or 0 if there are none
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -19,6 +19,9 @@
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import org.terasology.monitoring.Activity;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  */
 public class NullPerformanceMonitor implements PerformanceMonitorInternal {
@@ -53,4 +56,9 @@ public TObjectDoubleMap<String> getAllocationMean() {
         return metrics;
     }
 
+    @Override
+    public Collection<ActivityHistograms> getHistograms() {
+        return Collections.emptyList();
+    }
+
 }
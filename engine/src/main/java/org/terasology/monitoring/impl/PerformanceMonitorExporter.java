@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.monitoring.PerformanceMonitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically drains the {@link PerformanceMonitor} histograms and publishes them in the Prometheus text format,
+ * both as a file and, if a port is given, on a http endpoint bound to the loopback interface.
+ * <br><br>
+ * Percentiles and maxima cover the last interval only, so that tail latencies don't get buried under the whole
+ * history of the server. Counts and sums are cumulative, as Prometheus expects them to be.
+ */
+public class PerformanceMonitorExporter {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceMonitorExporter.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Path snapshotFile;
+    private final int port;
+    private final int intervalSeconds;
+
+    private final Map<ActivityHistograms, long[]> executionTotals = Maps.newHashMap();
+    private final Map<ActivityHistograms, long[]> allocationTotals = Maps.newHashMap();
+    private volatile String lastSnapshot = "";
+
+    private ScheduledExecutorService scheduler;
+    private HttpServer server;
+
+    /**
+     * @param snapshotFile    the file to write each snapshot to
+     * @param port            the port to serve the latest snapshot on, or 0 not to serve it
+     * @param intervalSeconds the time between two snapshots
+     */
+    public PerformanceMonitorExporter(Path snapshotFile, int port, int intervalSeconds) {
+        this.snapshotFile = snapshotFile;
+        this.port = port;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Performance-Exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::export, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+
+        if (port > 0) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                server.createContext("/metrics", this::serveSnapshot);
+                server.start();
+                logger.info("Serving performance metrics on http://localhost:{}/metrics", port);
+            } catch (IOException e) {
+                logger.error("Failed to serve performance metrics on port {}", port, e);
+                server = null;
+            }
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void export() {
+        try {
+            lastSnapshot = takeSnapshot();
+            Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.write(tempFile, lastSnapshot.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to write performance metrics to {}", snapshotFile, e);
+        } catch (RuntimeException e) {
+            // An exception would silently cancel all further exports
+            logger.error("Failed to export performance metrics", e);
+        }
+    }
+
+    private String takeSnapshot() {
+        StringBuilder execution = new StringBuilder();
+        StringBuilder allocation = new StringBuilder();
+        Collection<ActivityHistograms> allHistograms = PerformanceMonitor.getHistograms();
+        for (ActivityHistograms histograms : allHistograms) {
+            String labels = "activity=\"" + escape(histograms.getActivityName()) + "\",thread=\"" + escape(histograms.getThreadName()) + "\"";
+            appendSummary(execution, "terasology_activity_seconds", labels, histograms.getExecutionNanos().drain(),
+                    executionTotals.computeIfAbsent(histograms, key -> new long[2]), 1e-9);
+            appendSummary(allocation, "terasology_activity_allocated_bytes", labels, histograms.getAllocatedBytes().drain(),
+                    allocationTotals.computeIfAbsent(histograms, key -> new long[2]), 1);
+        }
+        // Histograms are dropped when the monitor gets disabled
+        Set<ActivityHistograms> current = Sets.newHashSet(allHistograms);
+        executionTotals.keySet().retainAll(current);
+        allocationTotals.keySet().retainAll(current);
+
+        StringBuilder result = new StringBuilder();
+        result.append("# HELP terasology_activity_seconds Execution time of monitored activities, including nested activities.\n");
+        result.append("# TYPE terasology_activity_seconds summary\n");
+        result.append(execution);
+        result.append("# HELP terasology_activity_allocated_bytes Memory allocated by monitored activities, including nested activities.\n");
+        result.append("# TYPE terasology_activity_allocated_bytes summary\n");
+        result.append(allocation);
+        return result.toString();
+    }
+
+    private static void appendSummary(StringBuilder out, String name, String labels, Histogram.Snapshot snapshot, long[] totals, double scale) {
+        totals[0] += snapshot.getCount();
+        totals[1] += snapshot.getSum();
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(snapshot.getValueAtPercentile(quantile * 100) * scale).append('\n');
+        }
+        out.append(name).append('{').append(labels).append(",quantile=\"1.0\"} ").append(snapshot.getMax() * scale).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(totals[1] * scale).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(totals[0]).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private void serveSnapshot(HttpExchange exchange) throws IOException {
+        byte[] body = lastSnapshot.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.terasology.monitoring.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.TObjectLongMap;
@@ -28,26 +29,38 @@
 import org.terasology.monitoring.Activity;
 import org.terasology.registry.CoreRegistry;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Active implementation of Performance Monitor
+ * <br><br>
+ * Running means and spikes are only kept for the main thread. Execution time and allocation histograms are kept for
+ * activities of every thread, each thread recording into its own histograms. Once a thread has terminated, its
+ * histograms are merged into one per activity, so that short-lived pool threads don't pile up histograms.
  */
 // TODO: Check to ensure activities are being started and stopped correctly
 // TODO: Remove activities with 0 time
 public class PerformanceMonitorImpl implements PerformanceMonitorInternal {
     private static final int RETAINED_CYCLES = 60;
     private static final double DECAY_RATE = 0.98;
-    private static final Activity OFF_THREAD_ACTIVITY = new NullActivity();
-    // NullActivity instances are used by the NullPerformanceMonitor and for processes NOT running
-    // on the main thread. Not strictly necessary (these processes are ignored by the PerformanceMonitor
-    // anyway) an instance of this class offers a slight performance improvement over standard Activity
-    // implementations as it doesn't call the PerformanceMonitor.endActivity() method.
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+    private static final String TERMINATED_THREADS = "terminated";
 
     private final Activity activityInstance = new ActivityInstance();
 
     private final Deque<ActivityInfo> activityStack;
+    private final ThreadLocal<ThreadState> threadStates = ThreadLocal.withInitial(this::registerThread);
+    private final Queue<ThreadState> liveThreads = new ConcurrentLinkedQueue<>();
+    private final Map<String, ActivityHistograms> terminatedThreadHistograms = Maps.newConcurrentMap();
 
     private final List<TObjectLongMap<String>> executionData;
     private final List<TObjectLongMap<String>> allocationData;
@@ -119,7 +132,9 @@ public void rollCycle() {
     @Override
     public Activity startActivity(String activityName) {
         if (Thread.currentThread() != mainThread) {
-            return OFF_THREAD_ACTIVITY;
+            ThreadState state = threadStates.get();
+            state.pushActivity(state.getHistograms(activityName));
+            return activityInstance;
         }
 
         ActivityInfo newActivity = new ActivityInfo(activityName).initialize();
@@ -136,11 +151,19 @@ public Activity startActivity(String activityName) {
 
     @Override
     public void endActivity() {
-        if (Thread.currentThread() != mainThread || activityStack.isEmpty()) {
+        if (Thread.currentThread() != mainThread) {
+            OffThreadActivityInfo oldActivity = threadStates.get().popActivity();
+            if (oldActivity != null) {
+                recordHistograms(oldActivity.histograms, oldActivity.startNanos, oldActivity.startAllocatedBytes);
+            }
+            return;
+        }
+        if (activityStack.isEmpty()) {
             return;
         }
 
         ActivityInfo oldActivity = activityStack.pop();
+        recordHistograms(oldActivity.histograms, oldActivity.startNanos, oldActivity.startAllocatedBytes);
 
         long endTime = timer.getRealTimeInMs();
         long totalTime = (oldActivity.resumeTime > 0) ? oldActivity.ownTime + endTime - oldActivity.resumeTime : endTime - oldActivity.startTime;
@@ -184,6 +207,68 @@ public TObjectDoubleMap<String> getAllocationMean() {
         return activityToMeanMap;
     }
 
+    @Override
+    public Collection<ActivityHistograms> getHistograms() {
+        retireTerminatedThreads();
+        List<ActivityHistograms> result = Lists.newArrayList(terminatedThreadHistograms.values());
+        for (ThreadState state : liveThreads) {
+            result.addAll(state.histogramsByActivity.values());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private ThreadState registerThread() {
+        // New threads usually replace terminated ones, e.g. in thread pools
+        retireTerminatedThreads();
+        ThreadState state = new ThreadState(Thread.currentThread());
+        liveThreads.add(state);
+        return state;
+    }
+
+    /**
+     * Merges the histograms of terminated threads into the per activity histograms of all terminated threads, and
+     * forgets the threads.
+     */
+    private void retireTerminatedThreads() {
+        for (ThreadState state : liveThreads) {
+            // Only one caller succeeds in removing a thread, so each is merged once
+            if (!state.thread.isAlive() && liveThreads.remove(state)) {
+                for (ActivityHistograms histograms : state.histogramsByActivity.values()) {
+                    ActivityHistograms merged = terminatedThreadHistograms.computeIfAbsent(histograms.getActivityName(),
+                            name -> new ActivityHistograms(name, TERMINATED_THREADS));
+                    merged.getExecutionNanos().add(histograms.getExecutionNanos().drain());
+                    merged.getAllocatedBytes().add(histograms.getAllocatedBytes().drain());
+                }
+            }
+        }
+    }
+
+    private static void recordHistograms(ActivityHistograms activityHistograms, long startNanos, long startAllocatedBytes) {
+        activityHistograms.getExecutionNanos().record(System.nanoTime() - startNanos);
+        if (startAllocatedBytes >= 0) {
+            activityHistograms.getAllocatedBytes().record(getAllocatedBytesOfCurrentThread() - startAllocatedBytes);
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or -1 if the JVM doesn't track them
+     */
+    private static long getAllocatedBytesOfCurrentThread() {
+        if (ALLOCATION_BEAN == null || !ALLOCATION_BEAN.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            return (com.sun.management.ThreadMXBean) threadBean;
+        }
+        return null;
+    }
+
     private class ActivityInfo {
         public String name;
         public long startTime;
@@ -191,6 +276,9 @@ private class ActivityInfo {
         public long ownTime;
         public long startMem;
         public long ownMem;
+        public ActivityHistograms histograms;
+        public long startNanos;
+        public long startAllocatedBytes;
 
          ActivityInfo(String activityName) {
             this.name = activityName;
@@ -199,10 +287,75 @@ private class ActivityInfo {
         public ActivityInfo initialize() {
             this.startTime = timer.getRealTimeInMs();
             this.startMem = Runtime.getRuntime().freeMemory();
+            this.histograms = threadStates.get().getHistograms(name);
+            this.startAllocatedBytes = getAllocatedBytesOfCurrentThread();
+            this.startNanos = System.nanoTime();
             return this;
         }
     }
 
+    /**
+     * The histograms and running activities of one thread. The histograms are only added to by the thread itself, but
+     * read by whoever asks for all histograms.
+     */
+    private static final class ThreadState {
+        private final Thread thread;
+        private final Map<String, ActivityHistograms> histogramsByActivity = Maps.newConcurrentMap();
+        private OffThreadActivityInfo[] activityStack = new OffThreadActivityInfo[4];
+        private int activityDepth;
+
+        private ThreadState(Thread thread) {
+            this.thread = thread;
+        }
+
+        private ActivityHistograms getHistograms(String activityName) {
+            ActivityHistograms result = histogramsByActivity.get(activityName);
+            if (result == null) {
+                result = new ActivityHistograms(activityName, thread.getName());
+                histogramsByActivity.put(activityName, result);
+            }
+            return result;
+        }
+
+        /**
+         * Starts an off thread activity, reusing the info objects of activities that ended before.
+         */
+        private void pushActivity(ActivityHistograms histograms) {
+            if (activityDepth == activityStack.length) {
+                activityStack = Arrays.copyOf(activityStack, activityDepth * 2);
+            }
+            OffThreadActivityInfo info = activityStack[activityDepth];
+            if (info == null) {
+                info = new OffThreadActivityInfo();
+                activityStack[activityDepth] = info;
+            }
+            activityDepth++;
+            info.start(histograms);
+        }
+
+        /**
+         * @return the info of the ended activity, only valid until the next activity starts; or null if none was running
+         */
+        private OffThreadActivityInfo popActivity() {
+            if (activityDepth == 0) {
+                return null;
+            }
+            return activityStack[--activityDepth];
+        }
+    }
+
+    private static final class OffThreadActivityInfo {
+        private ActivityHistograms histograms;
+        private long startAllocatedBytes;
+        private long startNanos;
+
+        private void start(ActivityHistograms activityHistograms) {
+            this.histograms = activityHistograms;
+            this.startAllocatedBytes = getAllocatedBytesOfCurrentThread();
+            this.startNanos = System.nanoTime();
+        }
+    }
+
     private class ActivityInstance implements Activity {
 
         @Override
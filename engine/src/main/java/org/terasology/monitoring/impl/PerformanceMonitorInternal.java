@@ -18,6 +18,8 @@
 import gnu.trove.map.TObjectDoubleMap;
 import org.terasology.monitoring.Activity;
 
+import java.util.Collection;
+
 /**
  * Base interface for performance monitor implementations.
  *
@@ -34,4 +36,6 @@ public interface PerformanceMonitorInternal {
     TObjectDoubleMap<String> getDecayingSpikes();
 
     TObjectDoubleMap<String> getAllocationMean();
+
+    Collection<ActivityHistograms> getHistograms();
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.concurrency.ShutdownTask;
+import org.terasology.utilities.concurrency.Task;
+import org.terasology.utilities.concurrency.TaskMaster;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Encodes the chunks that are streamed to clients on worker threads, once for all clients that need them.
+ * <br><br>
+ * A chunk gets encoded as soon as the first client is interested in it, and the encoding is kept until no client needs
+ * it anymore. Block and biome changes bump the version of the chunk, which discards the encoding; it is redone when a
+ * client asks for it next. Apart from the encoding itself, everything happens on the main thread.
+ * <br><br>
+ * The messages are not compressed on their own, as the whole connection is already deflated by the channel pipeline.
+ */
+class ChunkEncodingCache implements WorldChangeListener {
+    private static final int THREADS = 2;
+
+    private final Map<Vector3i, Entry> entries = Maps.newHashMap();
+    private final TaskMaster<Task> encoders = TaskMaster.createFIFOTaskMaster("Chunk-Encoder", THREADS);
+    private int hits;
+    private int misses;
+
+    /**
+     * Registers the interest of a client in the chunk, and starts encoding it if it isn't already.
+     */
+    void acquire(Vector3i pos, Chunk chunk) {
+        Entry entry = entries.get(pos);
+        if (entry == null || entry.chunk != chunk) {
+            entry = new Entry(chunk, entry != null ? entry.clients : 0);
+            entries.put(new Vector3i(pos), entry);
+        }
+        entry.clients++;
+        encodeIfNeeded(entry);
+    }
+
+    /**
+     * Removes the interest of a client, after it got sent the chunk or the chunk became irrelevant to it.
+     */
+    void release(Vector3i pos) {
+        Entry entry = entries.get(pos);
+        if (entry != null && --entry.clients <= 0) {
+            entries.remove(pos);
+        }
+    }
+
+    /**
+     * @return the encoding of the current state of the chunk, or null if it isn't ready yet
+     */
+    EntityData.ChunkStore get(Vector3i pos) {
+        Entry entry = entries.get(pos);
+        if (entry == null) {
+            return null;
+        }
+        Encoding result = entry.result;
+        if (result != null && result.version == entry.version) {
+            hits++;
+            return result.message;
+        }
+        encodeIfNeeded(entry);
+        return null;
+    }
+
+    private void encodeIfNeeded(Entry entry) {
+        Encoding result = entry.result;
+        if ((result == null || result.version != entry.version) && entry.encoding.compareAndSet(false, true)) {
+            misses++;
+            encoders.offer(new EncodeTask(entry, entry.version));
+        }
+    }
+
+    @Override
+    public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
+        invalidate(ChunkMath.calcChunkPos(pos));
+    }
+
+    @Override
+    public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
+        invalidate(ChunkMath.calcChunkPos(pos));
+    }
+
+    private void invalidate(Vector3i chunkPos) {
+        Entry entry = entries.get(chunkPos);
+        if (entry != null) {
+            entry.version++;
+        }
+    }
+
+    /**
+     * @return how many chunks were taken from the cache since it was created
+     */
+    int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return how many chunk encodings were started since the cache was created
+     */
+    int getMisses() {
+        return misses;
+    }
+
+    void shutdown() {
+        encoders.shutdown(new ShutdownTask(), false);
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final Chunk chunk;
+        private final AtomicBoolean encoding = new AtomicBoolean();
+        private int clients;
+        private volatile int version;
+        private volatile Encoding result;
+
+        private Entry(Chunk chunk, int clients) {
+            this.chunk = chunk;
+            this.clients = clients;
+        }
+    }
+
+    /**
+     * An encoded chunk together with the version of the chunk it was taken from.
+     */
+    private static final class Encoding {
+        private final EntityData.ChunkStore message;
+        private final int version;
+
+        private Encoding(EntityData.ChunkStore message, int version) {
+            this.message = message;
+            this.version = version;
+        }
+    }
+
+    private static final class EncodeTask implements Task {
+        private final Entry entry;
+        private final int version;
+
+        private EncodeTask(Entry entry, int version) {
+            this.entry = entry;
+            this.version = version;
+        }
+
+        @Override
+        public String getName() {
+            return "Encode chunk";
+        }
+
+        @Override
+        public void run() {
+            try {
+                EntityData.ChunkStore message = entry.chunk.encode().build();
+                // Changes during the encoding may or may not have made it in, so only keep it if there were none
+                if (entry.version == version) {
+                    entry.result = new Encoding(message, version);
+                }
+            } finally {
+                entry.encoding.set(false);
+            }
+        }
+
+        @Override
+        public boolean isTerminateSignal() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.Component;
+import org.terasology.protobuf.EntityData;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Shares the serialized updates of entities between the clients of a network tick.
+ * <br><br>
+ * The delta sent for an entity only depends on which components changed and on the result of the field check, which
+ * differs solely by whether the client owns the entity. So all clients that have the same changes pending for an
+ * entity, and the same relation to it, can be sent the very same message rather than serializing it once per client.
+ * The cache has to be cleared at the start of every network tick, as the entities may change in between.
+ */
+class EntityDeltaCache {
+    private final Map<Key, Optional<EntityData.PackedEntity>> deltas = Maps.newHashMap();
+    private int hits;
+    private int misses;
+
+    /**
+     * @param serializer creates the delta if no client has needed it this tick yet, may return null
+     * @return the delta, or null if there is nothing to send
+     */
+    EntityData.PackedEntity get(int netId, boolean owner, Collection<Class<? extends Component>> added,
+                                Collection<Class<? extends Component>> changed, Collection<Class<? extends Component>> removed,
+                                Supplier<EntityData.PackedEntity> serializer) {
+        Key key = new Key(netId, owner, added, changed, removed);
+        Optional<EntityData.PackedEntity> delta = deltas.get(key);
+        if (delta == null) {
+            misses++;
+            delta = Optional.ofNullable(serializer.get());
+            deltas.put(key, delta);
+        } else {
+            hits++;
+        }
+        return delta.orElse(null);
+    }
+
+    void clear() {
+        deltas.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return how many deltas were served from the cache since it was last cleared
+     */
+    int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return how many deltas had to be serialized since the cache was last cleared
+     */
+    int getMisses() {
+        return misses;
+    }
+
+    private static final class Key {
+        private final int netId;
+        private final boolean owner;
+        private final ImmutableSet<Class<? extends Component>> added;
+        private final ImmutableSet<Class<? extends Component>> changed;
+        private final ImmutableSet<Class<? extends Component>> removed;
+        private final int hash;
+
+        private Key(int netId, boolean owner, Collection<Class<? extends Component>> added,
+                    Collection<Class<? extends Component>> changed, Collection<Class<? extends Component>> removed) {
+            this.netId = netId;
+            this.owner = owner;
+            this.added = ImmutableSet.copyOf(added);
+            this.changed = ImmutableSet.copyOf(changed);
+            this.removed = ImmutableSet.copyOf(removed);
+            this.hash = Objects.hashCode(netId, owner, this.added, this.changed, this.removed);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof Key) {
+                Key other = (Key) o;
+                return netId == other.netId && owner == other.owner && added.equals(other.added)
+                        && changed.equals(other.changed) && removed.equals(other.removed);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
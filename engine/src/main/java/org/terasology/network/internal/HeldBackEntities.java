@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Keeps track of the entities whose updates a client holds back because they are outside of its relevant chunks.
+ * <br><br>
+ * An entity that leaves relevance still gets the update that moved it out, so the client sees its last state rather
+ * than the state before it left. Further updates are held back until the entity is relevant again, at which point all
+ * changes gathered in the meantime are sent together.
+ */
+class HeldBackEntities {
+    private final TIntSet heldBack = new TIntHashSet();
+
+    /**
+     * @param relevant whether the entity is currently relevant to the client
+     * @return whether the pending update of the entity may be sent now
+     */
+    boolean maySend(int netId, boolean relevant) {
+        if (relevant) {
+            heldBack.remove(netId);
+            return true;
+        }
+        return !heldBack.contains(netId);
+    }
+
+    /**
+     * Records that the update of the entity was sent, which is its last one if it is no longer relevant.
+     */
+    void updateSent(int netId, boolean relevant) {
+        if (!relevant) {
+            heldBack.add(netId);
+        }
+    }
+
+    boolean isHeldBack(int netId) {
+        return heldBack.contains(netId);
+    }
+
+    void remove(int netId) {
+        heldBack.remove(netId);
+    }
+}
@@ -25,6 +25,10 @@
 import com.google.common.collect.Sets;
 
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
@@ -44,6 +48,7 @@
 import org.terasology.logic.common.DisplayNameComponent;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
@@ -68,12 +73,15 @@
 import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
 
 import java.math.RoundingMode;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -85,6 +93,13 @@
 public class NetClient extends AbstractClient implements WorldChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(NetClient.class);
     private static final float NET_TICK_RATE = 0.05f;
+    private static final int MAX_CHUNK_CANDIDATES = 8;
+    /**
+     * Lower bound of the bytes of entity updates sent per tick, however many clients share the upstream bandwidth
+     */
+    private static final int MIN_ENTITY_BYTES_PER_TICK = 512;
+    private static final float OWNED_ENTITY_PRIORITY = 4.0f;
+    private static final int MAX_COUNTED_CHANGES = 8;
 
     private Time time;
     private NetworkSystemImpl networkSystem;
@@ -98,6 +113,7 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     // Relevance
     private Set<Vector3i> relevantChunks = Sets.newHashSet();
     private TIntSet netRelevant = new TIntHashSet();
+    private HeldBackEntities heldBackEntities = new HeldBackEntities();
 
     // Entity replication data
     private TIntSet netInitial = new TIntHashSet();
@@ -106,6 +122,8 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private SetMultimap<Integer, Class<? extends Component>> dirtyComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> addedComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> removedComponents = LinkedHashMultimap.create();
+    private TIntFloatMap updatePriority = new TIntFloatHashMap();
+    private TIntIntMap changeCounts = new TIntIntHashMap();
 
     private String preferredName = "Player";
     private long lastReceivedTime;
@@ -122,7 +140,9 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private List<NetData.EventMessage> queuedOutgoingEvents = Lists.newArrayList();
     private final List<BlockFamily> newlyRegisteredFamilies = Lists.newArrayList();
 
-    private Map<Vector3i, Chunk> readyChunks = Maps.newLinkedHashMap();
+    private Map<Vector3i, Chunk> readyChunks = Maps.newHashMap();
+    private Vector3i chunkQueueCenter = new Vector3i();
+    private PriorityQueue<Vector3i> chunkQueue = new PriorityQueue<>(Comparator.comparingInt(pos -> pos.distanceSquared(chunkQueueCenter)));
     private Set<Vector3i> invalidatedChunks = Sets.newLinkedHashSet();
 
 
@@ -217,6 +237,13 @@ public void disconnect() {
         if (worldProvider != null) {
             worldProvider.unregisterListener(this);
         }
+
+        if (!readyChunks.isEmpty()) {
+            ChunkEncodingCache encodingCache = networkSystem.getChunkEncodingCache();
+            readyChunks.keySet().forEach(encodingCache::release);
+            readyChunks.clear();
+            chunkQueue.clear();
+        }
     }
 
     @Override
@@ -254,30 +281,56 @@ private void sendNewChunks(NetData.NetMessage.Builder message) {
         if (!readyChunks.isEmpty()) {
             chunkSendCounter += chunkSendRate * NET_TICK_RATE * networkSystem.getBandwidthPerClient();
             if (chunkSendCounter > 1.0f) {
-                chunkSendCounter -= 1.0f;
                 Vector3i center = new Vector3i();
                 LocationComponent loc = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
                 if (loc != null) {
                     center.set(ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), RoundingMode.HALF_UP)));
                 }
-                Vector3i pos = null;
-                int distance = Integer.MAX_VALUE;
-                for (Vector3i chunkPos : readyChunks.keySet()) {
-                    int chunkDistance = chunkPos.distanceSquared(center);
-                    if (pos == null || chunkDistance < distance) {
-                        pos = chunkPos;
-                        distance = chunkDistance;
-                    }
+                if (!center.equals(chunkQueueCenter)) {
+                    chunkQueueCenter = center;
+                    chunkQueue = new PriorityQueue<>(chunkQueue.comparator());
+                    chunkQueue.addAll(readyChunks.keySet());
+                }
+                if (sendNearestEncodedChunk(message)) {
+                    chunkSendCounter -= 1.0f;
                 }
-                Chunk chunk = readyChunks.remove(pos);
-                relevantChunks.add(pos);
-                message.addChunkInfo(chunk.encode());
             }
         } else {
             chunkSendCounter = 1.0f;
         }
     }
 
+    /**
+     * Sends the nearest of the closest few chunks whose encoding is ready. Chunks which are still being encoded stay
+     * queued, so that one slow chunk doesn't hold back the others.
+     *
+     * @return whether a chunk was sent
+     */
+    private boolean sendNearestEncodedChunk(NetData.NetMessage.Builder message) {
+        ChunkEncodingCache encodingCache = networkSystem.getChunkEncodingCache();
+        List<Vector3i> notReady = Lists.newArrayListWithCapacity(MAX_CHUNK_CANDIDATES);
+        boolean sent = false;
+        while (!sent && notReady.size() < MAX_CHUNK_CANDIDATES && !chunkQueue.isEmpty()) {
+            Vector3i pos = chunkQueue.poll();
+            if (!readyChunks.containsKey(pos)) {
+                // Already sent or no longer relevant
+                continue;
+            }
+            EntityData.ChunkStore encoded = encodingCache.get(pos);
+            if (encoded != null) {
+                readyChunks.remove(pos);
+                encodingCache.release(pos);
+                relevantChunks.add(pos);
+                message.addChunkInfo(encoded);
+                sent = true;
+            } else {
+                notReady.add(pos);
+            }
+        }
+        chunkQueue.addAll(notReady);
+        return sent;
+    }
+
     private void sendChunkInvalidations(NetData.NetMessage.Builder message) {
         Iterator<Vector3i> i = invalidatedChunks.iterator();
         while (i.hasNext()) {
@@ -297,11 +350,18 @@ public void setNetRemoved(int netId) {
         if (!netInitial.remove(netId)) {
             netRemoved.add(netId);
         }
-        dirtyComponents.keySet().remove(netId);
-        addedComponents.keySet().remove(netId);
-        removedComponents.keySet().remove(netId);
-        netDirty.remove(netId);
+        clearDirtyState(netId);
         netRelevant.remove(netId);
+        heldBackEntities.remove(netId);
+    }
+
+    private void clearDirtyState(int netId) {
+        dirtyComponents.removeAll(netId);
+        addedComponents.removeAll(netId);
+        removedComponents.removeAll(netId);
+        netDirty.remove(netId);
+        updatePriority.remove(netId);
+        changeCounts.remove(netId);
     }
 
     public void setComponentAdded(int networkId, Class<? extends Component> component) {
@@ -312,6 +372,7 @@ public void setComponentAdded(int networkId, Class<? extends Component> componen
                 addedComponents.put(networkId, component);
                 netDirty.add(networkId);
             }
+            changeCounts.adjustOrPutValue(networkId, 1, 1);
         }
     }
 
@@ -323,6 +384,7 @@ public void setComponentRemoved(int networkId, Class<? extends Component> compon
                     netDirty.add(networkId);
                 }
             }
+            changeCounts.adjustOrPutValue(networkId, 1, 1);
         }
     }
 
@@ -330,6 +392,7 @@ public void setComponentDirty(int netId, Class<? extends Component> componentTyp
         if (netRelevant.contains(netId) && !netInitial.contains(netId) && !addedComponents.get(netId).contains(componentType)) {
             dirtyComponents.put(netId, componentType);
             netDirty.add(netId);
+            changeCounts.adjustOrPutValue(netId, 1, 1);
         }
     }
 
@@ -387,12 +450,20 @@ void send(NetData.NetMessage data) {
     @Override
     public void onChunkRelevant(Vector3i pos, Chunk chunk) {
         invalidatedChunks.remove(pos);
-        readyChunks.put(pos, chunk);
+        ChunkEncodingCache encodingCache = networkSystem.getChunkEncodingCache();
+        if (readyChunks.put(pos, chunk) != null) {
+            encodingCache.release(pos);
+        } else {
+            chunkQueue.add(pos);
+        }
+        encodingCache.acquire(pos, chunk);
     }
 
     @Override
     public void onChunkIrrelevant(Vector3i pos) {
-        readyChunks.remove(pos);
+        if (readyChunks.remove(pos) != null) {
+            networkSystem.getChunkEncodingCache().release(pos);
+        }
         invalidatedChunks.add(pos);
     }
 
@@ -454,25 +525,107 @@ private void processEntityUpdates(NetData.NetMessage message) {
         }
     }
 
+    /**
+     * Sends the updates of the dirty entities with the highest accumulated priority, until the byte budget of this
+     * tick is used up. Entities that don't make it keep their changes and priority, so they rise in the next tick.
+     * An entity that leaves the chunks relevant to this client gets the update that moved it out, further updates are
+     * held back until it is relevant again.
+     */
     private void sendDirtyEntities(NetData.NetMessage.Builder message) {
-        TIntIterator dirtyIterator = netDirty.iterator();
-        while (dirtyIterator.hasNext()) {
-            int netId = dirtyIterator.next();
+        if (netDirty.isEmpty()) {
+            return;
+        }
+        EntityDeltaCache deltaCache = networkSystem.getEntityDeltaCache();
+        int budget = getEntityByteBudget();
+        int usedBytes = 0;
+        for (int netId : rankDirtyEntities()) {
+            if (usedBytes >= budget) {
+                break;
+            }
             EntityRef entity = networkSystem.getEntity(netId);
             if (!entity.exists()) {
                 logger.error("Sending non-existent entity update for netId {}", netId);
             }
             boolean isOwner = networkSystem.getOwner(entity) == this;
-            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, addedComponents.get(netId), dirtyComponents.get(netId), removedComponents.get(netId),
-                    new ServerComponentFieldCheck(isOwner, false));
+            Set<Class<? extends Component>> added = addedComponents.get(netId);
+            Set<Class<? extends Component>> changed = dirtyComponents.get(netId);
+            Set<Class<? extends Component>> removed = removedComponents.get(netId);
+            EntityData.PackedEntity entityData = deltaCache.get(netId, isOwner, added, changed, removed,
+                    () -> entitySerializer.serialize(entity, added, changed, removed, new ServerComponentFieldCheck(isOwner, false)));
             if (entityData != null) {
                 message.addUpdateEntity(NetData.UpdateEntityMessage.newBuilder().setEntity(entityData).setNetId(netId));
+                usedBytes += entityData.getSerializedSize();
             }
+            clearDirtyState(netId);
+            heldBackEntities.updateSent(netId, isOwner || isRelevant(entity));
+        }
+    }
+
+    /**
+     * Adds this tick's priority of each dirty entity that isn't held back to what it accumulated while waiting.
+     *
+     * @return the net ids of the dirty entities that may be sent, highest accumulated priority first
+     */
+    private List<Integer> rankDirtyEntities() {
+        Vector3f clientPosition = getClientPosition();
+        List<Integer> ranked = Lists.newArrayListWithCapacity(netDirty.size());
+        TIntIterator dirtyIterator = netDirty.iterator();
+        while (dirtyIterator.hasNext()) {
+            int netId = dirtyIterator.next();
+            EntityRef entity = networkSystem.getEntity(netId);
+            boolean isOwner = networkSystem.getOwner(entity) == this;
+            if (!heldBackEntities.maySend(netId, isOwner || isRelevant(entity))) {
+                continue;
+            }
+            LocationComponent location = entity.getComponent(LocationComponent.class);
+            Vector3f position = location != null ? location.getWorldPosition() : null;
+            float priority = isOwner ? OWNED_ENTITY_PRIORITY : 1.0f;
+            if (!isOwner && position != null && clientPosition != null) {
+                priority /= 1.0f + position.distance(clientPosition) / ChunkConstants.SIZE_X;
+            }
+            priority *= 1.0f + 0.25f * Math.min(changeCounts.get(netId), MAX_COUNTED_CHANGES);
+            updatePriority.adjustOrPutValue(netId, priority, priority);
+            ranked.add(netId);
+        }
+        ranked.sort((a, b) -> Float.compare(updatePriority.get(b), updatePriority.get(a)));
+        return ranked;
+    }
+
+    private boolean isRelevant(EntityRef entity) {
+        if (isAlwaysReplicated(entity)) {
+            return true;
+        }
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        return location == null || isPositionRelevant(location.getWorldPosition());
+    }
+
+    private boolean isAlwaysReplicated(EntityRef entity) {
+        NetworkComponent networkComponent = entity.getComponent(NetworkComponent.class);
+        return networkComponent == null || networkComponent.replicateMode == NetworkComponent.ReplicateMode.ALWAYS;
+    }
+
+    private boolean isPositionRelevant(Vector3f position) {
+        if (!Float.isFinite(position.x) || !Float.isFinite(position.y) || !Float.isFinite(position.z)) {
+            return true;
         }
-        netDirty.clear();
-        addedComponents.clear();
-        removedComponents.clear();
-        dirtyComponents.clear();
+        return relevantChunks.contains(ChunkMath.calcChunkPos(position));
+    }
+
+    private Vector3f getClientPosition() {
+        ClientComponent client = getEntity().getComponent(ClientComponent.class);
+        if (client == null) {
+            return null;
+        }
+        LocationComponent location = client.character.getComponent(LocationComponent.class);
+        return location != null ? location.getWorldPosition() : null;
+    }
+
+    /**
+     * @return this client's share of the upstream bandwidth for one tick, in bytes
+     */
+    private int getEntityByteBudget() {
+        int bytesPerSecond = networkSystem.getBandwidthPerClient() * 1000 / 8;
+        return Math.max(MIN_ENTITY_BYTES_PER_TICK, (int) (bytesPerSecond * NET_TICK_RATE));
     }
 
     private void sendRemovedEntities(NetData.NetMessage.Builder message) {
@@ -148,6 +148,8 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     private final Set<NetClient> netClientList = Sets.newLinkedHashSet();
     private Map<EntityRef, Client> clientPlayerLookup = Maps.newHashMap();
     private Map<EntityRef, EntityRef> ownerLookup = Maps.newHashMap();
+    private final EntityDeltaCache entityDeltaCache = new EntityDeltaCache();
+    private ChunkEncodingCache chunkEncodingCache;
     private SetMultimap<EntityRef, EntityRef> ownedLookup = HashMultimap.create();
     private StorageManager storageManager;
 
@@ -263,6 +265,14 @@ public void shutdown() {
         }
         processPendingDisconnects();
         clientList.forEach(this::processRemovedClient);
+        if (chunkEncodingCache != null) {
+            WorldProvider worldProvider = context.get(WorldProvider.class);
+            if (worldProvider != null) {
+                worldProvider.unregisterListener(chunkEncodingCache);
+            }
+            chunkEncodingCache.shutdown();
+            chunkEncodingCache = null;
+        }
         server = null;
         nextNetId = 1;
         netIdToEntityId.clear();
@@ -313,6 +323,7 @@ public void update() {
                 if (currentTimer > nextNetworkTick) {
                     nextNetworkTick += NET_TICK_RATE;
                     netTick = true;
+                    entityDeltaCache.clear();
                 }
                 PerformanceMonitor.startActivity("Client update");
                 for (Client client : clientList) {
@@ -371,6 +382,27 @@ NetClient getNetOwner(EntityRef entity) {
         return null;
     }
 
+    /**
+     * @return the entity updates serialized for the clients during the current network tick
+     */
+    EntityDeltaCache getEntityDeltaCache() {
+        return entityDeltaCache;
+    }
+
+    /**
+     * @return the chunk encodings shared by all clients, created along with the first client that needs chunks
+     */
+    ChunkEncodingCache getChunkEncodingCache() {
+        if (chunkEncodingCache == null) {
+            chunkEncodingCache = new ChunkEncodingCache();
+            WorldProvider worldProvider = context.get(WorldProvider.class);
+            if (worldProvider != null) {
+                worldProvider.registerListener(chunkEncodingCache);
+            }
+        }
+        return chunkEncodingCache;
+    }
+
     public int getBandwidthPerClient() {
         if (netClientList.size() > 0) {
             return config.getUpstreamBandwidth() / netClientList.size();
@@ -17,6 +17,7 @@
 
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.Client;
+import org.terasology.world.WorldChangeListener;
 import org.terasology.world.chunks.Chunk;
 
 import java.io.IOException;
@@ -68,6 +69,35 @@ public interface StorageManager {
      */
     void deactivateChunk(Chunk chunk);
 
+    /**
+     * @return whether the storage holds a version of the chunk, including ones that wait for the next save
+     */
+    boolean containsChunk(Vector3i chunkPos);
+
+    /**
+     * Writes a chunk that got generated without ever being loaded into the world directly into the chunk storage,
+     * e.g. for pre-generating a world. Can be called from any thread, the chunk gets encoded on the calling thread.
+     * The chunk is only guaranteed to be persisted after {@link #flushGeneratedChunks()}. If the chunk got stored or
+     * loaded into the world in the meantime, that version is kept and the generated one is dropped.
+     *
+     * @return false if the storage can't store chunks outside of a save
+     */
+    boolean storeGeneratedChunk(Chunk chunk) throws IOException;
+
+    void flushGeneratedChunks() throws IOException;
+
+    /**
+     * @return the listener that journals the changes to the world between saves, or null if the storage doesn't
+     * journal them
+     */
+    WorldChangeListener getWorldJournal();
+
+    /**
+     * Re-applies the journaled changes to the chunk that got lost because the game stopped before it could save them.
+     * Has to be called after loading or generating the chunk and before it becomes part of the world.
+     */
+    void restoreJournaledChanges(Chunk chunk);
+
     boolean isSaving();
 
     void checkAndRepairSaveIfNecessary() throws IOException;
@@ -22,8 +22,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.OwnershipHelper;
-import org.terasology.logic.location.LocationComponent;
-import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.module.ModuleEnvironment;
 import org.terasology.network.ClientComponent;
@@ -66,18 +65,28 @@ public abstract class AbstractStorageManager implements StorageManager {
     private final PrefabSerializer prefabSerializer;
     private final OwnershipHelper helper;
 
-    private boolean storeChunksInZips = true;
+    private final ChunkRegionStorage chunkRegionStorage;
+
+    private ChunkStorageFormat chunkStorageFormat;
 
     public AbstractStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                   BlockManager blockManager, BiomeManager biomeManager, boolean storeChunksInZips) {
+        this(savePath, environment, entityManager, blockManager, biomeManager,
+                storeChunksInZips ? ChunkStorageFormat.ZIPS : ChunkStorageFormat.SEPARATE_FILES);
+    }
+
+    public AbstractStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
+                                  BlockManager blockManager, BiomeManager biomeManager,
+                                  ChunkStorageFormat chunkStorageFormat) {
         this.entityManager = entityManager;
         this.environment = environment;
-        this.storeChunksInZips = storeChunksInZips;
+        this.chunkStorageFormat = chunkStorageFormat;
         this.prefabSerializer = new PrefabSerializer(entityManager.getComponentLibrary(), entityManager.getTypeSerializerLibrary());
         this.blockManager = blockManager;
         this.biomeManager = biomeManager;
 
         this.storagePathProvider = new StoragePathProvider(savePath);
+        this.chunkRegionStorage = new ChunkRegionStorage(storagePathProvider);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
     }
 
@@ -135,36 +144,68 @@ protected byte[] loadChunkZip(Vector3i chunkPos) {
         return chunkData;
     }
 
+    protected byte[] loadChunkFile(Vector3i chunkPos) {
+        Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
+        if (Files.isRegularFile(chunkPath)) {
+            try {
+                return Files.readAllBytes(chunkPath);
+            } catch (IOException e) {
+                logger.error("Failed to load chunk {}", chunkPos, e);
+            }
+        }
+        return null;
+    }
+
+    protected byte[] loadChunkFromRegion(Vector3i chunkPos) {
+        try {
+            return chunkRegionStorage.load(chunkPos);
+        } catch (IOException e) {
+            logger.error("Failed to load chunk {} from its region file", chunkPos, e);
+        }
+        return null;
+    }
+
     @Override
     public void update() {
     }
 
+    @Override
+    public boolean containsChunk(Vector3i chunkPos) {
+        return loadCompressedChunk(chunkPos) != null;
+    }
+
     public boolean isStoreChunksInZips() {
-        return storeChunksInZips;
+        return chunkStorageFormat == ChunkStorageFormat.ZIPS;
     }
 
     /**
      * For tests only
      */
     void setStoreChunksInZips(boolean storeChunksInZips) {
-        this.storeChunksInZips = storeChunksInZips;
+        this.chunkStorageFormat = storeChunksInZips ? ChunkStorageFormat.ZIPS : ChunkStorageFormat.SEPARATE_FILES;
+    }
+
+    public ChunkStorageFormat getChunkStorageFormat() {
+        return chunkStorageFormat;
     }
 
     protected byte[] loadCompressedChunk(Vector3i chunkPos) {
-        if (isStoreChunksInZips()) {
-            return loadChunkZip(chunkPos);
-        } else {
-            Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
-            if (Files.isRegularFile(chunkPath)) {
-                try {
-                    return Files.readAllBytes(chunkPath);
-                } catch (IOException e) {
-                    logger.error("Failed to load chunk {}", chunkPos, e);
+        switch (chunkStorageFormat) {
+            case REGION_FILES:
+                byte[] chunkData = loadChunkFromRegion(chunkPos);
+                if (chunkData == null) {
+                    // The world might not have been migrated yet, e.g. when it has only been opened read only
+                    chunkData = loadChunkZip(chunkPos);
                 }
-            }
+                if (chunkData == null) {
+                    chunkData = loadChunkFile(chunkPos);
+                }
+                return chunkData;
+            case ZIPS:
+                return loadChunkZip(chunkPos);
+            default:
+                return loadChunkFile(chunkPos);
         }
-
-        return null;
     }
 
     protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
@@ -183,15 +224,10 @@ protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
     protected Collection<EntityRef> getEntitiesOfChunk(Chunk chunk) {
         List<EntityRef> entitiesToStore = Lists.newArrayList();
 
-        AABB aabb = chunk.getAABB();
-        for (EntityRef entity : getEntityManager().getEntitiesWith(LocationComponent.class)) {
+        Region3i chunkRegion = Region3i.createFromMinMax(chunk.getPosition(), chunk.getPosition());
+        for (EntityRef entity : getEntityManager().getEntitiesInChunks(chunkRegion)) {
             if (!entity.getOwner().exists() && !entity.isAlwaysRelevant() && !entity.hasComponent(ClientComponent.class)) {
-                LocationComponent loc = entity.getComponent(LocationComponent.class);
-                if (loc != null) {
-                    if (aabb.contains(loc.getWorldPosition())) {
-                        entitiesToStore.add(entity);
-                    }
-                }
+                entitiesToStore.add(entity);
             }
         }
         return entitiesToStore;
@@ -217,6 +253,10 @@ protected StoragePathProvider getStoragePathProvider() {
         return storagePathProvider;
     }
 
+    protected ChunkRegionStorage getChunkRegionStorage() {
+        return chunkRegionStorage;
+    }
+
     protected ModuleEnvironment getEnvironment() {
         return environment;
     }
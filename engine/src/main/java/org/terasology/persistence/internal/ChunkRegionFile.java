@@ -0,0 +1,391 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * A file that stores the compressed data of a fixed number of chunks.
+ * <br><br>
+ * The file starts with two copies of a header that contains an offset/length pair for every chunk slot. Changed
+ * chunks get appended to the end of the file and only the header gets rewritten, so that saving a few chunks doesn't
+ * require rewriting the whole region like it is the case with the chunk zips. The space of replaced chunk data gets
+ * reclaimed by writing a compacted copy of the file via {@link #compactTo(Path)}.
+ * <br><br>
+ * Header changes are only written by {@link #flush()}, after the appended chunk data has been forced to disk. Each
+ * flush overwrites the older of the two header copies and stamps it with the next generation and a checksum. When the
+ * file gets opened, the valid copy with the newest generation is used, so a write that gets torn by a crash only
+ * loses the changes of that flush.
+ * <br><br>
+ * Reads are served from a memory mapping of the file when the file system supports it. The mapping is released
+ * explicitly when the file gets closed, so that the file can be replaced afterwards even on Windows.
+ */
+class ChunkRegionFile implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkRegionFile.class);
+
+    private static final int MAGIC = 0x54524547; // "TREG"
+    private static final int VERSION = 2;
+    private static final int HEADER_PREFIX_SIZE = 20;
+    private static final int HEADER_ENTRY_SIZE = 8;
+    private static final int HEADER_CHECKSUM_SIZE = 4;
+    private static final int HEADER_COPIES = 2;
+
+    /**
+     * A region file gets only compacted when both more than this number of bytes and more than the size of the live
+     * chunk data are wasted.
+     */
+    private static final long MIN_WASTED_BYTES_FOR_COMPACTION = 1024 * 1024;
+
+    private final Path path;
+    private final SeekableByteChannel channel;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int headerSize;
+    private final BitSet dirtyEntries = new BitSet();
+
+    private long generation;
+    private long size;
+    private long liveBytes;
+    private boolean unforcedData;
+
+    private MappedByteBuffer mappedBuffer;
+    private boolean mappingSupported;
+
+    private ChunkRegionFile(Path path, SeekableByteChannel channel, int entryCount) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.offsets = new int[entryCount];
+        this.lengths = new int[entryCount];
+        this.headerSize = HEADER_PREFIX_SIZE + entryCount * HEADER_ENTRY_SIZE + HEADER_CHECKSUM_SIZE;
+        this.mappingSupported = channel instanceof FileChannel;
+
+        if (channel.size() == 0) {
+            size = getDataStart();
+            generation = -1;
+            // Writes both copies, the first one gets overwritten by the first flush
+            writeHeader();
+            writeHeader();
+            force();
+        } else {
+            readHeader();
+        }
+    }
+
+    private int getDataStart() {
+        return HEADER_COPIES * headerSize;
+    }
+
+    /**
+     * Opens the region file at the given path, creating it if it does not exist yet.
+     *
+     * @param entryCount the number of chunk slots of the region file
+     */
+    static ChunkRegionFile open(Path path, int entryCount) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            return new ChunkRegionFile(path, channel, entryCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        size = channel.size();
+        if (size < getDataStart()) {
+            throw new IOException("Region file " + path + " is too short to contain a header");
+        }
+        ByteBuffer newest = null;
+        for (int copy = 0; copy < HEADER_COPIES; copy++) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            readFully(header, (long) copy * headerSize);
+            header.flip();
+            if (isValidHeader(header) && (newest == null || header.getLong(12) > newest.getLong(12))) {
+                newest = header;
+            }
+        }
+        if (newest == null) {
+            throw new IOException("Region file " + path + " has no valid header");
+        }
+        newest.getInt();
+        newest.getInt();
+        newest.getInt();
+        generation = newest.getLong();
+        for (int i = 0; i < offsets.length; i++) {
+            int offset = newest.getInt();
+            int length = newest.getInt();
+            if (length != 0 && (offset < getDataStart() || (long) offset + length > size)) {
+                logger.warn("Ignoring chunk {} of region file {} as it points outside of the file", i, path);
+                continue;
+            }
+            offsets[i] = offset;
+            lengths[i] = length;
+            liveBytes += length;
+        }
+    }
+
+    private boolean isValidHeader(ByteBuffer header) {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != offsets.length) {
+            return false;
+        }
+        return header.getInt(headerSize - HEADER_CHECKSUM_SIZE) == checksum(header);
+    }
+
+    private int checksum(ByteBuffer header) {
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, headerSize - HEADER_CHECKSUM_SIZE);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return the stored data of the chunk with the given index, or null if the region file contains no data for it.
+     */
+    synchronized byte[] read(int index) throws IOException {
+        int length = lengths[index];
+        if (length == 0) {
+            return null;
+        }
+        int offset = offsets[index];
+        byte[] data = new byte[length];
+        ByteBuffer mapped = getMappedBuffer((long) offset + length);
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.position(offset);
+            view.get(data);
+        } else {
+            readFully(ByteBuffer.wrap(data), offset);
+        }
+        return data;
+    }
+
+    /**
+     * Appends the data of the chunk with the given index to the file. The header entry of the chunk gets written by
+     * the next {@link #flush()}.
+     */
+    synchronized void write(int index, byte[] data) throws IOException {
+        setEntry(index, append(data), data.length);
+    }
+
+    /**
+     * Appends chunk data to the file without referencing it from the header. The data can be referenced later on
+     * via {@link #setEntry(int, int, int)}, even after the file has been reopened, once it has been forced to disk.
+     *
+     * @return the offset of the appended data
+     */
+    synchronized int append(byte[] data) throws IOException {
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Chunk data must not be empty");
+        }
+        if (size + data.length > Integer.MAX_VALUE) {
+            throw new IOException("Region file " + path + " is full, it needs to be compacted");
+        }
+        int offset = (int) size;
+        writeFully(ByteBuffer.wrap(data), size);
+        size += data.length;
+        unforcedData = true;
+        return offset;
+    }
+
+    /**
+     * Lets the chunk with the given index refer to data that has been appended before. The header entry of the chunk
+     * gets written by the next {@link #flush()}.
+     *
+     * @return false if the data is not within the file, in which case the entry is left unchanged
+     */
+    synchronized boolean setEntry(int index, int offset, int length) {
+        if (length <= 0 || offset < getDataStart() || (long) offset + length > size) {
+            return false;
+        }
+        liveBytes += length - lengths[index];
+        offsets[index] = offset;
+        lengths[index] = length;
+        dirtyEntries.set(index);
+        return true;
+    }
+
+    /**
+     * Forces all appended chunk data to disk and writes the header afterwards, so that the header on disk never
+     * points to chunk data that has not been written yet.
+     */
+    synchronized void flush() throws IOException {
+        if (dirtyEntries.isEmpty()) {
+            forceAppendedData();
+            return;
+        }
+        force();
+        writeHeader();
+        force();
+        unforcedData = false;
+    }
+
+    /**
+     * Forces the chunk data appended since the last flush to disk, without writing the header.
+     */
+    synchronized void forceAppendedData() throws IOException {
+        if (unforcedData) {
+            force();
+            unforcedData = false;
+        }
+    }
+
+    /**
+     * Writes the header into the copy that doesn't hold the current generation.
+     */
+    private void writeHeader() throws IOException {
+        long nextGeneration = generation + 1;
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(offsets.length);
+        header.putLong(nextGeneration);
+        for (int i = 0; i < offsets.length; i++) {
+            header.putInt(offsets[i]);
+            header.putInt(lengths[i]);
+        }
+        header.putInt(checksum(header));
+        header.flip();
+        writeFully(header, Math.floorMod(nextGeneration, HEADER_COPIES) * (long) headerSize);
+        generation = nextGeneration;
+        dirtyEntries.clear();
+    }
+
+    private void force() throws IOException {
+        if (channel instanceof FileChannel) {
+            ((FileChannel) channel).force(false);
+        }
+    }
+
+    /**
+     * @return true if enough space is wasted by replaced chunk data that a compaction is worthwhile.
+     */
+    synchronized boolean needsCompaction() {
+        long wastedBytes = getWastedBytes();
+        return wastedBytes > MIN_WASTED_BYTES_FOR_COMPACTION && wastedBytes > liveBytes;
+    }
+
+    synchronized long getWastedBytes() {
+        return size - getDataStart() - liveBytes;
+    }
+
+    /**
+     * Writes a new region file to the given path that contains only the current data of every chunk.
+     * The target file gets replaced if it exists already.
+     */
+    synchronized void compactTo(Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try (ChunkRegionFile compacted = open(target, offsets.length)) {
+            for (int i = 0; i < offsets.length; i++) {
+                byte[] data = read(i);
+                if (data != null) {
+                    compacted.write(i, data);
+                }
+            }
+            compacted.flush();
+        }
+    }
+
+    private ByteBuffer getMappedBuffer(long requiredSize) {
+        if (!mappingSupported) {
+            return null;
+        }
+        if (mappedBuffer == null || mappedBuffer.capacity() < requiredSize) {
+            unmap();
+            try {
+                mappedBuffer = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.debug("Memory mapping of region file {} is not possible, falling back to regular reads", path, e);
+                mappingSupported = false;
+                mappedBuffer = null;
+                return null;
+            }
+        }
+        return mappedBuffer;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of region file " + path);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Releases the current mapping right away instead of waiting for it to be garbage collected. Reads only use the
+     * mapping while holding the monitor of this file, so nothing can access it afterwards.
+     */
+    private void unmap() {
+        if (mappedBuffer == null) {
+            return;
+        }
+        MappedByteBuffer buffer = mappedBuffer;
+        mappedBuffer = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Failed to release the mapping of region file {}, it gets released by the GC", path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        unmap();
+        channel.close();
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Stores the chunks of a world in {@link ChunkRegionFile}s and keeps the most recently used region files open.
+ * <br><br>
+ * Chunks get only written while saving, while migrating a world from the older chunk storage formats and while
+ * pre-generating a world. A save transaction appends the data of its chunks to the region files right away, but only
+ * records where it put them. The chunks become visible once the changes of the transaction get merged, see
+ * {@link #mergeChunks(Path)}.
+ * <br><br>
+ * All methods are safe to call from several threads. Appending the chunks of a save doesn't need the write lock of
+ * the world directory, as the appended data is never read before the merge. Storing single chunks, merging, migrating
+ * and compacting need it while other threads may use the storage, so that a compaction never copies a region while a
+ * chunk gets stored into it.
+ */
+public class ChunkRegionStorage {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkRegionStorage.class);
+    private static final int MAX_OPEN_REGIONS = 64;
+    private static final String COMPACTION_SUFFIX = ".compacting";
+    private static final String APPENDED_CHUNKS_FILENAME = "appended-chunks";
+
+    private final StoragePathProvider storagePathProvider;
+    private final Map<Vector3i, ChunkRegionFile> openRegions = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ChunkRegionStorage(StoragePathProvider storagePathProvider) {
+        this.storagePathProvider = storagePathProvider;
+    }
+
+    /**
+     * @return the stored data of the chunk, or null if no region file contains the chunk.
+     */
+    public synchronized byte[] load(Vector3i chunkPos) throws IOException {
+        ChunkRegionFile region = getRegion(storagePathProvider.getChunkRegionPosition(chunkPos), false);
+        if (region == null) {
+            return null;
+        }
+        return region.read(storagePathProvider.getChunkRegionIndex(chunkPos));
+    }
+
+    /**
+     * Appends the chunk data to its region file. The chunk is only guaranteed to be persisted after {@link #flush()}.
+     */
+    public synchronized void store(Vector3i chunkPos, byte[] data) throws IOException {
+        ChunkRegionFile region = getRegion(storagePathProvider.getChunkRegionPosition(chunkPos), true);
+        region.write(storagePathProvider.getChunkRegionIndex(chunkPos), data);
+    }
+
+    public synchronized void flush() throws IOException {
+        for (ChunkRegionFile region : openRegions.values()) {
+            region.flush();
+        }
+    }
+
+    /**
+     * Appends the data of the given chunks to their region files without making them visible, forces the data to disk
+     * and records where it went in the given directory. The chunks become visible once that directory gets passed to
+     * {@link #mergeChunks(Path)}. Until then, loads still return the previous data of the chunks.
+     * <br><br>
+     * Like this every chunk of a save gets written only once, while the save stays atomic: if the save gets abandoned,
+     * the appended data is never referenced and gets reclaimed by the next compaction.
+     *
+     * @param chunkPositions the chunks to append, in the order they should be written
+     * @param chunkData      provides the encoded data of each chunk
+     * @param directory      the directory of the save transaction to record the locations of the chunks in
+     */
+    public void appendChunks(Iterable<Vector3i> chunkPositions, EncodedChunkSource chunkData, Path directory)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path appendedChunks = directory.resolve(APPENDED_CHUNKS_FILENAME);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(appendedChunks)))) {
+            for (Vector3i chunkPos : chunkPositions) {
+                byte[] data = chunkData.get(chunkPos);
+                int offset;
+                synchronized (this) {
+                    offset = getRegion(storagePathProvider.getChunkRegionPosition(chunkPos), true).append(data);
+                }
+                out.writeInt(chunkPos.x);
+                out.writeInt(chunkPos.y);
+                out.writeInt(chunkPos.z);
+                out.writeInt(offset);
+                out.writeInt(data.length);
+            }
+        }
+        synchronized (this) {
+            for (ChunkRegionFile region : openRegions.values()) {
+                region.forceAppendedData();
+            }
+        }
+    }
+
+    /**
+     * Makes the chunks appended via {@link #appendChunks(Iterable, EncodedChunkSource, Path)} visible, writes all chunk
+     * files of the given directory into the region files and deletes the directory afterwards. Running this method
+     * again after it got interrupted has the same result, as the directory gets only deleted after the region files
+     * have been flushed.
+     */
+    public void mergeChunks(Path directory) throws IOException {
+        List<Path> mergedFiles = Lists.newArrayList();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().equals(APPENDED_CHUNKS_FILENAME)) {
+                    referenceAppendedChunks(file);
+                    mergedFiles.add(file);
+                } else if (importChunk(file)) {
+                    mergedFiles.add(file);
+                }
+            }
+        }
+        flush();
+        for (Path file : mergedFiles) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Moves the chunks of the world that are still stored in chunk zips or in separate files into region files.
+     * Leftovers of interrupted compactions get removed too.
+     *
+     * @return the number of migrated chunks
+     */
+    public int migrateLegacyChunks() throws IOException {
+        Path worldPath = storagePathProvider.getWorldPath();
+        if (!Files.isDirectory(worldPath)) {
+            return 0;
+        }
+        int migratedChunks = 0;
+        List<Path> migratedFiles = Lists.newArrayList();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(worldPath)) {
+            for (Path file : files) {
+                if (storagePathProvider.isChunkZipFilename(file.getFileName().toString())) {
+                    try (FileSystem chunkZip = FileSystems.newFileSystem(file, (ClassLoader) null)) {
+                        for (Path root : chunkZip.getRootDirectories()) {
+                            try (DirectoryStream<Path> zippedFiles = Files.newDirectoryStream(root)) {
+                                for (Path zippedFile : zippedFiles) {
+                                    if (importChunk(zippedFile)) {
+                                        migratedChunks++;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    migratedFiles.add(file);
+                } else if (file.getFileName().toString().endsWith(COMPACTION_SUFFIX)) {
+                    // Left over by an interrupted compaction, the original region file is still intact
+                    migratedFiles.add(file);
+                } else if (importChunk(file)) {
+                    migratedChunks++;
+                    migratedFiles.add(file);
+                }
+            }
+        }
+        flush();
+        for (Path file : migratedFiles) {
+            Files.delete(file);
+        }
+        if (migratedChunks > 0) {
+            logger.info("Migrated {} chunks into region files", migratedChunks);
+        }
+        return migratedChunks;
+    }
+
+    private void referenceAppendedChunks(Path appendedChunks) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(appendedChunks)))) {
+            while (true) {
+                Vector3i chunkPos;
+                int offset;
+                int length;
+                try {
+                    chunkPos = new Vector3i(in.readInt(), in.readInt(), in.readInt());
+                    offset = in.readInt();
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                synchronized (this) {
+                    ChunkRegionFile region = getRegion(storagePathProvider.getChunkRegionPosition(chunkPos), false);
+                    if (region == null || !region.setEntry(storagePathProvider.getChunkRegionIndex(chunkPos), offset, length)) {
+                        logger.warn("Appended data of chunk {} is missing, keeping its previous version", chunkPos);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean importChunk(Path file) throws IOException {
+        Vector3i chunkPos = storagePathProvider.getChunkPositionFromFilename(file.getFileName().toString());
+        if (chunkPos == null || !Files.isRegularFile(file)) {
+            return false;
+        }
+        store(chunkPos, Files.readAllBytes(file));
+        return true;
+    }
+
+    /**
+     * Replaces the open region files that waste a lot of space with compacted copies.
+     * <br><br>
+     * The given lock is held from copying a region until its file got replaced, so that no chunk gets stored into
+     * the region in between and lost with the old file. It is released between regions, so that chunk loading is
+     * only blocked for one region at a time.
+     *
+     * @param worldDirectoryWriteLock the write lock of the world directory
+     */
+    public void compact(Lock worldDirectoryWriteLock) throws IOException {
+        List<Vector3i> regionsToCompact = Lists.newArrayList();
+        synchronized (this) {
+            for (Map.Entry<Vector3i, ChunkRegionFile> entry : openRegions.entrySet()) {
+                if (entry.getValue().needsCompaction()) {
+                    regionsToCompact.add(entry.getKey());
+                }
+            }
+        }
+
+        for (Vector3i regionPos : regionsToCompact) {
+            Path regionPath = storagePathProvider.getChunkRegionPath(regionPos);
+            Path compactedPath = regionPath.resolveSibling(regionPath.getFileName() + COMPACTION_SUFFIX);
+            worldDirectoryWriteLock.lock();
+            try {
+                ChunkRegionFile region;
+                synchronized (this) {
+                    region = getRegion(regionPos, false);
+                }
+                if (region == null) {
+                    continue;
+                }
+                long wastedBytes = region.getWastedBytes();
+                region.compactTo(compactedPath);
+                synchronized (this) {
+                    // Closing releases the mapping of the file, which would prevent replacing it on Windows
+                    closeRegion(regionPos);
+                }
+                replace(compactedPath, regionPath);
+                logger.debug("Compacted region file {}, reclaimed {} bytes", regionPath, wastedBytes);
+            } catch (IOException e) {
+                // e.g. when another process keeps the file open, the compaction is retried on a later save
+                logger.warn("Failed to compact region file {}", regionPath, e);
+                Files.deleteIfExists(compactedPath);
+            } finally {
+                worldDirectoryWriteLock.unlock();
+            }
+        }
+    }
+
+    private void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private ChunkRegionFile getRegion(Vector3i regionPos, boolean create) throws IOException {
+        ChunkRegionFile region = openRegions.get(regionPos);
+        if (region == null) {
+            Path path = storagePathProvider.getChunkRegionPath(regionPos);
+            if (!create && !Files.isRegularFile(path)) {
+                return null;
+            }
+            if (create) {
+                Files.createDirectories(path.getParent());
+            }
+            evictRegionsIfNecessary();
+            region = ChunkRegionFile.open(path, storagePathProvider.getChunkRegionSize());
+            openRegions.put(new Vector3i(regionPos), region);
+        }
+        return region;
+    }
+
+    private void evictRegionsIfNecessary() throws IOException {
+        Iterator<ChunkRegionFile> iterator = openRegions.values().iterator();
+        while (openRegions.size() >= MAX_OPEN_REGIONS && iterator.hasNext()) {
+            ChunkRegionFile region = iterator.next();
+            region.flush();
+            region.close();
+            iterator.remove();
+        }
+    }
+
+    private void closeRegion(Vector3i regionPos) throws IOException {
+        ChunkRegionFile region = openRegions.remove(regionPos);
+        if (region != null) {
+            region.flush();
+            region.close();
+        }
+    }
+
+    /**
+     * Provides the encoded data of a chunk, possibly waiting for it to be encoded.
+     */
+    @FunctionalInterface
+    public interface EncodedChunkSource {
+        byte[] get(Vector3i chunkPos) throws IOException;
+    }
+
+    /**
+     * Flushes and closes all open region files. They get reopened on demand.
+     */
+    public synchronized void close() {
+        for (ChunkRegionFile region : openRegions.values()) {
+            try {
+                region.flush();
+                region.close();
+            } catch (IOException e) {
+                logger.error("Failed to close region file {}", region.getPath(), e);
+            }
+        }
+        openRegions.clear();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+/**
+ * The ways in which the chunks of a world can be stored on disk.
+ */
+public enum ChunkStorageFormat {
+    /**
+     * Chunks are grouped into region files with an offset table, see {@link ChunkRegionFile}.
+     */
+    REGION_FILES,
+    /**
+     * Chunks are grouped into zip files that get rewritten completely when one of their chunks changes.
+     */
+    ZIPS,
+    /**
+     * Every chunk is stored in a file of its own.
+     */
+    SEPARATE_FILES
+}
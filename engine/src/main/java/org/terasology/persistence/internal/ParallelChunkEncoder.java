@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes and compresses the chunks of a save on a bounded pool of worker threads, so that
+ * {@link CompressedChunkBuilder#buildEncodedChunk()} of different chunks runs in parallel while the save thread is
+ * writing the results.
+ * <br><br>
+ * The worker threads are terminated when they have been idle for a while, so the encoder doesn't need to be shut down.
+ */
+public class ParallelChunkEncoder {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Comparator<Vector3i> WRITE_ORDER = Comparator.<Vector3i>comparingInt(pos -> pos.x)
+            .thenComparingInt(pos -> pos.z)
+            .thenComparingInt(pos -> pos.y);
+
+    private final ThreadPoolExecutor executor;
+
+    public ParallelChunkEncoder() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public ParallelChunkEncoder(int threads) {
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("Saving-Encoder-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts encoding all given chunks.
+     *
+     * @return the pending encoded chunks, in the order in which they should be written.
+     */
+    public EncodedChunks encode(Map<Vector3i, CompressedChunkBuilder> chunks) {
+        List<Vector3i> positions = chunks.keySet().stream().sorted(WRITE_ORDER).collect(Collectors.toList());
+        Map<Vector3i, Future<byte[]>> pending = new LinkedHashMap<>();
+        for (Vector3i pos : positions) {
+            CompressedChunkBuilder builder = chunks.get(pos);
+            pending.put(pos, executor.submit(builder::buildEncodedChunk));
+        }
+        return new EncodedChunks(pending);
+    }
+
+    public int getThreadCount() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * The chunks of a single save, which are possibly still being encoded.
+     */
+    public static final class EncodedChunks {
+        private final Map<Vector3i, Future<byte[]>> pending;
+
+        private EncodedChunks(Map<Vector3i, Future<byte[]>> pending) {
+            this.pending = pending;
+        }
+
+        /**
+         * @return the positions of the chunks in the order in which they should be written.
+         */
+        public Iterable<Vector3i> getPositions() {
+            return pending.keySet();
+        }
+
+        /**
+         * Waits until the given chunk has been encoded. If encoding the chunk failed, or waiting for it got interrupted,
+         * the encoding of all other chunks gets cancelled, as the save is going to be abandoned.
+         *
+         * @return the encoded and compressed chunk
+         * @throws IOException if the save thread got interrupted while waiting
+         */
+        public byte[] get(Vector3i chunkPos) throws IOException {
+            try {
+                return pending.get(chunkPos).get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for chunk " + chunkPos + " to be encoded", e);
+            } catch (CancellationException e) {
+                throw new IOException("Encoding of chunk " + chunkPos + " got cancelled", e);
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Failed to encode chunk " + chunkPos, e.getCause());
+            }
+        }
+
+        /**
+         * Cancels the encoding of all chunks which haven't been encoded yet, e.g. because the save failed.
+         */
+        public void cancel() {
+            for (Future<byte[]> future : pending.values()) {
+                future.cancel(false);
+            }
+        }
+
+        public int size() {
+            return pending.size();
+        }
+    }
+}
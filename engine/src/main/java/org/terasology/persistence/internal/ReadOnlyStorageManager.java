@@ -21,6 +21,7 @@
 import org.terasology.module.ModuleEnvironment;
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
+import org.terasology.world.WorldChangeListener;
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
@@ -36,7 +37,7 @@ public final class ReadOnlyStorageManager extends AbstractStorageManager {
 
     public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                   BlockManager blockManager, BiomeManager biomeManager) {
-        this(savePath, environment, entityManager, blockManager, biomeManager, true);
+        this(savePath, environment, entityManager, blockManager, biomeManager, ChunkStorageFormat.REGION_FILES);
     }
 
     public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
@@ -44,6 +45,12 @@ public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, Engi
         super(savePath, environment, entityManager, blockManager, biomeManager, storeChunksInZips);
     }
 
+    public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
+                                  BlockManager blockManager, BiomeManager biomeManager,
+                                  ChunkStorageFormat chunkStorageFormat) {
+        super(savePath, environment, entityManager, blockManager, biomeManager, chunkStorageFormat);
+    }
+
     @Override
     public void finishSavingAndShutdown() {
         // don't care
@@ -66,6 +73,26 @@ public void deactivateChunk(Chunk chunk) {
         entitiesOfChunk.forEach(this::deactivateOrDestroyEntityRecursive);
     }
 
+    @Override
+    public boolean storeGeneratedChunk(Chunk chunk) {
+        return false;
+    }
+
+    @Override
+    public void flushGeneratedChunks() {
+        // don't care
+    }
+
+    @Override
+    public WorldChangeListener getWorldJournal() {
+        return null;
+    }
+
+    @Override
+    public void restoreJournaledChanges(Chunk chunk) {
+        // nothing got journaled
+    }
+
     @Override
     public void update() {
     }
@@ -17,6 +17,7 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
@@ -54,6 +55,7 @@
 import org.terasology.utilities.concurrency.ShutdownTask;
 import org.terasology.utilities.concurrency.Task;
 import org.terasology.utilities.concurrency.TaskMaster;
+import org.terasology.world.WorldChangeListener;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.biomes.BiomeManager;
@@ -69,10 +71,12 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -96,8 +100,18 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     private final ReadWriteLock worldDirectoryLock = new ReentrantReadWriteLock(true);
     private final Lock worldDirectoryReadLock = worldDirectoryLock.readLock();
     private final Lock worldDirectoryWriteLock = worldDirectoryLock.writeLock();
+    private final ParallelChunkEncoder chunkEncoder = new ParallelChunkEncoder();
     private SaveTransaction saveTransaction;
     private Config config;
+    private WorldJournal worldJournal;
+    /**
+     * The first journal segment that is still needed once the running save transaction completes
+     */
+    private long journalSegmentOfSave;
+    /**
+     * The positions of the chunks the running save transaction includes
+     */
+    private Set<Vector3i> chunksOfSave = Collections.emptySet();
 
     /**
      * Time of the next save in the format that {@link System#currentTimeMillis()} returns.
@@ -124,21 +138,30 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                    BlockManager blockManager, BiomeManager biomeManager, RecordAndReplaySerializer recordAndReplaySerializer,
                                    RecordAndReplayUtils recordAndReplayUtils, RecordAndReplayCurrentStatus recordAndReplayCurrentStatus) throws IOException {
-        this(savePath, environment, entityManager, blockManager, biomeManager, true, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
+        this(savePath, environment, entityManager, blockManager, biomeManager, ChunkStorageFormat.REGION_FILES, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
     }
 
     ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                    BlockManager blockManager, BiomeManager biomeManager, boolean storeChunksInZips,
                                    RecordAndReplaySerializer recordAndReplaySerializer, RecordAndReplayUtils recordAndReplayUtils,
                             RecordAndReplayCurrentStatus recordAndReplayCurrentStatus) throws IOException {
-        super(savePath, environment, entityManager, blockManager, biomeManager, storeChunksInZips);
+        this(savePath, environment, entityManager, blockManager, biomeManager,
+                storeChunksInZips ? ChunkStorageFormat.ZIPS : ChunkStorageFormat.SEPARATE_FILES,
+                recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
+    }
+
+    ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
+                            BlockManager blockManager, BiomeManager biomeManager, ChunkStorageFormat chunkStorageFormat,
+                            RecordAndReplaySerializer recordAndReplaySerializer, RecordAndReplayUtils recordAndReplayUtils,
+                            RecordAndReplayCurrentStatus recordAndReplayCurrentStatus) throws IOException {
+        super(savePath, environment, entityManager, blockManager, biomeManager, chunkStorageFormat);
 
         entityManager.subscribeForDestruction(this);
         entityManager.subscribeForChanges(this);
         // TODO Ensure that the component library and the type serializer library are thread save (e.g. immutable)
         this.privateEntityManager = createPrivateEntityManager(entityManager.getComponentLibrary());
         Files.createDirectories(getStoragePathProvider().getStoragePathDirectory());
-        this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider());
+        this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider(), getChunkRegionStorage());
         this.saveThreadManager = TaskMaster.createFIFOTaskMaster("Saving", 1);
         this.config = CoreRegistry.get(Config.class);
         this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
@@ -147,7 +170,9 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
         this.recordAndReplaySerializer = recordAndReplaySerializer;
         this.recordAndReplayUtils = recordAndReplayUtils;
         this.recordAndReplayCurrentStatus = recordAndReplayCurrentStatus;
-
+        if (config != null && config.getSystem().isWorldJournalEnabled()) {
+            this.worldJournal = WorldJournal.open(getStoragePathProvider().getJournalPath(), blockManager, biomeManager);
+        }
     }
 
     private static EngineEntityManager createPrivateEntityManager(ComponentLibrary componentLibrary) {
@@ -164,6 +189,10 @@ public void finishSavingAndShutdown() {
         }
         saveThreadManager.shutdown(new ShutdownTask(), true);
         checkSaveTransactionAndClearUpIfItIsDone();
+        getChunkRegionStorage().close();
+        if (worldJournal != null) {
+            worldJournal.close();
+        }
     }
 
     private void checkSaveTransactionAndClearUpIfItIsDone() {
@@ -174,7 +203,11 @@ private void checkSaveTransactionAndClearUpIfItIsDone() {
                 if (t != null) {
                     throw new RuntimeException("Saving failed", t);
                 }
+                if (worldJournal != null) {
+                    worldJournal.checkpoint(journalSegmentOfSave, chunksOfSave);
+                }
                 saveTransaction = null;
+                chunksOfSave = Collections.emptySet();
             }
             unloadedAndSavingChunkMap.clear();
         }
@@ -213,8 +246,12 @@ protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
         }
     }
 
-    private void addChunksToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder,
-                                            ChunkProvider chunkProvider) {
+    /**
+     * @return the positions of the chunks added to the save transaction
+     */
+    private Set<Vector3i> addChunksToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder,
+                                                     ChunkProvider chunkProvider) {
+        Set<Vector3i> savedChunks = Sets.newHashSet();
         unloadedAndSavingChunkMap.clear();
         /*
          * New entries might be added concurrently. By using putAll + clear to transfer entries we might loose new
@@ -233,11 +270,14 @@ private void addChunksToSaveTransaction(SaveTransactionBuilder saveTransactionBu
             unloadedAndSavingChunkMap.remove(chunk.getPosition());
             ChunkImpl chunkImpl = (ChunkImpl) chunk;  // this storage manager can only work with ChunkImpls
             saveTransactionBuilder.addLoadedChunk(chunk.getPosition(), chunkImpl);
+            savedChunks.add(chunk.getPosition());
         });
 
         for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : unloadedAndSavingChunkMap.entrySet()) {
             saveTransactionBuilder.addUnloadedChunk(entry.getKey(), entry.getValue());
+            savedChunks.add(entry.getKey());
         }
+        return savedChunks;
     }
 
     @Override
@@ -263,14 +303,19 @@ private void waitForCompletionOfPreviousSave() {
     }
 
     private SaveTransaction createSaveTransaction() {
+        if (worldJournal != null) {
+            // Changes made from now on are not part of the snapshot
+            journalSegmentOfSave = worldJournal.startNewSegment();
+        }
         SaveTransactionBuilder saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager,
-                entitySetDeltaRecorder, isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock,
+                entitySetDeltaRecorder, getChunkStorageFormat(), getStoragePathProvider(), getChunkRegionStorage(),
+                chunkEncoder, worldDirectoryWriteLock,
                 recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
 
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
         NetworkSystem networkSystem = CoreRegistry.get(NetworkSystem.class);
 
-        addChunksToSaveTransaction(saveTransactionBuilder, chunkProvider);
+        chunksOfSave = addChunksToSaveTransaction(saveTransactionBuilder, chunkProvider);
         addPlayersToSaveTransaction(saveTransactionBuilder, networkSystem);
         addGlobalStoreBuilderToSaveTransaction(saveTransactionBuilder);
         addGameManifestToSaveTransaction(saveTransactionBuilder);
@@ -333,6 +378,55 @@ public void deactivateChunk(Chunk chunk) {
         entitiesOfChunk.forEach(this::deactivateOrDestroyEntityRecursive);
     }
 
+    @Override
+    public boolean storeGeneratedChunk(Chunk chunk) throws IOException {
+        if (getChunkStorageFormat() != ChunkStorageFormat.REGION_FILES) {
+            // The other formats can only be written as a whole by a save transaction
+            return false;
+        }
+        byte[] encodedChunk = new CompressedChunkBuilder(EntityData.EntityStore.getDefaultInstance(), (ChunkImpl) chunk,
+                false).buildEncodedChunk();
+        worldDirectoryWriteLock.lock();
+        try {
+            // The world may have loaded or stored the chunk since the caller checked, and its version takes precedence
+            if (!containsChunk(chunk.getPosition()) && !isChunkLoaded(chunk.getPosition())) {
+                getChunkRegionStorage().store(chunk.getPosition(), encodedChunk);
+            }
+        } finally {
+            worldDirectoryWriteLock.unlock();
+        }
+        return true;
+    }
+
+    private boolean isChunkLoaded(Vector3i chunkPos) {
+        ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
+        return chunkProvider != null && chunkProvider.getChunk(chunkPos) != null;
+    }
+
+    @Override
+    public void flushGeneratedChunks() throws IOException {
+        if (getChunkStorageFormat() == ChunkStorageFormat.REGION_FILES) {
+            worldDirectoryWriteLock.lock();
+            try {
+                getChunkRegionStorage().flush();
+            } finally {
+                worldDirectoryWriteLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public WorldChangeListener getWorldJournal() {
+        return worldJournal;
+    }
+
+    @Override
+    public void restoreJournaledChanges(Chunk chunk) {
+        if (worldJournal != null) {
+            worldJournal.restoreChanges(chunk);
+        }
+    }
+
     @Override
     protected byte[] loadCompressedChunk(Vector3i chunkPos) {
         CompressedChunkBuilder disposedUnsavedChunk = unloadedAndUnsavedChunkMap.get(chunkPos);
@@ -489,6 +583,14 @@ public void checkAndRepairSaveIfNecessary() throws IOException {
         if (Files.exists(getStoragePathProvider().getUnmergedChangesPath())) {
             saveTransactionHelper.mergeChanges();
         }
+        if (getChunkStorageFormat() == ChunkStorageFormat.REGION_FILES) {
+            worldDirectoryWriteLock.lock();
+            try {
+                getChunkRegionStorage().migrateLegacyChunks();
+            } finally {
+                worldDirectoryWriteLock.unlock();
+            }
+        }
     }
 
 
@@ -499,9 +601,15 @@ public void deleteWorld() {
         unloadedAndSavingChunkMap.clear();
         unloadedAndUnsavedPlayerMap.clear();
         unloadedAndSavingPlayerMap.clear();
+        getChunkRegionStorage().close();
+        if (worldJournal != null) {
+            worldJournal.close();
+            worldJournal = null;
+        }
 
         try {
             FilesUtil.recursiveDelete(getStoragePathProvider().getWorldPath());
+            FilesUtil.recursiveDelete(getStoragePathProvider().getJournalPath());
         } catch (IOException e) {
             logger.error("Failed to purge chunks", e);
         }
@@ -25,9 +25,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.game.GameManifest;
-import org.terasology.logic.location.LocationComponent;
-import org.terasology.math.ChunkMath;
-import org.terasology.math.geom.Vector3f;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.ClientComponent;
 import org.terasology.protobuf.EntityData;
@@ -87,10 +85,13 @@ public class SaveTransaction extends AbstractTask {
     private EntityData.GlobalStore globalStore;
     private Map<String, EntityData.PlayerStore> allPlayers;
     private Map<Vector3i, CompressedChunkBuilder> allChunks;
+    private ParallelChunkEncoder.EncodedChunks encodedChunks;
 
 
     // Save parameters:
-    private final boolean storeChunksInZips;
+    private final ChunkStorageFormat chunkStorageFormat;
+    private final ChunkRegionStorage chunkRegionStorage;
+    private final ParallelChunkEncoder chunkEncoder;
 
     // utility classes for saving:
     private final StoragePathProvider storagePathProvider;
@@ -106,8 +107,9 @@ public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaR
                            Map<String, EntityData.PlayerStore> unloadedPlayers,
                            Map<String, PlayerStoreBuilder> loadedPlayers, GlobalStoreBuilder globalStoreBuilder,
                            Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
-                           GameManifest gameManifest, boolean storeChunksInZips,
-                           StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock,
+                           GameManifest gameManifest, ChunkStorageFormat chunkStorageFormat,
+                           StoragePathProvider storagePathProvider, ChunkRegionStorage chunkRegionStorage,
+                           ParallelChunkEncoder chunkEncoder, Lock worldDirectoryWriteLock,
                            RecordAndReplaySerializer recordAndReplaySerializer,
                            RecordAndReplayUtils recordAndReplayUtils,
                            RecordAndReplayCurrentStatus recordAndReplayCurrentStatus) {
@@ -119,9 +121,11 @@ public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaR
         this.loadedChunks = loadedChunks;
         this.globalStoreBuilder = globalStoreBuilder;
         this.gameManifest = gameManifest;
-        this.storeChunksInZips = storeChunksInZips;
+        this.chunkStorageFormat = chunkStorageFormat;
         this.storagePathProvider = storagePathProvider;
-        this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
+        this.chunkRegionStorage = chunkRegionStorage;
+        this.chunkEncoder = chunkEncoder;
+        this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider, chunkRegionStorage);
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
         this.recordAndReplaySerializer = recordAndReplaySerializer;
         this.recordAndReplayUtils = recordAndReplayUtils;
@@ -147,6 +151,8 @@ public void run() {
             saveTransactionHelper.cleanupSaveTransactionDirectory();
             applyDeltaToPrivateEntityManager();
             prepareChunksPlayersAndGlobalStore();
+            // The chunks get encoded by the workers of the chunk encoder while the other stores get written
+            encodedChunks = chunkEncoder.encode(allChunks);
             createSaveTransactionDirectory();
             writePlayerStores();
             writeGlobalStore();
@@ -154,11 +160,15 @@ public void run() {
             saveGameManifest();
             perpareChangesForMerge();
             mergeChanges();
+            compactChunkRegions();
             result = SaveTransactionResult.createSuccessResult();
             logger.info("Save game finished");
             saveRecordingData();
         } catch (IOException | RuntimeException t) {
             logger.error("Save game creation failed", t);
+            if (encodedChunks != null) {
+                encodedChunks.cancel();
+            }
             result = SaveTransactionResult.createFailureResult(t);
         }
     }
@@ -213,15 +223,10 @@ private void prepareChunksPlayersAndGlobalStore() {
      *                        This method removes entities it saves.
      */
     private void prepareCompressedChunkBuilders(Set<EntityRef> unsavedEntities) {
-        Map<Vector3i, Collection<EntityRef>> chunkPosToEntitiesMap = createChunkPosToUnsavedOwnerLessEntitiesMap();
-
         allChunks = Maps.newHashMap();
         allChunks.putAll(unloadedChunks);
         for (Map.Entry<Vector3i, ChunkImpl> chunkEntry : loadedChunks.entrySet()) {
-            Collection<EntityRef> entitiesToStore = chunkPosToEntitiesMap.get(chunkEntry.getKey());
-            if (entitiesToStore == null) {
-                entitiesToStore = Collections.emptySet();
-            }
+            Collection<EntityRef> entitiesToStore = getUnsavedOwnerLessEntitiesOfChunk(chunkEntry.getKey());
             ChunkImpl chunk = chunkEntry.getValue();
             unsavedEntities.removeAll(entitiesToStore);
             CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(privateEntityManager, chunk,
@@ -251,29 +256,19 @@ private void preparePlayerStores(Set<EntityRef> unsavedEntities) {
         }
     }
 
-    private Map<Vector3i, Collection<EntityRef>> createChunkPosToUnsavedOwnerLessEntitiesMap() {
-        Map<Vector3i, Collection<EntityRef>> chunkPosToEntitiesMap = Maps.newHashMap();
-        for (EntityRef entity : privateEntityManager.getEntitiesWith(LocationComponent.class)) {
+    private Collection<EntityRef> getUnsavedOwnerLessEntitiesOfChunk(Vector3i chunkPos) {
+        List<EntityRef> entities = Lists.newArrayList();
+        for (EntityRef entity : privateEntityManager.getEntitiesInChunks(Region3i.createFromMinMax(chunkPos, chunkPos))) {
             /*
              * Note: Entities with owners get saved with the owner. Entities that are always relevant don't get stored
              * in chunk as the chunk is not always loaded
              */
             if (entity.isPersistent() && !entity.getOwner().exists() && !entity.hasComponent(ClientComponent.class)
                     && !entity.isAlwaysRelevant()) {
-                LocationComponent locationComponent = entity.getComponent(LocationComponent.class);
-                if (locationComponent != null) {
-                    Vector3f loc = locationComponent.getWorldPosition();
-                    Vector3i chunkPos = ChunkMath.calcChunkPos((int) loc.x, (int) loc.y, (int) loc.z);
-                    Collection<EntityRef> collection = chunkPosToEntitiesMap.get(chunkPos);
-                    if (collection == null) {
-                        collection = Lists.newArrayList();
-                        chunkPosToEntitiesMap.put(chunkPos, collection);
-                    }
-                    collection.add(entity);
-                }
+                entities.add(entity);
             }
         }
-        return chunkPosToEntitiesMap;
+        return entities;
     }
 
 
@@ -397,10 +392,13 @@ private void writeGlobalStore() throws IOException {
     private void writeChunkStores() throws IOException {
         Path chunksPath = storagePathProvider.getWorldTempPath();
         Files.createDirectories(chunksPath);
-        if (storeChunksInZips) {
+        if (chunkStorageFormat == ChunkStorageFormat.REGION_FILES) {
+            // Become visible when the changes get merged, see SaveTransactionHelper.mergeChanges()
+            chunkRegionStorage.appendChunks(encodedChunks.getPositions(), encodedChunks::get,
+                    storagePathProvider.getChunkRegionUpdatesTempPath());
+        } else if (chunkStorageFormat == ChunkStorageFormat.ZIPS) {
             Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
+            for (Vector3i chunkPos : encodedChunks.getPositions()) {
                 Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
                 FileSystem zip = newChunkZips.get(chunkZipPos);
                 if (zip == null) {
@@ -410,8 +408,7 @@ private void writeChunkStores() throws IOException {
                     newChunkZips.put(chunkZipPos, zip);
                 }
                 Path chunkPath = zip.getPath(storagePathProvider.getChunkFilename(chunkPos));
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
+                byte[] compressedChunk = encodedChunks.get(chunkPos);
                 try (BufferedOutputStream bos = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
                     bos.write(compressedChunk);
                 }
@@ -440,10 +437,8 @@ public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
                 zip.close();
             }
         } else {
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
+            for (Vector3i chunkPos : encodedChunks.getPositions()) {
+                byte[] compressedChunk = encodedChunks.get(chunkPos);
                 Path chunkPath = storagePathProvider.getChunkTempPath(chunkPos);
                 try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
                     out.write(compressedChunk);
@@ -478,4 +473,18 @@ private void mergeChanges() throws IOException {
         }
     }
 
+    /**
+     * The save is already complete at this point, so a failed compaction only leaves some unused space behind.
+     */
+    private void compactChunkRegions() {
+        if (chunkStorageFormat != ChunkStorageFormat.REGION_FILES) {
+            return;
+        }
+        try {
+            chunkRegionStorage.compact(worldDirectoryWriteLock);
+        } catch (IOException e) {
+            logger.error("Failed to compact chunk region files", e);
+        }
+    }
+
 }
@@ -41,22 +41,27 @@ class SaveTransactionBuilder {
     private Map<Vector3i, CompressedChunkBuilder> unloadedChunks = Maps.newHashMap();
     private Map<Vector3i, ChunkImpl> loadedChunks = Maps.newHashMap();
     private GlobalStoreBuilder globalStoreBuilder;
-    private final boolean storeChunksInZips;
+    private final ChunkStorageFormat chunkStorageFormat;
     private final StoragePathProvider storagePathProvider;
+    private final ChunkRegionStorage chunkRegionStorage;
+    private final ParallelChunkEncoder chunkEncoder;
     private GameManifest gameManifest;
     private RecordAndReplaySerializer recordAndReplaySerializer;
     private RecordAndReplayUtils recordAndReplayUtils;
     private RecordAndReplayCurrentStatus recordAndReplayCurrentStatus;
 
     SaveTransactionBuilder(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
-                           boolean storeChunksInZips, StoragePathProvider storagePathProvider,
+                           ChunkStorageFormat chunkStorageFormat, StoragePathProvider storagePathProvider,
+                           ChunkRegionStorage chunkRegionStorage, ParallelChunkEncoder chunkEncoder,
                            Lock worldDirectoryWriteLock, RecordAndReplaySerializer recordAndReplaySerializer,
                            RecordAndReplayUtils recordAndReplayUtils,
                            RecordAndReplayCurrentStatus recordAndReplayCurrentStatus) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
-        this.storeChunksInZips = storeChunksInZips;
+        this.chunkStorageFormat = chunkStorageFormat;
         this.storagePathProvider = storagePathProvider;
+        this.chunkRegionStorage = chunkRegionStorage;
+        this.chunkEncoder = chunkEncoder;
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
         this.recordAndReplaySerializer = recordAndReplaySerializer;
         this.recordAndReplayUtils = recordAndReplayUtils;
@@ -86,8 +91,8 @@ void addLoadedChunk(final Vector3i chunkPosition, final ChunkImpl chunk) {
 
     public SaveTransaction build() {
         return new SaveTransaction(privateEntityManager, deltaToSave, unloadedPlayers, loadedPlayers, globalStoreBuilder,
-                unloadedChunks, loadedChunks, gameManifest, storeChunksInZips, storagePathProvider,
-                worldDirectoryWriteLock, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
+                unloadedChunks, loadedChunks, gameManifest, chunkStorageFormat, storagePathProvider,
+                chunkRegionStorage, chunkEncoder, worldDirectoryWriteLock, recordAndReplaySerializer, recordAndReplayUtils, recordAndReplayCurrentStatus);
 
     }
 
@@ -35,9 +35,11 @@
 public class SaveTransactionHelper {
     private static final Logger logger = LoggerFactory.getLogger(SaveTransactionHelper.class);
     private final StoragePathProvider storagePathProvider;
+    private final ChunkRegionStorage chunkRegionStorage;
 
-    public SaveTransactionHelper(StoragePathProvider storagePathProvider) {
+    public SaveTransactionHelper(StoragePathProvider storagePathProvider, ChunkRegionStorage chunkRegionStorage) {
         this.storagePathProvider = storagePathProvider;
+        this.chunkRegionStorage = chunkRegionStorage;
     }
 
     public void cleanupSaveTransactionDirectory() throws IOException {
@@ -64,12 +66,20 @@ public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOEx
      * Merges all outstanding changes into the save game. If this operation gets interrupted it can be started again
      * without any file corruption when the file system supports atomic moves.
      * <br><br>
+     * The chunks a save appended to the region files are made visible first. They get only removed from the unmerged
+     * changes once the region files have been flushed, so an interrupted merge just does that again.
+     * <br><br>
      * The write lock for the save directory should be acquired before this method gets called.
      */
     public void mergeChanges() throws IOException {
         final Path sourceDirectory = storagePathProvider.getUnmergedChangesPath();
         final Path targetDirectory = storagePathProvider.getStoragePathDirectory();
 
+        Path chunkRegionUpdates = storagePathProvider.getChunkRegionUpdatesPath();
+        if (Files.isDirectory(chunkRegionUpdates)) {
+            chunkRegionStorage.mergeChunks(chunkRegionUpdates);
+        }
+
         Files.walkFileTree(sourceDirectory, new SimpleFileVisitor<Path>() {
             boolean atomicNotPossibleLogged;
 
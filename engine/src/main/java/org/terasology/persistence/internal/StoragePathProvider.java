@@ -30,7 +30,12 @@ public class StoragePathProvider {
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
     private static final String UNFINISHED_SAVE_TRANSACTION = "unfinished-save-transaction";
     private static final String UNMERGED_CHANGED = "unmerged-changes";
+    private static final String CHUNK_REGION_UPDATES = "region-updates";
+    private static final String JOURNAL_PATH = "journal";
+    private static final String CHUNK_EXTENSION = ".chunk";
+    private static final String CHUNK_ZIP_EXTENSION = ".chunks.zip";
     private static final int CHUNK_ZIP_DIM = 32;
+    private static final int CHUNK_REGION_DIM = 16;
 
     private final Path storagePathDirectory;
     private final Path playersPath;
@@ -39,6 +44,7 @@ public class StoragePathProvider {
     private Path globalEntityStorePath;
     private Path unfinishedSaveTransactionPath;
     private Path unmergedChangesPath;
+    private Path journalPath;
 
 
     public StoragePathProvider(Path storagePathDirectory) {
@@ -49,6 +55,7 @@ public StoragePathProvider(Path storagePathDirectory) {
         this.globalEntityStorePath = storagePathDirectory.resolve(GLOBAL_ENTITY_STORE);
         this.unfinishedSaveTransactionPath = storagePathDirectory.resolve(UNFINISHED_SAVE_TRANSACTION);
         this.unmergedChangesPath = storagePathDirectory.resolve(UNMERGED_CHANGED);
+        this.journalPath = storagePathDirectory.resolve(JOURNAL_PATH);
     }
 
 
@@ -99,12 +106,38 @@ public Path getGlobalEntityStoreTempPath() {
     }
 
     public String getChunkFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
+        return String.format("%d.%d.%d" + CHUNK_EXTENSION, pos.x, pos.y, pos.z);
     }
 
+    /**
+     * @return the chunk position encoded in a file name created by {@link #getChunkFilename(Vector3i)}, or null if
+     * the file name is not the name of a chunk file.
+     */
+    public Vector3i getChunkPositionFromFilename(String filename) {
+        if (!filename.endsWith(CHUNK_EXTENSION)) {
+            return null;
+        }
+        String[] parts = filename.substring(0, filename.length() - CHUNK_EXTENSION.length()).split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new Vector3i(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isChunkZipFilename(String filename) {
+        return filename.endsWith(CHUNK_ZIP_EXTENSION);
+    }
 
     private String getChunkZipFilename(Vector3i pos) {
-        return String.format("%d.%d.%d.chunks.zip", pos.x, pos.y, pos.z);
+        return String.format("%d.%d.%d" + CHUNK_ZIP_EXTENSION, pos.x, pos.y, pos.z);
+    }
+
+    private String getChunkRegionFilename(Vector3i pos) {
+        return String.format("%d.%d.%d.chunks.region", pos.x, pos.y, pos.z);
     }
 
     public Vector3i getChunkZipPosition(Vector3i chunkPos) {
@@ -122,6 +155,47 @@ public Vector3i getChunkZipPosition(Vector3i chunkPos) {
         return result;
     }
 
+    public Vector3i getChunkRegionPosition(Vector3i chunkPos) {
+        return new Vector3i(Math.floorDiv(chunkPos.x, CHUNK_REGION_DIM), Math.floorDiv(chunkPos.y, CHUNK_REGION_DIM),
+                Math.floorDiv(chunkPos.z, CHUNK_REGION_DIM));
+    }
+
+    /**
+     * @return the number of chunks that get stored in a single region file.
+     */
+    public int getChunkRegionSize() {
+        return CHUNK_REGION_DIM * CHUNK_REGION_DIM * CHUNK_REGION_DIM;
+    }
+
+    /**
+     * @return the index of the chunk within the region file given by {@link #getChunkRegionPosition(Vector3i)}.
+     */
+    public int getChunkRegionIndex(Vector3i chunkPos) {
+        int x = Math.floorMod(chunkPos.x, CHUNK_REGION_DIM);
+        int y = Math.floorMod(chunkPos.y, CHUNK_REGION_DIM);
+        int z = Math.floorMod(chunkPos.z, CHUNK_REGION_DIM);
+        return x + CHUNK_REGION_DIM * (y + CHUNK_REGION_DIM * z);
+    }
+
+    public Path getChunkRegionPath(Vector3i chunkRegionPos) {
+        return worldPath.resolve(getChunkRegionFilename(chunkRegionPos));
+    }
+
+    /**
+     * @return the directory in which a save transaction records where it appended its chunks to the region files.
+     */
+    public Path getChunkRegionUpdatesTempPath() {
+        return unfinishedSaveTransactionPath.resolve(CHUNK_REGION_UPDATES);
+    }
+
+    /**
+     * @return the directory with the appended chunks of a finished save transaction that still need to be made
+     * visible in the region files.
+     */
+    public Path getChunkRegionUpdatesPath() {
+        return unmergedChangesPath.resolve(CHUNK_REGION_UPDATES);
+    }
+
     public Path getChunkPath(Vector3i chunkPos) {
         return worldPath.resolve(getChunkFilename(chunkPos));
     }
@@ -143,6 +217,13 @@ public Path getUnmergedChangesPath() {
         return unmergedChangesPath;
     }
 
+    /**
+     * @return the directory with the segments of the journal of the changes made to the world since the last save.
+     */
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
     public Path getStoragePathDirectory() {
         return storagePathDirectory;
     }
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.Chunk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the block and biome changes made to the world since the last save, so that they survive a
+ * crash without having to save more often.
+ * <br><br>
+ * Changes get queued by the thread that makes them and written by a background thread, which syncs the journal to the
+ * disk once for all changes that came in while it was busy with the previous ones (group commit). Every record is
+ * prefixed with its length and CRC32 checksum, so that a record which was only partially written when the game
+ * crashed gets detected and ignored together with everything after it.
+ * <br><br>
+ * The journal is split into numbered segments. Starting a save starts a new segment, and the segments before it get
+ * deleted once the save completed, as they only contain changes that the save includes. When the journal is opened,
+ * the changes of the segments that are left get replayed onto their chunks as these get loaded or generated, see
+ * {@link #restoreChanges(Chunk)}. Replayed changes are carried over into every new segment until their position
+ * changes again or a completed save included their restored chunk, as their chunk might not be part of the next save.
+ * <br><br>
+ * Changes to entities are not journaled and only get persisted by saving. They happen far more often than block
+ * changes, e.g. whenever anything moves, and restoring them would need a consistent state of all entities that refer
+ * to each other, which separate changes of single components don't provide.
+ */
+class WorldJournal implements WorldChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(WorldJournal.class);
+    private static final String SEGMENT_EXTENSION = ".journal";
+    private static final byte BLOCK_CHANGE = 1;
+    private static final byte BIOME_CHANGE = 2;
+    private static final int MAX_RECORD_LENGTH = 1 << 16;
+    private static final Object STOP = new Object();
+
+    private final Path directory;
+    private final BlockManager blockManager;
+    private final BiomeManager biomeManager;
+
+    /**
+     * Contains encoded records, and {@link JournalTask}s that have to be run in order with them.
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean stopped;
+
+    private final ConcurrentMap<Change, Change> replayedChanges = Maps.newConcurrentMap();
+    private final ConcurrentMap<Vector3i, List<Change>> unrestoredChanges = Maps.newConcurrentMap();
+    private final AtomicLong latestSegment = new AtomicLong();
+
+    /**
+     * Only used by the writer thread
+     */
+    private FileChannel channel;
+    private OutputStream out;
+    private boolean unsynced;
+
+    private WorldJournal(Path directory, BlockManager blockManager, BiomeManager biomeManager) {
+        this.directory = directory;
+        this.blockManager = blockManager;
+        this.biomeManager = biomeManager;
+        this.writerThread = new Thread(this::writeRecords, "World-Journal");
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Reads the changes left in the journal for replaying them and starts a new segment that only contains the
+     * changes which are still needed.
+     */
+    static WorldJournal open(Path directory, BlockManager blockManager, BiomeManager biomeManager) throws IOException {
+        WorldJournal journal = new WorldJournal(directory, blockManager, biomeManager);
+        Files.createDirectories(directory);
+        NavigableMap<Long, Path> segments = journal.listSegments();
+        for (Path segmentPath : segments.values()) {
+            journal.replaySegment(segmentPath);
+        }
+        for (Change change : journal.replayedChanges.keySet()) {
+            journal.unrestoredChanges.computeIfAbsent(change.getChunkPos(), k -> Lists.newArrayList()).add(change);
+        }
+        if (!journal.replayedChanges.isEmpty()) {
+            logger.info("Restoring {} changes to the world that were made after the last save", journal.replayedChanges.size());
+        }
+        long firstSegment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        journal.latestSegment.set(firstSegment);
+        journal.startSegment(firstSegment, journal.replayedChanges.keySet());
+        journal.sync();
+        journal.deleteSegmentsBefore(firstSegment);
+        journal.writerThread.start();
+        return journal;
+    }
+
+    @Override
+    public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
+        record(new Change(BLOCK_CHANGE, pos, newBlock.getURI().toString()));
+    }
+
+    @Override
+    public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
+        record(new Change(BIOME_CHANGE, pos, newBiome.getId()));
+    }
+
+    private void record(Change change) {
+        if (stopped) {
+            return;
+        }
+        if (!replayedChanges.isEmpty()) {
+            replayedChanges.remove(change);
+        }
+        queue.add(change.encode());
+    }
+
+    /**
+     * Applies the replayed changes to the chunk, if it has any. Must be called before the chunk becomes part of the
+     * world, i.e. before anything else can change it.
+     */
+    void restoreChanges(Chunk chunk) {
+        List<Change> changes = unrestoredChanges.remove(chunk.getPosition());
+        if (changes == null) {
+            return;
+        }
+        for (Change change : changes) {
+            Vector3i blockPos = ChunkMath.calcBlockPos(change.x, change.y, change.z);
+            if (change.type == BLOCK_CHANGE) {
+                Block block = blockManager.getBlock(change.uri);
+                if (block != null) {
+                    chunk.setBlock(blockPos, block);
+                } else {
+                    logger.warn("Unable to restore unknown block {} at ({}, {}, {})", change.uri, change.x, change.y, change.z);
+                }
+            } else {
+                Biome biome = biomeManager.getBiomeById(change.uri);
+                if (biome != null) {
+                    chunk.setBiome(blockPos, biome);
+                } else {
+                    logger.warn("Unable to restore unknown biome {} at ({}, {}, {})", change.uri, change.x, change.y, change.z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment for the changes made from now on. Has to be called when the snapshot of a save is taken.
+     *
+     * @return the number of the new segment, see {@link #checkpoint(long)}
+     */
+    long startNewSegment() {
+        long newSegment = latestSegment.incrementAndGet();
+        queue.add(new StartSegment(newSegment, Lists.newArrayList(replayedChanges.keySet())));
+        return newSegment;
+    }
+
+    /**
+     * Deletes the segments before the given one, once the save that got started together with it has completed. The
+     * replayed changes of the chunks the save included are no longer needed either, as the chunks got restored before
+     * they became part of the world.
+     *
+     * @param savedChunks the positions of the chunks the save included
+     */
+    void checkpoint(long firstNeededSegment, Set<Vector3i> savedChunks) {
+        if (!replayedChanges.isEmpty() && !savedChunks.isEmpty()) {
+            replayedChanges.keySet().removeIf(change -> {
+                Vector3i chunkPos = change.getChunkPos();
+                return savedChunks.contains(chunkPos) && !unrestoredChanges.containsKey(chunkPos);
+            });
+        }
+        queue.add((JournalTask) () -> deleteSegmentsBefore(firstNeededSegment));
+    }
+
+    /**
+     * Writes all queued changes and stops the writer thread.
+     */
+    void close() {
+        stopped = true;
+        queue.add(STOP);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRecords() {
+        List<Object> batch = Lists.newArrayList();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object entry : batch) {
+                    if (entry == STOP) {
+                        sync();
+                        closeSegment();
+                        return;
+                    } else if (entry instanceof JournalTask) {
+                        ((JournalTask) entry).run();
+                    } else {
+                        writeRecord((byte[]) entry);
+                    }
+                }
+                batch.clear();
+                sync();
+            }
+        } catch (IOException e) {
+            stopped = true;
+            queue.clear();
+            logger.error("Failed to write the world journal, changes will only be persisted by saving", e);
+        } catch (InterruptedException e) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRecord(byte[] record) throws IOException {
+        out.write(record);
+        unsynced = true;
+    }
+
+    private void sync() throws IOException {
+        if (unsynced) {
+            out.flush();
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    private void startSegment(long newSegment, Collection<Change> carriedOverChanges) throws IOException {
+        sync();
+        closeSegment();
+        channel = FileChannel.open(getSegmentPath(newSegment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        for (Change change : carriedOverChanges) {
+            writeRecord(change.encode());
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            out.flush();
+            channel.close();
+            channel = null;
+            out = null;
+        }
+    }
+
+    private void deleteSegmentsBefore(long firstNeededSegment) throws IOException {
+        for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+            if (entry.getKey() < firstNeededSegment) {
+                Files.deleteIfExists(entry.getValue());
+            }
+        }
+    }
+
+    private NavigableMap<Long, Path> listSegments() throws IOException {
+        NavigableMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())), file);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file {} in the world journal", file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path getSegmentPath(long segmentNumber) {
+        return directory.resolve(segmentNumber + SEGMENT_EXTENSION);
+    }
+
+    private void replaySegment(Path segmentPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentPath)))) {
+            while (true) {
+                Change change = Change.decode(in);
+                if (change == null) {
+                    break;
+                }
+                // Later changes of the same position replace the earlier ones
+                replayedChanges.remove(change);
+                replayedChanges.put(change, change);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface JournalTask {
+        void run() throws IOException;
+    }
+
+    private final class StartSegment implements JournalTask {
+        private final long newSegment;
+        private final Collection<Change> carriedOverChanges;
+
+        private StartSegment(long newSegment, Collection<Change> carriedOverChanges) {
+            this.newSegment = newSegment;
+            this.carriedOverChanges = carriedOverChanges;
+        }
+
+        @Override
+        public void run() throws IOException {
+            startSegment(newSegment, carriedOverChanges);
+        }
+    }
+
+    /**
+     * A change of the block or biome at a position. Changes are equal if they change the same thing at the same
+     * position, regardless of what they change it to.
+     */
+    private static final class Change {
+        private final byte type;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final String uri;
+
+        private Change(byte type, int x, int y, int z, String uri) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.uri = uri;
+        }
+
+        private Change(byte type, Vector3i pos, String uri) {
+            this(type, pos.x, pos.y, pos.z, uri);
+        }
+
+        private Vector3i getChunkPos() {
+            return ChunkMath.calcChunkPos(x, y, z);
+        }
+
+        /**
+         * @return the record of the change: its length, the CRC32 checksum and the payload
+         */
+        private byte[] encode() {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(32 + uri.length());
+            try (DataOutputStream data = new DataOutputStream(payload)) {
+                data.writeByte(type);
+                data.writeInt(x);
+                data.writeInt(y);
+                data.writeInt(z);
+                data.writeUTF(uri);
+            } catch (IOException e) {
+                // as no real IO is involved this should not happen
+                throw new RuntimeException(e);
+            }
+            byte[] payloadBytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes);
+
+            ByteArrayOutputStream record = new ByteArrayOutputStream(payloadBytes.length + 8);
+            try (DataOutputStream data = new DataOutputStream(record)) {
+                data.writeInt(payloadBytes.length);
+                data.writeInt((int) crc.getValue());
+                data.write(payloadBytes);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return record.toByteArray();
+        }
+
+        /**
+         * @return the next change, or null if the end of the journal or a damaged record has been reached
+         */
+        private static Change decode(DataInputStream in) throws IOException {
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    return null;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return null;
+                }
+                DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = data.readByte();
+                if (type != BLOCK_CHANGE && type != BIOME_CHANGE) {
+                    return null;
+                }
+                return new Change(type, data.readInt(), data.readInt(), data.readInt(), data.readUTF());
+            } catch (EOFException e) {
+                // The game stopped while writing this record
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Change) {
+                Change other = (Change) obj;
+                return type == other.type && x == other.x && y == other.y && z == other.z;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, x, y, z);
+        }
+    }
+}
@@ -20,7 +20,6 @@
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
@@ -28,7 +27,6 @@
 import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
 import org.terasology.module.Module;
-import org.terasology.persistence.typeHandling.DeserializationContext;
 import org.terasology.persistence.typeHandling.PersistedData;
 import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
@@ -184,8 +182,6 @@ public Component deserializeOnto(Component target, EntityData.Component componen
     private <T extends Component> Component deserializeOnto(Component targetComponent, EntityData.Component componentData,
                                                             ComponentMetadata<T> componentMetadata, FieldSerializeCheck<Component> fieldCheck) {
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
-        DeserializationContext context = new ProtobufDeserializationContext(typeSerializationLibrary);
-        Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
         for (EntityData.NameValue field : componentData.getFieldList()) {
             FieldMetadata<?, ?> fieldInfo = null;
             if (field.hasNameIndex()) {
@@ -194,12 +190,13 @@ private <T extends Component> Component deserializeOnto(Component targetComponen
                 fieldInfo = componentMetadata.getField(field.getName());
             }
             if (fieldInfo != null) {
-                dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
+                if (fieldCheck.shouldDeserialize(componentMetadata, fieldInfo)) {
+                    serializer.deserializeOnto(targetComponent, fieldInfo, new ProtobufPersistedData(field.getValue()), deserializationContext);
+                }
             } else if (field.hasName()) {
                 logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
             }
         }
-        serializer.deserializeOnto(targetComponent, dataMap, context, fieldCheck);
         return targetComponent;
     }
 
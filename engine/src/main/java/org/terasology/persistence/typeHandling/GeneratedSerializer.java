@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.reflection.metadata.ClassMetadata;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+import java.util.Map;
+
+/**
+ * Base class of the serializers created by {@link SerializerGenerator}.
+ * <br><br>
+ * The type handlers are kept in an array indexed by {@link FieldMetadata#getIndex()}, and the generated subclass
+ * reads and writes the fields of the serialized type directly, so no map lookups or reflection are needed per field.
+ * Fields that don't belong to the metadata this serializer was created for are passed on to the map based
+ * implementation.
+ */
+public abstract class GeneratedSerializer extends Serializer {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedSerializer.class);
+
+    /**
+     * The fields of the serialized type by index, for the generated code to fall back on the accessors of fields it
+     * can't access directly.
+     */
+    protected final FieldMetadata[] fields;
+    private final TypeHandler[] handlers;
+
+    protected GeneratedSerializer(ClassMetadata<?, ?> classMetadata, Map<FieldMetadata<?, ?>, TypeHandler> fieldHandlers) {
+        super(classMetadata, fieldHandlers);
+        int size = 0;
+        for (FieldMetadata<?, ?> field : classMetadata.getFields()) {
+            size = Math.max(size, field.getIndex() + 1);
+        }
+        fields = new FieldMetadata[size];
+        handlers = new TypeHandler[size];
+        for (FieldMetadata<?, ?> field : classMetadata.getFields()) {
+            fields[field.getIndex()] = field;
+            handlers[field.getIndex()] = fieldHandlers.get(field);
+        }
+    }
+
+    /**
+     * @return The value of the field with the given index, boxed if it is primitive
+     */
+    protected abstract Object getFieldValue(Object target, int index);
+
+    /**
+     * Sets the field with the given index. Null values are ignored for primitive fields.
+     */
+    protected abstract void setFieldValue(Object target, int index, Object value);
+
+    private int indexOf(FieldMetadata<?, ?> field) {
+        int index = field.getIndex();
+        if (index < fields.length && (fields[index] == field || field.equals(fields[index]))) {
+            return index;
+        }
+        return -1;
+    }
+
+    @Override
+    public TypeHandler<?> getHandlerFor(FieldMetadata<?, ?> field) {
+        int index = indexOf(field);
+        if (index < 0) {
+            return super.getHandlerFor(field);
+        }
+        return handlers[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PersistedData serialize(FieldMetadata<?, ?> field, Object container, SerializationContext context) {
+        int index = indexOf(field);
+        if (index < 0) {
+            return super.serialize(field, container, context);
+        }
+        TypeHandler handler = handlers[index];
+        if (handler != null) {
+            Object rawValue = getFieldValue(container, index);
+            if (rawValue != null) {
+                return handler.serialize(rawValue, context);
+            }
+        }
+        return context.createNull();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PersistedData serializeValue(FieldMetadata<?, ?> fieldMetadata, Object rawValue, SerializationContext context) {
+        int index = indexOf(fieldMetadata);
+        if (index < 0) {
+            return super.serializeValue(fieldMetadata, rawValue, context);
+        }
+        return handlers[index].serialize(rawValue, context);
+    }
+
+    @Override
+    public void deserializeOnto(Object target, FieldMetadata<?, ?> fieldMetadata, PersistedData data, DeserializationContext context) {
+        int index = indexOf(fieldMetadata);
+        if (index < 0) {
+            super.deserializeOnto(target, fieldMetadata, data, context);
+            return;
+        }
+        TypeHandler<?> handler = handlers[index];
+        if (handler == null) {
+            logger.error("No type handler for type {} used by {}::{}", fieldMetadata.getType(), target.getClass(), fieldMetadata);
+        } else {
+            try {
+                setFieldValue(target, index, handler.deserialize(data, context));
+            } catch (DeserializationException e) {
+                logger.error("Unable to deserialize field '{}' from '{}'", fieldMetadata.getName(), data.toString(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling;
+
+import com.google.common.primitives.Primitives;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.reflection.metadata.ClassMetadata;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.utilities.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * Creates a {@link GeneratedSerializer} subclass per serialized type, which reads and writes the fields of the type
+ * directly instead of through their {@link org.terasology.reflection.reflect.FieldAccessor}.
+ * <br><br>
+ * Like the {@link org.terasology.reflection.reflect.ByteCodeReflectFactory}, the classes are compiled with javassist and
+ * defined in the package and class loader of the serialized type, so that package-private fields can be accessed too.
+ * Fields which are private, final or have a getter or setter keep using their accessor. If a class can't be
+ * generated, null is returned and the reflection based {@link Serializer} should be used instead.
+ */
+public class SerializerGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(SerializerGenerator.class);
+    private static final String CLASS_SUFFIX = "_GeneratedSerializer";
+
+    /**
+     * @return The generated serializer, or null if none could be created for the type
+     */
+    public Serializer generate(ClassMetadata<?, ?> type, Map<FieldMetadata<?, ?>, TypeHandler> fieldHandlers) {
+        Class<?> clazz = type.getType();
+        if (clazz.getClassLoader() == null) {
+            return null;
+        }
+        String className = clazz.getName() + CLASS_SUFFIX;
+        try {
+            Class<?> serializerClass;
+            try {
+                serializerClass = clazz.getClassLoader().loadClass(className);
+            } catch (ClassNotFoundException e) {
+                serializerClass = defineClass(type, className);
+            }
+            return (Serializer) serializerClass.getConstructor(ClassMetadata.class, Map.class).newInstance(type, fieldHandlers);
+        } catch (Exception | LinkageError e) {
+            logger.warn("Unable to generate serializer for '{}', falling back on reflection", type.getUri(), e);
+            return null;
+        }
+    }
+
+    private Class<?> defineClass(ClassMetadata<?, ?> type, String className) throws Exception {
+        Class<?> clazz = type.getType();
+        ClassPool pool = new ClassPool(ClassPool.getDefault());
+        pool.appendClassPath(new LoaderClassPath(clazz.getClassLoader()));
+
+        CtClass serializerClass = pool.makeClass(className, pool.get(GeneratedSerializer.class.getName()));
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        serializerClass.addConstructor(CtNewConstructor.make("public " + simpleName + "(" + ClassMetadata.class.getName()
+                + " type, java.util.Map fieldHandlers) { super(type, fieldHandlers); }", serializerClass));
+
+        StringBuilder getter = new StringBuilder();
+        StringBuilder setter = new StringBuilder();
+        getter.append("protected Object getFieldValue(Object target, int index) {");
+        setter.append("protected void setFieldValue(Object target, int index, Object value) {");
+        String cast = "((" + clazz.getName() + ") target)";
+        getter.append("switch (index) {");
+        setter.append("switch (index) {");
+        for (FieldMetadata<?, ?> fieldMetadata : type.getFields()) {
+            Field field = fieldMetadata.getField();
+            int index = fieldMetadata.getIndex();
+            getter.append("case ").append(index).append(": return ");
+            setter.append("case ").append(index).append(": ");
+            if (isDirectlyAccessible(field, clazz)) {
+                String access = cast + "." + field.getName();
+                Class<?> fieldType = field.getType();
+                if (fieldType.isPrimitive()) {
+                    String wrapper = Primitives.wrap(fieldType).getName();
+                    getter.append(wrapper).append(".valueOf(").append(access).append(");");
+                    setter.append("if (value != null) { ").append(access).append(" = ((").append(wrapper).append(") value).")
+                            .append(fieldType.getName()).append("Value(); } break;");
+                } else {
+                    getter.append(access).append(";");
+                    setter.append(access).append(" = (").append(sourceName(fieldType)).append(") value; break;");
+                }
+            } else {
+                getter.append("fields[").append(index).append("].getValue(target);");
+                setter.append("fields[").append(index).append("].setValue(target, value); break;");
+            }
+        }
+        getter.append("default: throw new IllegalArgumentException(\"Unknown field index \" + index); } }");
+        setter.append("default: throw new IllegalArgumentException(\"Unknown field index \" + index); } }");
+        serializerClass.addMethod(CtNewMethod.make(getter.toString(), serializerClass));
+        serializerClass.addMethod(CtNewMethod.make(setter.toString(), serializerClass));
+
+        Class<?> result = serializerClass.toClass(clazz.getClassLoader(), clazz.getProtectionDomain());
+        serializerClass.detach();
+        return result;
+    }
+
+    private static boolean isDirectlyAccessible(Field field, Class<?> owner) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        if (ReflectionUtil.findGetter(field) != null || ReflectionUtil.findSetter(field) != null
+                || ReflectionUtil.findGetter(field.getName(), owner) != null) {
+            return false;
+        }
+        boolean fieldVisible = Modifier.isPublic(modifiers) && Modifier.isPublic(field.getDeclaringClass().getModifiers())
+                || samePackage(field.getDeclaringClass(), owner);
+        return fieldVisible && isTypeAccessible(field.getType(), owner);
+    }
+
+    private static boolean isTypeAccessible(Class<?> type, Class<?> from) {
+        Class<?> elementType = type;
+        while (elementType.isArray()) {
+            elementType = elementType.getComponentType();
+        }
+        return elementType.isPrimitive() || Modifier.isPublic(elementType.getModifiers()) || samePackage(elementType, from);
+    }
+
+    private static boolean samePackage(Class<?> a, Class<?> b) {
+        return a.getClassLoader() == b.getClassLoader() && packageName(a).equals(packageName(b));
+    }
+
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    /**
+     * @return The name of the type as javassist expects it in source code, e.g. "int[]" instead of "[I"
+     */
+    private static String sourceName(Class<?> type) {
+        if (type.isArray()) {
+            return sourceName(type.getComponentType()) + "[]";
+        }
+        return type.getName();
+    }
+}
@@ -103,6 +103,7 @@ public class TypeSerializationLibrary {
     private CopyStrategyLibrary copyStrategies;
 
     private Map<ClassMetadata<?, ?>, Serializer> serializerMap = Maps.newHashMap();
+    private SerializerGenerator serializerGenerator;
 
     /**
      * @param factory        The factory providing reflect implementation.
@@ -146,6 +147,7 @@ public TypeSerializationLibrary(TypeSerializationLibrary original) {
         this.reflectFactory = original.reflectFactory;
         this.copyStrategies = original.copyStrategies;
         this.typeHandlerFactories.addAll(original.typeHandlerFactories);
+        this.serializerGenerator = original.serializerGenerator;
     }
 
     public static TypeSerializationLibrary createDefaultLibrary(ReflectFactory factory,
@@ -193,12 +195,31 @@ public Serializer getSerializerFor(ClassMetadata<?, ?> type) {
         Serializer serializer = serializerMap.get(type);
         if (serializer == null) {
             Map<FieldMetadata<?, ?>, TypeHandler> fieldHandlerMap = getFieldHandlerMap(type);
-            serializer = new Serializer(type, fieldHandlerMap);
+            if (serializerGenerator != null) {
+                serializer = serializerGenerator.generate(type, fieldHandlerMap);
+            }
+            if (serializer == null) {
+                serializer = new Serializer(type, fieldHandlerMap);
+            }
             serializerMap.put(type, serializer);
         }
         return serializer;
     }
 
+    /**
+     * Enables code generated serializers. Only serializers obtained afterwards are affected, so this should be set
+     * before the types get registered.
+     *
+     * @param generator The generator to create serializers with, or null to use reflection
+     */
+    public void setSerializerGenerator(SerializerGenerator generator) {
+        this.serializerGenerator = generator;
+    }
+
+    public boolean isGeneratingSerializers() {
+        return serializerGenerator != null;
+    }
+
     public void addTypeHandlerFactory(TypeHandlerFactory typeHandlerFactory) {
         typeHandlerFactories.add(typeHandlerFactory);
     }
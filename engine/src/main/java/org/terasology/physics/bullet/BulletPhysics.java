@@ -99,6 +99,12 @@ public class BulletPhysics implements PhysicsEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(BulletPhysics.class);
 
+    /**
+     * Start and end transform of character sweeps, per thread as characters may be moved in parallel
+     */
+    private static final ThreadLocal<Transform[]> SWEEP_TRANSFORMS =
+            ThreadLocal.withInitial(() -> new Transform[]{new Transform(), new Transform()});
+
     private final Deque<RigidBodyRequest> insertionQueue = Lists.newLinkedList();
     private final Deque<BulletRigidBody> removalQueue = Lists.newLinkedList();
 
@@ -924,8 +930,13 @@ public void setLocation(org.terasology.math.geom.Vector3f loc) {
 
         @Override
         public BulletSweepCallback sweep(org.terasology.math.geom.Vector3f startPos, org.terasology.math.geom.Vector3f endPos, float allowedPenetration, float slopeFactor) {
-            Transform startTransform = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), VecMath.to(startPos), 1.0f));
-            Transform endTransform = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), VecMath.to(endPos), 1.0f));
+            Transform[] transforms = SWEEP_TRANSFORMS.get();
+            Transform startTransform = transforms[0];
+            startTransform.setIdentity();
+            startTransform.origin.set(startPos.x, startPos.y, startPos.z);
+            Transform endTransform = transforms[1];
+            endTransform.setIdentity();
+            endTransform.origin.set(endPos.x, endPos.y, endPos.z);
             BulletSweepCallback callback = new BulletSweepCallback(collider, new org.terasology.math.geom.Vector3f(0, 1, 0), slopeFactor);
             callback.collisionFilterGroup = collider.getBroadphaseHandle().collisionFilterGroup;
             callback.collisionFilterMask = collider.getBroadphaseHandle().collisionFilterMask;
@@ -58,6 +58,7 @@
     private final ObjectConstructor<T> constructor;
     private Map<String, FIELD> fields = Maps.newHashMap();
     private TIntObjectMap<FIELD> fieldsById = new TIntObjectHashMap<>();
+    private int nextFieldIndex;
 
     /**
      * Creates a class metatdata
@@ -105,6 +106,7 @@ private void addFields(CopyStrategyLibrary copyStrategyLibrary, ReflectFactory f
             try {
                 FIELD metadata = createField(field, copyStrategy, factory);
                 if (metadata != null) {
+                    metadata.setIndex(nextFieldIndex++);
                     fields.put(metadata.getName().toLowerCase(Locale.ENGLISH), metadata);
                 }
             } catch (InaccessibleFieldException e) {
@@ -43,6 +43,7 @@
     private final String serializationName;
 
     private byte id;
+    private int index;
 
     /**
      * @param owner        The ClassMetadata that owns this field
@@ -127,6 +128,17 @@ public void setId(byte id) {
 
     }
 
+    /**
+     * @return The position of this field within its owner, unlike the id it never changes
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     /**
      * Obtains the value of the field from a object which is an instance of the owning type.
      *
@@ -26,6 +26,7 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.exceptions.InvalidUrnException;
 import org.terasology.assets.format.AssetDataFile;
+import org.terasology.engine.module.IndexedModule;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.input.Keyboard;
 import org.terasology.input.device.KeyboardDevice;
@@ -342,7 +343,7 @@ private void saveToFile(BufferedOutputStream outputStream) throws IOException {
     protected Path getPath(AssetDataFile source) {
         List<String> path = source.getPath();
         Name moduleName = new Name(path.get(0));
-        if (moduleManager.getEnvironment().get(moduleName) instanceof PathModule) {
+        if (IndexedModule.unwrap(moduleManager.getEnvironment().get(moduleName)) instanceof PathModule) {
             path.add(source.getFilename());
             String[] pathArray = path.toArray(new String[path.size()]);
 
@@ -137,6 +137,8 @@ public Iterable<ShaderParameterMetadata> listParameters() {
 
     private StringBuilder createShaderBuilder() {
         String preProcessorPreamble = "#version 120\n";
+        // Extensions have to be enabled before any code; shaders check whether they are defined before using them
+        preProcessorPreamble += "#extension GL_ARB_shader_texture_lod : enable\n";
 
         // TODO: Implement a system for this - this has gotten way out of hand.
         WorldAtlas worldAtlas = CoreRegistry.get(WorldAtlas.class);
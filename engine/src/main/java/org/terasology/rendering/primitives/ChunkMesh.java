@@ -385,5 +385,20 @@ public static class VertexElements {
             indices = new TIntArrayList();
             flags = new TIntArrayList();
         }
+
+        /**
+         * Empties the vertex data while keeping the capacity of the lists, so that the elements can be filled again.
+         */
+        void clear() {
+            vertexCount = 0;
+            normals.remove(0, normals.size());
+            vertices.remove(0, vertices.size());
+            tex.remove(0, tex.size());
+            color.remove(0, color.size());
+            indices.remove(0, indices.size());
+            flags.remove(0, flags.size());
+            finalVertices = null;
+            finalIndices = null;
+        }
     }
 }
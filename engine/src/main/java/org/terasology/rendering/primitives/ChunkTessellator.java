@@ -39,9 +39,19 @@ public final class ChunkTessellator {
     private static int statVertexArrayUpdateCount;
 
     private GLBufferPool bufferPool;
+    private GreedyChunkMesher greedyMesher;
 
     public ChunkTessellator(GLBufferPool bufferPool) {
+        this(bufferPool, null);
+    }
+
+    /**
+     * @param greedyMesher the mesher used to merge the faces of neighbouring blocks, or null to tessellate every
+     *                     visible face on its own
+     */
+    public ChunkTessellator(GLBufferPool bufferPool, GreedyChunkMesher greedyMesher) {
         this.bufferPool = bufferPool;
+        this.greedyMesher = greedyMesher;
     }
 
     public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalOffset) {
@@ -49,6 +59,15 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
         ChunkMesh mesh = new ChunkMesh(bufferPool);
 
         final Stopwatch watch = Stopwatch.createStarted();
+        if (greedyMesher != null) {
+            greedyMesher.generateMesh(chunkView, mesh, meshHeight, verticalOffset);
+            watch.stop();
+            mesh.setTimeToGenerateBlockVertices((int) watch.elapsed(TimeUnit.MILLISECONDS));
+            statVertexArrayUpdateCount++;
+
+            PerformanceMonitor.endActivity();
+            return mesh;
+        }
 
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
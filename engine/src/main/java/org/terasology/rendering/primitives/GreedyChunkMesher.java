@@ -0,0 +1,580 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.collect.Maps;
+import org.lwjgl.BufferUtils;
+import org.terasology.math.Direction;
+import org.terasology.math.Side;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.math.geom.Vector4f;
+import org.terasology.rendering.RenderMath;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.nio.IntBuffer;
+import java.util.Map;
+
+/**
+ * Tessellates chunks by merging neighbouring coplanar block faces with the same texture, color and lighting into a
+ * single quad.
+ * <br><br>
+ * Only the full square sides of plain single shape blocks are merged, all other geometry is generated by the blocks'
+ * own {@link BlockMeshGenerator}. Faces are only merged if all their corners have the same light and ambient
+ * occlusion values, so merging doesn't change how the chunk is lit. A merged quad repeats the texture of a single
+ * face: its texture coordinates are given relative to the atlas tile, and the index of the tile is packed into the
+ * vertex flags above {@link #TILE_FLAG_FACTOR} for the chunk shader to wrap them.
+ * <br><br>
+ * The vertices are packed straight into direct buffers that are reused by each thread, so the mesher does not
+ * allocate anything per vertex. Only the final buffers handed to the {@link ChunkMesh} are allocated per chunk.
+ */
+public final class GreedyChunkMesher {
+
+    /**
+     * Number of ints per vertex: position, tex0 (uv and flags), tex1 (light data), packed color and normal.
+     */
+    public static final int VERTEX_SIZE = 13;
+
+    /**
+     * Vertex flags stay below this value, see chunk_vert.glsl.
+     */
+    public static final int TILE_FLAG_FACTOR = 16;
+
+    /**
+     * Must match the border that {@link BlockMeshPart#mapTexCoords} leaves around each atlas tile.
+     */
+    private static final float TILE_BORDER = 1f / 128f;
+
+    private static final Side[] SIDES = Side.values();
+    private static final ChunkMesh.RenderType[] RENDER_TYPES = ChunkMesh.RenderType.values();
+    private static final int MAX_SLICE_AREA = Math.max(ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y,
+            Math.max(ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z, ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z));
+
+    private static final ThreadLocal<Arena> ARENA = ThreadLocal.withInitial(Arena::new);
+
+    private final float tileSize;
+    private final int tilesPerRow;
+
+    /**
+     * @param relativeTileSize the size of a tile of the world atlas, relative to the size of the atlas
+     */
+    public GreedyChunkMesher(float relativeTileSize) {
+        this.tileSize = relativeTileSize;
+        this.tilesPerRow = Math.round(1f / relativeTileSize);
+    }
+
+    /**
+     * Fills the final vertex and index buffers of the given mesh.
+     */
+    public void generateMesh(ChunkView chunkView, ChunkMesh mesh, int meshHeight, int verticalOffset) {
+        Arena arena = ARENA.get();
+        arena.clear();
+
+        collectFaces(chunkView, arena, meshHeight, verticalOffset);
+        for (ChunkMesh.RenderType type : RENDER_TYPES) {
+            packElements(chunkView, arena.unmerged.getVertexElements(type), arena.targets[type.getIndex()]);
+        }
+        for (Side side : SIDES) {
+            mergeFaces(chunkView, arena, side, meshHeight, verticalOffset);
+        }
+
+        for (ChunkMesh.RenderType type : RENDER_TYPES) {
+            arena.targets[type.getIndex()].copyTo(mesh.getVertexElements(type));
+        }
+    }
+
+    /**
+     * Finds the visible sides of all blocks that can be merged, and lets the block mesh generators tessellate
+     * everything else into the unmerged mesh.
+     */
+    private void collectFaces(ChunkView chunkView, Arena arena, int meshHeight, int verticalOffset) {
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
+                    int index = arena.index(x, y - verticalOffset, z);
+                    arena.visibleSides[index] = 0;
+                    arena.appearances[index] = null;
+
+                    Block block = chunkView.getBlock(x, y, z);
+                    if (block == null || block.getMeshGenerator() == null) {
+                        continue;
+                    }
+                    if (!(block.getMeshGenerator() instanceof BlockMeshGeneratorSingleShape) || !canMerge(block)) {
+                        block.getMeshGenerator().generateChunkMesh(chunkView, arena.unmerged, x, y, z);
+                        continue;
+                    }
+
+                    for (Side side : SIDES) {
+                        Vector3i offset = side.getVector3i();
+                        arena.adjacentBlocks.put(side, chunkView.getBlock(x + offset.x, y + offset.y, z + offset.z));
+                    }
+                    BlockAppearance appearance = block.getAppearance(arena.adjacentBlocks);
+                    if (appearance.getPart(BlockPart.CENTER) != null) {
+                        block.getMeshGenerator().generateChunkMesh(chunkView, arena.unmerged, x, y, z);
+                        continue;
+                    }
+
+                    int visibleSides = 0;
+                    for (Side side : SIDES) {
+                        BlockMeshPart part = appearance.getPart(BlockPart.fromSide(side));
+                        if (part == null
+                                || !BlockMeshGeneratorSingleShape.isSideVisibleForBlockTypes(arena.adjacentBlocks.get(side), block, side)) {
+                            continue;
+                        }
+                        if (block.isFullSide(side) && part.size() == 4 && part.indicesSize() == 6) {
+                            visibleSides |= 1 << side.ordinal();
+                        } else {
+                            Vector4f colorOffset = block.calcColorOffsetFor(BlockPart.fromSide(side), chunkView.getBiome(x, y, z));
+                            part.appendTo(arena.unmerged, x, y, z, colorOffset, getRenderType(block), getVertexFlag(block, side));
+                        }
+                    }
+                    arena.visibleSides[index] = (byte) visibleSides;
+                    arena.appearances[index] = appearance;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the collected faces facing the given side, one slice of the chunk at a time.
+     */
+    private void mergeFaces(ChunkView chunkView, Arena arena, Side side, int meshHeight, int verticalOffset) {
+        Vector3i normal = side.getVector3i();
+        int normalAxis = normal.x != 0 ? 0 : (normal.y != 0 ? 1 : 2);
+        int axisU = normalAxis == 0 ? 1 : 0;
+        int axisV = normalAxis == 2 ? 1 : 2;
+        int[] sizes = {ChunkConstants.SIZE_X, meshHeight, ChunkConstants.SIZE_Z};
+        int sizeU = sizes[axisU];
+        int sizeV = sizes[axisV];
+        int sideBit = 1 << side.ordinal();
+        BlockPart blockPart = BlockPart.fromSide(side);
+
+        int[] pos = arena.pos;
+        for (int layer = 0; layer < sizes[normalAxis]; layer++) {
+            pos[normalAxis] = layer;
+            boolean anyFace = false;
+            for (int v = 0; v < sizeV; v++) {
+                pos[axisV] = v;
+                for (int u = 0; u < sizeU; u++) {
+                    pos[axisU] = u;
+                    int cell = u + v * sizeU;
+                    int index = arena.index(pos[0], pos[1], pos[2]);
+                    if ((arena.visibleSides[index] & sideBit) == 0) {
+                        arena.cellParts[cell] = null;
+                        continue;
+                    }
+                    int x = pos[0];
+                    int y = pos[1] + verticalOffset;
+                    int z = pos[2];
+                    Block block = chunkView.getBlock(x, y, z);
+                    BlockMeshPart part = arena.appearances[index].getPart(blockPart);
+                    arena.cellParts[cell] = part;
+                    arena.cellBlocks[cell] = block;
+                    Vector4f colorOffset = block.calcColorOffsetFor(blockPart, chunkView.getBiome(x, y, z));
+                    arena.cellColors[cell] = RenderMath.packColor(colorOffset.x, colorOffset.y, colorOffset.z, colorOffset.w);
+
+                    int lightOffset = cell * 12;
+                    for (int i = 0; i < 4; i++) {
+                        Vector3f vertex = part.getVertex(i);
+                        Vector3f vertexNormal = part.getNormal(i);
+                        calcLightingValuesForVertexPos(chunkView, vertex.x + x, vertex.y + y, vertex.z + z,
+                                vertexNormal.x, vertexNormal.y, vertexNormal.z, arena.cellLights, lightOffset + i * 3);
+                    }
+                    arena.cellUniformLight[cell] = isUniform(arena.cellLights, lightOffset);
+                    anyFace = true;
+                }
+            }
+            if (!anyFace) {
+                continue;
+            }
+
+            for (int v = 0; v < sizeV; v++) {
+                for (int u = 0; u < sizeU; u++) {
+                    int cell = u + v * sizeU;
+                    if (arena.cellParts[cell] == null) {
+                        continue;
+                    }
+                    int width = 1;
+                    while (u + width < sizeU && canMerge(arena, cell, cell + width)) {
+                        width++;
+                    }
+                    int height = 1;
+                    extendHeight:
+                    while (v + height < sizeV) {
+                        for (int i = 0; i < width; i++) {
+                            if (!canMerge(arena, cell, cell + i + height * sizeU)) {
+                                break extendHeight;
+                            }
+                        }
+                        height++;
+                    }
+
+                    pos[axisU] = u;
+                    pos[axisV] = v;
+                    emitQuad(arena, cell, pos[0], pos[1] + verticalOffset, pos[2], axisU, axisV, width, height, side);
+                    for (int j = 0; j < height; j++) {
+                        for (int i = 0; i < width; i++) {
+                            arena.cellParts[cell + i + j * sizeU] = null;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean canMerge(Arena arena, int cell, int other) {
+        if (arena.cellParts[other] != arena.cellParts[cell] || arena.cellBlocks[other] != arena.cellBlocks[cell]
+                || arena.cellColors[other] != arena.cellColors[cell]
+                || !arena.cellUniformLight[cell] || !arena.cellUniformLight[other]) {
+            return false;
+        }
+        float[] lights = arena.cellLights;
+        int a = cell * 12;
+        int b = other * 12;
+        return lights[a] == lights[b] && lights[a + 1] == lights[b + 1] && lights[a + 2] == lights[b + 2];
+    }
+
+    private static boolean isUniform(float[] lights, int offset) {
+        for (int i = 3; i < 12; i += 3) {
+            if (lights[offset + i] != lights[offset] || lights[offset + i + 1] != lights[offset + 1]
+                    || lights[offset + i + 2] != lights[offset + 2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emitQuad(Arena arena, int cell, int x, int y, int z, int axisU, int axisV, int width, int height, Side side) {
+        BlockMeshPart part = arena.cellParts[cell];
+        Block block = arena.cellBlocks[cell];
+        PackedElements target = arena.targets[getRenderType(block).getIndex()];
+        target.ensureCapacity(4, part.indicesSize());
+        boolean merged = width > 1 || height > 1;
+        int flag = getVertexFlag(block, side).getValue();
+
+        // Merged quads continue the texture coordinates of the face across the quad, in units of the atlas tile
+        float tileU = 0;
+        float tileV = 0;
+        float gradUx = 0;
+        float gradUy = 0;
+        float gradVx = 0;
+        float gradVy = 0;
+        if (merged) {
+            Vector2f texCoord = part.getTexCoord(0);
+            int column = TeraMath.floorToInt(texCoord.x / tileSize);
+            int row = TeraMath.floorToInt(texCoord.y / tileSize);
+            tileU = column * tileSize;
+            tileV = row * tileSize;
+            flag += TILE_FLAG_FACTOR * (row * tilesPerRow + column + 1);
+            Vector2f origin = part.getTexCoord(findCorner(part, axisU, axisV, false, false));
+            Vector2f alongU = part.getTexCoord(findCorner(part, axisU, axisV, true, false));
+            Vector2f alongV = part.getTexCoord(findCorner(part, axisU, axisV, false, true));
+            gradUx = (alongU.x - origin.x) / tileSize;
+            gradUy = (alongU.y - origin.y) / tileSize;
+            gradVx = (alongV.x - origin.x) / tileSize;
+            gradVy = (alongV.y - origin.y) / tileSize;
+        }
+
+        IntBuffer vertices = target.vertices;
+        int lightOffset = cell * 12;
+        for (int i = 0; i < 4; i++) {
+            Vector3f vertex = part.getVertex(i);
+            Vector3f normal = part.getNormal(i);
+            Vector2f texCoord = part.getTexCoord(i);
+            boolean maxU = component(vertex, axisU) > 0;
+            boolean maxV = component(vertex, axisV) > 0;
+            float extendU = maxU ? width - 1 : 0;
+            float extendV = maxV ? height - 1 : 0;
+
+            /* POSITION */
+            vertices.put(Float.floatToIntBits(vertex.x + x + (axisU == 0 ? extendU : 0)));
+            vertices.put(Float.floatToIntBits(vertex.y + y + (axisU == 1 ? extendU : 0) + (axisV == 1 ? extendV : 0)));
+            vertices.put(Float.floatToIntBits(vertex.z + z + (axisV == 2 ? extendV : 0)));
+
+            /* UV0 - TEX DATA 0 */
+            if (merged) {
+                vertices.put(Float.floatToIntBits((texCoord.x - tileU) / tileSize + extendU * gradUx + extendV * gradVx));
+                vertices.put(Float.floatToIntBits((texCoord.y - tileV) / tileSize + extendU * gradUy + extendV * gradVy));
+            } else {
+                vertices.put(Float.floatToIntBits(texCoord.x));
+                vertices.put(Float.floatToIntBits(texCoord.y));
+            }
+
+            /* FLAGS */
+            vertices.put(Float.floatToIntBits(flag));
+
+            /* LIGHTING DATA / TEX DATA 1 */
+            int light = lightOffset + (merged ? 0 : i * 3);
+            vertices.put(Float.floatToIntBits(arena.cellLights[light]));
+            vertices.put(Float.floatToIntBits(arena.cellLights[light + 1]));
+            vertices.put(Float.floatToIntBits(arena.cellLights[light + 2]));
+
+            /* PACKED COLOR */
+            vertices.put(arena.cellColors[cell]);
+
+            /* NORMALS */
+            vertices.put(Float.floatToIntBits(normal.x));
+            vertices.put(Float.floatToIntBits(normal.y));
+            vertices.put(Float.floatToIntBits(normal.z));
+        }
+        for (int i = 0; i < part.indicesSize(); i++) {
+            target.indices.put(target.vertexCount + part.getIndex(i));
+        }
+        target.vertexCount += 4;
+    }
+
+    private static int findCorner(BlockMeshPart part, int axisU, int axisV, boolean maxU, boolean maxV) {
+        for (int i = 0; i < 4; i++) {
+            Vector3f vertex = part.getVertex(i);
+            if ((component(vertex, axisU) > 0) == maxU && (component(vertex, axisV) > 0) == maxV) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Side is not an axis aligned quad");
+    }
+
+    private static float component(Vector3f vector, int axis) {
+        switch (axis) {
+            case 0:
+                return vector.x;
+            case 1:
+                return vector.y;
+            default:
+                return vector.z;
+        }
+    }
+
+    /**
+     * Packs vertices generated by the block mesh generators, computing the same lighting as the
+     * {@link ChunkTessellator} does.
+     */
+    private static void packElements(ChunkView chunkView, ChunkMesh.VertexElements elements, PackedElements target) {
+        int vertexCount = elements.vertices.size() / 3;
+        target.ensureCapacity(vertexCount, elements.indices.size());
+        IntBuffer vertices = target.vertices;
+        float[] light = target.light;
+        for (int v = 0; v < vertexCount; v++) {
+            int i = v * 3;
+            float posX = elements.vertices.get(i);
+            float posY = elements.vertices.get(i + 1);
+            float posZ = elements.vertices.get(i + 2);
+            float normalX = elements.normals.get(i);
+            float normalY = elements.normals.get(i + 1);
+            float normalZ = elements.normals.get(i + 2);
+
+            /* POSITION */
+            vertices.put(Float.floatToIntBits(posX));
+            vertices.put(Float.floatToIntBits(posY));
+            vertices.put(Float.floatToIntBits(posZ));
+
+            /* UV0 - TEX DATA 0 */
+            vertices.put(Float.floatToIntBits(elements.tex.get(v * 2)));
+            vertices.put(Float.floatToIntBits(elements.tex.get(v * 2 + 1)));
+
+            /* FLAGS */
+            vertices.put(Float.floatToIntBits(elements.flags.get(v)));
+
+            /* LIGHTING DATA / TEX DATA 1 */
+            calcLightingValuesForVertexPos(chunkView, posX, posY, posZ, normalX, normalY, normalZ, light, 0);
+            vertices.put(Float.floatToIntBits(light[0]));
+            vertices.put(Float.floatToIntBits(light[1]));
+            vertices.put(Float.floatToIntBits(light[2]));
+
+            /* PACKED COLOR */
+            int c = v * 4;
+            vertices.put(RenderMath.packColor(elements.color.get(c), elements.color.get(c + 1), elements.color.get(c + 2), elements.color.get(c + 3)));
+
+            /* NORMALS */
+            vertices.put(Float.floatToIntBits(normalX));
+            vertices.put(Float.floatToIntBits(normalY));
+            vertices.put(Float.floatToIntBits(normalZ));
+        }
+        for (int i = 0; i < elements.indices.size(); i++) {
+            target.indices.put(target.vertexCount + elements.indices.get(i));
+        }
+        target.vertexCount += vertexCount;
+    }
+
+    /**
+     * Same computation as in the {@link ChunkTessellator}, without allocating any objects.
+     */
+    private static void calcLightingValuesForVertexPos(ChunkView chunkView, float vertexX, float vertexY, float vertexZ,
+                                                       float normalX, float normalY, float normalZ, float[] output, int offset) {
+        int occCounter = 0;
+        int occCounterBillboard = 0;
+        Direction dir = Direction.inDirection(normalX, normalY, normalZ);
+        for (int i = 0; i < 4; i++) {
+            // Corners in the same order as ChunkTessellator: (+,+), (+,-), (-,-), (-,+)
+            float first = i < 2 ? 0.1f : -0.1f;
+            float second = i == 0 || i == 3 ? 0.1f : -0.1f;
+            Block block;
+            switch (dir) {
+                case LEFT:
+                case RIGHT:
+                    block = chunkView.getBlock(vertexX + 0.8f * normalX, vertexY + first, vertexZ + second);
+                    break;
+                case FORWARD:
+                case BACKWARD:
+                    block = chunkView.getBlock(vertexX + first, vertexY + second, vertexZ + 0.8f * normalZ);
+                    break;
+                default:
+                    block = chunkView.getBlock(vertexX + first, vertexY + 0.8f * normalY, vertexZ + second);
+            }
+            if (block.isShadowCasting() && !block.isTranslucent()) {
+                occCounter++;
+            } else if (block.isShadowCasting()) {
+                occCounterBillboard++;
+            }
+        }
+
+        float resultLight = 0;
+        float resultBlockLight = 0;
+        int counterLight = 0;
+        int counterBlockLight = 0;
+        for (int i = 0; i < 8; i++) {
+            float offsetX = i % 4 < 2 ? 0.1f : -0.1f;
+            float offsetY = i < 4 ? 0.8f : -0.1f;
+            float offsetZ = i % 4 == 0 || i % 4 == 3 ? 0.1f : -0.1f;
+            float light = chunkView.getSunlight(vertexX + offsetX, vertexY + offsetY, vertexZ + offsetZ);
+            if (light > 0) {
+                resultLight += light;
+                counterLight++;
+            }
+            float blockLight = chunkView.getLight(vertexX + offsetX, vertexY + offsetY, vertexZ + offsetZ);
+            if (blockLight > 0) {
+                resultBlockLight += blockLight;
+                counterBlockLight++;
+            }
+        }
+
+        output[offset] = counterLight == 0 ? 0 : resultLight / counterLight / 15f;
+        output[offset + 1] = counterBlockLight == 0 ? 0 : resultBlockLight / counterBlockLight / 15f;
+        output[offset + 2] = (float) ((TeraMath.pow(0.40, occCounter) + TeraMath.pow(0.80, occCounterBillboard)) / 2.0);
+    }
+
+    private static boolean canMerge(Block block) {
+        return !block.isLiquid() && !block.isWater() && !block.isLava() && !block.isWaving() && !block.isDoubleSided();
+    }
+
+    /**
+     * The render type {@link BlockMeshGeneratorSingleShape} picks for blocks that {@link #canMerge(Block)}.
+     */
+    private static ChunkMesh.RenderType getRenderType(Block block) {
+        if (block.isIce()) {
+            return ChunkMesh.RenderType.WATER_AND_ICE;
+        }
+        return block.isTranslucent() ? ChunkMesh.RenderType.TRANSLUCENT : ChunkMesh.RenderType.OPAQUE;
+    }
+
+    private static ChunkVertexFlag getVertexFlag(Block block, Side side) {
+        if (block.isGrass() && side != Side.TOP && side != Side.BOTTOM) {
+            return ChunkVertexFlag.COLOR_MASK;
+        }
+        return ChunkVertexFlag.NORMAL;
+    }
+
+    /**
+     * Vertex and index data of one render type, written into direct buffers that grow as needed.
+     */
+    private static final class PackedElements {
+        private IntBuffer vertices = BufferUtils.createIntBuffer(VERTEX_SIZE * 4096);
+        private IntBuffer indices = BufferUtils.createIntBuffer(6144);
+        private int vertexCount;
+        private final float[] light = new float[3];
+
+        void clear() {
+            vertices.clear();
+            indices.clear();
+            vertexCount = 0;
+        }
+
+        void ensureCapacity(int newVertices, int newIndices) {
+            if (vertices.remaining() < newVertices * VERTEX_SIZE) {
+                vertices = grow(vertices, newVertices * VERTEX_SIZE);
+            }
+            if (indices.remaining() < newIndices) {
+                indices = grow(indices, newIndices);
+            }
+        }
+
+        private static IntBuffer grow(IntBuffer buffer, int required) {
+            IntBuffer grown = BufferUtils.createIntBuffer(Math.max(buffer.capacity() * 2, buffer.position() + required));
+            buffer.flip();
+            grown.put(buffer);
+            return grown;
+        }
+
+        void copyTo(ChunkMesh.VertexElements elements) {
+            vertices.flip();
+            indices.flip();
+            elements.finalVertices = BufferUtils.createIntBuffer(vertices.remaining());
+            elements.finalVertices.put(vertices);
+            elements.finalIndices = BufferUtils.createIntBuffer(indices.remaining());
+            elements.finalIndices.put(indices);
+            elements.finalVertices.flip();
+            elements.finalIndices.flip();
+            elements.vertexCount = vertexCount;
+        }
+    }
+
+    /**
+     * Working memory of a single thread, reused for every chunk it tessellates.
+     */
+    private static final class Arena {
+        private final PackedElements[] targets = new PackedElements[RENDER_TYPES.length];
+        private final ChunkMesh unmerged = new ChunkMesh(null);
+        private final Map<Side, Block> adjacentBlocks = Maps.newEnumMap(Side.class);
+
+        // Per block of the chunk
+        private final byte[] visibleSides = new byte[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
+        private final BlockAppearance[] appearances = new BlockAppearance[visibleSides.length];
+
+        // Per face of the slice being merged
+        private final BlockMeshPart[] cellParts = new BlockMeshPart[MAX_SLICE_AREA];
+        private final Block[] cellBlocks = new Block[MAX_SLICE_AREA];
+        private final int[] cellColors = new int[MAX_SLICE_AREA];
+        private final float[] cellLights = new float[MAX_SLICE_AREA * 12];
+        private final boolean[] cellUniformLight = new boolean[MAX_SLICE_AREA];
+
+        private final int[] pos = new int[3];
+
+        Arena() {
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = new PackedElements();
+            }
+        }
+
+        void clear() {
+            for (PackedElements target : targets) {
+                target.clear();
+            }
+            for (ChunkMesh.RenderType type : RENDER_TYPES) {
+                unmerged.getVertexElements(type).clear();
+            }
+        }
+
+        int index(int x, int y, int z) {
+            return x + ChunkConstants.SIZE_X * (z + ChunkConstants.SIZE_Z * y);
+        }
+    }
+}
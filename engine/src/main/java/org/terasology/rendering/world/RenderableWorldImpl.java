@@ -31,9 +31,11 @@
 import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.rendering.primitives.GreedyChunkMesher;
 import org.terasology.rendering.world.viewDistance.ViewDistance;
 import org.terasology.world.ChunkView;
 import org.terasology.world.WorldProvider;
+import org.terasology.world.block.tiles.WorldAtlas;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
@@ -87,7 +89,12 @@ class RenderableWorldImpl implements RenderableWorld {
 
         this.worldProvider = worldProvider;
         this.chunkProvider = chunkProvider;
-        chunkTessellator = new ChunkTessellator(bufferPool);
+        if (renderingConfig.isGreedyMeshing()) {
+            GreedyChunkMesher greedyMesher = new GreedyChunkMesher(CoreRegistry.get(WorldAtlas.class).getRelativeTileSize());
+            chunkTessellator = new ChunkTessellator(bufferPool, greedyMesher);
+        } else {
+            chunkTessellator = new ChunkTessellator(bufferPool);
+        }
         chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider);
 
         this.playerCamera = playerCamera;
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import java.util.Collection;
+
+/**
+ * A hierarchical timing wheel, which keeps values until a deadline passes.
+ * <br><br>
+ * Scheduling, rescheduling and cancelling a timer are O(1), independent of the number of pending timers. Time is
+ * split into ticks (e.g. milliseconds), and the wheel has several levels of {@value #SLOTS} slots each. The lowest
+ * level holds the timers that expire within the current round of {@value #SLOTS} ticks, one slot per tick. Each
+ * higher level holds the timers of rounds {@value #SLOTS} times as long, which get moved down a level at the start of
+ * their round. Advancing the wheel only looks at the slots of the ticks that passed, and skips over rounds without
+ * any timers, so it costs in proportion to the number of expiring timers rather than the number of pending ones.
+ * <br><br>
+ * Not thread safe.
+ *
+ * @param <T> the type of the values to schedule
+ */
+public final class TimingWheel<T> {
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /**
+     * Timers further ahead than all levels cover, moved into the wheel when the highest level starts a new round
+     */
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    /**
+     * Timers whose deadline had already passed when they got scheduled, expired on the next advance
+     */
+    private static final int OVERDUE = OVERFLOW + 1;
+
+    private final Timer<T>[] buckets;
+    private final int[] levelSizes = new int[LEVELS + 1];
+    private int size;
+    private long currentTick;
+
+    /**
+     * @param currentTick the tick the wheel starts at, timers at or before it are already overdue
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long currentTick) {
+        this.buckets = new Timer[OVERDUE + 1];
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * @return a timer for the value, which expires once the wheel advances to or past the deadline
+     */
+    public Timer<T> schedule(T value, long deadline) {
+        Timer<T> timer = new Timer<>(value);
+        timer.deadline = deadline;
+        link(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Changes the deadline of a pending timer.
+     */
+    public void reschedule(Timer<T> timer, long deadline) {
+        if (timer.bucket < 0) {
+            throw new IllegalArgumentException("Timer is not pending");
+        }
+        unlink(timer);
+        timer.deadline = deadline;
+        link(timer);
+    }
+
+    /**
+     * Removes a timer before it expires. Does nothing if the timer already expired or got cancelled.
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer.bucket >= 0) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Moves the wheel to the given tick and removes all timers that expire up to it, earliest deadline first.
+     *
+     * @param tick    the tick to advance to, nothing happens besides expiring overdue timers if it is not ahead
+     * @param expired receives the values of the expired timers
+     */
+    public void advance(long tick, Collection<? super T> expired) {
+        expireBucket(OVERDUE, expired);
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                return;
+            }
+            // Nothing can expire before the next round of the lowest level that holds timers starts
+            int emptyLevels = 0;
+            while (emptyLevels < LEVELS && levelSizes[emptyLevels] == 0) {
+                emptyLevels++;
+            }
+            if (emptyLevels > 0) {
+                long lastTickOfRound = currentTick | roundMask(emptyLevels);
+                if (lastTickOfRound >= tick) {
+                    currentTick = tick;
+                    return;
+                }
+                currentTick = lastTickOfRound;
+            }
+
+            currentTick++;
+            if ((currentTick & roundMask(LEVELS)) == 0) {
+                cascade(OVERFLOW);
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & roundMask(level)) == 0) {
+                    cascade(level * SLOTS + slotIndex(currentTick, level));
+                }
+            }
+            // Cascading moves timers of the current tick into the overdue bucket
+            expireBucket(OVERDUE, expired);
+            expireBucket(slotIndex(currentTick, 0), expired);
+        }
+    }
+
+    /**
+     * @return the number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the tick the wheel has advanced to
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private void link(Timer<T> timer) {
+        int bucket = bucketFor(timer.deadline);
+        timer.bucket = bucket;
+        timer.previous = null;
+        timer.next = buckets[bucket];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        buckets[bucket] = timer;
+        levelSizes[levelOf(bucket)]++;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            buckets[timer.bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        levelSizes[levelOf(timer.bucket)]--;
+        timer.bucket = -1;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    /**
+     * The level of a timer is given by the highest bits in which its deadline differs from the current tick. That way
+     * a timer always gets moved down when the round of its level that contains the deadline starts.
+     */
+    private int bucketFor(long deadline) {
+        if (deadline <= currentTick) {
+            return OVERDUE;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if ((deadline >> (BITS * (level + 1))) == (currentTick >> (BITS * (level + 1)))) {
+                return level * SLOTS + slotIndex(deadline, level);
+            }
+        }
+        return OVERFLOW;
+    }
+
+    private static int levelOf(int bucket) {
+        return bucket >= OVERFLOW ? LEVELS : bucket >> BITS;
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) (tick >> (BITS * level)) & SLOT_MASK;
+    }
+
+    private static long roundMask(int level) {
+        return (1L << (BITS * level)) - 1;
+    }
+
+    private void cascade(int bucket) {
+        Timer<T> timer = buckets[bucket];
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            unlink(timer);
+            link(timer);
+            timer = next;
+        }
+    }
+
+    private void expireBucket(int bucket, Collection<? super T> expired) {
+        Timer<T> timer = buckets[bucket];
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            unlink(timer);
+            size--;
+            expired.add(timer.value);
+            timer = next;
+        }
+    }
+
+    /**
+     * A value scheduled in the wheel. Keep it to reschedule or cancel the value.
+     */
+    public static final class Timer<T> {
+        private final T value;
+        private long deadline;
+        private int bucket = -1;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * @return whether the timer neither expired nor got cancelled yet
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+}
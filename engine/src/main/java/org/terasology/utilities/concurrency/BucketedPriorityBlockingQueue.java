@@ -0,0 +1,318 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import com.google.common.collect.Lists;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A blocking queue that orders its elements by an integer priority, lowest first, by putting them into buckets.
+ * <br><br>
+ * The priority of an element is only evaluated when it is added, or when {@link #reprioritize} is called because the
+ * priorities have changed (e.g. the player moved). Adding and taking elements doesn't take any lock unless a consumer
+ * has to wait for an element, or an element is looked for while a reprioritization is moving the elements. Elements
+ * with the same priority are returned in the order they were added. Negative priorities all share the first bucket,
+ * priorities beyond the last bucket share the last one.
+ * <br><br>
+ * The iterator is weakly consistent: it walks over a snapshot of the elements taken when it is created.
+ */
+public class BucketedPriorityBlockingQueue<T> extends AbstractQueue<T> implements BlockingQueue<T> {
+    private static final int DEFAULT_BUCKET_COUNT = 256;
+
+    private final ToIntFunction<T> priority;
+    private final Queue<T>[] buckets;
+    /**
+     * Incremented before an element goes into a bucket and only decremented once an element has actually been taken
+     * out of one, so that it never drops below the number of queued elements, let alone below zero
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Lock only used to let consumers wait for new elements
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final ReentrantLock reprioritizeLock = new ReentrantLock();
+
+    public BucketedPriorityBlockingQueue(ToIntFunction<T> priority) {
+        this(priority, DEFAULT_BUCKET_COUNT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BucketedPriorityBlockingQueue(ToIntFunction<T> priority, int bucketCount) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Must have at least one bucket.");
+        }
+        this.priority = priority;
+        this.buckets = new Queue[bucketCount];
+        for (int i = 0; i < bucketCount; ++i) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Re-evaluates the priority of all queued elements and moves them into their new buckets. Elements that are no
+     * longer wanted are removed from the queue and passed to the given consumer.
+     *
+     * @param keep     whether an element should stay in the queue
+     * @param onRemove called for each removed element
+     */
+    public void reprioritize(Predicate<T> keep, Consumer<T> onRemove) {
+        reprioritizeLock.lock();
+        try {
+            List<T> elements = Lists.newArrayList();
+            for (Queue<T> bucket : buckets) {
+                for (T element = bucket.poll(); element != null; element = bucket.poll()) {
+                    elements.add(element);
+                }
+            }
+            for (T element : elements) {
+                if (keep.test(element)) {
+                    bucketFor(element).add(element);
+                } else {
+                    count.decrementAndGet();
+                    onRemove.accept(element);
+                }
+            }
+        } finally {
+            reprioritizeLock.unlock();
+        }
+    }
+
+    private Queue<T> bucketFor(T element) {
+        int index = priority.applyAsInt(element);
+        if (index < 0) {
+            index = 0;
+        } else if (index >= buckets.length) {
+            index = buckets.length - 1;
+        }
+        return buckets[index];
+    }
+
+    @Override
+    public boolean add(T t) {
+        return offer(t);
+    }
+
+    @Override
+    public void put(T t) throws InterruptedException {
+        offer(t);
+    }
+
+    @Override
+    public boolean offer(T t, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(t);
+    }
+
+    @Override
+    public boolean offer(T t) {
+        count.incrementAndGet();
+        bucketFor(t).add(t);
+        if (waitingConsumers.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        if (count.get() == 0) {
+            return null;
+        }
+        T result = dequeue();
+        if (result == null && count.get() > 0) {
+            // The elements may be being moved between buckets by a reprioritization, wait for it to finish
+            reprioritizeLock.lock();
+            try {
+                result = dequeue();
+            } finally {
+                reprioritizeLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T result = poll();
+        while (result == null) {
+            awaitElements(Long.MAX_VALUE);
+            result = poll();
+        }
+        return result;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        T result = poll();
+        while (result == null) {
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0) {
+                return null;
+            }
+            awaitElements(nanos);
+            result = poll();
+        }
+        return result;
+    }
+
+    private void awaitElements(long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while (count.get() == 0 && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            waitingConsumers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private T dequeue() {
+        for (Queue<T> bucket : buckets) {
+            T result = bucket.poll();
+            if (result != null) {
+                count.decrementAndGet();
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public T peek() {
+        for (Queue<T> bucket : buckets) {
+            T result = bucket.peek();
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            T element = dequeue();
+            if (element == null) {
+                break;
+            }
+            c.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        reprioritizeLock.lock();
+        try {
+            for (Queue<T> bucket : buckets) {
+                if (bucket.remove(o)) {
+                    count.decrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            reprioritizeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<T> snapshot = Lists.newArrayListWithCapacity(count.get());
+        reprioritizeLock.lock();
+        try {
+            for (Queue<T> bucket : buckets) {
+                snapshot.addAll(bucket);
+            }
+        } finally {
+            reprioritizeLock.unlock();
+        }
+        return new SnapshotIterator(snapshot.iterator());
+    }
+
+    private final class SnapshotIterator implements Iterator<T> {
+        private final Iterator<T> snapshot;
+        private T last;
+
+        SnapshotIterator(Iterator<T> snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return snapshot.hasNext();
+        }
+
+        @Override
+        public T next() {
+            last = snapshot.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            BucketedPriorityBlockingQueue.this.remove(last);
+            last = null;
+        }
+    }
+}
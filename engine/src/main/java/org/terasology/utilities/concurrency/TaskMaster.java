@@ -29,6 +29,9 @@
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
  * Manages execution of tasks on a queue.
@@ -99,6 +102,27 @@ public static <T extends Task> TaskMaster<T> createDynamicPriorityTaskMaster(Str
         return new TaskMaster<>(name, threads, new DynamicPriorityBlockingQueue<>(comparator));
     }
 
+    /**
+     * Creates a prioritized taskmaster which sorts tasks into buckets by an integer priority, processing the lowest
+     * first. Priorities are only re-evaluated by {@link #reprioritize(Predicate, Consumer)}.
+     */
+    public static <T extends Task> TaskMaster<T> createBucketedPriorityTaskMaster(String name, int threads, ToIntFunction<T> priority) {
+        return new TaskMaster<>(name, threads, new BucketedPriorityBlockingQueue<>(priority));
+    }
+
+    /**
+     * Re-evaluates the priority of all waiting tasks, if this task master supports it. Tasks that are no longer
+     * wanted are dropped without being run.
+     *
+     * @param keep     whether a waiting task should still be run
+     * @param onCancel called for each dropped task
+     */
+    public void reprioritize(Predicate<T> keep, Consumer<T> onCancel) {
+        if (taskQueue instanceof BucketedPriorityBlockingQueue) {
+            ((BucketedPriorityBlockingQueue<T>) taskQueue).reprioritize(keep, onCancel);
+        }
+    }
+
     /**
      * Offers a task to this task master. This does not block, but may fail if the queue is full.
      *
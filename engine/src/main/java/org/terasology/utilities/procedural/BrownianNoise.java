@@ -16,6 +16,11 @@
 
 package org.terasology.utilities.procedural;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
 /**
  * Computes Brownian noise based on some noise generator.
  * Originally, Brown integrates white noise, but using other noises can be sometimes useful, too.
@@ -32,6 +37,13 @@ public class BrownianNoise extends AbstractNoise {
      */
     public static final double DEFAULT_LACUNARITY = 2.1379201;
 
+    /**
+     * The buffers that hold the values of a single octave and the coordinates of its grid while filling a grid, reused
+     * between calls of the same thread. A buffer is taken out while in use, so that a BrownianNoise based on another
+     * one gets its own.
+     */
+    private static final ThreadLocal<Deque<float[]>> BUFFERS = ThreadLocal.withInitial(ArrayDeque::new);
+
     private double lacunarity = DEFAULT_LACUNARITY;
     private double persistence = DEFAULT_PERSISTENCE;
 
@@ -71,11 +83,12 @@ public float noise(float x, float y) {
 
         float workingX = x;
         float workingY = y;
-        for (int i = 0; i < getOctaves(); i++) {
+        double lac = lacunarity;
+        for (int i = 0; i < octaves; i++) {
             result += other.noise(workingX, workingY) * spectralWeights[i];
 
-            workingX *= getLacunarity();
-            workingY *= getLacunarity();
+            workingX *= lac;
+            workingY *= lac;
         }
 
         return result * scale;
@@ -96,17 +109,158 @@ public float noise(float x, float y, float z) {
         float workingX = x;
         float workingY = y;
         float workingZ = z;
-        for (int i = 0; i < getOctaves(); i++) {
+        double lac = lacunarity;
+        for (int i = 0; i < octaves; i++) {
             result += other.noise(workingX, workingY, workingZ) * spectralWeights[i];
 
-            workingX *= getLacunarity();
-            workingY *= getLacunarity();
-            workingZ *= getLacunarity();
+            workingX *= lac;
+            workingY *= lac;
+            workingZ *= lac;
         }
 
         return result * scale;
     }
 
+    @Override
+    public void noiseGrid(float[] target, int minX, int minY, int sizeX, int sizeY, int stride, float scaleX, float scaleY) {
+        float[] xs = takeBuffer(sizeX);
+        float[] ys = takeBuffer(sizeY);
+        try {
+            fillAxis(xs, minX, sizeX, stride, scaleX);
+            fillAxis(ys, minY, sizeY, stride, scaleY);
+            noiseGrid(target, xs, ys, sizeX, sizeY);
+        } finally {
+            returnBuffer(ys);
+            returnBuffer(xs);
+        }
+    }
+
+    @Override
+    public void noiseGrid(float[] target, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int stride,
+                          float scaleX, float scaleY, float scaleZ) {
+        float[] xs = takeBuffer(sizeX);
+        float[] ys = takeBuffer(sizeY);
+        float[] zs = takeBuffer(sizeZ);
+        try {
+            fillAxis(xs, minX, sizeX, stride, scaleX);
+            fillAxis(ys, minY, sizeY, stride, scaleY);
+            fillAxis(zs, minZ, sizeZ, stride, scaleZ);
+            noiseGrid(target, xs, ys, zs, sizeX, sizeY, sizeZ);
+        } finally {
+            returnBuffer(zs);
+            returnBuffer(ys);
+            returnBuffer(xs);
+        }
+    }
+
+    /**
+     * Fills the grid one octave at a time, so that the base noise can use its own grid evaluation. The coordinates of
+     * each octave are scaled per axis just like {@link #noise(float, float)} scales them per point, so the values are
+     * exactly the same.
+     */
+    @Override
+    public void noiseGrid(float[] target, float[] xs, float[] ys, int sizeX, int sizeY) {
+        int count = sizeX * sizeY;
+        float[] octave = takeBuffer(count);
+        float[] workingXs = takeBuffer(sizeX);
+        float[] workingYs = takeBuffer(sizeY);
+        try {
+            System.arraycopy(xs, 0, workingXs, 0, sizeX);
+            System.arraycopy(ys, 0, workingYs, 0, sizeY);
+            Arrays.fill(target, 0, count, 0f);
+            double lac = lacunarity;
+            for (int o = 0; o < octaves; o++) {
+                other.noiseGrid(octave, workingXs, workingYs, sizeX, sizeY);
+                float weight = spectralWeights[o];
+                for (int i = 0; i < count; i++) {
+                    target[i] += octave[i] * weight;
+                }
+                scaleAxis(workingXs, sizeX, lac);
+                scaleAxis(workingYs, sizeY, lac);
+            }
+            for (int i = 0; i < count; i++) {
+                target[i] *= scale;
+            }
+        } finally {
+            returnBuffer(workingYs);
+            returnBuffer(workingXs);
+            returnBuffer(octave);
+        }
+    }
+
+    /**
+     * @see #noiseGrid(float[], float[], float[], int, int)
+     */
+    @Override
+    public void noiseGrid(float[] target, float[] xs, float[] ys, float[] zs, int sizeX, int sizeY, int sizeZ) {
+        int count = sizeX * sizeY * sizeZ;
+        float[] octave = takeBuffer(count);
+        float[] workingXs = takeBuffer(sizeX);
+        float[] workingYs = takeBuffer(sizeY);
+        float[] workingZs = takeBuffer(sizeZ);
+        try {
+            System.arraycopy(xs, 0, workingXs, 0, sizeX);
+            System.arraycopy(ys, 0, workingYs, 0, sizeY);
+            System.arraycopy(zs, 0, workingZs, 0, sizeZ);
+            Arrays.fill(target, 0, count, 0f);
+            double lac = lacunarity;
+            for (int o = 0; o < octaves; o++) {
+                other.noiseGrid(octave, workingXs, workingYs, workingZs, sizeX, sizeY, sizeZ);
+                float weight = spectralWeights[o];
+                for (int i = 0; i < count; i++) {
+                    target[i] += octave[i] * weight;
+                }
+                scaleAxis(workingXs, sizeX, lac);
+                scaleAxis(workingYs, sizeY, lac);
+                scaleAxis(workingZs, sizeZ, lac);
+            }
+            for (int i = 0; i < count; i++) {
+                target[i] *= scale;
+            }
+        } finally {
+            returnBuffer(workingZs);
+            returnBuffer(workingYs);
+            returnBuffer(workingXs);
+            returnBuffer(octave);
+        }
+    }
+
+    private static void fillAxis(float[] axis, int min, int size, int stride, float scale) {
+        for (int i = 0; i < size; i++) {
+            axis[i] = scale * (min + i * stride);
+        }
+    }
+
+    /**
+     * Moves the coordinates to the next octave, with the same rounding as the point evaluation
+     */
+    private static void scaleAxis(float[] axis, int size, double lac) {
+        for (int i = 0; i < size; i++) {
+            axis[i] *= lac;
+        }
+    }
+
+    /**
+     * @return a buffer of at least the given size, which has to be returned after use
+     */
+    private static float[] takeBuffer(int size) {
+        Deque<float[]> buffers = BUFFERS.get();
+        // Buffers differ in size, so look for one that is large enough before allocating a new one
+        Iterator<float[]> iterator = buffers.iterator();
+        while (iterator.hasNext()) {
+            float[] buffer = iterator.next();
+            if (buffer.length >= size) {
+                iterator.remove();
+                return buffer;
+            }
+        }
+        return new float[size];
+    }
+
+    private static void returnBuffer(float[] buffer) {
+        BUFFERS.get().push(buffer);
+    }
+
     private static float computeScale(float[] spectralWeights) {
         float sum = 0;
         for (float weight : spectralWeights) {
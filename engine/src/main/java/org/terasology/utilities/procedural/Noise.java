@@ -59,4 +59,82 @@ public interface Noise {
      * @return The noise value in the range [-1..1]
      */
     float noise(float x, float y, float z);
+
+    /**
+     * Fills the target with the noise values of a regular 2D grid. Grid point (i, j) lies at
+     * (scaleX * (minX + i * stride), scaleY * (minY + j * stride)) and is stored at index i + j * sizeX.
+     * <br><br>
+     * Implementations override this to share work between neighbouring points, so filling a grid is usually faster
+     * than calling {@link #noise(float, float)} for every point.
+     *
+     * @param target the array to fill, with room for at least sizeX * sizeY values
+     * @param stride the distance between neighbouring grid points, before scaling
+     */
+    default void noiseGrid(float[] target, int minX, int minY, int sizeX, int sizeY, int stride, float scaleX, float scaleY) {
+        int index = 0;
+        for (int j = 0; j < sizeY; j++) {
+            float y = scaleY * (minY + j * stride);
+            for (int i = 0; i < sizeX; i++) {
+                target[index++] = noise(scaleX * (minX + i * stride), y);
+            }
+        }
+    }
+
+    /**
+     * Fills the target with the noise values of a regular 3D grid. Grid point (i, j, k) lies at
+     * (scaleX * (minX + i * stride), scaleY * (minY + j * stride), scaleZ * (minZ + k * stride)) and is stored at
+     * index i + sizeX * (j + sizeY * k).
+     *
+     * @param target the array to fill, with room for at least sizeX * sizeY * sizeZ values
+     * @param stride the distance between neighbouring grid points, before scaling
+     * @see #noiseGrid(float[], int, int, int, int, int, float, float)
+     */
+    default void noiseGrid(float[] target, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int stride,
+                           float scaleX, float scaleY, float scaleZ) {
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            float z = scaleZ * (minZ + k * stride);
+            for (int j = 0; j < sizeY; j++) {
+                float y = scaleY * (minY + j * stride);
+                for (int i = 0; i < sizeX; i++) {
+                    target[index++] = noise(scaleX * (minX + i * stride), y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the target with the noise values at every combination of the given coordinates. Point (i, j) lies at
+     * (xs[i], ys[j]) and is stored at index i + j * sizeX. Unlike with a regular grid the coordinates don't need to be
+     * evenly spaced, which allows noises that transform coordinates (e.g. the octaves of {@link BrownianNoise}) to give
+     * exactly the values of {@link #noise(float, float)}.
+     *
+     * @param target the array to fill, with room for at least sizeX * sizeY values
+     * @param xs     the x coordinates, at least sizeX of them
+     * @param ys     the y coordinates, at least sizeY of them
+     */
+    default void noiseGrid(float[] target, float[] xs, float[] ys, int sizeX, int sizeY) {
+        int index = 0;
+        for (int j = 0; j < sizeY; j++) {
+            for (int i = 0; i < sizeX; i++) {
+                target[index++] = noise(xs[i], ys[j]);
+            }
+        }
+    }
+
+    /**
+     * Point (i, j, k) lies at (xs[i], ys[j], zs[k]) and is stored at index i + sizeX * (j + sizeY * k).
+     *
+     * @see #noiseGrid(float[], float[], float[], int, int)
+     */
+    default void noiseGrid(float[] target, float[] xs, float[] ys, float[] zs, int sizeX, int sizeY, int sizeZ) {
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            for (int j = 0; j < sizeY; j++) {
+                for (int i = 0; i < sizeX; i++) {
+                    target[index++] = noise(xs[i], ys[j], zs[k]);
+                }
+            }
+        }
+    }
 }
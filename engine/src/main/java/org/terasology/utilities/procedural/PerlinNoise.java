@@ -24,6 +24,11 @@
  */
 public class PerlinNoise extends AbstractNoise implements Noise2D, Noise3D {
 
+    /**
+     * The only z coordinate of 2D grids
+     */
+    private static final float[] ORIGIN_AXIS = {0};
+
     private final int[] noisePermutations;
 
     /**
@@ -106,6 +111,94 @@ public float noise(float posX, float posY, float posZ) {
         return TeraMath.lerp(val1, val2, w);
     }
 
+    @Override
+    public void noiseGrid(float[] target, int minX, int minY, int sizeX, int sizeY, int stride, float scaleX, float scaleY) {
+        noiseGrid(target, axis(minX, sizeX, stride, scaleX), axis(minY, sizeY, stride, scaleY), ORIGIN_AXIS, sizeX, sizeY, 1);
+    }
+
+    @Override
+    public void noiseGrid(float[] target, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int stride,
+                          float scaleX, float scaleY, float scaleZ) {
+        noiseGrid(target, axis(minX, sizeX, stride, scaleX), axis(minY, sizeY, stride, scaleY),
+                axis(minZ, sizeZ, stride, scaleZ), sizeX, sizeY, sizeZ);
+    }
+
+    @Override
+    public void noiseGrid(float[] target, float[] xs, float[] ys, int sizeX, int sizeY) {
+        noiseGrid(target, xs, ys, ORIGIN_AXIS, sizeX, sizeY, 1);
+    }
+
+    /**
+     * Gives the same values as {@link #noise(float, float, float)}, but only looks up the lattice hashes again when
+     * a row of the grid enters the next lattice cell.
+     */
+    @Override
+    public void noiseGrid(float[] target, float[] xs, float[] ys, float[] zs, int sizeX, int sizeY, int sizeZ) {
+        int index = 0;
+        for (int k = 0; k < sizeZ; k++) {
+            float posZ = zs[k];
+            int zInt = (int) TeraMath.fastFloor(posZ) & 255;
+            float z = posZ - TeraMath.fastFloor(posZ);
+            float w = TeraMath.fadePerlin(z);
+            for (int j = 0; j < sizeY; j++) {
+                float posY = ys[j];
+                int yInt = (int) TeraMath.fastFloor(posY) & 255;
+                float y = posY - TeraMath.fastFloor(posY);
+                float v = TeraMath.fadePerlin(y);
+
+                int cellX = -1;
+                int hashAA = 0;
+                int hashBA = 0;
+                int hashAB = 0;
+                int hashBB = 0;
+                int hashAA1 = 0;
+                int hashBA1 = 0;
+                int hashAB1 = 0;
+                int hashBB1 = 0;
+                for (int i = 0; i < sizeX; i++) {
+                    float posX = xs[i];
+                    int xInt = (int) TeraMath.fastFloor(posX) & 255;
+                    float x = posX - TeraMath.fastFloor(posX);
+                    float u = TeraMath.fadePerlin(x);
+                    if (xInt != cellX) {
+                        cellX = xInt;
+                        int a = noisePermutations[xInt] + yInt;
+                        int aa = noisePermutations[a] + zInt;
+                        int ab = noisePermutations[(a + 1)] + zInt;
+                        int b = noisePermutations[(xInt + 1)] + yInt;
+                        int ba = noisePermutations[b] + zInt;
+                        int bb = noisePermutations[(b + 1)] + zInt;
+                        hashAA = noisePermutations[aa];
+                        hashBA = noisePermutations[ba];
+                        hashAB = noisePermutations[ab];
+                        hashBB = noisePermutations[bb];
+                        hashAA1 = noisePermutations[(aa + 1)];
+                        hashBA1 = noisePermutations[(ba + 1)];
+                        hashAB1 = noisePermutations[(ab + 1)];
+                        hashBB1 = noisePermutations[(bb + 1)];
+                    }
+
+                    float val1 = TeraMath.lerp(TeraMath.lerp(grad(hashAA, x, y, z), grad(hashBA, x - 1, y, z), u),
+                            TeraMath.lerp(grad(hashAB, x, y - 1, z), grad(hashBB, x - 1, y - 1, z), u), v);
+                    float val2 = TeraMath.lerp(TeraMath.lerp(grad(hashAA1, x, y, z - 1), grad(hashBA1, x - 1, y, z - 1), u),
+                            TeraMath.lerp(grad(hashAB1, x, y - 1, z - 1), grad(hashBB1, x - 1, y - 1, z - 1), u), v);
+                    target[index++] = TeraMath.lerp(val1, val2, w);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the coordinates of the points of a regular grid along one axis
+     */
+    private static float[] axis(int min, int size, int stride, float scale) {
+        float[] result = new float[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = scale * (min + i * stride);
+        }
+        return result;
+    }
+
     private static float grad(int hash, float x, float y, float z) {
         int h = hash & 15;
         float u = h < 8 ? x : y;
@@ -111,14 +111,7 @@ private float[] getKeyValues(Rect2i fullRegion) {
         int xDim = fullRegion.sizeX() / sampleRate + 1;
         int yDim = fullRegion.sizeY() / sampleRate + 1;
         float[] fullData = new float[xDim * yDim];
-        for (int y = 0; y < yDim; y++) {
-            for (int x = 0; x < xDim; x++) {
-                int actualX = x * sampleRate + fullRegion.minX();
-                int actualY = y * sampleRate + fullRegion.minY();
-                fullData[x + y * xDim] = source.noise(zoom.x * actualX, zoom.y * actualY);
-            }
-        }
-
+        source.noiseGrid(fullData, fullRegion.minX(), fullRegion.minY(), xDim, yDim, sampleRate, zoom.x, zoom.y);
         return fullData;
     }
 
@@ -214,16 +207,8 @@ private float[] getKeyValues(Region3i fullRegion) {
         int yDim = fullRegion.sizeY() / sampleRate + 1;
         int zDim = fullRegion.sizeZ() / sampleRate + 1;
         float[] fullData = new float[xDim * yDim * zDim];
-        for (int z = 0; z < zDim; z++) {
-            for (int y = 0; y < yDim; y++) {
-                for (int x = 0; x < xDim; x++) {
-                    int actualX = x * sampleRate + fullRegion.minX();
-                    int actualY = y * sampleRate + fullRegion.minY();
-                    int actualZ = z * sampleRate + fullRegion.minZ();
-                    fullData[x + xDim * (y + yDim * z)] = source.noise(zoom.x * actualX, zoom.y * actualY, zoom.z * actualZ);
-                }
-            }
-        }
+        source.noiseGrid(fullData, fullRegion.minX(), fullRegion.minY(), fullRegion.minZ(), xDim, yDim, zDim, sampleRate,
+                zoom.x, zoom.y, zoom.z);
         return fullData;
     }
 
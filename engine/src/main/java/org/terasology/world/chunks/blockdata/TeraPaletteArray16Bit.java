@@ -0,0 +1,451 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.blockdata;
+
+import com.google.common.base.Preconditions;
+import gnu.trove.map.TShortIntMap;
+import gnu.trove.map.hash.TShortIntHashMap;
+import org.terasology.world.chunks.deflate.TeraVisitingDeflator;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * TeraPaletteArray16Bit implements an array with elements of 16 bit size, which stores every distinct element only
+ * once in a palette. The elements themselves are stored as indices into the palette that are packed into 0, 1, 2, 4
+ * or 8 bits, depending on the size of the palette. The indices get widened automatically when a new element doesn't
+ * fit into the palette anymore. Once there are more than 256 distinct elements, the array switches to 16 bits per
+ * entry without a palette, storing the elements themselves like a {@link TeraDenseArray16Bit}.
+ * <br><br>
+ * A chunk with a handful of different blocks thus needs only a fraction of the memory of a
+ * {@link TeraDenseArray16Bit}. Elements that are no longer used stay in the palette until the array gets deflated.
+ * <br><br>
+ * Like the other tera arrays it is not thread safe: adding an element to the palette changes it in place, so readers
+ * on other threads need the same external synchronization as the writer.
+ *
+ */
+public class TeraPaletteArray16Bit extends TeraArray {
+
+    /**
+     * Palettes up to this size are searched linearly, larger ones get a lookup map.
+     */
+    private static final int LINEAR_SEARCH_LIMIT = 16;
+
+    /**
+     * With this many bits per entry there is no palette, the entries are the elements themselves.
+     */
+    private static final int DIRECT_BITS = 16;
+
+    private volatile Storage storage;
+
+    public TeraPaletteArray16Bit() {
+        super();
+    }
+
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ) {
+        super(sizeX, sizeY, sizeZ, true);
+    }
+
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ, short fill) {
+        super(sizeX, sizeY, sizeZ, false);
+        this.storage = new Storage(0, new short[]{fill}, 1, null);
+    }
+
+    /**
+     * @param palette      the distinct elements, at least paletteSize and at most 2 to the power of bitsPerEntry long.
+     *                     Null for 16 bits per entry, where the entries are the elements themselves.
+     * @param paletteSize  the number of used entries of the palette, 0 without a palette
+     * @param data         the packed palette indices, see {@link #readIndex(long[], int, int)}
+     * @param bitsPerEntry the number of bits per index, either 0, 1, 2, 4, 8 or 16
+     */
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ, short[] palette, int paletteSize, long[] data, int bitsPerEntry) {
+        super(sizeX, sizeY, sizeZ, false);
+        Preconditions.checkArgument(isSupportedBitsPerEntry(bitsPerEntry), "Unsupported number of bits per entry: " + bitsPerEntry);
+        if (palette == null) {
+            Preconditions.checkArgument(bitsPerEntry == DIRECT_BITS && paletteSize == 0,
+                    "Parameter 'palette' may only be null for " + DIRECT_BITS + " bits per entry");
+        } else {
+            Preconditions.checkArgument(palette.length <= 1 << bitsPerEntry, "The length of parameter 'palette' has to be at most "
+                    + (1 << bitsPerEntry) + " but is " + palette.length);
+            Preconditions.checkArgument(paletteSize > 0 && paletteSize <= palette.length, "Invalid palette size " + paletteSize);
+        }
+        if (bitsPerEntry == 0) {
+            Preconditions.checkArgument(data == null, "Parameter 'data' has to be null for 0 bits per entry");
+        } else {
+            Preconditions.checkArgument(data.length == getDataLength(getSizeXYZ(), bitsPerEntry),
+                    "The length of parameter 'data' has to be " + getDataLength(getSizeXYZ(), bitsPerEntry) + " but is " + data.length);
+        }
+        Storage s = new Storage(bitsPerEntry, palette, paletteSize, data);
+        if (bitsPerEntry == DIRECT_BITS && palette != null) {
+            // A 16 bit palette can't save anything over storing the elements themselves
+            s = s.toDirect(getSizeXYZ());
+        }
+        this.storage = s;
+    }
+
+    @Override
+    protected void initialize() {
+        storage = new Storage(0, new short[1], 1, null);
+    }
+
+    /**
+     * @return the number of longs needed to store the given number of indices with the given number of bits each.
+     */
+    public static int getDataLength(int size, int bitsPerEntry) {
+        return (int) (((long) size * bitsPerEntry + 63) / 64);
+    }
+
+    /**
+     * @return the palette index that is stored at the given position of packed index data.
+     */
+    public static int readIndex(long[] data, int bitsPerEntry, int pos) {
+        int shift = Integer.numberOfTrailingZeros(bitsPerEntry);
+        int bitOffset = (pos << shift) & 63;
+        return (int) (data[pos >>> (6 - shift)] >>> bitOffset) & ((1 << bitsPerEntry) - 1);
+    }
+
+    /**
+     * Stores a palette index at the given position of packed index data.
+     */
+    public static void writeIndex(long[] data, int bitsPerEntry, int pos, int index) {
+        int shift = Integer.numberOfTrailingZeros(bitsPerEntry);
+        int bitOffset = (pos << shift) & 63;
+        int word = pos >>> (6 - shift);
+        long mask = ((1L << bitsPerEntry) - 1) << bitOffset;
+        data[word] = (data[word] & ~mask) | (((long) index << bitOffset) & mask);
+    }
+
+    /**
+     * @return the smallest supported number of bits per index for a palette of the given size.
+     */
+    public static int getBitsPerEntry(int paletteSize) {
+        int bits = 0;
+        while ((1 << bits) < paletteSize) {
+            bits = bits == 0 ? 1 : bits * 2;
+        }
+        return bits;
+    }
+
+    private static boolean isSupportedBitsPerEntry(int bits) {
+        return bits == 0 || bits == 1 || bits == 2 || bits == 4 || bits == 8 || bits == 16;
+    }
+
+    @Override
+    public boolean isSparse() {
+        return false;
+    }
+
+    @Override
+    public TeraArray copy() {
+        Storage s = storage;
+        long[] data = s.data == null ? null : Arrays.copyOf(s.data, s.data.length);
+        short[] palette = s.palette == null ? null : Arrays.copyOf(s.palette, s.paletteSize);
+        return new TeraPaletteArray16Bit(getSizeX(), getSizeY(), getSizeZ(), palette, s.paletteSize, data, s.bits);
+    }
+
+    @Override
+    public TeraArray deflate(TeraVisitingDeflator deflator) {
+        Storage s = storage;
+        return Preconditions.checkNotNull(deflator).deflatePaletteArray16Bit(s.palette, s.paletteSize, s.data, s.bits,
+                getSizeX(), getSizeY(), getSizeZ());
+    }
+
+    @Override
+    public int getEstimatedMemoryConsumptionInBytes() {
+        Storage s = storage;
+        int size = s.palette == null ? 0 : 16 + s.palette.length * 2;
+        if (s.data != null) {
+            size += 16 + s.data.length * 8;
+        }
+        if (s.lookup != null) {
+            // Trove maps use about two open addressed slots per entry
+            size += s.lookup.size() * 2 * (2 + 4 + 1);
+        }
+        return size;
+    }
+
+    @Override
+    public int getElementSizeInBits() {
+        return 16;
+    }
+
+    /**
+     * @return the number of bits currently used per palette index.
+     */
+    public int getBitsPerEntry() {
+        return storage.bits;
+    }
+
+    /**
+     * @return the number of entries in the palette, including entries that are no longer used, or 0 if the array
+     * stores the elements themselves.
+     */
+    public int getPaletteSize() {
+        return storage.paletteSize;
+    }
+
+    @Override
+    public int get(int x, int y, int z) {
+        return storage.get(pos(x, y, z));
+    }
+
+    @Override
+    public int set(int x, int y, int z, int value) {
+        int pos = pos(x, y, z);
+        int old = storage.get(pos);
+        if (old != (short) value) {
+            int index = indexFor((short) value);
+            // indexFor might have replaced the storage
+            storage.set(pos, index);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean set(int x, int y, int z, int value, int expected) {
+        int pos = pos(x, y, z);
+        int old = storage.get(pos);
+        if (old == expected) {
+            if (old != (short) value) {
+                int index = indexFor((short) value);
+                storage.set(pos, index);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets a range of elements in the order of their internal positions, which is x first, then z, then y.
+     * This allows filling the array from run length encoded data without expanding it first.
+     *
+     * @param start  the internal position of the first element to set
+     * @param length the number of elements to set
+     * @param value  the value of the elements
+     */
+    public void fill(int start, int length, int value) {
+        Preconditions.checkElementIndex(start, getSizeXYZ() + 1);
+        Preconditions.checkArgument(length >= 0 && start + length <= getSizeXYZ(), "Range exceeds the array");
+        if (length == 0) {
+            return;
+        }
+        int index = indexFor((short) value);
+        Storage s = storage;
+        if (s.bits == 0) {
+            return;
+        }
+        for (int pos = start; pos < start + length; pos++) {
+            writeIndex(s.data, s.bits, pos, index);
+        }
+    }
+
+    /**
+     * @return the palette index of the value, adding the value to the palette and widening the indices if necessary.
+     */
+    private int indexFor(short value) {
+        Storage s = storage;
+        int index = s.indexOf(value);
+        if (index < 0) {
+            if (s.paletteSize == 1 << s.bits) {
+                s = s.bits == DIRECT_BITS / 2 ? s.toDirect(getSizeXYZ()) : s.widen(getSizeXYZ());
+                storage = s;
+                if (s.palette == null) {
+                    return s.indexOf(value);
+                }
+            } else if (s.paletteSize == s.palette.length) {
+                s = s.growPalette();
+                storage = s;
+            }
+            index = s.add(value);
+        }
+        return index;
+    }
+
+    private static final class Storage {
+        private final int bits;
+        private final short[] palette;
+        private final long[] data;
+        private int paletteSize;
+        private TShortIntMap lookup;
+
+        Storage(int bits, short[] palette, int paletteSize, long[] data) {
+            this.bits = bits;
+            this.palette = palette;
+            this.paletteSize = paletteSize;
+            this.data = data;
+            if (paletteSize > LINEAR_SEARCH_LIMIT && bits < DIRECT_BITS) {
+                lookup = new TShortIntHashMap(palette.length, 0.5f, (short) 0, -1);
+                for (int i = paletteSize - 1; i >= 0; i--) {
+                    lookup.put(palette[i], i);
+                }
+            }
+        }
+
+        int get(int pos) {
+            if (bits == 0) {
+                return palette[0];
+            }
+            if (palette == null) {
+                return (short) readIndex(data, bits, pos);
+            }
+            return palette[readIndex(data, bits, pos)];
+        }
+
+        void set(int pos, int index) {
+            if (bits != 0) {
+                writeIndex(data, bits, pos, index);
+            }
+        }
+
+        int indexOf(short value) {
+            if (palette == null) {
+                return value & 0xFFFF;
+            }
+            if (lookup != null) {
+                return lookup.get(value);
+            }
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int add(short value) {
+            int index = paletteSize;
+            palette[index] = value;
+            paletteSize++;
+            if (lookup != null) {
+                lookup.put(value, index);
+            } else if (paletteSize > LINEAR_SEARCH_LIMIT) {
+                lookup = new TShortIntHashMap(palette.length, 0.5f, (short) 0, -1);
+                for (int i = 0; i < paletteSize; i++) {
+                    lookup.put(palette[i], i);
+                }
+            }
+            return index;
+        }
+
+        Storage widen(int size) {
+            int newBits = bits == 0 ? 1 : bits * 2;
+            long[] newData = new long[getDataLength(size, newBits)];
+            if (bits != 0) {
+                for (int pos = 0; pos < size; pos++) {
+                    writeIndex(newData, newBits, pos, readIndex(data, bits, pos));
+                }
+            }
+            return new Storage(newBits, Arrays.copyOf(palette, Math.min(palette.length * 2, 1 << newBits)), paletteSize, newData);
+        }
+
+        /**
+         * @return a storage with the same indices and room for twice as many palette entries.
+         */
+        Storage growPalette() {
+            return new Storage(bits, Arrays.copyOf(palette, Math.min(palette.length * 2, 1 << bits)), paletteSize, data);
+        }
+
+        /**
+         * @return a storage that holds the elements themselves with 16 bits per entry, without a palette.
+         */
+        Storage toDirect(int size) {
+            long[] newData = new long[getDataLength(size, DIRECT_BITS)];
+            for (int pos = 0; pos < size; pos++) {
+                writeIndex(newData, DIRECT_BITS, pos, get(pos) & 0xFFFF);
+            }
+            return new Storage(DIRECT_BITS, null, 0, newData);
+        }
+    }
+
+    public static class SerializationHandler extends TeraArray.BasicSerializationHandler<TeraPaletteArray16Bit> {
+
+        @Override
+        public boolean canHandle(Class<?> clazz) {
+            return TeraPaletteArray16Bit.class.equals(clazz);
+        }
+
+        @Override
+        protected int internalComputeMinimumBufferSize(TeraPaletteArray16Bit array) {
+            Storage s = array.storage;
+            return 12 + s.paletteSize * 2 + (s.data == null ? 0 : s.data.length * 8);
+        }
+
+        @Override
+        protected void internalSerialize(TeraPaletteArray16Bit array, ByteBuffer buffer) {
+            Storage s = array.storage;
+            buffer.putInt(s.bits);
+            buffer.putInt(s.paletteSize);
+            if (s.palette != null) {
+                final ShortBuffer sbuffer = buffer.asShortBuffer();
+                sbuffer.put(s.palette, 0, s.paletteSize);
+                buffer.position(buffer.position() + s.paletteSize * 2);
+            }
+            if (s.data == null) {
+                buffer.putInt(0);
+            } else {
+                buffer.putInt(s.data.length);
+                final LongBuffer lbuffer = buffer.asLongBuffer();
+                lbuffer.put(s.data);
+                buffer.position(buffer.position() + s.data.length * 8);
+            }
+        }
+
+        @Override
+        protected TeraPaletteArray16Bit internalDeserialize(int sizeX, int sizeY, int sizeZ, ByteBuffer buffer) {
+            final int bits = buffer.getInt();
+            final int paletteSize = buffer.getInt();
+            short[] palette = null;
+            if (paletteSize > 0) {
+                palette = new short[paletteSize];
+                buffer.asShortBuffer().get(palette);
+                buffer.position(buffer.position() + paletteSize * 2);
+            }
+            final int length = buffer.getInt();
+            long[] data = null;
+            if (length > 0) {
+                data = new long[length];
+                buffer.asLongBuffer().get(data);
+                buffer.position(buffer.position() + length * 8);
+            }
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, palette, paletteSize, data, bits);
+        }
+    }
+
+    public static class Factory implements TeraArray.Factory<TeraPaletteArray16Bit> {
+
+        @Override
+        public Class<TeraPaletteArray16Bit> getArrayClass() {
+            return TeraPaletteArray16Bit.class;
+        }
+
+        @Override
+        public SerializationHandler createSerializationHandler() {
+            return new SerializationHandler();
+        }
+
+        @Override
+        public TeraPaletteArray16Bit create() {
+            return new TeraPaletteArray16Bit();
+        }
+
+        @Override
+        public TeraPaletteArray16Bit create(int sizeX, int sizeY, int sizeZ) {
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ);
+        }
+    }
+}
@@ -16,13 +16,21 @@
 
 package org.terasology.world.chunks.deflate;
 
+import gnu.trove.map.TShortIntMap;
+import gnu.trove.map.hash.TShortIntHashMap;
 import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraSparseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraSparseArray4Bit;
 import org.terasology.world.chunks.blockdata.TeraSparseArray8Bit;
 
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
 /**
  * TeraStandardDeflator implements a simple deflation algorithm for 4, 8 and 16-bit dense and sparse arrays.<br>
+ * Dense 16-bit arrays with few distinct values get converted into palette arrays when these are smaller than the
+ * sparse variant. Palette arrays get rid of palette entries that are no longer used.<br>
  * <b>NOTE:</b> Currently it is optimized for chunks of size 16x256x16 blocks.<br>
  * TODO: Implement deflation for sparse arrays.
  *
@@ -63,6 +71,11 @@ public class TeraStandardDeflator extends TeraVisitingDeflator {
     protected static final int DEFLATE_MINIMUM_8BIT = 16;
     protected static final int DEFLATE_MINIMUM_4BIT = 31;
 
+    /**
+     * With more distinct values the indices of a palette array need 16 bits, which is more than a dense array needs.
+     */
+    protected static final int MAX_PALETTE_SIZE_16BIT = 256;
+
     public TeraStandardDeflator() {
     }
 
@@ -103,10 +116,46 @@ public TeraArray deflateDenseArray16Bit(short[] data, int rowSize, int sizeX, in
                 return new TeraSparseArray16Bit(sizeX, sizeY, sizeZ, first);
             }
         }
+        TeraArray result = null;
         if (packed > DEFLATE_MINIMUM_16BIT) {
-            return new TeraSparseArray16Bit(sizeX, sizeY, sizeZ, inflated, deflated);
+            result = new TeraSparseArray16Bit(sizeX, sizeY, sizeZ, inflated, deflated);
         }
-        return null;
+        TeraArray palette = createPaletteArray16Bit(pos -> data[pos], sizeX, sizeY, sizeZ);
+        if (palette != null
+                && (result == null || palette.getEstimatedMemoryConsumptionInBytes() < result.getEstimatedMemoryConsumptionInBytes())) {
+            result = palette;
+        }
+        return result;
+    }
+
+    /**
+     * @return a palette array with the given data, or null if the data has too many distinct values for a palette
+     * array to be smaller than the dense array.
+     */
+    private TeraArray createPaletteArray16Bit(IntUnaryOperator data, int sizeX, int sizeY, int sizeZ) {
+        final int size = sizeX * sizeY * sizeZ;
+        final TShortIntMap indices = new TShortIntHashMap(MAX_PALETTE_SIZE_16BIT, 0.5f, (short) 0, -1);
+        final short[] palette = new short[MAX_PALETTE_SIZE_16BIT];
+        int paletteSize = 0;
+        for (int pos = 0; pos < size; pos++) {
+            short value = (short) data.applyAsInt(pos);
+            if (!indices.containsKey(value)) {
+                if (paletteSize == MAX_PALETTE_SIZE_16BIT) {
+                    return null;
+                }
+                indices.put(value, paletteSize);
+                palette[paletteSize++] = value;
+            }
+        }
+        final int bits = TeraPaletteArray16Bit.getBitsPerEntry(paletteSize);
+        if (bits == 0) {
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, palette[0]);
+        }
+        final long[] packed = new long[TeraPaletteArray16Bit.getDataLength(size, bits)];
+        for (int pos = 0; pos < size; pos++) {
+            TeraPaletteArray16Bit.writeIndex(packed, bits, pos, indices.get((short) data.applyAsInt(pos)));
+        }
+        return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, Arrays.copyOf(palette, paletteSize), paletteSize, packed, bits);
     }
 
     @Override
@@ -212,4 +261,40 @@ public TeraArray deflateSparseArray4Bit(final byte[][] inflated, final byte[] de
         return null;
     }
 
+    @Override
+    public TeraArray deflatePaletteArray16Bit(final short[] palette, final int paletteSize, final long[] data, final int bitsPerEntry,
+                                              final int sizeX, final int sizeY, final int sizeZ) {
+        if (bitsPerEntry == 0) {
+            return null;
+        }
+        if (palette == null) {
+            // The elements are stored directly, see whether they fit into a palette again
+            return createPaletteArray16Bit(pos -> TeraPaletteArray16Bit.readIndex(data, bitsPerEntry, pos), sizeX, sizeY, sizeZ);
+        }
+        final int size = sizeX * sizeY * sizeZ;
+        final int[] remapped = new int[paletteSize];
+        Arrays.fill(remapped, -1);
+        final short[] usedPalette = new short[paletteSize];
+        int usedSize = 0;
+        for (int pos = 0; pos < size; pos++) {
+            int index = TeraPaletteArray16Bit.readIndex(data, bitsPerEntry, pos);
+            if (remapped[index] < 0) {
+                remapped[index] = usedSize;
+                usedPalette[usedSize++] = palette[index];
+            }
+        }
+        final int bits = TeraPaletteArray16Bit.getBitsPerEntry(usedSize);
+        if (bits == 0) {
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, usedPalette[0]);
+        }
+        if (bits == bitsPerEntry) {
+            return null;
+        }
+        final long[] packed = new long[TeraPaletteArray16Bit.getDataLength(size, bits)];
+        for (int pos = 0; pos < size; pos++) {
+            TeraPaletteArray16Bit.writeIndex(packed, bits, pos, remapped[TeraPaletteArray16Bit.readIndex(data, bitsPerEntry, pos)]);
+        }
+        return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, Arrays.copyOf(usedPalette, usedSize), usedSize, packed, bits);
+    }
+
 }
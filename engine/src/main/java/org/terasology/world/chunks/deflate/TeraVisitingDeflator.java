@@ -51,4 +51,7 @@ public final TeraArray deflate(TeraArray in) {
 
     public abstract TeraArray deflateSparseArray4Bit(byte[][] inflated, byte[] deflated, byte fill, int rowSize, int sizeX, int sizeY, int sizeZ);
 
+
+    public abstract TeraArray deflatePaletteArray16Bit(short[] palette, int paletteSize, long[] data, int bitsPerEntry, int sizeX, int sizeY, int sizeZ);
+
 }
@@ -26,8 +26,8 @@
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.blockdata.TeraArray;
-import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray16Bit;
 
 /**
  */
@@ -119,18 +119,19 @@ private static EntityData.RunLengthEncoding8 runLengthEncode8(TeraArray array) {
         return builder.build();
     }
 
+    /**
+     * Decodes the runs directly into a palette array, as the data of most chunks consists of a few distinct values.
+     */
     private static TeraArray runLengthDecode(EntityData.RunLengthEncoding16 data) {
         Preconditions.checkState(data.getValuesCount() == data.getRunLengthsCount(), "Expected same number of values as runs");
-        short[] decodedData = new short[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
+        TeraPaletteArray16Bit decodedData = new TeraPaletteArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
         int index = 0;
         for (int pos = 0; pos < data.getValuesCount(); ++pos) {
             int length = data.getRunLengths(pos);
-            short value = (short) data.getValues(pos);
-            for (int i = 0; i < length; ++i) {
-                decodedData[index++] = value;
-            }
+            decodedData.fill(index, length, (short) data.getValues(pos));
+            index += length;
         }
-        return new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
+        return decodedData;
     }
 
     private static TeraArray runLengthDecode(EntityData.RunLengthEncoding8 data) {
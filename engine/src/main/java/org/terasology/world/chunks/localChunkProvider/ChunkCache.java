@@ -15,6 +15,7 @@
  */
 package org.terasology.world.chunks.localChunkProvider;
 
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.chunks.Chunk;
 
@@ -24,9 +25,13 @@
 /**
  * Chunk storage which allows to look up for chunks based on their world position.
  */
-interface ChunkCache {
+public interface ChunkCache {
     Chunk get(Vector3i chunkPosition);
 
+    default Chunk get(int x, int y, int z) {
+        return get(new Vector3i(x, y, z));
+    }
+
     void put(Vector3i chunkPosition, Chunk chunk);
 
     Iterator<Vector3i> iterateChunkPositions();
@@ -38,4 +43,17 @@ interface ChunkCache {
     boolean containsChunkAt(Vector3i chunkPosition);
 
     void removeChunkAt(Vector3i chunkPosition);
+
+    /**
+     * Hints that chunks within the given region will be looked up frequently, e.g. because it is the area around a
+     * player. Calling it again with the same owner replaces the previous region.
+     *
+     * @param owner  identifies the region, e.g. the relevance entity
+     * @param region the chunk positions to optimize lookups for
+     */
+    default void setDenseRegion(Object owner, Region3i region) {
+    }
+
+    default void removeDenseRegion(Object owner) {
+    }
 }
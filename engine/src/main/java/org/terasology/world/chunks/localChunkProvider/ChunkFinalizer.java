@@ -27,8 +27,23 @@ public interface ChunkFinalizer {
 
     void initialize(GeneratingChunkProvider generatingChunkProvider);
 
+    /**
+     * Completes the oldest finalization that was begun and not yet completed, waiting for it if necessary.
+     *
+     * @return the info the finalization was begun with, or null if there is none
+     */
     ReadyChunkInfo completeFinalization();
 
+    /**
+     * @return whether {@link #completeFinalization()} would return without waiting, because the oldest finalization
+     * is done or there is none
+     */
+    boolean isFinalizationDone();
+
+    /**
+     * Begins finalizing the chunk. Several finalizations may be running at the same time, they are completed in the
+     * order they were begun.
+     */
     void beginFinalization(Chunk chunk, ReadyChunkInfo readyChunkInfo);
 
     void restart();
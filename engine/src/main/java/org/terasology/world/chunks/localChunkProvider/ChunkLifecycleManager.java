@@ -0,0 +1,244 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.internal.ReadyChunkInfo;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps track of the chunks {@link LocalChunkProvider} may have to unload or make available, and of how much time it
+ * may spend on doing so each tick.
+ * <br><br>
+ * Unload candidates are only collected from the areas relevance regions moved away from or stopped covering, instead
+ * of scanning the whole chunk cache every tick. Ready chunks are kept in a heap ordered by their distance to the
+ * closest relevance region, which only has to be rebuilt when the regions change. Ready chunks that can't be made
+ * available yet are set aside until one of their neighbours becomes ready or is finalized, instead of being checked on
+ * every poll.
+ * <br><br>
+ * Not thread safe apart from queueing unload candidates; everything else is only used from the main thread.
+ */
+final class ChunkLifecycleManager {
+    static final int DEFAULT_BUDGET_MS = 4;
+
+    private final ToIntFunction<Vector3i> distance;
+
+    private final Set<Vector3i> unloadCandidates = Sets.newConcurrentHashSet();
+    private PriorityQueue<ScoredChunk> readyChunks = new PriorityQueue<>(Comparator.comparingInt((ScoredChunk c) -> c.score));
+    private final Map<Vector3i, ReadyChunkInfo> waitingChunks = Maps.newHashMap();
+
+    private long budgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET_MS);
+    private long spentNanos;
+    private long workStart;
+    private boolean working;
+
+    /**
+     * @param distance the distance of a chunk position to the closest relevance region
+     */
+    ChunkLifecycleManager(ToIntFunction<Vector3i> distance) {
+        this.distance = distance;
+    }
+
+    /**
+     * @param budgetMs how many milliseconds per tick may be spent on unloading chunks and making them available. At
+     *                 least one chunk is handled each tick regardless.
+     */
+    void setBudget(int budgetMs) {
+        if (budgetMs < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budgetMs);
+        }
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+
+    /**
+     * Starts measuring the work of a new tick.
+     */
+    void startTick() {
+        spentNanos = 0;
+        resumeWork();
+    }
+
+    void resumeWork() {
+        if (!working) {
+            working = true;
+            workStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops counting time against the budget, e.g. while the rest of the frame runs between begin and complete update.
+     */
+    void pauseWork() {
+        if (working) {
+            working = false;
+            spentNanos += System.nanoTime() - workStart;
+        }
+    }
+
+    /**
+     * @param share the part of the whole budget that may be used up, between 0 and 1
+     * @return whether less than the given share of this tick's budget has been used so far
+     */
+    boolean hasTimeLeft(float share) {
+        long spent = spentNanos;
+        if (working) {
+            spent += System.nanoTime() - workStart;
+        }
+        return spent < (long) (budgetNanos * share);
+    }
+
+    /**
+     * Queues the chunks which were kept by a region that moved from previous to current, but no longer are.
+     *
+     * @param leeway how far beyond a region chunks are kept
+     */
+    void regionMoved(Region3i previous, Region3i current, Vector3i leeway) {
+        if (previous.isEmpty()) {
+            return;
+        }
+        Region3i kept = previous.expand(leeway);
+        if (current.isEmpty()) {
+            kept.forEach(unloadCandidates::add);
+        } else {
+            kept.subtract(current.expand(leeway)).forEachRemaining(unloadCandidates::add);
+        }
+    }
+
+    /**
+     * Queues all chunks which were kept by a region that got removed.
+     */
+    void regionRemoved(Region3i region, Vector3i leeway) {
+        regionMoved(region, Region3i.EMPTY, leeway);
+    }
+
+    void queueUnloadCandidate(Vector3i pos) {
+        unloadCandidates.add(pos);
+    }
+
+    boolean hasUnloadCandidates() {
+        return !unloadCandidates.isEmpty();
+    }
+
+    /**
+     * The candidates are only positions which might have become irrelevant, they still have to be checked against
+     * the current regions, and might not be loaded at all.
+     *
+     * @return an iterator over the queued candidates, supporting removal
+     */
+    Iterator<Vector3i> unloadCandidates() {
+        return unloadCandidates.iterator();
+    }
+
+    /**
+     * Adds a chunk that has just become ready, which also gives the waiting chunks next to it another chance.
+     */
+    void addReadyChunk(ReadyChunkInfo readyChunkInfo) {
+        readyChunks.add(score(readyChunkInfo));
+        retryWaitingChunksAround(readyChunkInfo.getPos());
+    }
+
+    /**
+     * Gives the waiting chunks next to the given position another chance, e.g. because a chunk there stopped being
+     * finalized.
+     */
+    void retryWaitingChunksAround(Vector3i pos) {
+        if (!waitingChunks.isEmpty()) {
+            Vector3i adjPos = new Vector3i();
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    for (int z = -1; z <= 1; z++) {
+                        adjPos.set(pos.x + x, pos.y + y, pos.z + z);
+                        ReadyChunkInfo waiting = waitingChunks.remove(adjPos);
+                        if (waiting != null) {
+                            readyChunks.add(score(waiting));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private ScoredChunk score(ReadyChunkInfo readyChunkInfo) {
+        return new ScoredChunk(readyChunkInfo, distance.applyAsInt(readyChunkInfo.getPos()));
+    }
+
+    /**
+     * Re-evaluates the distance of all ready chunks, needed whenever the relevance regions have changed.
+     */
+    void reprioritize() {
+        PriorityQueue<ScoredChunk> rescored = new PriorityQueue<>(Math.max(1, readyChunks.size()), readyChunks.comparator());
+        for (ScoredChunk chunk : readyChunks) {
+            rescored.add(score(chunk.info));
+        }
+        readyChunks = rescored;
+    }
+
+    /**
+     * Takes the closest ready chunk that can currently be made available. Chunks that can't are set aside until one
+     * of their neighbours is added as ready chunk or stops being finalized, as that is what they are waiting for.
+     *
+     * @param available whether a chunk can be made available right now
+     * @return the chunk, or null if there is none
+     */
+    ReadyChunkInfo pollReadyChunk(Predicate<ReadyChunkInfo> available) {
+        while (!readyChunks.isEmpty()) {
+            ScoredChunk next = readyChunks.poll();
+            if (available.test(next.info)) {
+                return next.info;
+            }
+            waitingChunks.put(next.info.getPos(), next.info);
+        }
+        return null;
+    }
+
+    void removeReadyChunk(Vector3i pos) {
+        if (waitingChunks.remove(pos) == null) {
+            readyChunks.removeIf(chunk -> chunk.info.getPos().equals(pos));
+        }
+    }
+
+    int getReadyChunkCount() {
+        return readyChunks.size() + waitingChunks.size();
+    }
+
+    void clear() {
+        unloadCandidates.clear();
+        readyChunks.clear();
+        waitingChunks.clear();
+    }
+
+    private static final class ScoredChunk {
+        private final ReadyChunkInfo info;
+        private final int score;
+
+        private ScoredChunk(ReadyChunkInfo info, int score) {
+            this.info = info;
+            this.score = score;
+        }
+    }
+}
@@ -34,6 +34,11 @@ public ReadyChunkInfo completeFinalization() {
         return lightMerger.completeMerge();
     }
 
+    @Override
+    public boolean isFinalizationDone() {
+        return lightMerger.isMergeDone();
+    }
+
     @Override
     public void beginFinalization(final Chunk chunk, final ReadyChunkInfo readyChunkInfo) {
         lightMerger.beginMerge(chunk, readyChunkInfo);
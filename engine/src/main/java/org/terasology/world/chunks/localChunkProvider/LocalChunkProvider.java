@@ -70,10 +70,11 @@
 import org.terasology.world.internal.ChunkViewCoreImpl;
 import org.terasology.world.propagation.light.InternalLightProcessor;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -88,8 +89,12 @@
 public class LocalChunkProvider implements GeneratingChunkProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(LocalChunkProvider.class);
-    private static final int UNLOAD_PER_FRAME = 64;
     private static final Vector3i UNLOAD_LEEWAY = Vector3i.one();
+    /**
+     * How many finalizations may be queued up at the same time, so that the light merging never runs dry between
+     * frames while the chunks waiting for it still get picked by their current priority
+     */
+    private static final int MAX_FINALIZATIONS = 4;
 
     private StorageManager storageManager;
     private final EntityManager entityManager;
@@ -103,12 +108,14 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
 
     private final Set<Vector3i> preparingChunks = Sets.newHashSet();
     private final BlockingQueue<ReadyChunkInfo> readyChunks = Queues.newLinkedBlockingQueue();
-    private List<ReadyChunkInfo> sortedReadyChunks = Lists.newArrayList();
     private final BlockingQueue<TShortObjectMap<TIntList>> deactivateBlocksQueue = Queues.newLinkedBlockingQueue();
 
     private EntityRef worldEntity = EntityRef.NULL;
 
     private ReadWriteLock regionLock = new ReentrantReadWriteLock();
+    private final ChunkTaskRelevance chunkTaskRelevance = new ChunkTaskRelevance();
+    private final ChunkLifecycleManager lifecycle = new ChunkLifecycleManager(this::distanceToRegions);
+    private volatile boolean relevanceRegionsChanged;
 
     private BlockManager blockManager;
     private BiomeManager biomeManager;
@@ -117,6 +124,10 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
     private BlockEntityRegistry registry;
 
     private ChunkFinalizer chunkFinalizer;
+    /**
+     * The positions of the chunks whose finalization was begun and not yet completed, in the order they were begun
+     */
+    private final Deque<Vector3i> finalizingPositions = new ArrayDeque<>();
 
     //TODO Remove this old constructor at the end of the chunk overhaul
     public LocalChunkProvider(StorageManager storageManager, EntityManager entityManager, WorldGenerator generator,
@@ -128,7 +139,7 @@ public LocalChunkProvider(StorageManager storageManager, EntityManager entityMan
                 biomeManager,
                 new LightMergingChunkFinalizer(),
                 LightMergingChunkFinalizer::new,
-                new ConcurrentMapChunkCache());
+                new PackedChunkCache());
     }
 
     LocalChunkProvider(StorageManager storageManager, EntityManager entityManager, WorldGenerator generator,
@@ -139,7 +150,7 @@ public LocalChunkProvider(StorageManager storageManager, EntityManager entityMan
         this.generator = generator;
         this.blockManager = blockManager;
         this.biomeManager = biomeManager;
-        this.pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        this.pipeline = new ChunkGenerationPipeline(chunkTaskRelevance::score);
         this.unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 4);
         this.chunkFinalizer = chunkFinalizer;
         this.chunkCache = chunkCache;
@@ -153,6 +164,13 @@ public void setBlockEntityRegistry(BlockEntityRegistry value) {
         this.registry = value;
     }
 
+    /**
+     * @param budgetMs how many milliseconds each tick may spend on unloading chunks and making chunks available
+     */
+    public void setLifecycleBudget(int budgetMs) {
+        lifecycle.setBudget(budgetMs);
+    }
+
     @Override
     public ChunkViewCore getLocalView(Vector3i centerChunkPos) {
         Region3i region = Region3i.createFromCenterExtents(centerChunkPos, ChunkConstants.LOCAL_REGION_EXTENTS);
@@ -179,14 +197,17 @@ public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
 
     private ChunkViewCore createWorldView(Region3i region, Vector3i offset) {
         Chunk[] chunks = new Chunk[region.sizeX() * region.sizeY() * region.sizeZ()];
-        for (Vector3i chunkPos : region) {
-            Chunk chunk = chunkCache.get(chunkPos);
-            if (chunk == null) {
-                return null;
+        Vector3i size = region.size();
+        for (int x = region.minX(); x <= region.maxX(); x++) {
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                for (int z = region.minZ(); z <= region.maxZ(); z++) {
+                    Chunk chunk = chunkCache.get(x, y, z);
+                    if (chunk == null) {
+                        return null;
+                    }
+                    chunks[TeraMath.calculate3DArrayIndex(x - region.minX(), y - region.minY(), z - region.minZ(), size)] = chunk;
+                }
             }
-            chunkPos.sub(region.minX(), region.minY(), region.minZ());
-            int index = TeraMath.calculate3DArrayIndex(chunkPos, region.size());
-            chunks[index] = chunk;
         }
         return new ChunkViewCoreImpl(chunks, region, offset, blockManager.getBlock(BlockManager.AIR_ID));
     }
@@ -223,6 +244,7 @@ public void addRelevanceEntity(EntityRef entity, Vector3i distance, ChunkRegionL
         regionLock.writeLock().lock();
         try {
             regions.put(entity, region);
+            relevanceRegionsChanged = true;
         } finally {
             regionLock.writeLock().unlock();
         }
@@ -253,7 +275,13 @@ public void updateRelevanceEntity(EntityRef entity, Vector3i distance) {
     public void removeRelevanceEntity(EntityRef entity) {
         regionLock.writeLock().lock();
         try {
-            regions.remove(entity);
+            ChunkRelevanceRegion region = regions.remove(entity);
+            if (region != null) {
+                chunkCache.removeDenseRegion(region);
+                lifecycle.regionRemoved(region.getPreviousRegion(), UNLOAD_LEEWAY);
+                lifecycle.regionRemoved(region.getCurrentRegion(), UNLOAD_LEEWAY);
+            }
+            relevanceRegionsChanged = true;
         } finally {
             regionLock.writeLock().unlock();
         }
@@ -261,10 +289,25 @@ public void removeRelevanceEntity(EntityRef entity) {
 
     @Override
     public void completeUpdate() {
-        ReadyChunkInfo readyChunkInfo = chunkFinalizer.completeFinalization();
-        if (readyChunkInfo != null) {
+        lifecycle.resumeWork();
+        // Finalizations that are still running are completed in a later frame instead of waiting for them here
+        boolean completed = false;
+        while ((!completed || lifecycle.hasTimeLeft(1.0f)) && chunkFinalizer.isFinalizationDone()) {
+            ReadyChunkInfo readyChunkInfo = chunkFinalizer.completeFinalization();
+            if (readyChunkInfo == null) {
+                break;
+            }
+            completed = true;
+            finalizingPositions.remove(readyChunkInfo.getPos());
+            lifecycle.retryWaitingChunksAround(readyChunkInfo.getPos());
             processReadyChunk(readyChunkInfo);
+            if (finalizingPositions.isEmpty()) {
+                break;
+            }
         }
+        // Keep the light merging busy until the next frame
+        beginFinalizations();
+        lifecycle.pauseWork();
     }
 
     private void processReadyChunk(final ReadyChunkInfo readyChunkInfo) {
@@ -339,6 +382,7 @@ private void generateQueuedEntities(EntityStore store) {
 
     @Override
     public void beginUpdate() {
+        lifecycle.startTick();
         regionLock.readLock().lock();
         try {
             updateRelevance();
@@ -347,6 +391,7 @@ public void beginUpdate() {
             makeChunksAvailable();
         } finally {
             regionLock.readLock().unlock();
+            lifecycle.pauseWork();
         }
     }
 
@@ -356,23 +401,30 @@ private void makeChunksAvailable() {
         for (ReadyChunkInfo readyChunkInfo : newReadyChunks) {
             chunkCache.put(readyChunkInfo.getPos(), readyChunkInfo.getChunk());
             preparingChunks.remove(readyChunkInfo.getPos());
+            lifecycle.addReadyChunk(readyChunkInfo);
+            if (!isInAnyRegion(readyChunkInfo.getPos())) {
+                // The regions moved away while the chunk was being prepared
+                lifecycle.queueUnloadCandidate(readyChunkInfo.getPos());
+            }
         }
         updateRelevanceRegionsWithNewChunks(newReadyChunks);
-        if (!newReadyChunks.isEmpty()) {
-            sortedReadyChunks.addAll(newReadyChunks);
-            Collections.sort(sortedReadyChunks, new ReadyChunkRelevanceComparator());
-        }
-        if (!sortedReadyChunks.isEmpty()) {
-            boolean loaded = false;
-            for (int i = sortedReadyChunks.size() - 1; i >= 0 && !loaded; i--) {
-                ReadyChunkInfo chunkInfo = sortedReadyChunks.get(i);
-                PerformanceMonitor.startActivity("Make Chunk Available");
-                if (makeChunkAvailable(chunkInfo)) {
-                    sortedReadyChunks.remove(i);
-                    loaded = true;
-                }
-                PerformanceMonitor.endActivity();
+        beginFinalizations();
+    }
+
+    /**
+     * Starts finalizing the closest ready chunks whose neighbours are all loaded, until {@link #MAX_FINALIZATIONS} are
+     * running or the tick's budget is used up. At least one is started if none is running.
+     */
+    private void beginFinalizations() {
+        PerformanceMonitor.startActivity("Make Chunk Available");
+        try {
+            boolean started = true;
+            while (started && finalizingPositions.size() < MAX_FINALIZATIONS
+                    && (finalizingPositions.isEmpty() || lifecycle.hasTimeLeft(1.0f))) {
+                started = lifecycle.pollReadyChunk(this::makeChunkAvailable) != null;
             }
+        } finally {
+            PerformanceMonitor.endActivity();
         }
     }
 
@@ -397,46 +449,76 @@ private void deactivateBlocks() {
         }
     }
 
+    /**
+     * Unloads the queued candidates which are not covered by any region, for at most half of the tick's budget so
+     * that making chunks available doesn't starve. Chunks the running finalizations read are kept for a later tick.
+     */
     private void checkForUnload() {
         PerformanceMonitor.startActivity("Unloading irrelevant chunks");
-        int unloaded = 0;
-        logger.debug("Compacting cache");
-        Iterator<Vector3i> iterator = chunkCache.iterateChunkPositions();
-        while (iterator.hasNext()) {
+        boolean unloaded = false;
+        List<Vector3i> postponed = Lists.newArrayList();
+        Iterator<Vector3i> iterator = lifecycle.unloadCandidates();
+        while (iterator.hasNext() && (!unloaded || lifecycle.hasTimeLeft(0.5f))) {
             Vector3i pos = iterator.next();
-            boolean keep = false;
-            for (ChunkRelevanceRegion region : regions.values()) {
-                if (region.getCurrentRegion().expand(UNLOAD_LEEWAY).encompasses(pos)) {
-                    keep = true;
-                    break;
-                }
+            iterator.remove();
+            if (!chunkCache.containsChunkAt(pos) || isInAnyRegion(pos)) {
+                continue;
             }
-            if (!keep) {
-                // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
-                // Note: Above won't matter if all changes are on the main thread
-                if (unloadChunkInternal(pos)) {
-                    iterator.remove();
-                    if (++unloaded >= UNLOAD_PER_FRAME) {
-                        break;
-                    }
-                }
+            if (isUsedByFinalization(pos)) {
+                postponed.add(pos);
+                continue;
+            }
+            // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
+            // Note: Above won't matter if all changes are on the main thread
+            if (unloadChunkInternal(pos)) {
+                chunkCache.removeChunkAt(pos);
+                unloaded = true;
             }
         }
+        postponed.forEach(lifecycle::queueUnloadCandidate);
         PerformanceMonitor.endActivity();
     }
 
+    /**
+     * @return whether a running finalization reads the chunk at the given position, which is the case for the chunks
+     * next to the finalized one, too
+     */
+    private boolean isUsedByFinalization(Vector3i pos) {
+        for (Vector3i finalizingPosition : finalizingPositions) {
+            if (Math.abs(pos.x - finalizingPosition.x) <= 1
+                    && Math.abs(pos.y - finalizingPosition.y) <= 1
+                    && Math.abs(pos.z - finalizingPosition.z) <= 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInAnyRegion(Vector3i pos) {
+        for (ChunkRelevanceRegion region : regions.values()) {
+            if (region.getCurrentRegion().expand(UNLOAD_LEEWAY).encompasses(pos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int distanceToRegions(Vector3i pos) {
+        int score = Integer.MAX_VALUE;
+        for (ChunkRelevanceRegion region : regions.values()) {
+            int dist = pos.gridDistance(region.getCenter());
+            if (dist < score) {
+                score = dist;
+            }
+        }
+        return score;
+    }
+
     private boolean unloadChunkInternal(Vector3i pos) {
         Chunk chunk = chunkCache.get(pos);
         if (!chunk.isReady()) {
             // Chunk hasn't been finished or changed, so just drop it.
-            Iterator<ReadyChunkInfo> infoIterator = sortedReadyChunks.iterator();
-            while (infoIterator.hasNext()) {
-                ReadyChunkInfo next = infoIterator.next();
-                if (next.getPos().equals(chunk.getPosition())) {
-                    infoIterator.remove();
-                    break;
-                }
-            }
+            lifecycle.removeReadyChunk(chunk.getPosition());
             return true;
         }
         worldEntity.send(new BeforeChunkUnload(pos));
@@ -468,8 +550,9 @@ private List<Chunk> listAdjacentChunks(Chunk chunk) {
         final Vector3i centerChunkPosition = chunk.getPosition();
         List<Chunk> adjacentChunks = new ArrayList<>(6);
         for (Side side : Side.values()) {
-            final Vector3i adjacentChunkPosition = side.getAdjacentPos(centerChunkPosition);
-            final Chunk adjacentChunk = chunkCache.get(adjacentChunkPosition);
+            final Vector3i direction = side.getVector3i();
+            final Chunk adjacentChunk = chunkCache.get(centerChunkPosition.x + direction.x, centerChunkPosition.y + direction.y,
+                    centerChunkPosition.z + direction.z);
             if (adjacentChunk != null) {
                 adjacentChunks.add(adjacentChunk);
             }
@@ -481,6 +564,9 @@ private void updateRelevance() {
         for (ChunkRelevanceRegion chunkRelevanceRegion : regions.values()) {
             chunkRelevanceRegion.update();
             if (chunkRelevanceRegion.isDirty()) {
+                relevanceRegionsChanged = true;
+                lifecycle.regionMoved(chunkRelevanceRegion.getPreviousRegion(), chunkRelevanceRegion.getCurrentRegion(), UNLOAD_LEEWAY);
+                chunkCache.setDenseRegion(chunkRelevanceRegion, chunkRelevanceRegion.getCurrentRegion().expand(UNLOAD_LEEWAY));
                 for (Vector3i pos : chunkRelevanceRegion.getNeededChunks()) {
                     Chunk chunk = chunkCache.get(pos);
                     if (chunk != null) {
@@ -492,6 +578,13 @@ private void updateRelevance() {
                 chunkRelevanceRegion.setUpToDate();
             }
         }
+        if (relevanceRegionsChanged) {
+            relevanceRegionsChanged = false;
+            PerformanceMonitor.startActivity("Reprioritize chunk tasks");
+            pipeline.reprioritize(chunkTaskRelevance::isRelevant, task -> preparingChunks.remove(task.getPosition()));
+            lifecycle.reprioritize();
+            PerformanceMonitor.endActivity();
+        }
     }
 
     private boolean makeChunkAvailable(final ReadyChunkInfo readyChunkInfo) {
@@ -499,12 +592,17 @@ private boolean makeChunkAvailable(final ReadyChunkInfo readyChunkInfo) {
         if (chunk == null) {
             return false;
         }
+        // Merging the light of neighbours at the same time would make the result depend on which one is done first
+        if (isUsedByFinalization(readyChunkInfo.getPos())) {
+            return false;
+        }
         for (Vector3i pos : Region3i.createFromCenterExtents(readyChunkInfo.getPos(), 1)) {
             if (chunkCache.get(pos) == null) {
                 return false;
             }
         }
         chunkFinalizer.beginFinalization(chunk, readyChunkInfo);
+        finalizingPositions.add(readyChunkInfo.getPos());
         return true;
     }
 
@@ -612,14 +710,15 @@ public void purgeWorld() {
         });
         chunkCache.clear();
         readyChunks.clear();
-        sortedReadyChunks.clear();
+        lifecycle.clear();
         storageManager.deleteWorld();
         preparingChunks.clear();
         worldEntity.send(new PurgeWorldEvent());
 
-        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        pipeline = new ChunkGenerationPipeline(chunkTaskRelevance::score);
         unloadRequestTaskMaster = TaskMaster.createFIFOTaskMaster("Chunk-Unloader", 8);
         chunkFinalizer = chunkFinalizerSupplier.get();
+        finalizingPositions.clear();
         chunkFinalizer.initialize(this);
         chunkFinalizer.restart();
         ChunkMonitor.fireChunkProviderInitialized(this);
@@ -653,6 +752,7 @@ public void run() {
                     } else {
                         chunk = chunkStore.getChunk();
                     }
+                    storageManager.restoreJournaledChanges(chunk);
 
                     InternalLightProcessor.generateInternalLighting(chunk);
                     chunk.deflate();
@@ -683,69 +783,35 @@ private boolean isChunkReady(Chunk chunk) {
         return chunk != null && chunk.isReady();
     }
 
-    private class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
-
-        @Override
-        public int compare(ChunkTask o1, ChunkTask o2) {
-            return score(o1) - score(o2);
-        }
+    /**
+     * Scores chunk tasks by the grid distance of their chunk to the closest relevance region, and decides whether
+     * they are still needed. A task is evaluated once when queued and again whenever the regions move.
+     */
+    private class ChunkTaskRelevance {
 
-        private int score(ChunkTask task) {
+        int score(ChunkTask task) {
             if (task.isTerminateSignal()) {
                 return -1;
             }
-            return score(task.getPosition());
-        }
-
-        private int score(Vector3i chunk) {
-            int score = Integer.MAX_VALUE;
-
             regionLock.readLock().lock();
             try {
-                for (ChunkRelevanceRegion region : regions.values()) {
-                    int dist = distFromRegion(chunk, region.getCenter());
-                    if (dist < score) {
-                        score = dist;
-                    }
-                }
-                return score;
+                return distanceToRegions(task.getPosition());
             } finally {
                 regionLock.readLock().unlock();
             }
         }
 
-        private int distFromRegion(Vector3i pos, Vector3i regionCenter) {
-            return pos.gridDistance(regionCenter);
-        }
-    }
-
-    private class ReadyChunkRelevanceComparator implements Comparator<ReadyChunkInfo> {
-
-        @Override
-        public int compare(ReadyChunkInfo o1, ReadyChunkInfo o2) {
-            return score(o2.getPos()) - score(o1.getPos());
-        }
-
-        private int score(Vector3i chunk) {
-            int score = Integer.MAX_VALUE;
-
+        boolean isRelevant(ChunkTask task) {
+            if (task.isTerminateSignal()) {
+                return true;
+            }
             regionLock.readLock().lock();
             try {
-                for (ChunkRelevanceRegion region : regions.values()) {
-                    int dist = distFromRegion(chunk, region.getCenter());
-                    if (dist < score) {
-                        score = dist;
-                    }
-                }
-                return score;
+                return isInAnyRegion(task.getPosition());
             } finally {
                 regionLock.readLock().unlock();
             }
         }
-
-        private int distFromRegion(Vector3i pos, Vector3i regionCenter) {
-            return pos.gridDistance(regionCenter);
-        }
     }
 
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.math.Region3i;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Chunk cache keyed by the chunk position packed into a single long, so lookups don't need a {@link Vector3i}.
+ * <br><br>
+ * In addition, a dense grid can be kept around each relevance region. The grids are ring buffers indexed by the chunk
+ * position modulo their (power of two) size, so moving the region only refills the slots of the chunks that came into
+ * it, and lookups of chunks within the region are plain array reads. Positions outside of all grids fall back to the
+ * map.
+ * <br><br>
+ * Lookups are safe from any thread, changes are expected to be done by one thread at a time. The map is a primitive
+ * long keyed map guarded by a read/write lock, so that neither lookups nor changes box the packed position. The
+ * collections of positions and chunks are snapshots.
+ */
+public class PackedChunkCache implements ChunkCache {
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final DenseGrid[] NO_GRIDS = new DenseGrid[0];
+
+    private final TLongObjectMap<Chunk> cache = new TLongObjectHashMap<>();
+    private final StampedLock lock = new StampedLock();
+    private final Map<Object, DenseGrid> gridsByOwner = new ConcurrentHashMap<>();
+    private volatile DenseGrid[] grids = NO_GRIDS;
+
+    /**
+     * @return the position packed into a long, 21 bits per axis
+     */
+    static long pack(int x, int y, int z) {
+        return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    static int unpackX(long key) {
+        return (int) (key << (64 - 3 * BITS) >> (64 - BITS));
+    }
+
+    static int unpackY(long key) {
+        return (int) (key << (64 - 2 * BITS) >> (64 - BITS));
+    }
+
+    static int unpackZ(long key) {
+        return (int) (key << (64 - BITS) >> (64 - BITS));
+    }
+
+    @Override
+    public Chunk get(Vector3i chunkPosition) {
+        return get(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+    }
+
+    @Override
+    public Chunk get(int x, int y, int z) {
+        long key = pack(x, y, z);
+        for (DenseGrid grid : grids) {
+            Slot slot = grid.getSlot(x, y, z);
+            if (slot != null && slot.key == key) {
+                return slot.chunk;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return cache.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void put(Vector3i chunkPosition, Chunk chunk) {
+        long key = pack(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+        long stamp = lock.writeLock();
+        try {
+            cache.put(key, chunk);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        Slot slot = new Slot(key, chunk);
+        for (DenseGrid grid : grids) {
+            grid.update(chunkPosition.x, chunkPosition.y, chunkPosition.z, slot);
+        }
+    }
+
+    @Override
+    public Iterator<Vector3i> iterateChunkPositions() {
+        long[] keys;
+        long stamp = lock.readLock();
+        try {
+            keys = cache.keys();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return Iterators.transform(Longs.asList(keys).iterator(), key -> new Vector3i(unpackX(key), unpackY(key), unpackZ(key)));
+    }
+
+    @Override
+    public Collection<Chunk> getAllChunks() {
+        long stamp = lock.readLock();
+        try {
+            return Lists.newArrayList(cache.valueCollection());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            cache.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        for (DenseGrid grid : grids) {
+            grid.clear();
+        }
+    }
+
+    @Override
+    public boolean containsChunkAt(Vector3i chunkPosition) {
+        return get(chunkPosition) != null;
+    }
+
+    @Override
+    public void removeChunkAt(Vector3i chunkPosition) {
+        long key = pack(chunkPosition.x, chunkPosition.y, chunkPosition.z);
+        long stamp = lock.writeLock();
+        try {
+            cache.remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        Slot slot = new Slot(key, null);
+        for (DenseGrid grid : grids) {
+            grid.update(chunkPosition.x, chunkPosition.y, chunkPosition.z, slot);
+        }
+    }
+
+    @Override
+    public void setDenseRegion(Object owner, Region3i region) {
+        if (region.isEmpty()) {
+            removeDenseRegion(owner);
+            return;
+        }
+        DenseGrid grid = gridsByOwner.get(owner);
+        if (grid != null && grid.fits(region)) {
+            grid.move(region);
+        } else {
+            gridsByOwner.put(owner, new DenseGrid(region));
+            grids = gridsByOwner.values().toArray(NO_GRIDS);
+        }
+    }
+
+    @Override
+    public void removeDenseRegion(Object owner) {
+        if (gridsByOwner.remove(owner) != null) {
+            grids = gridsByOwner.values().toArray(NO_GRIDS);
+        }
+    }
+
+    /**
+     * Immutable pairing of a chunk with its packed position, so that readers never see a chunk with the key of
+     * another position. A slot without a chunk records that the position isn't loaded.
+     */
+    private static final class Slot {
+        private final long key;
+        private final Chunk chunk;
+
+        private Slot(long key, Chunk chunk) {
+            this.key = key;
+            this.chunk = chunk;
+        }
+    }
+
+    private final class DenseGrid {
+        private final int maskX;
+        private final int maskY;
+        private final int maskZ;
+        private final int shiftY;
+        private final int shiftX;
+        private final AtomicReferenceArray<Slot> slots;
+        private volatile Region3i region = Region3i.EMPTY;
+
+        private DenseGrid(Region3i region) {
+            int sizeX = TeraMath.ceilPowerOfTwo(region.sizeX());
+            int sizeY = TeraMath.ceilPowerOfTwo(region.sizeY());
+            int sizeZ = TeraMath.ceilPowerOfTwo(region.sizeZ());
+            maskX = sizeX - 1;
+            maskY = sizeY - 1;
+            maskZ = sizeZ - 1;
+            shiftY = Integer.numberOfTrailingZeros(sizeZ);
+            shiftX = shiftY + Integer.numberOfTrailingZeros(sizeY);
+            slots = new AtomicReferenceArray<>(sizeX * sizeY * sizeZ);
+            move(region);
+        }
+
+        private boolean fits(Region3i newRegion) {
+            return newRegion.sizeX() <= maskX + 1 && newRegion.sizeY() <= maskY + 1 && newRegion.sizeZ() <= maskZ + 1;
+        }
+
+        private int index(int x, int y, int z) {
+            return ((x & maskX) << shiftX) | ((y & maskY) << shiftY) | (z & maskZ);
+        }
+
+        private Slot getSlot(int x, int y, int z) {
+            if (region.encompasses(x, y, z)) {
+                return slots.get(index(x, y, z));
+            }
+            return null;
+        }
+
+        private void update(int x, int y, int z, Slot slot) {
+            if (region.encompasses(x, y, z)) {
+                slots.set(index(x, y, z), slot);
+            }
+        }
+
+        /**
+         * Clears the slots of the positions that leave the region and fills the slots of the positions that come into
+         * it, before the new region is published. Lookups through the old region meanwhile find either the right
+         * chunk or a slot whose key doesn't match, and fall back to the map; stale slots are never left behind for a
+         * later region to pick up.
+         */
+        private void move(Region3i newRegion) {
+            Region3i oldRegion = region;
+            if (oldRegion.equals(newRegion)) {
+                return;
+            }
+            for (int x = oldRegion.minX(); x <= oldRegion.maxX(); x++) {
+                for (int y = oldRegion.minY(); y <= oldRegion.maxY(); y++) {
+                    for (int z = oldRegion.minZ(); z <= oldRegion.maxZ(); z++) {
+                        if (!newRegion.encompasses(x, y, z)) {
+                            slots.set(index(x, y, z), null);
+                        }
+                    }
+                }
+            }
+            for (int x = newRegion.minX(); x <= newRegion.maxX(); x++) {
+                for (int y = newRegion.minY(); y <= newRegion.maxY(); y++) {
+                    for (int z = newRegion.minZ(); z <= newRegion.maxZ(); z++) {
+                        if (!oldRegion.encompasses(x, y, z)) {
+                            long key = pack(x, y, z);
+                            // Only the thread making changes moves grids, so the map can't change meanwhile
+                            slots.set(index(x, y, z), new Slot(key, cache.get(key)));
+                        }
+                    }
+                }
+            }
+            region = newRegion;
+        }
+
+        private void clear() {
+            for (int i = 0; i < slots.length(); i++) {
+                slots.set(i, null);
+            }
+        }
+    }
+}
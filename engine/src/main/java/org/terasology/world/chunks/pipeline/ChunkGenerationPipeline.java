@@ -20,7 +20,9 @@
 import org.slf4j.LoggerFactory;
 import org.terasology.utilities.concurrency.TaskMaster;
 
-import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
  */
@@ -30,8 +32,24 @@ public class ChunkGenerationPipeline {
 
     private TaskMaster<ChunkTask> chunkGenerator;
 
-    public ChunkGenerationPipeline(Comparator<ChunkTask> taskComparator) {
-        chunkGenerator = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Generator", NUM_TASK_THREADS, taskComparator);
+    /**
+     * Creates a pipeline which processes the tasks with the lowest score first. Scores are only re-evaluated when
+     * {@link #reprioritize(Predicate, Consumer)} is called.
+     *
+     * @param taskScore the score of a task, typically its chunk's distance to the closest relevance region
+     */
+    public ChunkGenerationPipeline(ToIntFunction<ChunkTask> taskScore) {
+        chunkGenerator = TaskMaster.createBucketedPriorityTaskMaster("Chunk-Generator", NUM_TASK_THREADS, taskScore);
+    }
+
+    /**
+     * Re-evaluates the score of all waiting tasks, dropping tasks for chunks that are no longer needed.
+     *
+     * @param keep     whether a waiting task should still be run
+     * @param onCancel called for each task that is dropped
+     */
+    public void reprioritize(Predicate<ChunkTask> keep, Consumer<ChunkTask> onCancel) {
+        chunkGenerator.reprioritize(keep, onCancel);
     }
 
     public void doTask(ChunkTask task) {
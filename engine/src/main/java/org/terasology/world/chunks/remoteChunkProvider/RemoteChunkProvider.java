@@ -72,11 +72,12 @@ public class RemoteChunkProvider implements ChunkProvider, GeneratingChunkProvid
     private LightMerger<Chunk> lightMerger = new LightMerger<>(this);
 
     private LocalPlayer localPlayer;
+    private Vector3i lastPlayerChunk = new Vector3i();
 
     public RemoteChunkProvider(BlockManager blockManager, LocalPlayer localPlayer) {
         this.blockManager = blockManager;
         this.localPlayer = localPlayer;
-        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        pipeline = new ChunkGenerationPipeline(this::score);
         ChunkMonitor.fireChunkProviderInitialized(this);
     }
 
@@ -110,6 +111,11 @@ public void invalidateChunks(Vector3i pos) {
 
     @Override
     public void beginUpdate() {
+        Vector3i playerChunk = getPlayerChunk();
+        if (!playerChunk.equals(lastPlayerChunk)) {
+            lastPlayerChunk = playerChunk;
+            pipeline.reprioritize(task -> true, task -> { });
+        }
         if (listener != null) {
             List<Chunk> newReadyChunks = Lists.newArrayList();
             readyChunks.drainTo(newReadyChunks);
@@ -285,17 +291,19 @@ public Chunk getChunkUnready(Vector3i pos) {
     }
 
 
-    private class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
-
-        @Override
-        public int compare(ChunkTask o1, ChunkTask o2) {
-            return score(o1.getPosition()) - score(o2.getPosition());
+    /**
+     * Scores chunk tasks by the grid distance of their chunk to the player. The score of a waiting task is only
+     * re-evaluated once the player enters another chunk.
+     */
+    private int score(ChunkTask task) {
+        if (task.isTerminateSignal()) {
+            return -1;
         }
+        return getPlayerChunk().gridDistance(task.getPosition());
+    }
 
-        private int score(Vector3i chunk) {
-            Vector3i playerChunk = ChunkMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), RoundingMode.HALF_UP));
-            return playerChunk.distanceSquared(chunk);
-        }
+    private Vector3i getPlayerChunk() {
+        return ChunkMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), RoundingMode.HALF_UP));
     }
 
     private class ReadyChunkRelevanceComparator implements Comparator<Chunk> {
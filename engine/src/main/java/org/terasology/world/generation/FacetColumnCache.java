@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ListMultimap;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares the facets that only depend on the x/z column between all regions of that column, e.g. all chunks stacked
+ * on top of each other. Each column gets its own region that only runs the providers which produce such facets,
+ * and the least recently used columns are dropped once there are too many.
+ * <br><br>
+ * Thread safe, so that all chunk generation threads can share it. The shared facets must not be modified.
+ */
+class FacetColumnCache {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains;
+    private final Map<Class<? extends WorldFacet>, Border3D> borders;
+    private final Set<Class<? extends WorldFacet>> columnFacets;
+    private final Map<FacetProvider, Set<Class<? extends WorldFacet>>> columnProviders;
+    private final Cache<Region3i, RegionImpl> columns;
+
+    /**
+     * @param columnFacets    the facets whose whole provider chain only depends on the column
+     * @param columnProviders the providers whose facets are all column facets, with the facets they produce or update
+     */
+    FacetColumnCache(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
+                     Map<Class<? extends WorldFacet>, Border3D> borders,
+                     Set<Class<? extends WorldFacet>> columnFacets,
+                     Map<FacetProvider, Set<Class<? extends WorldFacet>>> columnProviders,
+                     int capacity) {
+        this.facetProviderChains = facetProviderChains;
+        this.borders = borders;
+        this.columnFacets = columnFacets;
+        this.columnProviders = columnProviders;
+        this.columns = CacheBuilder.newBuilder().maximumSize(capacity).build();
+    }
+
+    boolean isColumnFacet(Class<? extends WorldFacet> type) {
+        return columnFacets.contains(type);
+    }
+
+    /**
+     * @return the column facets produced or updated by the provider, or null if the provider has to run per region
+     */
+    Set<Class<? extends WorldFacet>> getColumnFacetsOf(FacetProvider provider) {
+        return columnProviders.get(provider);
+    }
+
+    /**
+     * @param region the region the facet is needed for
+     * @param type   a column facet
+     * @return the facet for the column of the region, generating it if no region of that column needed it before
+     */
+    <T extends WorldFacet> T getFacet(Region3i region, Class<T> type) {
+        Region3i columnRegion = Region3i.createFromMinAndSize(new Vector3i(region.minX(), 0, region.minZ()), region.size());
+        RegionImpl column = columns.asMap().computeIfAbsent(columnRegion, key -> new RegionImpl(key, facetProviderChains, borders));
+        synchronized (column) {
+            return column.getFacet(type);
+        }
+    }
+
+    long size() {
+        return columns.size();
+    }
+
+    void clear() {
+        columns.invalidateAll();
+    }
+}
@@ -34,27 +34,54 @@ public class RegionImpl implements Region, GeneratingRegion {
     private final TypeMap<WorldFacet> generatingFacets = TypeMap.create();
     private final Set<FacetProvider> processedProviders = Sets.newHashSet();
     private final TypeMap<WorldFacet> generatedFacets = TypeMap.create();
+    private final FacetColumnCache columnCache;
 
     public RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders) {
+        this(region, facetProviderChains, borders, null);
+    }
+
+    /**
+     * @param columnCache where to take the facets from that are shared by the whole column, may be null
+     */
+    RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders,
+               FacetColumnCache columnCache) {
         this.region = region;
         this.facetProviderChains = facetProviderChains;
         this.borders = borders;
+        this.columnCache = columnCache;
     }
 
     @Override
     public <T extends WorldFacet> T getFacet(Class<T> dataType) {
         T facet = generatedFacets.get(dataType);
         if (facet == null) {
-            facetProviderChains.get(dataType).stream().filter(provider -> !processedProviders.contains(provider)).forEach(provider -> {
-                provider.process(this);
-                processedProviders.add(provider);
-            });
-            facet = generatingFacets.get(dataType);
-            generatedFacets.put(dataType, facet);
+            if (columnCache != null && columnCache.isColumnFacet(dataType)) {
+                facet = useColumnFacet(dataType);
+            } else {
+                facetProviderChains.get(dataType).stream().filter(provider -> !processedProviders.contains(provider)).forEach(provider -> {
+                    Set<Class<? extends WorldFacet>> columnFacets = columnCache != null ? columnCache.getColumnFacetsOf(provider) : null;
+                    if (columnFacets != null) {
+                        // Take what the provider would produce from the column rather than producing it again
+                        columnFacets.stream().filter(type -> !generatedFacets.containsKey(type)).forEach(this::useColumnFacet);
+                    } else {
+                        provider.process(this);
+                    }
+                    processedProviders.add(provider);
+                });
+                facet = generatingFacets.get(dataType);
+                generatedFacets.put(dataType, facet);
+            }
         }
         return facet;
     }
 
+    private <T extends WorldFacet> T useColumnFacet(Class<T> type) {
+        T facet = columnCache.getFacet(region, type);
+        generatingFacets.put(type, facet);
+        generatedFacets.put(type, facet);
+        return facet;
+    }
+
     @Override
     public Region3i getRegion() {
         return region;
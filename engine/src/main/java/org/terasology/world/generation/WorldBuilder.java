@@ -101,7 +101,54 @@ public World build() {
             provider.setSeed(seed);
         }
         ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains = determineProviderChains();
-        return new WorldImpl(providerChains, rasterizers, entityProviders, determineBorders(providerChains), seaLevel);
+        Set<Class<? extends WorldFacet>> columnFacets = determineColumnFacets(providerChains);
+        return new WorldImpl(providerChains, rasterizers, entityProviders, determineBorders(providerChains), seaLevel,
+                columnFacets, determineColumnProviders(columnFacets));
+    }
+
+    /**
+     * @return the facets for which every provider in their chain declared that its facets only depend on the column
+     */
+    private Set<Class<? extends WorldFacet>> determineColumnFacets(ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains) {
+        Set<Class<? extends WorldFacet>> result = Sets.newHashSet();
+        for (Class<? extends WorldFacet> facet : providerChains.keySet()) {
+            List<FacetProvider> chain = providerChains.get(facet);
+            if (!chain.isEmpty() && chain.stream().allMatch(this::isDeclaredPerColumn)) {
+                result.add(facet);
+            }
+        }
+        if (!result.isEmpty()) {
+            logger.debug("Facets generated per column: {}", result);
+        }
+        return result;
+    }
+
+    private Map<FacetProvider, Set<Class<? extends WorldFacet>>> determineColumnProviders(Set<Class<? extends WorldFacet>> columnFacets) {
+        Map<FacetProvider, Set<Class<? extends WorldFacet>>> result = Maps.newHashMap();
+        for (FacetProvider provider : providersList) {
+            Set<Class<? extends WorldFacet>> facets = touchedFacets(provider);
+            if (!facets.isEmpty() && columnFacets.containsAll(facets)) {
+                result.put(provider, facets);
+            }
+        }
+        return result;
+    }
+
+    private boolean isDeclaredPerColumn(FacetProvider provider) {
+        PerColumn perColumn = provider.getClass().getAnnotation(PerColumn.class);
+        return perColumn != null && Arrays.asList(perColumn.value()).containsAll(touchedFacets(provider));
+    }
+
+    private Set<Class<? extends WorldFacet>> touchedFacets(FacetProvider provider) {
+        Set<Class<? extends WorldFacet>> result = Sets.newLinkedHashSet();
+        Produces produces = provider.getClass().getAnnotation(Produces.class);
+        if (produces != null) {
+            result.addAll(Arrays.asList(produces.value()));
+        }
+        for (Facet updated : updatedFacets(provider)) {
+            result.add(updated.value());
+        }
+        return result;
     }
 
     private Map<Class<? extends WorldFacet>, Border3D> determineBorders(ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains) {
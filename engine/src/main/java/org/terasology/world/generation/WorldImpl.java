@@ -15,6 +15,8 @@
  */
 package org.terasology.world.generation;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Sets;
 import org.terasology.math.Region3i;
@@ -34,17 +36,37 @@ public class WorldImpl implements World {
     private final List<EntityProvider> entityProviders;
     private final Map<Class<? extends WorldFacet>, Border3D> borders;
     private final int seaLevel;
+    private final FacetColumnCache columnCache;
 
     public WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
                      List<WorldRasterizer> worldRasterizers,
                      List<EntityProvider> entityProviders,
                      Map<Class<? extends WorldFacet>, Border3D> borders,
                      int seaLevel) {
+        this(facetProviderChains, worldRasterizers, entityProviders, borders, seaLevel, ImmutableSet.of(), ImmutableMap.of());
+    }
+
+    /**
+     * @param columnFacets    the facets that are generated once per x/z column when rasterizing chunks
+     * @param columnProviders the providers whose facets are all column facets, with the facets they produce or update
+     */
+    WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
+              List<WorldRasterizer> worldRasterizers,
+              List<EntityProvider> entityProviders,
+              Map<Class<? extends WorldFacet>, Border3D> borders,
+              int seaLevel,
+              Set<Class<? extends WorldFacet>> columnFacets,
+              Map<FacetProvider, Set<Class<? extends WorldFacet>>> columnProviders) {
         this.facetProviderChains = facetProviderChains;
         this.worldRasterizers = worldRasterizers;
         this.entityProviders = entityProviders;
         this.borders = borders;
         this.seaLevel = seaLevel;
+        if (columnFacets.isEmpty()) {
+            this.columnCache = null;
+        } else {
+            this.columnCache = new FacetColumnCache(facetProviderChains, borders, columnFacets, columnProviders, FacetColumnCache.DEFAULT_CAPACITY);
+        }
     }
 
     @Override
@@ -59,7 +81,8 @@ public int getSeaLevel() {
 
     @Override
     public void rasterizeChunk(CoreChunk chunk, EntityBuffer buffer) {
-        Region chunkRegion = getWorldData(chunk.getRegion());
+        // Unlike arbitrary world data, chunks are generated column by column, so sharing facets between them pays off
+        Region chunkRegion = new RegionImpl(chunk.getRegion(), facetProviderChains, borders, columnCache);
         for (WorldRasterizer rasterizer : worldRasterizers) {
             rasterizer.generateChunk(chunk, chunkRegion);
         }
@@ -78,6 +101,10 @@ public void initialize() {
         // throw them all in a set to remove duplicates
         Collection<FacetProvider> facetProviders = new LinkedHashSet<>(facetProviderChains.values());
 
+        if (columnCache != null) {
+            columnCache.clear();
+        }
+
         facetProviders.forEach(FacetProvider::initialize);
 
         worldRasterizers.forEach(WorldRasterizer::initialize);
@@ -44,9 +44,9 @@
 import org.terasology.world.propagation.BatchPropagator;
 import org.terasology.world.propagation.BiomeChange;
 import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.ParallelBatchPropagator;
 import org.terasology.world.propagation.PropagationRules;
 import org.terasology.world.propagation.PropagatorWorldView;
-import org.terasology.world.propagation.StandardBatchPropagator;
 import org.terasology.world.propagation.SunlightRegenBatchPropagator;
 import org.terasology.world.propagation.light.LightPropagationRules;
 import org.terasology.world.propagation.light.LightWorldView;
@@ -64,6 +64,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 /**
  */
@@ -82,6 +84,11 @@ public class WorldProviderCoreImpl implements WorldProviderCore {
     private Map<Vector3i, BlockChange> blockChanges = Maps.newHashMap();
     private Map<Vector3i, BiomeChange> biomeChanges = Maps.newHashMap();
     private List<BatchPropagator> propagators = Lists.newArrayList();
+    /**
+     * Pool of the parallel propagators, which only run while the main thread waits for them
+     */
+    private final ForkJoinPool propagationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            WorldProviderCoreImpl::createPropagationWorker, null, false);
 
     private Block unloadedBlock;
 
@@ -98,11 +105,11 @@ public WorldProviderCoreImpl(String title, String seed, long time, SimpleUri wor
         this.worldTime = new WorldTimeImpl();
         worldTime.setMilliseconds(time);
 
-        propagators.add(new StandardBatchPropagator(new LightPropagationRules(), new LightWorldView(chunkProvider)));
+        propagators.add(new ParallelBatchPropagator(new LightPropagationRules(), new LightWorldView(chunkProvider), propagationPool));
         PropagatorWorldView regenWorldView = new SunlightRegenWorldView(chunkProvider);
         PropagationRules sunlightRules = new SunlightPropagationRules(regenWorldView);
         PropagatorWorldView sunlightWorldView = new SunlightWorldView(chunkProvider);
-        BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightWorldView);
+        BatchPropagator sunlightPropagator = new ParallelBatchPropagator(sunlightRules, sunlightWorldView, propagationPool);
         propagators.add(new SunlightRegenBatchPropagator(new SunlightRegenPropagationRules(), regenWorldView, sunlightPropagator, sunlightWorldView));
         propagators.add(sunlightPropagator);
     }
@@ -396,9 +403,16 @@ public byte getTotalLight(int x, int y, int z) {
     @Override
     public void dispose() {
         chunkProvider.dispose();
+        propagationPool.shutdown();
 
     }
 
+    private static ForkJoinWorkerThread createPropagationWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Light-Propagation-" + thread.getPoolIndex());
+        return thread;
+    }
+
     @Override
     public WorldTime getTime() {
         return worldTime;
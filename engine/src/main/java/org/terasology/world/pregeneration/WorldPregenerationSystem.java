@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.pregeneration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.RegisterMode;
+import org.terasology.entitySystem.systems.RegisterSystem;
+import org.terasology.logic.console.commandSystem.annotations.Command;
+import org.terasology.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.logic.permission.PermissionManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.persistence.StorageManager;
+import org.terasology.registry.In;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.generator.WorldGenerator;
+
+import java.io.IOException;
+
+/**
+ * Provides the commands to pre-generate a region of the world in the background, see {@link WorldPregenerator}.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class WorldPregenerationSystem extends BaseComponentSystem {
+    private static final Logger logger = LoggerFactory.getLogger(WorldPregenerationSystem.class);
+
+    @In
+    private WorldGenerator worldGenerator;
+    @In
+    private BlockManager blockManager;
+    @In
+    private BiomeManager biomeManager;
+    @In
+    private StorageManager storageManager;
+
+    private WorldPregenerator pregenerator;
+    private Thread pregenerationThread;
+
+    @Command(shortDescription = "Pre-generates and stores all chunks of a region",
+            helpText = "Generates all chunks between the given chunk positions using all cores and writes them "
+                    + "directly to the save. Chunks that are already stored get skipped, so an interrupted "
+                    + "pre-generation can be resumed by running the same command again.",
+            runOnServer = true, requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String pregenerate(@CommandParam("minChunkX") int minX, @CommandParam("minChunkY") int minY,
+                              @CommandParam("minChunkZ") int minZ, @CommandParam("maxChunkX") int maxX,
+                              @CommandParam("maxChunkY") int maxY, @CommandParam("maxChunkZ") int maxZ) {
+        if (isRunning()) {
+            return "A pre-generation is already running: " + pregenerator.getProgress();
+        }
+        Region3i region = Region3i.createBounded(new Vector3i(minX, minY, minZ), new Vector3i(maxX, maxY, maxZ));
+        WorldPregenerator newPregenerator = new WorldPregenerator(worldGenerator, blockManager, biomeManager,
+                storageManager, region, Runtime.getRuntime().availableProcessors());
+        pregenerationThread = new Thread(() -> {
+            try {
+                newPregenerator.run();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Pre-generation of {} failed", region, e);
+            } catch (InterruptedException e) {
+                logger.warn("Pre-generation of {} got interrupted: {}", region, newPregenerator.getProgress());
+            }
+        }, "Pregeneration");
+        pregenerationThread.setDaemon(true);
+        pregenerator = newPregenerator;
+        pregenerationThread.start();
+        return "Pre-generating " + pregenerator.getTotalChunks() + " chunks, see the log for the progress";
+    }
+
+    @Command(shortDescription = "Shows the progress of the pre-generation", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String pregenerationStatus() {
+        if (pregenerator == null) {
+            return "No pre-generation has been started";
+        }
+        return (isRunning() ? "Running: " : "Stopped: ") + pregenerator.getProgress();
+    }
+
+    @Command(shortDescription = "Stops the pre-generation, it can be resumed later", runOnServer = true,
+            requiredPermission = PermissionManager.SERVER_MANAGEMENT_PERMISSION)
+    public String cancelPregeneration() {
+        if (!isRunning()) {
+            return "No pre-generation is running";
+        }
+        pregenerator.cancel();
+        return "Cancelled pre-generation: " + pregenerator.getProgress();
+    }
+
+    @Override
+    public void shutdown() {
+        if (isRunning()) {
+            pregenerator.cancel();
+            try {
+                pregenerationThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isRunning() {
+        return pregenerationThread != null && pregenerationThread.isAlive();
+    }
+}
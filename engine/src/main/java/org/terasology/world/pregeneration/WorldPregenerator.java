@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.pregeneration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.persistence.StorageManager;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.generation.impl.EntityBufferImpl;
+import org.terasology.world.generator.WorldGenerator;
+import org.terasology.world.propagation.light.InternalLightProcessor;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates, lights and stores all chunks of a region with a thread per core, without loading them into the world.
+ * <br><br>
+ * Finished chunks get written straight to the chunk storage, so the amount of memory needed doesn't depend on the
+ * size of the region. Chunks that are already stored get skipped, which makes it possible to resume an interrupted
+ * pre-generation by running it again for the same region. Chunks for which the world generator wants to spawn
+ * entities are left to be generated when they get loaded, as their entities can only be created in the world.
+ */
+public class WorldPregenerator {
+    private static final Logger logger = LoggerFactory.getLogger(WorldPregenerator.class);
+    private static final int CHUNKS_PER_FLUSH = 256;
+    private static final long PROGRESS_LOG_INTERVAL_MS = 5000;
+
+    private final WorldGenerator worldGenerator;
+    private final BlockManager blockManager;
+    private final BiomeManager biomeManager;
+    private final StorageManager storageManager;
+    private final Region3i region;
+    private final int threadCount;
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicInteger generatedChunks = new AtomicInteger();
+    private final AtomicInteger skippedChunks = new AtomicInteger();
+    private final AtomicInteger deferredChunks = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+    private volatile long startTime;
+
+    public WorldPregenerator(WorldGenerator worldGenerator, BlockManager blockManager, BiomeManager biomeManager,
+                             StorageManager storageManager, Region3i region, int threadCount) {
+        if (region.isEmpty()) {
+            throw new IllegalArgumentException("The region must contain at least one chunk.");
+        }
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Must use at least one thread.");
+        }
+        this.worldGenerator = worldGenerator;
+        this.blockManager = blockManager;
+        this.biomeManager = biomeManager;
+        this.storageManager = storageManager;
+        this.region = region;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Pre-generates the region and blocks until it is done or {@link #cancel()} got called. Logs the progress while
+     * running.
+     *
+     * @throws IOException if the storage failed to write a chunk
+     */
+    public void run() throws IOException, InterruptedException {
+        startTime = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat("Pregeneration-%d").setDaemon(true).build());
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                workers.execute(this::generateChunks);
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(PROGRESS_LOG_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                logger.info("Pre-generation: {}", getProgress());
+            }
+        } finally {
+            // Stops the workers if this thread got interrupted
+            cancelled = true;
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            storageManager.flushGeneratedChunks();
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new RuntimeException("Pre-generation failed", t);
+        }
+        logger.info("Pre-generation {}: {}", isDone() ? "finished" : "cancelled", getProgress());
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether every chunk of the region has been stored, skipped or deferred
+     */
+    public boolean isDone() {
+        return getProcessedChunks() == getTotalChunks();
+    }
+
+    public int getTotalChunks() {
+        return region.sizeX() * region.sizeY() * region.sizeZ();
+    }
+
+    public int getProcessedChunks() {
+        return generatedChunks.get() + skippedChunks.get() + deferredChunks.get();
+    }
+
+    public int getGeneratedChunks() {
+        return generatedChunks.get();
+    }
+
+    /**
+     * @return the number of chunks generated per second since the start, not counting skipped ones
+     */
+    public float getThroughput() {
+        long elapsed = System.nanoTime() - startTime;
+        if (startTime == 0 || elapsed <= 0) {
+            return 0;
+        }
+        return generatedChunks.get() * 1e9f / elapsed;
+    }
+
+    public String getProgress() {
+        return String.format("%d of %d chunks (%.1f%%), %d generated, %d already stored, %d deferred, %.1f chunks/s "
+                        + "with %d threads",
+                getProcessedChunks(), getTotalChunks(), 100f * getProcessedChunks() / getTotalChunks(),
+                generatedChunks.get(), skippedChunks.get(), deferredChunks.get(), getThroughput(), threadCount);
+    }
+
+    private void generateChunks() {
+        try {
+            int total = getTotalChunks();
+            for (int index = nextIndex.getAndIncrement(); index < total && !cancelled; index = nextIndex.getAndIncrement()) {
+                generateChunk(positionOf(index));
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            cancelled = true;
+        }
+    }
+
+    private void generateChunk(Vector3i chunkPos) throws IOException {
+        if (storageManager.containsChunk(chunkPos)) {
+            skippedChunks.incrementAndGet();
+            return;
+        }
+        Chunk chunk = new ChunkImpl(chunkPos, blockManager, biomeManager);
+        EntityBufferImpl buffer = new EntityBufferImpl();
+        worldGenerator.createChunk(chunk, buffer);
+        if (!buffer.getAll().isEmpty()) {
+            deferredChunks.incrementAndGet();
+            return;
+        }
+        InternalLightProcessor.generateInternalLighting(chunk);
+        chunk.deflate();
+        if (!storageManager.storeGeneratedChunk(chunk)) {
+            throw new IllegalStateException("The storage of this world does not support pre-generation");
+        }
+        if (generatedChunks.incrementAndGet() % CHUNKS_PER_FLUSH == 0) {
+            storageManager.flushGeneratedChunks();
+        }
+    }
+
+    /**
+     * Walks the region column by column, so that chunks that are close to each other get generated at about the
+     * same time and end up close to each other in their region file.
+     */
+    private Vector3i positionOf(int index) {
+        int y = index % region.sizeY();
+        int columnIndex = index / region.sizeY();
+        int z = columnIndex % region.sizeZ();
+        int x = columnIndex / region.sizeZ();
+        return new Vector3i(region.minX() + x, region.minY() + y, region.minZ() + z);
+    }
+}
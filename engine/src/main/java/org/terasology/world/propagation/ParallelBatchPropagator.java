@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch propagator that produces the same values as {@link StandardBatchPropagator}, but spreads increases in
+ * different chunks in parallel.
+ * <br><br>
+ * Changes are reviewed and reductions are processed on the calling thread, exactly as the standard propagator does.
+ * The increases queued by that are then grouped by chunk, and each chunk is propagated by its own task on a
+ * fork/join pool. A task only reads and writes values of its own chunk; spreading into a neighbouring chunk is
+ * recorded and applied on the calling thread once all tasks of the pass are done, which seeds the next pass. As
+ * increasing values is monotonic, the order in which chunks are processed does not change the result.
+ * <br><br>
+ * The tasks run on the given pool while the calling thread waits for them, so nothing else changes the world during
+ * a pass. The world view thus has to allow reading and writing values of different chunks concurrently, and reading
+ * blocks and chunks from several threads, as long as only the calling thread changes them in between. The views on
+ * the chunk providers fulfill this, as each chunk keeps its values in its own arrays and a task only touches the
+ * chunk it works on, apart from flagging neighbouring chunks as dirty.
+ */
+public class ParallelBatchPropagator extends AbstractBatchPropagator {
+
+    private static final byte NO_VALUE = 0;
+    private static final Side[] SIDES = Side.values();
+
+    private final ForkJoinPool pool;
+
+    private PositionQueue[] reduceQueues;
+    private PositionQueue[] increaseQueues;
+    private PositionQueue spareQueue = new PositionQueue();
+
+    /**
+     * @param pool the pool to propagate chunks on, which should be dedicated to propagation as the calling thread
+     *             waits for its tasks
+     */
+    public ParallelBatchPropagator(PropagationRules rules, PropagatorWorldView world, ForkJoinPool pool) {
+        super(rules, world);
+        this.pool = pool;
+
+        increaseQueues = new PositionQueue[rules.getMaxValue()];
+        reduceQueues = new PositionQueue[rules.getMaxValue()];
+        for (int i = 0; i < rules.getMaxValue(); ++i) {
+            increaseQueues[i] = new PositionQueue();
+            reduceQueues[i] = new PositionQueue();
+        }
+    }
+
+    @Override
+    public void process(Iterable<BlockChange> blockChanges) {
+        for (BlockChange blockChange : blockChanges) {
+            reviewChange(blockChange);
+        }
+
+        processReduction();
+        processIncrease();
+    }
+
+    private void processReduction() {
+        Vector3i pos = new Vector3i();
+        int depth = 0;
+        while (depth < rules.getMaxValue()) {
+            byte oldValue = (byte) (rules.getMaxValue() - depth);
+            PositionQueue toProcess = reduceQueues[depth];
+            if (!toProcess.isEmpty()) {
+                reduceQueues[depth] = spareQueue;
+                toProcess.drain(packed -> {
+                    pos.set(PositionQueue.unpackX(packed), PositionQueue.unpackY(packed), PositionQueue.unpackZ(packed));
+                    purge(pos, packed, oldValue);
+                    return true;
+                });
+                spareQueue = toProcess;
+            } else {
+                depth++;
+            }
+        }
+    }
+
+    private void purge(Vector3i pos, long packedPos, byte oldValue) {
+        Block block = world.getBlockAt(pos);
+        increaseQueues[rules.getMaxValue() - oldValue].remove(packedPos);
+        byte fixedValue = rules.getFixedValue(block, pos);
+        if (fixedValue > 0) {
+            increase(pos, fixedValue);
+        } else {
+            world.setValueAt(pos, NO_VALUE);
+        }
+
+        Vector3i adjPos = new Vector3i();
+        for (Side side : SIDES) {
+            byte expectedValue = rules.propagateValue(oldValue, side, block);
+            adjPos.set(pos);
+            adjPos.add(side.getVector3i());
+            if (rules.canSpreadOutOf(block, side)) {
+                byte adjValue = world.getValueAt(adjPos);
+                if (adjValue == expectedValue) {
+                    Block adjBlock = world.getBlockAt(adjPos);
+                    if (rules.canSpreadInto(adjBlock, side.reverse())) {
+                        reduce(adjPos, expectedValue);
+                    }
+                } else if (adjValue > 0) {
+                    queueSpreadValue(adjPos, adjValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Spreads the queued increases chunk by chunk, passing values across chunk borders between passes.
+     */
+    private void processIncrease() {
+        TLongObjectMap<ChunkIncrease> chunks = new TLongObjectHashMap<>();
+        for (int depth = 0; depth < increaseQueues.length; depth++) {
+            int level = depth;
+            increaseQueues[depth].drain(packed -> {
+                getChunkIncrease(chunks, packed).queue(packed, level);
+                return true;
+            });
+        }
+
+        Vector3i pos = new Vector3i();
+        while (!chunks.isEmpty()) {
+            List<ChunkIncrease> pass = Lists.newArrayList(chunks.valueCollection());
+            chunks.clear();
+            if (pass.size() == 1) {
+                pass.get(0).compute();
+            } else {
+                pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(pass)));
+            }
+
+            for (ChunkIncrease chunk : pass) {
+                TLongArrayList outPositions = chunk.outPositions;
+                for (int i = 0; i < outPositions.size(); i++) {
+                    long packed = outPositions.getQuick(i);
+                    byte spreadValue = chunk.outValues.getQuick(i);
+                    Side side = SIDES[chunk.outSides.getQuick(i)];
+                    pos.set(PositionQueue.unpackX(packed), PositionQueue.unpackY(packed), PositionQueue.unpackZ(packed));
+                    byte adjValue = world.getValueAt(pos);
+                    if (adjValue < spreadValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
+                        Block adjBlock = world.getBlockAt(pos);
+                        if (rules.canSpreadInto(adjBlock, side.reverse())) {
+                            world.setValueAt(pos, spreadValue);
+                            if (spreadValue > 1) {
+                                getChunkIncrease(chunks, packed).queue(packed, rules.getMaxValue() - spreadValue);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private ChunkIncrease getChunkIncrease(TLongObjectMap<ChunkIncrease> chunks, long packedPos) {
+        int chunkX = ChunkMath.calcChunkPosX(PositionQueue.unpackX(packedPos));
+        int chunkY = ChunkMath.calcChunkPosY(PositionQueue.unpackY(packedPos));
+        int chunkZ = ChunkMath.calcChunkPosZ(PositionQueue.unpackZ(packedPos));
+        long chunkKey = PositionQueue.pack(chunkX, chunkY, chunkZ);
+        ChunkIncrease chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new ChunkIncrease(chunkX, chunkY, chunkZ);
+            chunks.put(chunkKey, chunk);
+        }
+        return chunk;
+    }
+
+    @Override
+    protected void queueSpreadValue(Vector3i position, byte value) {
+        if (value > 1) {
+            increaseQueues[rules.getMaxValue() - value].add(PositionQueue.pack(position.x, position.y, position.z));
+        }
+    }
+
+    @Override
+    protected void reduce(Vector3i position, byte oldValue) {
+        if (oldValue > 0) {
+            reduceQueues[rules.getMaxValue() - oldValue].add(PositionQueue.pack(position.x, position.y, position.z));
+        }
+    }
+
+    /**
+     * Spreads increases within a single chunk, and records those that cross into other chunks.
+     */
+    private final class ChunkIncrease extends RecursiveAction {
+        private final int chunkX;
+        private final int chunkY;
+        private final int chunkZ;
+        private final PositionQueue[] queues = new PositionQueue[rules.getMaxValue()];
+
+        private final TLongArrayList outPositions = new TLongArrayList();
+        private final TByteArrayList outValues = new TByteArrayList();
+        private final TByteArrayList outSides = new TByteArrayList();
+
+        private ChunkIncrease(int chunkX, int chunkY, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.chunkZ = chunkZ;
+        }
+
+        private void queue(long packedPos, int depth) {
+            if (queues[depth] == null) {
+                queues[depth] = new PositionQueue();
+            }
+            queues[depth].add(packedPos);
+        }
+
+        @Override
+        protected void compute() {
+            Vector3i pos = new Vector3i();
+            Vector3i adjPos = new Vector3i();
+            PositionQueue spare = new PositionQueue();
+            int depth = 0;
+            while (depth < rules.getMaxValue() - 1) {
+                byte value = (byte) (rules.getMaxValue() - depth);
+                PositionQueue toProcess = queues[depth];
+                if (toProcess != null && !toProcess.isEmpty()) {
+                    queues[depth] = spare;
+                    toProcess.drain(packed -> {
+                        pos.set(PositionQueue.unpackX(packed), PositionQueue.unpackY(packed), PositionQueue.unpackZ(packed));
+                        push(pos, adjPos, value);
+                        return true;
+                    });
+                    spare = toProcess;
+                } else {
+                    depth++;
+                }
+            }
+        }
+
+        private void push(Vector3i pos, Vector3i adjPos, byte value) {
+            Block block = world.getBlockAt(pos);
+            for (Side side : SIDES) {
+                byte spreadValue = rules.propagateValue(value, side, block);
+                if (rules.canSpreadOutOf(block, side)) {
+                    adjPos.set(pos);
+                    adjPos.add(side.getVector3i());
+                    if (!isInChunk(adjPos)) {
+                        outPositions.add(PositionQueue.pack(adjPos.x, adjPos.y, adjPos.z));
+                        outValues.add(spreadValue);
+                        outSides.add((byte) side.ordinal());
+                        continue;
+                    }
+                    byte adjValue = world.getValueAt(adjPos);
+                    if (adjValue < spreadValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
+                        Block adjBlock = world.getBlockAt(adjPos);
+                        if (rules.canSpreadInto(adjBlock, side.reverse())) {
+                            world.setValueAt(adjPos, spreadValue);
+                            if (spreadValue > 1) {
+                                queue(PositionQueue.pack(adjPos.x, adjPos.y, adjPos.z), rules.getMaxValue() - spreadValue);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isInChunk(Vector3i position) {
+            return ChunkMath.calcChunkPosX(position.x) == chunkX
+                    && ChunkMath.calcChunkPosY(position.y) == chunkY
+                    && ChunkMath.calcChunkPosZ(position.z) == chunkZ;
+        }
+    }
+}
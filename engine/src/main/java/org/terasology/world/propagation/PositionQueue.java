@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.procedure.TLongProcedure;
+
+/**
+ * Set of block positions packed into longs, which keeps the order in which positions were added.
+ * <br><br>
+ * Used by {@link ParallelBatchPropagator} instead of a LinkedHashSet of {@link org.terasology.math.geom.Vector3i},
+ * so that queueing a position does not allocate. Packed positions support x and z coordinates from -2^23 to 2^23 - 1
+ * and y coordinates from -2^15 to 2^15 - 1.
+ */
+final class PositionQueue {
+    private final TLongArrayList order = new TLongArrayList();
+    /**
+     * The index in order of each queued position, entries of order that don't match are stale
+     */
+    private final TLongIntMap members = new TLongIntHashMap(16, 0.5f, 0L, -1);
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0xFFFFFF) << 40) | ((long) (y & 0xFFFF) << 24) | (z & 0xFFFFFF);
+    }
+
+    static int unpackX(long pos) {
+        return (int) (pos >> 40);
+    }
+
+    static int unpackY(long pos) {
+        return (int) ((pos << 24) >> 48);
+    }
+
+    static int unpackZ(long pos) {
+        return (int) ((pos << 40) >> 40);
+    }
+
+    void add(long pos) {
+        if (!members.containsKey(pos)) {
+            members.put(pos, order.size());
+            order.add(pos);
+        }
+    }
+
+    void remove(long pos) {
+        members.remove(pos);
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * Empties the queue, passing each position to the procedure in the order they were added. A position that was
+     * removed and added again comes in the order of the last addition. Positions added by the procedure are passed on
+     * as well.
+     */
+    void drain(TLongProcedure procedure) {
+        for (int i = 0; i < order.size(); i++) {
+            long pos = order.getQuick(i);
+            if (members.get(pos) == i) {
+                members.remove(pos);
+                procedure.execute(pos);
+            }
+        }
+        order.resetQuick();
+    }
+
+    void clear() {
+        order.resetQuick();
+        members.clear();
+    }
+}
@@ -30,6 +30,8 @@
 import org.terasology.world.propagation.StandardBatchPropagator;
 import org.terasology.world.propagation.SunlightRegenBatchPropagator;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -43,7 +45,11 @@
     private static final Logger logger = LoggerFactory.getLogger(LightMerger.class);
 
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private Future<T> resultFuture;
+    /**
+     * The merges which were begun and not yet completed, in the order they were begun. They run one after another on
+     * the single merge thread, so they complete in this order too.
+     */
+    private final Deque<Future<T>> resultFutures = new ArrayDeque<>();
 
     private GeneratingChunkProvider chunkProvider;
     private LightPropagationRules lightRules = new LightPropagationRules();
@@ -56,18 +62,22 @@ public LightMerger(GeneratingChunkProvider chunkProvider) {
     }
 
     public void beginMerge(final Chunk chunk, final T data) {
-        resultFuture = executorService.submit(() -> {
+        resultFutures.add(executorService.submit(() -> {
             merge(chunk);
             return data;
-        });
+        }));
     }
 
+    /**
+     * Completes the oldest merge, waiting for it if it is still running.
+     *
+     * @return the data the merge was begun with, or null if there is no merge to complete
+     */
     public T completeMerge() {
+        Future<T> resultFuture = resultFutures.poll();
         if (resultFuture != null) {
             try {
-                T result = resultFuture.get();
-                resultFuture = null;
-                return result;
+                return resultFuture.get();
             } catch (InterruptedException | ExecutionException e) {
                 throw new RuntimeException("Error completing lighting merge", e);
             }
@@ -75,6 +85,14 @@ public T completeMerge() {
         return null;
     }
 
+    /**
+     * @return whether {@link #completeMerge()} would return without waiting for the oldest merge
+     */
+    public boolean isMergeDone() {
+        Future<T> resultFuture = resultFutures.peek();
+        return resultFuture == null || resultFuture.isDone();
+    }
+
     private void merge(Chunk chunk) {
         Chunk[] localChunks = assembleLocalChunks(chunk);
         localChunks[CENTER_INDEX] = chunk;
@@ -137,6 +155,7 @@ public void shutdown() {
         } catch (InterruptedException e) {
             logger.error("Failed to shutdown light merge thread in a timely manner");
         }
+        resultFutures.clear();
     }
 
     public void restart() {
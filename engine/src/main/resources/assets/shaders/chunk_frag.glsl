@@ -68,14 +68,29 @@ varying vec3 sunVecView;
 varying vec3 normal;
 
 varying float blockHint;
+varying float atlasTile;
 varying float isUpside;
 
+// Must match the border around each tile of the texture atlas, see BlockMeshPart
+const float TILE_BORDER = 1.0 / 128.0;
+
 uniform sampler2D textureAtlas;
 uniform sampler2D textureEffects;
 uniform sampler2D textureLava;
 
 uniform float clip;
 
+// Merged faces wrap their texture coordinates within the tile, so the implicit derivatives of the wrapped coordinates
+// jump at every wrap and pick the smallest mip level there. Sampling with the derivatives of the unwrapped coordinates
+// keeps the mip level continuous across the face.
+vec4 sampleAtlas(sampler2D atlas, vec2 coord, vec2 coordDx, vec2 coordDy) {
+#if defined (GL_ARB_shader_texture_lod)
+    return texture2DGradARB(atlas, coord, coordDx, coordDy);
+#else
+    return texture2D(atlas, coord);
+#endif
+}
+
 //inverse is not available in GLSL 1.20, so calculate it manually
 mat2 inverse2(mat2 m) {
     float det = m[0][0] * m[1][1] - m[1][0] * m[0][1];
@@ -92,6 +107,18 @@ void main() {
 #endif
 
     vec2 texCoord = gl_TexCoord[0].xy;
+    vec2 atlasCoord = gl_TexCoord[0].xy;
+    vec2 texCorner = floor(gl_TexCoord[0].xy / TEXTURE_OFFSET) * TEXTURE_OFFSET;
+    if (atlasTile > -0.5) {
+        // Merged faces repeat their tile, with texture coordinates given in units of the tile
+        float tile = floor(atlasTile + 0.5);
+        float tilesPerRow = floor(1.0 / TEXTURE_OFFSET + 0.5);
+        texCorner = vec2(mod(tile, tilesPerRow), floor(tile / tilesPerRow)) * TEXTURE_OFFSET;
+        atlasCoord = texCorner + gl_TexCoord[0].xy * TEXTURE_OFFSET;
+        texCoord = texCorner + (mod(gl_TexCoord[0].xy - TILE_BORDER, 1.0 - 2.0 * TILE_BORDER) + TILE_BORDER) * TEXTURE_OFFSET;
+    }
+    vec2 atlasCoordDx = dFdx(atlasCoord);
+    vec2 atlasCoordDy = dFdy(atlasCoord);
 
     vec3 normalizedViewPos = -normalize(vertexViewPos.xyz);
     vec2 projectedPos = projectVertexToTexCoord(vertexProjPos);
@@ -105,14 +132,14 @@ void main() {
     // both view and UV coordinates to screen-space coordinated. The specific relationship between 
     // screen coordinates and view coordinates is irrelevant.
     mat2x3 screenToView = mat2x3(dFdx(vertexViewPos.xyz), dFdy(vertexViewPos.xyz));
-    mat2   screenToUv   = mat2  (dFdx(gl_TexCoord[0].xy), dFdy(gl_TexCoord[0].xy)) / TEXTURE_OFFSET;
+    mat2   screenToUv   = mat2  (atlasCoordDx, atlasCoordDy) / TEXTURE_OFFSET;
     mat2 uvToScreen = inverse2(screenToUv);
     mat2x3 uvToView = screenToView * uvToScreen;
 
 #if defined (PARALLAX_MAPPING)
     vec2 viewDirectionUvProjection = -normalizedViewPos * uvToView;
 
-    float height = parallaxScale * texture2D(textureAtlasHeight, texCoord).r - parallaxBias;
+    float height = parallaxScale * sampleAtlas(textureAtlasHeight, texCoord, atlasCoordDx, atlasCoordDy).r - parallaxBias;
     // Ideally this should be divided by dot(normal, normalizedViewPos), as the offset for texCoord 
     // is the component parallel to the surface of a vector along the view's forward axis, 
     // the other component being a vector perpendicular to the surface and having magnitude "height". 
@@ -121,7 +148,6 @@ void main() {
     texCoord += height * viewDirectionUvProjection * TEXTURE_OFFSET;
 	
     //Crudely prevent the parallax from extending to other textures in the same atlas.
-    vec2 texCorner = floor(gl_TexCoord[0].xy/TEXTURE_OFFSET)*TEXTURE_OFFSET;
     vec2 texSize = vec2(1,1)*TEXTURE_OFFSET*0.9999; //Remain strictly this side of the edge of the texture.
     texCoord = clamp(texCoord, texCorner, texCorner + texSize);
 #endif
@@ -129,10 +155,10 @@ void main() {
     // Normalised but not orthonormalised. It should be orthogonal anyway (except for some non-rectangular 
     // block shapes like torches), but it's not obvious what's the best thing to do when it isn't.
     mat3 uvnSpaceToViewSpace = mat3(normalize(uvToView[0]), normalize(uvToView[1]), normal);
-    normalOpaque = normalize(texture2D(textureAtlasNormal, texCoord).xyz * 2.0 - 1.0);
+    normalOpaque = normalize(sampleAtlas(textureAtlasNormal, texCoord, atlasCoordDx, atlasCoordDy).xyz * 2.0 - 1.0);
     normalOpaque = normalize(uvnSpaceToViewSpace * normalOpaque);
 
-    shininess = texture2D(textureAtlasNormal, texCoord).w;
+    shininess = sampleAtlas(textureAtlasNormal, texCoord, atlasCoordDx, atlasCoordDy).w;
 #endif
 #endif
 
@@ -181,7 +207,7 @@ void main() {
         color = texture2D(textureLava, texCoord.xy);
     /* APPLY DEFAULT TEXTURE FROM ATLAS */
     } else {
-        color = texture2D(textureAtlas, texCoord.xy);
+        color = sampleAtlas(textureAtlas, texCoord.xy, atlasCoordDx, atlasCoordDy);
 
 #if defined FEATURE_ALPHA_REJECT
         if (color.a < 0.1) {
@@ -276,7 +302,7 @@ void main() {
         color.a = 1.0;
     } else {
         vec3 refractionColor = texture2D(texSceneOpaque, projectedPos).rgb;
-        vec4 albedoColor = texture2D(textureAtlas, texCoord.xy);
+        vec4 albedoColor = sampleAtlas(textureAtlas, texCoord.xy, atlasCoordDx, atlasCoordDy);
         albedoColor.rgb *= combinedLightValue;
 
         // TODO: Add support for actual refraction here
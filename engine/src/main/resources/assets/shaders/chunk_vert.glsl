@@ -106,11 +106,17 @@ varying vec3 sunVecView;
 
 varying float isUpside;
 varying float blockHint;
+varying float atlasTile;
+
+// Merged faces carry the index of their atlas tile in multiples of this above the block hint, see GreedyChunkMesher
+const float TILE_FLAG_FACTOR = 16.0;
 
 void main()
 {
 	gl_TexCoord[0] = gl_MultiTexCoord0;
-	blockHint = int(gl_TexCoord[0].z);
+	float packedHint = floor(gl_TexCoord[0].z + 0.5);
+	blockHint = mod(packedHint, TILE_FLAG_FACTOR);
+	atlasTile = floor(packedHint / TILE_FLAG_FACTOR) - 1.0;
 
     gl_TexCoord[1] = gl_MultiTexCoord1;
 
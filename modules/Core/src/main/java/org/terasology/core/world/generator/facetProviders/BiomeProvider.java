@@ -22,6 +22,7 @@
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.Requires;
 import org.terasology.world.generation.facets.SeaLevelFacet;
@@ -38,6 +39,7 @@
     @Facet(SurfaceHeightFacet.class),
     @Facet(SurfaceTemperatureFacet.class),
     @Facet(SurfaceHumidityFacet.class)})
+@PerColumn(BiomeFacet.class)
 public class BiomeProvider implements FacetProvider {
 
     @Override
@@ -19,6 +19,7 @@
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.Requires;
 import org.terasology.world.generation.facets.SeaLevelFacet;
@@ -26,6 +27,7 @@
 
 @Produces(SurfaceHeightFacet.class)
 @Requires(@Facet(SeaLevelFacet.class))
+@PerColumn(SurfaceHeightFacet.class)
 public class FlatSurfaceHeightProvider implements FacetProvider {
     private int height;
 
@@ -33,6 +33,7 @@
 import org.terasology.world.generation.ConfigurableFacetProvider;
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.Requires;
 import org.terasology.world.generation.facets.SeaLevelFacet;
@@ -43,6 +44,7 @@
 
 @Produces(SurfaceHeightFacet.class)
 @Requires(@Facet(SeaLevelFacet.class))
+@PerColumn(SurfaceHeightFacet.class)
 public class HeightMapSurfaceHeightProvider implements ConfigurableFacetProvider {
 
     public enum WrapMode {
@@ -25,6 +25,7 @@
 import org.terasology.world.generation.Border3D;
 import org.terasology.world.generation.ConfigurableFacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.facets.SurfaceHumidityFacet;
 
@@ -32,6 +33,7 @@
  * Defines surface humidity in the range [0..1] based on random noise.
  */
 @Produces(SurfaceHumidityFacet.class)
+@PerColumn(SurfaceHumidityFacet.class)
 public class PerlinHumidityProvider implements ConfigurableFacetProvider {
     private static final int SAMPLE_RATE = 4;
 
@@ -25,6 +25,7 @@
 import org.terasology.world.generation.ConfigurableFacetProvider;
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Updates;
 import org.terasology.world.generation.facets.SurfaceHeightFacet;
 
@@ -32,6 +33,7 @@
  * Applies an amount of the max depth for regions that are oceans
  */
 @Updates(@Facet(SurfaceHeightFacet.class))
+@PerColumn(SurfaceHeightFacet.class)
 public class PerlinOceanProvider implements ConfigurableFacetProvider {
     private static final int SAMPLE_RATE = 4;
 
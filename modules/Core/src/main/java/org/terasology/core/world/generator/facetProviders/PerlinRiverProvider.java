@@ -26,6 +26,7 @@
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Updates;
 import org.terasology.world.generation.facets.SurfaceHeightFacet;
 
@@ -33,6 +34,7 @@
  * Applies an amount of the max depth for regions that are rivers
  */
 @Updates(@Facet(SurfaceHeightFacet.class))
+@PerColumn(SurfaceHeightFacet.class)
 public class PerlinRiverProvider implements FacetProvider, ConfigurableFacetProvider {
     private static final int SAMPLE_RATE = 4;
 
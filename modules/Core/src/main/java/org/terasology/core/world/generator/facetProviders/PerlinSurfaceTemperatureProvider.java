@@ -22,12 +22,14 @@
 import org.terasology.utilities.procedural.SubSampledNoise;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.facets.SurfaceTemperatureFacet;
 
 /**
  */
 @Produces(SurfaceTemperatureFacet.class)
+@PerColumn(SurfaceTemperatureFacet.class)
 public class PerlinSurfaceTemperatureProvider implements FacetProvider {
     private static final int SAMPLE_RATE = 4;
 
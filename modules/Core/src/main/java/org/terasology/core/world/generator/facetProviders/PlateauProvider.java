@@ -23,6 +23,7 @@
 import org.terasology.world.generation.Facet;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Updates;
 import org.terasology.world.generation.facets.SurfaceHeightFacet;
 
@@ -41,6 +42,7 @@
  * </pre>
  */
 @Updates(@Facet(SurfaceHeightFacet.class))
+@PerColumn(SurfaceHeightFacet.class)
 public class PlateauProvider implements FacetProvider {
 
     private final ImmutableVector2i centerPos;
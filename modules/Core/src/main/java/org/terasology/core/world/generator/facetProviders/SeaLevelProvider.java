@@ -18,12 +18,14 @@
 import org.terasology.world.generation.Border3D;
 import org.terasology.world.generation.FacetProvider;
 import org.terasology.world.generation.GeneratingRegion;
+import org.terasology.world.generation.PerColumn;
 import org.terasology.world.generation.Produces;
 import org.terasology.world.generation.facets.SeaLevelFacet;
 
 /**
  */
 @Produces(SeaLevelFacet.class)
+@PerColumn(SeaLevelFacet.class)
 public class SeaLevelProvider implements FacetProvider {
 
     private int seaLevel;